@@ -0,0 +1,75 @@
+package jsci.maths.linalg;
+
+import jsci.maths.MaximumIterationsExceededException;
+import jsci.maths.matrix.DoubleMatrix;
+import jsci.maths.vector.DoubleVector;
+import jsci.util.array.DenseDoubleArray1D;
+import jsci.util.array.DoubleArray1D;
+import jsci.util.array.DoubleArray2D;
+
+/**
+ * The eigenvalues of largest modulus, and their eigenvectors, of a large general matrix,
+ * found by implicitly restarted Arnoldi iteration.
+ * Only products of the matrix with a vector are used.
+ * Eigenvalues and eigenvectors may be complex, and are returned as real and imaginary parts.
+ * A complex conjugate pair is adjacent, the one with positive imaginary part first.
+ * @author Mark
+ */
+public class ArnoldiEigenDecomposition {
+    private static final int DEFAULT_MAX_RESTARTS = 1000;
+    private static final double DEFAULT_TOL = 1.0e-10;
+
+    private final double[] realEigenvalues;
+    private final double[] imagEigenvalues;
+    private final double[][] realEigenvectors;
+    private final double[][] imagEigenvectors;
+
+    public ArnoldiEigenDecomposition(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix, int k) throws MaximumIterationsExceededException {
+        this(new ArrayLinearOperator(matrix), k);
+    }
+    public ArnoldiEigenDecomposition(LinearOperator a, int k) throws MaximumIterationsExceededException {
+        this(a, k, LanczosEigenDecomposition.defaultSubspaceSize(k, a.dimension()), DEFAULT_MAX_RESTARTS, DEFAULT_TOL);
+    }
+    /**
+     * @param k the number of eigenvalues to find
+     * @param ncv the size of the Krylov subspace, k+2 &le; ncv &le; n
+     * @param tol the tolerance on the residual of each eigenvector, relative to the norm of the matrix
+     */
+    public ArnoldiEigenDecomposition(LinearOperator a, int k, int ncv, int maxRestarts, double tol) throws MaximumIterationsExceededException {
+        final int n = a.dimension();
+        if(k < 1 || k > n-2)
+            throw new IllegalArgumentException("Number of eigenvalues must be between 1 and "+(n-2)+": "+k+".");
+        if(ncv < k+2 || ncv > n)
+            throw new IllegalArgumentException("Subspace size must be between "+(k+2)+" and "+n+": "+ncv+".");
+        realEigenvalues = new double[k];
+        imagEigenvalues = new double[k];
+        realEigenvectors = new double[k][];
+        imagEigenvectors = new double[k][];
+        KrylovEigenKernel.arnoldi(a, n, ncv, maxRestarts, tol, null, realEigenvalues, imagEigenvalues, realEigenvectors, imagEigenvectors);
+    }
+
+    /**
+     * Returns the real parts of the eigenvalues, in order of decreasing modulus.
+     */
+    public double[] getRealEigenvalues() {
+        return realEigenvalues;
+    }
+    public double[] getImagEigenvalues() {
+        return imagEigenvalues;
+    }
+    /**
+     * Returns the real parts of the eigenvectors.
+     */
+    public DoubleVector[] getRealEigenvectors() {
+        return toVectors(realEigenvectors);
+    }
+    public DoubleVector[] getImagEigenvectors() {
+        return toVectors(imagEigenvectors);
+    }
+    private static DoubleVector[] toVectors(double[][] arrays) {
+        final DoubleVector[] vectors = new DoubleVector[arrays.length];
+        for(int i=0; i<arrays.length; i++)
+            vectors[i] = new DoubleVector<DenseDoubleArray1D>(new DenseDoubleArray1D(arrays[i]));
+        return vectors;
+    }
+}
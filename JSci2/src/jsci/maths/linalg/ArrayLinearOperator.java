@@ -0,0 +1,60 @@
+package jsci.maths.linalg;
+
+import jsci.maths.matrix.DoubleMatrix;
+import jsci.util.array.ArrayUtilities;
+import jsci.util.array.DoubleArray1D;
+import jsci.util.array.DoubleArray2D;
+import jsci.util.array.SparseDoubleArray2D;
+import jsci.util.array.TransposedDoubleArray2D;
+
+/**
+ * The product of a square array with a vector.
+ * Sparse arrays, and transposes of sparse arrays, are multiplied directly from their compressed rows.
+ * Other arrays are read a block of rows at a time, which is efficient for file-backed arrays.
+ * @author Mark
+ */
+public class ArrayLinearOperator implements LinearOperator {
+    /** Number of elements read in a block. */
+    private static final int BLOCK_SIZE = 1<<16;
+
+    private final DoubleArray2D array;
+
+    public ArrayLinearOperator(DoubleArray2D array) {
+        if(array.rows() != array.columns())
+            throw new IllegalArgumentException("Array is not square.");
+        this.array = array;
+    }
+    public ArrayLinearOperator(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix) {
+        this(matrix.getArray2D());
+    }
+
+    @Override
+    public int dimension() {
+        return array.rows();
+    }
+
+    @Override
+    public void multiply(double[] x, double[] y) {
+        if(array instanceof SparseDoubleArray2D) {
+            ((SparseDoubleArray2D)array).multiply(x, y);
+        } else if(array instanceof TransposedDoubleArray2D && ((TransposedDoubleArray2D<?>)array).getArray() instanceof SparseDoubleArray2D) {
+            ((SparseDoubleArray2D)((TransposedDoubleArray2D<?>)array).getArray()).transposeMultiply(x, y);
+        } else {
+            final int n = array.rows();
+            final int blockRows = Math.max(1, Math.min(n, BLOCK_SIZE/Math.max(n, 1)));
+            double[][] block = new double[blockRows][n];
+            for(int i0=0; i0<n; i0+=blockRows) {
+                if(i0+blockRows > n)
+                    block = new double[n-i0][n];
+                ArrayUtilities.getBlock(array, i0, 0, block);
+                for(int i=0; i<block.length; i++) {
+                    final double[] row = block[i];
+                    double sum = 0.0;
+                    for(int j=0; j<n; j++)
+                        sum += row[j]*x[j];
+                    y[i0+i] = sum;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package jsci.maths.linalg;
+
+import jsci.maths.matrix.DoubleMatrix;
+import jsci.util.array.ArrayUtilities;
+import jsci.util.array.DoubleArray1D;
+import jsci.util.array.DoubleArray2D;
+
+/**
+ * Out-of-core Cholesky decomposition.
+ * Uses a left-looking block-panel algorithm: each panel of columns is read once,
+ * updated by streaming the previously factored panels, factored in memory and written back.
+ * The lower triangle of the matrix is overwritten by L, the upper triangle is not referenced.
+ * This is suited to file-backed arrays (see {@link jsci.util.array.BlockDoubleArray2D}).
+ * @author Mark
+ */
+public class BlockCholeskyDecomposition {
+    private static final int DOUBLE_BYTE_SIZE = 8;
+    private final DoubleArray2D array;
+    private final int N;
+    private final int panelWidth;
+    private double det;
+
+    /**
+     * Matrix must be symmetric and positive definite.
+     * @param matrix the matrix to decompose, its lower triangle is overwritten by L
+     * @param memoryBudget maximum number of bytes to use for panels
+     */
+    public BlockCholeskyDecomposition(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix, long memoryBudget) {
+        this(matrix.getArray2D(), memoryBudget);
+    }
+    /**
+     * Array must be symmetric and positive definite.
+     * @param array the array to decompose, its lower triangle is overwritten by L
+     * @param memoryBudget maximum number of bytes to use for panels
+     */
+    public BlockCholeskyDecomposition(DoubleArray2D array, long memoryBudget) {
+        this.array = array;
+        N = array.rows();
+        // two panels of at most N rows are held in memory
+        panelWidth = (int) Math.max(1L, Math.min(N, memoryBudget/(2L*N*DOUBLE_BYTE_SIZE)));
+        choleskyDecompose();
+    }
+
+    /**
+     * Returns the number of columns in each panel.
+     */
+    public int getPanelWidth() {
+        return panelWidth;
+    }
+    public double det() {
+        return det;
+    }
+
+    private void choleskyDecompose() {
+        det = 1.0;
+        for(int j0=0; j0<N; j0+=panelWidth) {
+            final int w = Math.min(panelWidth, N-j0);
+            final double[][] panel = new double[N-j0][w];
+            ArrayUtilities.getBlock(array, j0, j0, panel);
+            // apply the factored panels to the left
+            double[][] factored = null;
+            for(int k0=0; k0<j0; k0+=panelWidth) {
+                final int kw = Math.min(panelWidth, j0-k0);
+                if(factored == null || factored[0].length != kw)
+                    factored = new double[N-j0][kw];
+                ArrayUtilities.getBlock(array, j0, k0, factored);
+                updatePanel(panel, factored);
+            }
+            factorPanel(panel);
+            ArrayUtilities.setBlock(array, j0, j0, panel);
+        }
+        det *= det;
+    }
+    /**
+     * A<sub>IJ</sub> -= L<sub>IK</sub> L<sub>JK</sub><sup>T</sup> on and below the diagonal.
+     */
+    private static void updatePanel(double[][] panel, double[][] factored) {
+        final int w = panel[0].length;
+        for(int i=0; i<panel.length; i++) {
+            final double[] lrow = factored[i];
+            final double[] row = panel[i];
+            final int cols = Math.min(i+1, w);
+            for(int c=0; c<cols; c++) {
+                final double[] crow = factored[c];
+                double sum = 0.0;
+                for(int k=0; k<lrow.length; k++)
+                    sum += lrow[k]*crow[k];
+                row[c] -= sum;
+            }
+        }
+    }
+    private void factorPanel(double[][] panel) {
+        final int w = panel[0].length;
+        for(int c=0; c<w; c++) {
+            final double d = panel[c][c];
+            if(!(d > 0.0))
+                throw new IllegalArgumentException("Matrix is not positive definite.");
+            final double diag = Math.sqrt(d);
+            panel[c][c] = diag;
+            det *= diag;
+            for(int i=c+1; i<panel.length; i++)
+                panel[i][c] /= diag;
+            for(int cc=c+1; cc<w; cc++) {
+                final double l = panel[cc][c];
+                if(l != 0.0) {
+                    for(int i=cc; i<panel.length; i++)
+                        panel[i][cc] -= panel[i][c]*l;
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves Ax = b, streaming the factor a panel at a time.
+     * @return x
+     */
+    public double[] solve(double[] b) {
+        final double[] x = new double[N];
+        System.arraycopy(b, 0, x, 0, N);
+        // forward substitution
+        for(int k0=0; k0<N; k0+=panelWidth) {
+            final int kw = Math.min(panelWidth, N-k0);
+            final double[][] panel = new double[N-k0][kw];
+            ArrayUtilities.getBlock(array, k0, k0, panel);
+            for(int c=0; c<kw; c++) {
+                final double xk = x[k0+c]/panel[c][c];
+                x[k0+c] = xk;
+                for(int i=c+1; i<panel.length; i++)
+                    x[k0+i] -= panel[i][c]*xk;
+            }
+        }
+        // back substitution
+        for(int k0=(N-1)/panelWidth*panelWidth; k0>=0; k0-=panelWidth) {
+            final int kw = Math.min(panelWidth, N-k0);
+            final double[][] panel = new double[N-k0][kw];
+            ArrayUtilities.getBlock(array, k0, k0, panel);
+            for(int c=kw-1; c>=0; c--) {
+                double tmp = x[k0+c];
+                for(int i=c+1; i<panel.length; i++)
+                    tmp -= panel[i][c]*x[k0+i];
+                x[k0+c] = tmp/panel[c][c];
+            }
+        }
+        return x;
+    }
+}
@@ -0,0 +1,187 @@
+package jsci.maths.linalg;
+
+import jsci.maths.matrix.DoubleMatrix;
+import jsci.util.array.ArrayUtilities;
+import jsci.util.array.DoubleArray1D;
+import jsci.util.array.DoubleArray2D;
+
+/**
+ * Out-of-core LU decomposition with partial pivoting.
+ * Uses a left-looking block-panel algorithm: each panel of columns is read once,
+ * updated by streaming the previously factored panels, factored in memory and written back.
+ * The factors overwrite the matrix storage, which is suited to file-backed arrays
+ * (see {@link jsci.util.array.BlockDoubleArray2D}).
+ * Rows are never physically swapped: logical row <code>i</code> of L and U is stored
+ * in row <code>getPivot()[i]</code> of the array, with the unit diagonal of L implied.
+ * @author Mark
+ */
+public class BlockLUDecomposition {
+    private static final int DOUBLE_BYTE_SIZE = 8;
+    private final DoubleArray2D array;
+    private final int N;
+    private final int panelWidth;
+    private final int[] pivot;
+    private double det;
+
+    /**
+     * @param matrix the matrix to decompose, it is overwritten by the factors
+     * @param memoryBudget maximum number of bytes to use for panels
+     */
+    public BlockLUDecomposition(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix, long memoryBudget) {
+        this(matrix.getArray2D(), memoryBudget);
+    }
+    /**
+     * @param array the array to decompose, it is overwritten by the factors
+     * @param memoryBudget maximum number of bytes to use for panels
+     */
+    public BlockLUDecomposition(DoubleArray2D array, long memoryBudget) {
+        this.array = array;
+        N = array.rows();
+        // two panels of N rows are held in memory
+        panelWidth = (int) Math.max(1L, Math.min(N, memoryBudget/(2L*N*DOUBLE_BYTE_SIZE)));
+        pivot = new int[N+1];
+        luDecompose();
+    }
+
+    /**
+     * Returns an array of length <code>rows()+1</code> containing the pivot information.
+     * The last array element will contain the parity.
+     */
+    public int[] getPivot() {
+        return pivot;
+    }
+    /**
+     * Returns the number of columns in each panel.
+     */
+    public int getPanelWidth() {
+        return panelWidth;
+    }
+    public double det() {
+        return det;
+    }
+
+    private void luDecompose() {
+        for(int i=0; i<N; i++)
+            pivot[i] = i;
+        pivot[N] = 1;
+        det = 1.0;
+        double[][] factored = null;
+        for(int j0=0; j0<N; j0+=panelWidth) {
+            final int w = Math.min(panelWidth, N-j0);
+            final double[][] panel = new double[N][w];
+            ArrayUtilities.getBlock(array, 0, j0, panel);
+            // apply the factored panels to the left
+            for(int k0=0; k0<j0; k0+=panelWidth) {
+                final int kw = Math.min(panelWidth, j0-k0);
+                if(factored == null || factored[0].length != kw)
+                    factored = new double[N][kw];
+                ArrayUtilities.getBlock(array, 0, k0, factored);
+                updatePanel(panel, factored, k0, kw);
+            }
+            factorPanel(panel, j0, w);
+            ArrayUtilities.setBlock(array, 0, j0, panel);
+        }
+        det *= pivot[N];
+    }
+    /**
+     * Solves L<sub>KK</sub> U<sub>KJ</sub> = A<sub>KJ</sub>
+     * then updates A<sub>IJ</sub> -= L<sub>IK</sub> U<sub>KJ</sub> for the rows below.
+     */
+    private void updatePanel(double[][] panel, double[][] factored, int k0, int kw) {
+        final int w = panel[0].length;
+        final int k1 = k0+kw;
+        for(int k=k0; k<k1; k++) {
+            final double[] urow = panel[pivot[k]];
+            for(int i=k+1; i<k1; i++) {
+                final double l = factored[pivot[i]][k-k0];
+                if(l != 0.0) {
+                    final double[] row = panel[pivot[i]];
+                    for(int j=0; j<w; j++)
+                        row[j] -= l*urow[j];
+                }
+            }
+        }
+        for(int i=k1; i<N; i++) {
+            final double[] lrow = factored[pivot[i]];
+            final double[] row = panel[pivot[i]];
+            for(int k=k0; k<k1; k++) {
+                final double l = lrow[k-k0];
+                if(l != 0.0) {
+                    final double[] urow = panel[pivot[k]];
+                    for(int j=0; j<w; j++)
+                        row[j] -= l*urow[j];
+                }
+            }
+        }
+    }
+    private void factorPanel(double[][] panel, int j0, int w) {
+        for(int c=0; c<w; c++) {
+            final int j = j0+c;
+            double max = 0.0;
+            int pivotrow = j;
+            for(int i=j; i<N; i++) {
+                final double tmp = Math.abs(panel[pivot[i]][c]);
+                if(tmp > max) {
+                    max = tmp;
+                    pivotrow = i;
+                }
+            }
+            if(pivotrow != j) {
+                int k = pivot[j];
+                pivot[j] = pivot[pivotrow];
+                pivot[pivotrow] = k;
+                // update parity
+                pivot[N] = -pivot[N];
+            }
+            final double[] prow = panel[pivot[j]];
+            final double diag = prow[c];
+            det *= diag;
+            for(int i=j+1; i<N; i++) {
+                final double[] row = panel[pivot[i]];
+                final double l = row[c]/diag;
+                row[c] = l;
+                if(l != 0.0) {
+                    for(int jj=c+1; jj<w; jj++)
+                        row[jj] -= l*prow[jj];
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves Ax = b, streaming the factors a panel at a time.
+     * @return x
+     */
+    public double[] solve(double[] b) {
+        final double[] x = new double[N];
+        for(int i=0; i<N; i++)
+            x[i] = b[pivot[i]];
+        double[][] panel = null;
+        // forward substitution
+        for(int k0=0; k0<N; k0+=panelWidth) {
+            final int kw = Math.min(panelWidth, N-k0);
+            if(panel == null || panel[0].length != kw)
+                panel = new double[N][kw];
+            ArrayUtilities.getBlock(array, 0, k0, panel);
+            for(int k=k0; k<k0+kw; k++) {
+                final double xk = x[k];
+                for(int i=k+1; i<N; i++)
+                    x[i] -= panel[pivot[i]][k-k0]*xk;
+            }
+        }
+        // back substitution
+        for(int k0=(N-1)/panelWidth*panelWidth; k0>=0; k0-=panelWidth) {
+            final int kw = Math.min(panelWidth, N-k0);
+            if(panel == null || panel[0].length != kw)
+                panel = new double[N][kw];
+            ArrayUtilities.getBlock(array, 0, k0, panel);
+            for(int k=k0+kw-1; k>=k0; k--) {
+                final double xk = x[k]/panel[pivot[k]][k-k0];
+                x[k] = xk;
+                for(int i=0; i<k; i++)
+                    x[i] -= panel[pivot[i]][k-k0]*xk;
+            }
+        }
+        return x;
+    }
+}
@@ -6,40 +6,75 @@ import jsci.util.array.DoubleArray1D;
 import jsci.util.array.DoubleArray2D;
 
 /**
- *
+ * Cholesky decomposition of a symmetric positive definite matrix.
+ * Once constructed, a decomposition can be used to solve for any number of right-hand sides,
+ * concurrently from multiple threads.
  * @author Mark
  */
 public class CholeskyDecomposition {
+    private final double[][] arrayL;
     private DoubleMatrix<DoubleArray2D,DoubleArray1D> L;
     private DoubleMatrix<DoubleArray2D,DoubleArray1D> U;
 
     public CholeskyDecomposition(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix) {
-        choleskyDecompose(matrix);
+        arrayL = choleskyDecompose(matrix);
     }
 
-    public DoubleMatrix<DoubleArray2D,DoubleArray1D> getL() {
+    public synchronized DoubleMatrix<DoubleArray2D,DoubleArray1D> getL() {
+        if(L == null)
+            L = DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(TriangularSolver.copy(arrayL)));
         return L;
     }
-    public DoubleMatrix<DoubleArray2D,DoubleArray1D> getU() {
+    public synchronized DoubleMatrix<DoubleArray2D,DoubleArray1D> getU() {
         if(U == null)
-            U = L.transpose();
+            U = getL().transpose();
         return U;
     }
     public double det() {
-        int n = L.rows();
+        int n = arrayL.length;
         double det = 1.0;
         for(int i=0; i<n; i++)
-                det *= L.getDouble(i,i);
+                det *= arrayL[i][i];
         return det*det;
     }
 
+    /**
+     * Solves Ax=b.
+     */
+    public double[] solve(double[] b) {
+        return TriangularSolver.fromColumn(solve(TriangularSolver.toColumn(b)));
+    }
+    /**
+     * Solves AX=B for all the columns of B at once.
+     * @param b an n&times;k array of right-hand sides
+     * @return the n&times;k solution
+     * @exception IllegalArgumentException If b is not an n&times;k array.
+     */
+    public double[][] solve(double[][] b) {
+        TriangularSolver.checkRightHandSides(b, arrayL.length);
+        final double[][] x = TriangularSolver.copy(b);
+        TriangularSolver.solve(new TriangularSolver.Substitution() {
+            void solve(double[][] x, int colStart, int colEnd) {
+                TriangularSolver.lowerSolve(arrayL, false, x, colStart, colEnd);
+                TriangularSolver.lowerTransposeSolve(arrayL, x, colStart, colEnd);
+            }
+        }, x);
+        return x;
+    }
+    /**
+     * Solves AX=B for all the columns of B at once.
+     */
+    public DoubleMatrix<DoubleArray2D,DoubleArray1D> solve(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> b) {
+        return DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(solve(TriangularSolver.toArray(b))));
+    }
+
         /**
         * Returns the Cholesky decomposition of this matrix.
         * Matrix must be symmetric and positive definite.
-        * @return an array with [0] containing the L-matrix and [1] containing the U-matrix.
+        * @return an array containing the L-matrix.
         * @jsci.planetmath CholeskyDecomposition
         */
-        private void choleskyDecompose(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix) {
+        private double[][] choleskyDecompose(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix) {
                 final int N=matrix.rows();
                 final double arrayL[][]=new double[N][N];
                 double tmp=Math.sqrt(matrix.getDouble(0,0));
@@ -58,34 +93,26 @@ public class CholeskyDecomposition {
                                 arrayL[i][j]=tmp/arrayL[j][j];
                         }
                 }
-                L = DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(arrayL));
+                return arrayL;
         }
 
 
-        public DoubleMatrix inverse() {
-                final int N=L.rows();
-                final double arrayL[][]=new double[N][N];
-                arrayL[0][0]=1.0/L.getDouble(0,0);
-                for(int i=1;i<N;i++) {
-                        arrayL[i][i]=1.0/L.getDouble(i,i);
-                }
-                for(int i=0;i<N-1;i++) {
-                        for(int j=i+1;j<N;j++) {
-                                double tmpL=0.0, tmpU=0.0;
-                                for(int k=i;k<j;k++) {
-                                        tmpL-=L.getDouble(j,k)*arrayL[k][i];
-                                }
-                                arrayL[j][i]=tmpL/L.getDouble(j,j);
-                        }
-                }
-                // matrix multiply arrayU x arrayL
-                final double inv[][]=new double[N][N];
-                for(int i=0;i<N;i++) {
-                        for(int j=0;j<N;j++) {
-                                for(int k=i;k<N;k++)
-                                        inv[i][j]+=arrayL[k][i]*arrayL[k][j];
-                        }
-                }
-                return DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(inv));
-        }
+    /**
+     * Returns the inverse of the matrix, by solving for the columns of the identity in parallel.
+     * Solving is faster and more accurate than multiplying by the inverse,
+     * so prefer {@link #solve(double[][]) solve} where possible.
+     */
+    public DoubleMatrix<DoubleArray2D,DoubleArray1D> inverse() {
+        final int N = arrayL.length;
+        final double[][] inv = new double[N][N];
+        for(int i=0; i<N; i++)
+            inv[i][i] = 1.0;
+        TriangularSolver.solve(new TriangularSolver.Substitution() {
+            void solve(double[][] x, int colStart, int colEnd) {
+                TriangularSolver.lowerSolve(arrayL, false, x, colStart, colEnd);
+                TriangularSolver.lowerTransposeSolve(arrayL, x, colStart, colEnd);
+            }
+        }, inv);
+        return DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(inv));
+    }
 }
@@ -6,16 +6,21 @@ import jsci.util.array.DoubleArray1D;
 import jsci.util.array.DoubleArray2D;
 
 /**
- *
+ * LU decomposition with partial pivoting.
+ * Once constructed, a decomposition can be used to solve for any number of right-hand sides,
+ * concurrently from multiple threads.
  * @author Mark
  */
 public class LUDecomposition {
-    private int[] pivot;
+    private final int[] pivot;
+    /** L (with implied unit diagonal) and U packed into one array, rows in pivot order. */
+    private final double[][] lu;
     private DoubleMatrix<DoubleArray2D,DoubleArray1D> L;
     private DoubleMatrix<DoubleArray2D,DoubleArray1D> U;
 
     public LUDecomposition(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix) {
-        luDecompose(matrix);
+        pivot = new int[matrix.rows()+1];
+        lu = luDecompose(matrix);
     }
 
     /*
@@ -23,120 +28,100 @@ public class LUDecomposition {
     * The last array element will contain the parity.
      */
     public int[] getPivot() {
-        return pivot;
+        return pivot.clone();
     }
-    public DoubleMatrix<DoubleArray2D,DoubleArray1D> getL() {
+    public synchronized DoubleMatrix<DoubleArray2D,DoubleArray1D> getL() {
+        if(L == null) {
+            final int N = lu.length;
+            final double arrayL[][] = new double[N][N];
+            for(int i=0; i<N; i++) {
+                System.arraycopy(lu[i], 0, arrayL[i], 0, i);
+                arrayL[i][i] = 1.0;
+            }
+            L = DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(arrayL));
+        }
         return L;
     }
-    public DoubleMatrix<DoubleArray2D,DoubleArray1D> getU() {
+    public synchronized DoubleMatrix<DoubleArray2D,DoubleArray1D> getU() {
+        if(U == null) {
+            final int N = lu.length;
+            final double arrayU[][] = new double[N][N];
+            for(int i=0; i<N; i++)
+                System.arraycopy(lu[i], i, arrayU[i], i, N-i);
+            U = DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(arrayU));
+        }
         return U;
     }
     public double det() {
-        int n = U.rows();
+        int n = lu.length;
         double det = 1.0;
         for(int i=0; i<n; i++)
-                det *= U.getDouble(i,i);
+                det *= lu[i][i];
         return det*pivot[n];
     }
 
-        /**
-        * Returns the LU decomposition of this matrix.
-        * @return an array with [0] containing the L-matrix
-        * and [1] containing the U-matrix.
-        * @jsci.planetmath LUDecomposition
-        */
-        private void luDecompose(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix) {
-                final int N=matrix.rows();
-                final double arrayU[][]=new double[N][N];
-                pivot=new int[N+1];
-                for(int i=0;i<N;i++) {
-                        pivot[i]=i;
-                }
-                pivot[N]=1;
-        // LU decomposition to arrayU
-                for(int j=0;j<N;j++) {
-                        for(int i=0;i<j;i++) {
-                                double tmp= matrix.getDouble(pivot[i],j);
-                                for(int k=0;k<i;k++)
-                                        tmp-=arrayU[i][k]*arrayU[k][j];
-                                arrayU[i][j]=tmp;
-                        }
-                        double max=0.0;
-                        int pivotrow=j;
-                        for(int i=j;i<N;i++) {
-                                double tmp= matrix.getDouble(pivot[i],j);
-                                for(int k=0;k<j;k++)
-                                        tmp-=arrayU[i][k]*arrayU[k][j];
-                                arrayU[i][j]=tmp;
-                        // while we're here search for a pivot for arrayU[j][j]
-                                tmp=Math.abs(tmp);
-                                if(tmp>max) {
-                                        max=tmp;
-                                        pivotrow=i;
-                                }
-                        }
-                // swap row j with pivotrow
-                        if(pivotrow!=j) {
-                                double[] tmprow = arrayU[j];
-                                arrayU[j] = arrayU[pivotrow];
-                                arrayU[pivotrow] = tmprow;
-                                int k=pivot[j];
-                                pivot[j]=pivot[pivotrow];
-                                pivot[pivotrow]=k;
-                                // update parity
-                                pivot[N]=-pivot[N];
-                        }
-                // divide by pivot
-                        double tmp=arrayU[j][j];
-                        for(int i=j+1;i<N;i++)
-                                arrayU[i][j]/=tmp;
-                }
-                // move lower triangular part to arrayL
-                final double arrayL[][]=new double[N][N];
-                for(int j=0;j<N;j++) {
-                        arrayL[j][j]=1.0;
-                        for(int i=j+1;i<N;i++) {
-                                arrayL[i][j]=arrayU[i][j];
-                                arrayU[i][j]=0.0;
-                        }
-                }
-                L=DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(arrayL));
-                U=DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(arrayU));
-        }
+    /**
+     * Solves Ax=b.
+     */
+    public double[] solve(double[] b) {
+        return TriangularSolver.fromColumn(solve(TriangularSolver.toColumn(b)));
+    }
+    /**
+     * Solves AX=B for all the columns of B at once.
+     * @param b an n&times;k array of right-hand sides
+     * @return the n&times;k solution
+     * @exception IllegalArgumentException If b is not an n&times;k array.
+     */
+    public double[][] solve(double[][] b) {
+        final int N = lu.length;
+        TriangularSolver.checkRightHandSides(b, N);
+        final double[][] x = new double[N][];
+        for(int i=0; i<N; i++)
+            x[i] = b[pivot[i]].clone();
+        TriangularSolver.solve(new TriangularSolver.Substitution() {
+            void solve(double[][] x, int colStart, int colEnd) {
+                TriangularSolver.lowerSolve(lu, true, x, colStart, colEnd);
+                TriangularSolver.upperSolve(lu, x, colStart, colEnd);
+            }
+        }, x);
+        return x;
+    }
+    /**
+     * Solves AX=B for all the columns of B at once.
+     */
+    public DoubleMatrix<DoubleArray2D,DoubleArray1D> solve(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> b) {
+        return DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(solve(TriangularSolver.toArray(b))));
+    }
+
+    /**
+     * Returns the inverse of the matrix.
+     * Solving is faster and more accurate than multiplying by the inverse,
+     * so prefer {@link #solve(double[][]) solve} where possible.
+     */
+    public DoubleMatrix<DoubleArray2D,DoubleArray1D> inverse() {
+        final double[][] inv = TriangularSolver.copy(lu);
+        DenseDoubleInverseKernel.invertUpper(inv);
+        DenseDoubleInverseKernel.solveLower(inv);
+        DenseDoubleInverseKernel.permuteColumns(inv, pivot);
+        return DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(inv));
+    }
 
-        public DoubleMatrix inverse() {
-                final int N=L.rows();
-                final double arrayL[][]=new double[N][N];
-                final double arrayU[][]=new double[N][N];
-                arrayL[0][0]=1.0/L.getDouble(0,0);
-                arrayU[0][0]=1.0/U.getDouble(0,0);
-                for(int i=1;i<N;i++) {
-                        arrayL[i][i]=1.0/L.getDouble(i,i);
-                        arrayU[i][i]=1.0/U.getDouble(i,i);
-                }
-                for(int i=0;i<N-1;i++) {
-                        for(int j=i+1;j<N;j++) {
-                                double tmpL=0.0, tmpU=0.0;
-                                for(int k=i;k<j;k++) {
-                                        tmpL-=L.getDouble(j,k)*arrayL[k][i];
-                                        tmpU-=arrayU[i][k]*U.getDouble(k,j);
-                                }
-                                arrayL[j][i]=tmpL/L.getDouble(j,j);
-                                arrayU[i][j]=tmpU/U.getDouble(j,j);
-                        }
-                }
-                // matrix multiply arrayU x arrayL
-                final double inv[][]=new double[N][N];
-                for(int i=0;i<N;i++) {
-                        for(int j=0;j<i;j++) {
-                                for(int k=i;k<N;k++)
-                                        inv[i][pivot[j]]+=arrayU[i][k]*arrayL[k][j];
-                        }
-                        for(int j=i;j<N;j++) {
-                                for(int k=j;k<N;k++)
-                                        inv[i][pivot[j]]+=arrayU[i][k]*arrayL[k][j];
-                        }
-                }
-                return DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(inv));
+    /**
+     * Inverts a square array in place, using a blocked LU decomposition with partial pivoting.
+     * No other matrix-sized storage is used.
+     * @param a the array to invert, overwritten by its inverse
+     */
+    public static void invert(double[][] a) {
+        for(int i=0; i<a.length; i++) {
+            if(a[i].length != a.length)
+                throw new IllegalArgumentException("Array is not square.");
         }
+        DenseDoubleInverseKernel.invert(a);
+    }
+
+    private double[][] luDecompose(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix) {
+        final double[][] a = TriangularSolver.toArray(matrix);
+        pivot[a.length] = DenseDoubleInverseKernel.luDecompose(a, pivot);
+        return a;
+    }
 }
@@ -0,0 +1,71 @@
+package jsci.maths.linalg;
+
+import jsci.maths.MaximumIterationsExceededException;
+import jsci.maths.matrix.DoubleMatrix;
+import jsci.maths.vector.DoubleVector;
+import jsci.util.array.DenseDoubleArray1D;
+import jsci.util.array.DoubleArray1D;
+import jsci.util.array.DoubleArray2D;
+
+/**
+ * The largest or smallest eigenvalues, and their eigenvectors, of a large symmetric matrix,
+ * found by thick-restart Lanczos iteration.
+ * Only products of the matrix with a vector are used.
+ * Memory use is about ncv+1 vectors, where ncv is the size of the Krylov subspace.
+ * @author Mark
+ */
+public class LanczosEigenDecomposition {
+    private static final int DEFAULT_MAX_RESTARTS = 1000;
+    private static final double DEFAULT_TOL = 1.0e-10;
+
+    private final double[] eigenvalues;
+    private final double[][] eigenvectors;
+    private DoubleVector[] eigenvectorVectors;
+
+    public LanczosEigenDecomposition(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix, int k, boolean largest) throws MaximumIterationsExceededException {
+        this(new ArrayLinearOperator(matrix), k, largest);
+    }
+    public LanczosEigenDecomposition(LinearOperator a, int k, boolean largest) throws MaximumIterationsExceededException {
+        this(a, k, largest, defaultSubspaceSize(k, a.dimension()), DEFAULT_MAX_RESTARTS, DEFAULT_TOL);
+    }
+    /**
+     * @param k the number of eigenvalues to find
+     * @param largest true to find the largest eigenvalues, false to find the smallest
+     * @param ncv the size of the Krylov subspace, k &lt; ncv &le; n (or k = ncv = n)
+     * @param tol the tolerance on the residual of each eigenvector, relative to the norm of the matrix
+     */
+    public LanczosEigenDecomposition(LinearOperator a, int k, boolean largest, int ncv, int maxRestarts, double tol) throws MaximumIterationsExceededException {
+        final int n = a.dimension();
+        if(k < 1 || k > n)
+            throw new IllegalArgumentException("Number of eigenvalues must be between 1 and "+n+": "+k+".");
+        if(ncv > n || (ncv <= k && ncv != n))
+            throw new IllegalArgumentException("Subspace size must be between "+(k+1)+" and "+n+": "+ncv+".");
+        eigenvectors = new double[k][];
+        eigenvalues = KrylovEigenKernel.lanczos(a, n, k, largest, ncv, maxRestarts, tol, null, eigenvectors);
+    }
+
+    static int defaultSubspaceSize(int k, int n) {
+        return Math.min(Math.max(2*k+1, 20), n);
+    }
+
+    /**
+     * Returns the eigenvalues, largest first or smallest first.
+     */
+    public double[] getEigenvalues() {
+        return eigenvalues;
+    }
+    public synchronized DoubleVector[] getEigenvectors() {
+        if(eigenvectorVectors == null) {
+            eigenvectorVectors = new DoubleVector[eigenvectors.length];
+            for(int i=0; i<eigenvectors.length; i++)
+                eigenvectorVectors[i] = new DoubleVector<DenseDoubleArray1D>(new DenseDoubleArray1D(eigenvectors[i]));
+        }
+        return eigenvectorVectors;
+    }
+    /**
+     * Returns the (unit) eigenvectors as arrays, without copying.
+     */
+    public double[][] getEigenvectorArrays() {
+        return eigenvectors;
+    }
+}
@@ -0,0 +1,19 @@
+package jsci.maths.linalg;
+
+/**
+ * A square matrix, known only by its product with a vector.
+ * This is all that iterative methods need,
+ * so they also work on matrices that are sparse, file-backed, transposed or never formed at all.
+ * @author Mark
+ */
+public interface LinearOperator {
+    /**
+     * Returns the number of rows (and columns).
+     */
+    int dimension();
+    /**
+     * Computes y = Ax.
+     * x must not be modified.
+     */
+    void multiply(double[] x, double[] y);
+}
@@ -6,28 +6,81 @@ import jsci.util.array.DoubleArray1D;
 import jsci.util.array.DoubleArray2D;
 
 /**
- *
+ * QR decomposition.
+ * Once constructed, a decomposition can be used to solve for any number of right-hand sides,
+ * concurrently from multiple threads.
  * @author Mark
  */
 public class QRDecomposition {
+    private final double[][] arrayQ;
+    private final double[][] arrayR;
     private DoubleMatrix<DoubleArray2D,DoubleArray1D> Q;
     private DoubleMatrix<DoubleArray2D,DoubleArray1D> R;
 
     public QRDecomposition(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix) {
+        final int N=matrix.rows();
+        arrayQ = new double[N][N];
+        arrayR = new double[N][N];
         qrDecompose(matrix);
     }
 
-    public DoubleMatrix<DoubleArray2D,DoubleArray1D> getQ() {
+    public synchronized DoubleMatrix<DoubleArray2D,DoubleArray1D> getQ() {
+        if(Q == null)
+            Q = DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(TriangularSolver.copy(arrayQ)));
         return Q;
     }
-    public DoubleMatrix<DoubleArray2D,DoubleArray1D> getR() {
+    public synchronized DoubleMatrix<DoubleArray2D,DoubleArray1D> getR() {
+        if(R == null)
+            R = DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(TriangularSolver.copy(arrayR)));
         return R;
     }
 
+    /**
+     * Solves Ax=b.
+     */
+    public double[] solve(double[] b) {
+        return TriangularSolver.fromColumn(solve(TriangularSolver.toColumn(b)));
+    }
+    /**
+     * Solves AX=B for all the columns of B at once, as RX=Q<sup>T</sup>B.
+     * @param b an n&times;k array of right-hand sides
+     * @return the n&times;k solution
+     * @exception IllegalArgumentException If b is not an n&times;k array.
+     */
+    public double[][] solve(final double[][] b) {
+        final int N = arrayQ.length;
+        TriangularSolver.checkRightHandSides(b, N);
+        final double[][] x = new double[N][b.length > 0 ? b[0].length : 0];
+        TriangularSolver.solve(new TriangularSolver.Substitution() {
+            void solve(double[][] x, int colStart, int colEnd) {
+                // x = Q^T b
+                for(int i=0; i<N; i++) {
+                    final double[] qi = arrayQ[i];
+                    final double[] bi = b[i];
+                    for(int j=0; j<N; j++) {
+                        final double qij = qi[j];
+                        if(qij != 0.0) {
+                            final double[] xj = x[j];
+                            for(int c=colStart; c<colEnd; c++)
+                                xj[c] += qij*bi[c];
+                        }
+                    }
+                }
+                TriangularSolver.upperSolve(arrayR, x, colStart, colEnd);
+            }
+        }, x);
+        return x;
+    }
+    /**
+     * Solves AX=B for all the columns of B at once.
+     */
+    public DoubleMatrix<DoubleArray2D,DoubleArray1D> solve(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> b) {
+        return DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(solve(TriangularSolver.toArray(b))));
+    }
+
         /**
         * Returns the QR decomposition of this matrix.
         * Based on the code from <a href="http://math.nist.gov/javanumerics/jama/">JAMA</a> (public domain).
-        * @return an array with [0] containing the Q-matrix and [1] containing the R-matrix.
         * @jsci.planetmath QRDecomposition
         */
         private void qrDecompose(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> matrix) {
@@ -40,8 +93,6 @@ public class QRDecomposition {
                                 array[i][j]=matrix.getDouble(i,j);
                 }
 
-                final double arrayQ[][]=new double[N][N];
-                final double arrayR[][]=new double[N][N];
                 for(int k=0; k<N; k++) {
                         // compute l2-norm of kth column
                         double normSqr = 0.0;
@@ -84,7 +135,5 @@ public class QRDecomposition {
                         for(int j=i+1; j<N; j++)
                                 arrayR[i][j] = array[i][j];
                 }
-                Q = DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(arrayQ));
-                R = DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(arrayR));
         }
 }
@@ -0,0 +1,181 @@
+package jsci.maths.linalg;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import jsci.maths.matrix.DoubleMatrix;
+import jsci.util.array.ArrayUtilities;
+import jsci.util.array.DoubleArray1D;
+import jsci.util.array.DoubleArray2D;
+
+/**
+ * Forward and back substitution for many right-hand sides at once.
+ * The right-hand sides are the columns of a row-major array.
+ * They are split into blocks of columns that fit in cache,
+ * and the blocks are solved in parallel.
+ * @author Mark
+ */
+final class TriangularSolver {
+    /** Number of right-hand sides in a block. */
+    private static final int BLOCK_SIZE = 64;
+    /** Number of multiply-adds below which a solve is done serially. */
+    private static final long PARALLEL_THRESHOLD = 1L<<20;
+
+    private TriangularSolver() {}
+
+    /**
+     * Solves for a block of right-hand sides.
+     */
+    static abstract class Substitution {
+        /**
+         * Overwrites columns <code>colStart</code> to <code>colEnd-1</code> of x with the solution.
+         */
+        abstract void solve(double[][] x, int colStart, int colEnd);
+    }
+
+    /**
+     * Solves for all the columns of x, in place.
+     */
+    static void solve(Substitution s, double[][] x) {
+        final int n = x.length;
+        final int k = (n > 0) ? x[0].length : 0;
+        if((long)n*n*k < PARALLEL_THRESHOLD) {
+            for(int c=0; c<k; c+=BLOCK_SIZE)
+                s.solve(x, c, Math.min(c+BLOCK_SIZE, k));
+        } else {
+            ForkJoinPool.commonPool().invoke(new SolveTask(s, x, 0, k));
+        }
+    }
+
+    /**
+     * Checks that b has n rows, all of the same length.
+     * @exception IllegalArgumentException If b is not an n&times;k array.
+     */
+    static void checkRightHandSides(double[][] b, int n) {
+        if(b.length != n)
+            throw new IllegalArgumentException("Right-hand sides have "+b.length+" rows, expected "+n+".");
+        if(n > 0) {
+            final int k = b[0].length;
+            for(int i=1; i<n; i++) {
+                if(b[i].length != k)
+                    throw new IllegalArgumentException("Right-hand sides are not rectangular: row "+i+" has length "+b[i].length+", expected "+k+".");
+            }
+        }
+    }
+
+    static double[][] toColumn(double[] b) {
+        final double[][] x = new double[b.length][1];
+        for(int i=0; i<b.length; i++)
+            x[i][0] = b[i];
+        return x;
+    }
+    static double[] fromColumn(double[][] x) {
+        final double[] b = new double[x.length];
+        for(int i=0; i<b.length; i++)
+            b[i] = x[i][0];
+        return b;
+    }
+    static double[][] toArray(DoubleMatrix<? extends DoubleArray2D,? extends DoubleArray1D> m) {
+        final double[][] x = new double[m.rows()][m.columns()];
+        ArrayUtilities.getBlock(m.getArray2D(), 0, 0, x);
+        return x;
+    }
+    static double[][] copy(double[][] a) {
+        final double[][] c = new double[a.length][];
+        for(int i=0; i<a.length; i++)
+            c[i] = a[i].clone();
+        return c;
+    }
+
+    /**
+     * Solves L X = X, where L is the lower triangle of l.
+     * @param unitDiagonal if true, the diagonal of L is taken to be one
+     */
+    static void lowerSolve(double[][] l, boolean unitDiagonal, double[][] x, int colStart, int colEnd) {
+        final int n = x.length;
+        for(int i=0; i<n; i++) {
+            final double[] li = l[i];
+            final double[] xi = x[i];
+            for(int k=0; k<i; k++) {
+                final double lik = li[k];
+                if(lik != 0.0) {
+                    final double[] xk = x[k];
+                    for(int c=colStart; c<colEnd; c++)
+                        xi[c] -= lik*xk[c];
+                }
+            }
+            if(!unitDiagonal) {
+                final double d = li[i];
+                for(int c=colStart; c<colEnd; c++)
+                    xi[c] /= d;
+            }
+        }
+    }
+    /**
+     * Solves U X = X, where U is the upper triangle of u.
+     */
+    static void upperSolve(double[][] u, double[][] x, int colStart, int colEnd) {
+        final int n = x.length;
+        for(int i=n-1; i>=0; i--) {
+            final double[] ui = u[i];
+            final double[] xi = x[i];
+            for(int k=i+1; k<n; k++) {
+                final double uik = ui[k];
+                if(uik != 0.0) {
+                    final double[] xk = x[k];
+                    for(int c=colStart; c<colEnd; c++)
+                        xi[c] -= uik*xk[c];
+                }
+            }
+            final double d = ui[i];
+            for(int c=colStart; c<colEnd; c++)
+                xi[c] /= d;
+        }
+    }
+    /**
+     * Solves L<sup>T</sup> X = X, where L is the lower triangle of l.
+     */
+    static void lowerTransposeSolve(double[][] l, double[][] x, int colStart, int colEnd) {
+        final int n = x.length;
+        for(int i=n-1; i>=0; i--) {
+            final double[] li = l[i];
+            final double[] xi = x[i];
+            final double d = li[i];
+            for(int c=colStart; c<colEnd; c++)
+                xi[c] /= d;
+            for(int k=0; k<i; k++) {
+                final double lik = li[k];
+                if(lik != 0.0) {
+                    final double[] xk = x[k];
+                    for(int c=colStart; c<colEnd; c++)
+                        xk[c] -= lik*xi[c];
+                }
+            }
+        }
+    }
+
+    private static final class SolveTask extends RecursiveAction {
+        private final Substitution s;
+        private final double[][] x;
+        private final int colStart, colEnd;
+
+        SolveTask(Substitution s, double[][] x, int colStart, int colEnd) {
+            this.s = s;
+            this.x = x;
+            this.colStart = colStart;
+            this.colEnd = colEnd;
+        }
+
+        @Override
+        protected void compute() {
+            final int blocks = (colEnd-colStart+BLOCK_SIZE-1)/BLOCK_SIZE;
+            if(blocks > 1) {
+                final int mid = colStart + (blocks/2)*BLOCK_SIZE;
+                ForkJoinTask.invokeAll(new SolveTask(s, x, colStart, mid),
+                    new SolveTask(s, x, mid, colEnd));
+            } else {
+                s.solve(x, colStart, colEnd);
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package jsci.maths.matrix.impl;
 
 import jsci.maths.MaximumIterationsExceededException;
 import jsci.maths.linalg.EigenDecomposition;
+import jsci.maths.linalg.LUDecomposition;
 import jsci.maths.vector.impl.AlgorithmsDoubleArray1D;
 import jsci.util.array.DenseDoubleArray2D;
 import jsci.util.array.DoubleArray1D;
@@ -103,6 +104,10 @@ public class AlgorithmsDenseDoubleArray2D extends DenseDoubleArray2D implements
 
     public AlgorithmsDenseDoubleArray2D multiplyOp(AlgorithmsDenseDoubleArray2D a) {
         double[][] arr = new double[a.rows()][columns()];
+        if(DenseDoubleMultiplyKernel.isBlocked(a.rows(), a.columns(), columns())) {
+            DenseDoubleMultiplyKernel.multiply(a.array, this.array, arr);
+            return new AlgorithmsDenseDoubleArray2D(arr);
+        }
         for(int i=0; i<a.rows(); i++) {
             for(int j=0; j<columns(); j++) {
                 double tmp = 0.0;
@@ -138,6 +143,15 @@ public class AlgorithmsDenseDoubleArray2D extends DenseDoubleArray2D implements
         return new AlgorithmsDenseDoubleArray2D(arr);
     }
 
+    /**
+     * Replaces this array by its inverse, in place.
+     * @see LUDecomposition#invert(double[][])
+     */
+    public AlgorithmsDenseDoubleArray2D invert() {
+        LUDecomposition.invert(array);
+        return this;
+    }
+
     public void reductionIteration(int i, DoubleArray1D offdiag) {
                 final int l=i-1;
                 if(l>0) {
@@ -0,0 +1,178 @@
+package jsci.maths.matrix.impl;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Cache-blocked, register-blocked matrix product for dense <code>double[][]</code> arrays.
+ * Panels of the right-hand operand are packed into contiguous memory
+ * and row blocks of the result are computed in parallel on a fork-join pool.
+ * Small products should use a simple loop, see {@link #isBlocked(int,int,int)}.
+ * @author Mark
+ */
+final class DenseDoubleMultiplyKernel {
+    /**
+     * Products with fewer multiply-adds than this use a simple loop.
+     */
+    static final long THRESHOLD = 64L*64L*64L;
+    /** Rows of the result computed by one task. */
+    private static final int MC = 64;
+    /** Depth of a packed panel. */
+    private static final int KC = 256;
+    /** Width of a packed panel. */
+    private static final int NC = 512;
+
+    private DenseDoubleMultiplyKernel() {}
+
+    /**
+     * Returns true if the product of an m x n and an n x p matrix
+     * is big enough to benefit from blocking.
+     */
+    static boolean isBlocked(int m, int n, int p) {
+        return (long)m*(long)n*(long)p >= THRESHOLD;
+    }
+
+    /**
+     * Computes c = a.b.
+     * @param a an m x n array
+     * @param b an n x p array
+     * @param c an m x p array, overwritten with the result
+     */
+    static void multiply(double[][] a, double[][] b, double[][] c) {
+        final int m = a.length;
+        if(m == 0)
+            return;
+        final int n = a[0].length;
+        final int p = b[0].length;
+        for(int i=0; i<m; i++) {
+            final double[] ci = c[i];
+            for(int j=0; j<p; j++)
+                ci[j] = 0.0;
+        }
+        if(m <= MC) {
+            multiplyRows(a, b, c, 0, m, n, p);
+        } else {
+            ForkJoinPool.commonPool().invoke(new MultiplyTask(a, b, c, 0, m, n, p));
+        }
+    }
+
+    /**
+     * Accumulates rows [rowStart, rowEnd) of a.b into c.
+     */
+    private static void multiplyRows(double[][] a, double[][] b, double[][] c, int rowStart, int rowEnd, int n, int p) {
+        final double[] panel = new double[Math.min(KC, n)*Math.min(NC, p)];
+        for(int jj=0; jj<p; jj+=NC) {
+            final int nc = Math.min(NC, p-jj);
+            for(int kk=0; kk<n; kk+=KC) {
+                final int kc = Math.min(KC, n-kk);
+                pack(b, panel, kk, kc, jj, nc);
+                kernel(a, panel, c, rowStart, rowEnd, kk, kc, jj, nc);
+            }
+        }
+    }
+
+    /**
+     * Copies b[kk..kk+kc)[jj..jj+nc) into a contiguous row-major panel.
+     */
+    private static void pack(double[][] b, double[] panel, int kk, int kc, int jj, int nc) {
+        for(int k=0; k<kc; k++)
+            System.arraycopy(b[kk+k], jj, panel, k*nc, nc);
+    }
+
+    /**
+     * Multiplies a row block of a by a packed panel, four rows by four columns at a time.
+     */
+    private static void kernel(double[][] a, double[] panel, double[][] c, int rowStart, int rowEnd, int kk, int kc, int jj, int nc) {
+        final int nc4 = nc - nc%4;
+        int i = rowStart;
+        for(; i+3<rowEnd; i+=4) {
+            final double[] a0 = a[i];
+            final double[] a1 = a[i+1];
+            final double[] a2 = a[i+2];
+            final double[] a3 = a[i+3];
+            final double[] c0 = c[i];
+            final double[] c1 = c[i+1];
+            final double[] c2 = c[i+2];
+            final double[] c3 = c[i+3];
+            int j = 0;
+            for(; j<nc4; j+=4) {
+                double c00=0.0, c01=0.0, c02=0.0, c03=0.0;
+                double c10=0.0, c11=0.0, c12=0.0, c13=0.0;
+                double c20=0.0, c21=0.0, c22=0.0, c23=0.0;
+                double c30=0.0, c31=0.0, c32=0.0, c33=0.0;
+                for(int k=0, pk=j; k<kc; k++, pk+=nc) {
+                    final double b0 = panel[pk];
+                    final double b1 = panel[pk+1];
+                    final double b2 = panel[pk+2];
+                    final double b3 = panel[pk+3];
+                    final double x0 = a0[kk+k];
+                    final double x1 = a1[kk+k];
+                    final double x2 = a2[kk+k];
+                    final double x3 = a3[kk+k];
+                    c00 += x0*b0; c01 += x0*b1; c02 += x0*b2; c03 += x0*b3;
+                    c10 += x1*b0; c11 += x1*b1; c12 += x1*b2; c13 += x1*b3;
+                    c20 += x2*b0; c21 += x2*b1; c22 += x2*b2; c23 += x2*b3;
+                    c30 += x3*b0; c31 += x3*b1; c32 += x3*b2; c33 += x3*b3;
+                }
+                final int cj = jj+j;
+                c0[cj] += c00; c0[cj+1] += c01; c0[cj+2] += c02; c0[cj+3] += c03;
+                c1[cj] += c10; c1[cj+1] += c11; c1[cj+2] += c12; c1[cj+3] += c13;
+                c2[cj] += c20; c2[cj+1] += c21; c2[cj+2] += c22; c2[cj+3] += c23;
+                c3[cj] += c30; c3[cj+1] += c31; c3[cj+2] += c32; c3[cj+3] += c33;
+            }
+            for(; j<nc; j++) {
+                double c00=0.0, c10=0.0, c20=0.0, c30=0.0;
+                for(int k=0, pk=j; k<kc; k++, pk+=nc) {
+                    final double b0 = panel[pk];
+                    c00 += a0[kk+k]*b0;
+                    c10 += a1[kk+k]*b0;
+                    c20 += a2[kk+k]*b0;
+                    c30 += a3[kk+k]*b0;
+                }
+                c0[jj+j] += c00;
+                c1[jj+j] += c10;
+                c2[jj+j] += c20;
+                c3[jj+j] += c30;
+            }
+        }
+        // remaining rows
+        for(; i<rowEnd; i++) {
+            final double[] ai = a[i];
+            final double[] ci = c[i];
+            for(int k=0; k<kc; k++) {
+                final double x = ai[kk+k];
+                final int pk = k*nc;
+                for(int j=0; j<nc; j++)
+                    ci[jj+j] += x*panel[pk+j];
+            }
+        }
+    }
+
+    private static final class MultiplyTask extends RecursiveAction {
+        private final double[][] a, b, c;
+        private final int rowStart, rowEnd;
+        private final int n, p;
+
+        MultiplyTask(double[][] a, double[][] b, double[][] c, int rowStart, int rowEnd, int n, int p) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.n = n;
+            this.p = p;
+        }
+        @Override
+        protected void compute() {
+            final int rows = rowEnd - rowStart;
+            if(rows <= MC) {
+                multiplyRows(a, b, c, rowStart, rowEnd, n, p);
+            } else {
+                // split on a multiple of MC
+                final int mid = rowStart + ((rows/MC+1)/2)*MC;
+                invokeAll(new MultiplyTask(a, b, c, rowStart, mid, n, p),
+                        new MultiplyTask(a, b, c, mid, rowEnd, n, p));
+            }
+        }
+    }
+}
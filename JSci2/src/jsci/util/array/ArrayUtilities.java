@@ -21,6 +21,42 @@ public final class ArrayUtilities {
         }
         return arr;
     }
+    /**
+     * Copies a block of elements into an array,
+     * in bulk if the array supports it.
+     * @param row row index of the top-left corner of the block
+     * @param col column index of the top-left corner of the block
+     * @param block destination, its size determines the size of the block
+     */
+    public static void getBlock(DoubleArray2D arr, int row, int col, double[][] block) {
+        if(arr instanceof BlockDoubleArray2D) {
+            ((BlockDoubleArray2D)arr).getBlock(row, col, block);
+        } else {
+            for(int i=0; i<block.length; i++) {
+                for(int j=0; j<block[i].length; j++) {
+                    block[i][j] = arr.getDouble(row+i, col+j);
+                }
+            }
+        }
+    }
+    /**
+     * Copies an array into a block of elements,
+     * in bulk if the array supports it.
+     * @param row row index of the top-left corner of the block
+     * @param col column index of the top-left corner of the block
+     * @param block source, its size determines the size of the block
+     */
+    public static void setBlock(DoubleArray2D arr, int row, int col, double[][] block) {
+        if(arr instanceof BlockDoubleArray2D) {
+            ((BlockDoubleArray2D)arr).setBlock(row, col, block);
+        } else {
+            for(int i=0; i<block.length; i++) {
+                for(int j=0; j<block[i].length; j++) {
+                    arr.setDouble(row+i, col+j, block[i][j]);
+                }
+            }
+        }
+    }
     private static double random() {
         return 2.0*Math.random()-1.0;
     }
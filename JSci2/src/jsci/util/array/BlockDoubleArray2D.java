@@ -0,0 +1,24 @@
+package jsci.util.array;
+
+/**
+ * An array that can copy rectangular blocks of elements in bulk.
+ * Storage with expensive element access (files) should implement this
+ * so that blocked algorithms can stream whole panels.
+ * @author Mark
+ */
+public interface BlockDoubleArray2D extends DoubleArray2D {
+    /**
+     * Copies a block of elements into an array.
+     * @param row row index of the top-left corner of the block
+     * @param col column index of the top-left corner of the block
+     * @param block destination, its size determines the size of the block
+     */
+    void getBlock(int row, int col, double[][] block);
+    /**
+     * Copies an array into a block of elements.
+     * @param row row index of the top-left corner of the block
+     * @param col column index of the top-left corner of the block
+     * @param block source, its size determines the size of the block
+     */
+    void setBlock(int row, int col, double[][] block);
+}
@@ -4,7 +4,7 @@ package jsci.util.array;
  *
  * @author Mark
  */
-public class DenseDoubleArray2D extends AbstractDoubleArray2D {
+public class DenseDoubleArray2D extends AbstractDoubleArray2D implements BlockDoubleArray2D {
     protected final double[][] array;
 
     public DenseDoubleArray2D(int rows, int cols) {
@@ -31,6 +31,15 @@ public class DenseDoubleArray2D extends AbstractDoubleArray2D {
         array[i][j] = x;
     }
 
+    public void getBlock(int row, int col, double[][] block) {
+        for(int i=0; i<block.length; i++)
+            System.arraycopy(array[row+i], col, block[i], 0, block[i].length);
+    }
+    public void setBlock(int row, int col, double[][] block) {
+        for(int i=0; i<block.length; i++)
+            System.arraycopy(block[i], 0, array[row+i], col, block[i].length);
+    }
+
     public final int rows() {
         return array.length;
     }
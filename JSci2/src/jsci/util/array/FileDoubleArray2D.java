@@ -1,18 +1,15 @@
 package jsci.util.array;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 
 /**
  * Uses an underlying file as storage.
  * @author Mark
  */
-public class FileDoubleArray2D extends AbstractDoubleArray2D {
+public class FileDoubleArray2D extends AbstractDoubleArray2D implements BlockDoubleArray2D {
     private static final int DEFAULT_ROW_BUFFERS = 3;
     private static final boolean DEFAULT_DIAG_BUFFER = true;
     private static final int DOUBLE_BYTE_SIZE = 8;
@@ -72,29 +69,19 @@ public class FileDoubleArray2D extends AbstractDoubleArray2D {
         diagBuffer = (bufferDiag ? new double[Math.min(rows,cols)] : null);
         this.file = new RandomAccessFile(f, "rw");
 
+        // zero fill
+        file.setLength(0L);
+        file.setLength(rows * (long) cols * DOUBLE_BYTE_SIZE);
         if(initArray != null) {
+            ByteBuffer arr = ByteBuffer.allocate(cols*DOUBLE_BYTE_SIZE);
             for(int i=0; i<rows; i++) {
-                ByteArrayOutputStream arr = new ByteArrayOutputStream(cols*DOUBLE_BYTE_SIZE);
-                DataOutputStream out = new DataOutputStream(arr);
-                for(int j=0; j<cols; j++) {
-                    out.writeDouble(initArray[i][j]);
-                }
-                out.close();
-                file.write(arr.toByteArray());
+                arr.clear();
+                arr.asDoubleBuffer().put(initArray[i], 0, cols);
+                file.write(arr.array());
                 if(bufferDiag && i<diagBuffer.length) {
                     diagBuffer[i] = initArray[i][i];
                 }
             }
-        } else {
-            for(int i=0; i<rows; i++) {
-                ByteArrayOutputStream arr = new ByteArrayOutputStream(cols*DOUBLE_BYTE_SIZE);
-                DataOutputStream out = new DataOutputStream(arr);
-                for(int j=0; j<cols; j++) {
-                    out.writeDouble(0.0);
-                }
-                out.close();
-                file.write(arr.toByteArray());
-            }
         }
     }
 
@@ -185,6 +172,71 @@ public class FileDoubleArray2D extends AbstractDoubleArray2D {
         updateHistory(i, j);
     }
 
+    /**
+     * Copies a block of elements into an array, reading a row segment at a time.
+     * @param row row index of the top-left corner of the block
+     * @param col column index of the top-left corner of the block
+     * @param block destination, its size determines the size of the block
+     */
+    public void getBlock(int row, int col, double[][] block) {
+        try {
+            releaseBuffers();
+            byte[] arr = null;
+            for(int i=0; i<block.length; i++) {
+                final int colCount = block[i].length;
+                if(arr == null || arr.length != colCount*DOUBLE_BYTE_SIZE)
+                    arr = new byte[colCount*DOUBLE_BYTE_SIZE];
+                seek(row+i, col);
+                file.readFully(arr);
+                ByteBuffer.wrap(arr).asDoubleBuffer().get(block[i]);
+                final int d = row+i;
+                if(diagBuffer != null && d >= col && d < col+colCount && d < diagBuffer.length)
+                    block[i][d-col] = diagBuffer[d];
+                cacheMisses++;
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
+    }
+    /**
+     * Copies an array into a block of elements, writing a row segment at a time.
+     * @param row row index of the top-left corner of the block
+     * @param col column index of the top-left corner of the block
+     * @param block source, its size determines the size of the block
+     */
+    public void setBlock(int row, int col, double[][] block) {
+        try {
+            releaseBuffers();
+            ByteBuffer arr = null;
+            for(int i=0; i<block.length; i++) {
+                final int colCount = block[i].length;
+                if(arr == null || arr.capacity() != colCount*DOUBLE_BYTE_SIZE)
+                    arr = ByteBuffer.allocate(colCount*DOUBLE_BYTE_SIZE);
+                arr.clear();
+                arr.asDoubleBuffer().put(block[i]);
+                seek(row+i, col);
+                file.write(arr.array());
+                final int d = row+i;
+                if(diagBuffer != null && d >= col && d < col+colCount && d < diagBuffer.length)
+                    diagBuffer[d] = block[i][d-col];
+                cacheMisses++;
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
+    }
+    /**
+     * Writes back and empties the row buffers, so the file can be accessed directly.
+     */
+    private void releaseBuffers() throws IOException {
+        for(int i=0; i<buffers.length; i++) {
+            writeBuffer(i);
+            bufferRows[i] = -1;
+            rowHistory[i] = -1;
+            colHistory[i] = -1;
+        }
+    }
+
     private double[] buffer(int i, int j, int oldCol) throws IOException {
         writeBuffer(buffers.length-1);
         double[] tmp = buffers[buffers.length-1];
@@ -230,13 +282,9 @@ public class FileDoubleArray2D extends AbstractDoubleArray2D {
             int endCol = bufferEndCols[bufferRow];
             seek(bufferRows[bufferRow], startCol);
             int colCount = endCol - startCol;
-            ByteArrayOutputStream arr = new ByteArrayOutputStream(colCount*DOUBLE_BYTE_SIZE);
-            DataOutputStream out = new DataOutputStream(arr);
-            for(int j=startCol; j<endCol; j++) {
-                out.writeDouble(buffers[bufferRow][j]);
-            }
-            out.close();
-            file.write(arr.toByteArray());
+            ByteBuffer arr = ByteBuffer.allocate(colCount*DOUBLE_BYTE_SIZE);
+            arr.asDoubleBuffer().put(buffers[bufferRow], startCol, colCount);
+            file.write(arr.array());
         }
     }
     private void readBuffer(int bufferRow, int i, int startCol, int endCol) throws IOException {
@@ -246,11 +294,7 @@ public class FileDoubleArray2D extends AbstractDoubleArray2D {
         int colCount = endCol - startCol;
         byte[] arr = new byte[colCount*DOUBLE_BYTE_SIZE];
         file.readFully(arr);
-        DataInputStream in = new DataInputStream(new ByteArrayInputStream(arr));
-        for (int j=startCol; j<endCol; j++) {
-            buffers[bufferRow][j] = in.readDouble();
-        }
-        in.close();
+        ByteBuffer.wrap(arr).asDoubleBuffer().get(buffers[bufferRow], startCol, colCount);
         cacheMisses++;
     }
 
@@ -290,7 +334,7 @@ public class FileDoubleArray2D extends AbstractDoubleArray2D {
         for(int i=0; i<buffers.length; i++)
             writeBuffer(i);
         if(diagBuffer != null) {
-            for(int i=0; i<rows; i++)
+            for(int i=0; i<diagBuffer.length; i++)
                 write(i, i, diagBuffer[i]);
         }
         file.close();
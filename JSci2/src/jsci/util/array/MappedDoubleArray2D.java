@@ -0,0 +1,168 @@
+package jsci.util.array;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Uses a memory-mapped file as storage.
+ * The file has the same row-major big-endian layout as {@link FileDoubleArray2D}
+ * and is mapped in segments of whole rows, so arrays larger than 2GB are supported
+ * and each row can be accessed without copying.
+ * @author Mark
+ */
+public class MappedDoubleArray2D extends AbstractDoubleArray2D implements BlockDoubleArray2D {
+    private static final int DOUBLE_BYTE_SIZE = 8;
+    private static final long DEFAULT_SEGMENT_SIZE = 1L<<30;
+    private final int rows;
+    private final int cols;
+    private final RandomAccessFile file;
+    private final int rowsPerSegment;
+    private final MappedByteBuffer[] mappings;
+    private final DoubleBuffer[] segments;
+
+    /**
+     * Maps an existing file, or creates a new one.
+     */
+    public MappedDoubleArray2D(int rows, int cols, File f) throws IOException {
+        this(rows, cols, f, DEFAULT_SEGMENT_SIZE, null);
+    }
+    /**
+     * @param segmentSize maximum number of bytes in each mapping
+     */
+    public MappedDoubleArray2D(int rows, int cols, File f, long segmentSize) throws IOException {
+        this(rows, cols, f, segmentSize, null);
+    }
+    public MappedDoubleArray2D(int rows, int cols, String filename) throws IOException {
+        this(rows, cols, new File(filename));
+    }
+    public MappedDoubleArray2D(int rows, int cols) throws IOException {
+        this(rows, cols, createTempMatrixFile(), DEFAULT_SEGMENT_SIZE, null);
+    }
+    public MappedDoubleArray2D(double[][] array) throws IOException {
+        this(array.length, array.length == 0 ? 0 : array[0].length, createTempMatrixFile(), DEFAULT_SEGMENT_SIZE, array);
+    }
+    private static File createTempMatrixFile() throws IOException {
+        File tmp = File.createTempFile("jsci", ".matrix");
+        tmp.deleteOnExit();
+        return tmp;
+    }
+    private MappedDoubleArray2D(int rows, int cols, File f, long segmentSize, double[][] initArray) throws IOException {
+        this.rows = rows;
+        this.cols = cols;
+        final long rowBytes = cols * (long) DOUBLE_BYTE_SIZE;
+        if(rowBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Rows are too long to map: "+cols);
+        this.file = new RandomAccessFile(f, "rw");
+        if(rowBytes == 0L) {
+            // no columns: nothing to map, every row is an empty buffer
+            rowsPerSegment = Math.max(1, rows);
+            mappings = new MappedByteBuffer[0];
+            segments = new DoubleBuffer[] {DoubleBuffer.allocate(0)};
+            return;
+        }
+        segmentSize = Math.min(segmentSize, Integer.MAX_VALUE);
+        rowsPerSegment = (int) Math.max(1L, Math.min(rows, segmentSize/rowBytes));
+        final int numSegments = (rows + rowsPerSegment - 1)/rowsPerSegment;
+        mappings = new MappedByteBuffer[numSegments];
+        segments = new DoubleBuffer[numSegments];
+
+        final long length = rows * rowBytes;
+        if(file.length() < length)
+            file.setLength(length);
+        FileChannel channel = file.getChannel();
+        for(int s=0; s<numSegments; s++) {
+            final int segRows = Math.min(rowsPerSegment, rows - s*rowsPerSegment);
+            mappings[s] = channel.map(FileChannel.MapMode.READ_WRITE, s*rowsPerSegment*rowBytes, segRows*rowBytes);
+            segments[s] = mappings[s].asDoubleBuffer();
+        }
+
+        if(initArray != null) {
+            for(int i=0; i<rows; i++)
+                setRow(i, initArray[i]);
+        }
+    }
+
+    @Override
+    public MappedDoubleArray2D create(int rows, int cols) {
+        try {
+            return new MappedDoubleArray2D(rows, cols);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public double getDouble(int i, int j) {
+        return segments[i/rowsPerSegment].get((i%rowsPerSegment)*cols + j);
+    }
+
+    public void setDouble(int i, int j, double x) {
+        segments[i/rowsPerSegment].put((i%rowsPerSegment)*cols + j, x);
+    }
+
+    /**
+     * Returns a view of a row, backed directly by the mapped file.
+     */
+    public DoubleBuffer getRow(int i) {
+        final int offset = (i%rowsPerSegment)*cols;
+        DoubleBuffer row = segments[i/rowsPerSegment].duplicate();
+        row.limit(offset+cols);
+        row.position(offset);
+        return row.slice();
+    }
+    /**
+     * Copies a row into an array.
+     */
+    public void getRow(int i, double[] row) {
+        getRow(i).get(row, 0, cols);
+    }
+    /**
+     * Copies an array into a row.
+     */
+    public void setRow(int i, double[] row) {
+        getRow(i).put(row, 0, cols);
+    }
+
+    public void getBlock(int row, int col, double[][] block) {
+        for(int i=0; i<block.length; i++) {
+            DoubleBuffer buf = getRow(row+i);
+            buf.position(col);
+            buf.get(block[i]);
+        }
+    }
+    public void setBlock(int row, int col, double[][] block) {
+        for(int i=0; i<block.length; i++) {
+            DoubleBuffer buf = getRow(row+i);
+            buf.position(col);
+            buf.put(block[i]);
+        }
+    }
+
+    /**
+     * Writes any changes to the file.
+     */
+    public void flush() {
+        for(int s=0; s<mappings.length; s++)
+            mappings[s].force();
+    }
+
+    /**
+     * Writes any changes to the file and closes it.
+     * The array must not be used after it has been closed.
+     */
+    public void close() throws IOException {
+        flush();
+        file.close();
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int columns() {
+        return cols;
+    }
+}
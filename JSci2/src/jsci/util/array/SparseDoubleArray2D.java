@@ -75,6 +75,19 @@ public class SparseDoubleArray2D extends AbstractDoubleArray2D {
             this.capacityIncrement = capacityIncrement;
         }
 
+        /**
+         * Wraps compressed row storage arrays.
+         */
+        SparseDoubleArray2D(final int rowCount, final int colCount, double[] elements, int[] colPos, int[] rows, double zeroTol, int capacityIncrement) {
+            numRows = rowCount;
+            numCols = colCount;
+            this.elements = elements;
+            this.colPos = colPos;
+            this.rows = rows;
+            this.zeroTol = zeroTol;
+            this.capacityIncrement = capacityIncrement;
+        }
+
         @Override
     public SparseDoubleArray2D create(int rows, int cols) {
         return new SparseDoubleArray2D(rows, cols, zeroTol, capacityIncrement);
@@ -235,6 +248,32 @@ public class SparseDoubleArray2D extends AbstractDoubleArray2D {
         }
     }
 
+    /**
+     * Computes y = Ax, without allocating.
+     */
+    public void multiply(double[] x, double[] y) {
+        for(int i=0; i<numRows; i++) {
+            double sum = 0.0;
+            for(int p=rows[i]; p<rows[i+1]; p++)
+                sum += elements[p]*x[colPos[p]];
+            y[i] = sum;
+        }
+    }
+    /**
+     * Computes y = A<sup>T</sup>x, without allocating.
+     */
+    public void transposeMultiply(double[] x, double[] y) {
+        for(int j=0; j<numCols; j++)
+            y[j] = 0.0;
+        for(int i=0; i<numRows; i++) {
+            final double xi = x[i];
+            if(xi != 0.0) {
+                for(int p=rows[i]; p<rows[i+1]; p++)
+                    y[colPos[p]] += elements[p]*xi;
+            }
+        }
+    }
+
     public int rows() {
         return numRows;
     }
@@ -0,0 +1,251 @@
+package jsci.util.array;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Assembles a {@link SparseDoubleArray2D} in bulk.
+ * Elements are collected as coordinate (COO) triplets, in any order,
+ * and duplicates are summed when the array is built.
+ * Rows can also be appended one at a time, as in finite element assembly,
+ * in which case the triplets do not need to be grouped by row.
+ * @author Mark
+ */
+public class SparseDoubleArray2DBuilder {
+    private static final int PARALLEL_THRESHOLD = 1<<15;
+    private final int numRows;
+    private final int numCols;
+    private final double zeroTol;
+    private int[] rowIdx;
+    private int[] colIdx;
+    private double[] values;
+    private int size;
+    /** Index of the last row added to. */
+    private int lastRow = -1;
+    /** True if the triplets have non-decreasing row indices. */
+    private boolean rowOrdered = true;
+
+    public SparseDoubleArray2DBuilder(int rows, int cols) {
+        this(rows, cols, 0.0, 16);
+    }
+    /**
+     * @param zeroTol elements that sum to within this of zero are not stored
+     * @param capacity the expected number of elements
+     */
+    public SparseDoubleArray2DBuilder(int rows, int cols, double zeroTol, int capacity) {
+        this.numRows = rows;
+        this.numCols = cols;
+        this.zeroTol = zeroTol;
+        rowIdx = new int[Math.max(capacity, 1)];
+        colIdx = new int[rowIdx.length];
+        values = new double[rowIdx.length];
+    }
+
+    public int rows() {
+        return numRows;
+    }
+
+    public int columns() {
+        return numCols;
+    }
+
+    /**
+     * Returns the number of elements added so far, including duplicates.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if(capacity > rowIdx.length) {
+            final int newLength = Math.max(capacity, 2*rowIdx.length);
+            rowIdx = Arrays.copyOf(rowIdx, newLength);
+            colIdx = Arrays.copyOf(colIdx, newLength);
+            values = Arrays.copyOf(values, newLength);
+        }
+    }
+
+    private void checkIndex(int i, int j) {
+        if(i < 0 || i >= numRows || j < 0 || j >= numCols)
+            throw new IndexOutOfBoundsException("Invalid element ("+i+","+j+")");
+    }
+
+    /**
+     * Adds a value to an element.
+     */
+    public void addTo(int i, int j, double delta) {
+        checkIndex(i, j);
+        ensureCapacity(size+1);
+        rowIdx[size] = i;
+        colIdx[size] = j;
+        values[size] = delta;
+        size++;
+        if(i < lastRow)
+            rowOrdered = false;
+        else
+            lastRow = i;
+    }
+
+    /**
+     * Appends the next row, the one after the last row added to.
+     * The columns can be in any order, and duplicates are summed.
+     * @param cols column indices of the elements
+     * @param x values of the elements
+     * @param count number of elements
+     * @return the index of the row
+     */
+    public int appendRow(int[] cols, double[] x, int count) {
+        final int i = lastRow+1;
+        if(i >= numRows)
+            throw new IllegalStateException("All "+numRows+" rows have been added");
+        ensureCapacity(size+count);
+        for(int n=0; n<count; n++) {
+            checkIndex(i, cols[n]);
+            rowIdx[size+n] = i;
+            colIdx[size+n] = cols[n];
+            values[size+n] = x[n];
+        }
+        size += count;
+        lastRow = i;
+        return i;
+    }
+    public int appendRow(int[] cols, double[] x) {
+        return appendRow(cols, x, cols.length);
+    }
+
+    /**
+     * Builds the array and empties this builder.
+     * The triplets are grouped by row with a counting sort (skipped if they are already in row order),
+     * then each row is sorted by column and duplicates summed, in parallel.
+     */
+    public SparseDoubleArray2D build() {
+        return build(1);
+    }
+    /**
+     * Builds the array and empties this builder.
+     * @param capacityIncrement capacity increment of the array
+     */
+    public SparseDoubleArray2D build(int capacityIncrement) {
+        final int[] offsets = new int[numRows+1];
+        for(int n=0; n<size; n++)
+            offsets[rowIdx[n]+1]++;
+        for(int i=0; i<numRows; i++)
+            offsets[i+1] += offsets[i];
+        int[] cols = colIdx;
+        double[] vals = values;
+        if(!rowOrdered) {
+            final int[] next = Arrays.copyOf(offsets, numRows);
+            cols = new int[size];
+            vals = new double[size];
+            for(int n=0; n<size; n++) {
+                final int q = next[rowIdx[n]]++;
+                cols[q] = colIdx[n];
+                vals[q] = values[n];
+            }
+        }
+        final int[] counts = new int[numRows];
+        final MergeTask task = new MergeTask(offsets, cols, vals, counts, 0, numRows);
+        if(size < PARALLEL_THRESHOLD)
+            task.compute();
+        else
+            ForkJoinPool.commonPool().invoke(task);
+
+        final int[] rows = new int[numRows+1];
+        for(int i=0; i<numRows; i++)
+            rows[i+1] = rows[i]+counts[i];
+        final double[] elements = new double[rows[numRows]];
+        final int[] colPos = new int[rows[numRows]];
+        for(int i=0; i<numRows; i++) {
+            System.arraycopy(vals, offsets[i], elements, rows[i], counts[i]);
+            System.arraycopy(cols, offsets[i], colPos, rows[i], counts[i]);
+        }
+        rowIdx = new int[1];
+        colIdx = new int[1];
+        values = new double[1];
+        size = 0;
+        lastRow = -1;
+        rowOrdered = true;
+        return new SparseDoubleArray2D(numRows, numCols, elements, colPos, rows, zeroTol, capacityIncrement);
+    }
+
+    /**
+     * Sorts each row by column and sums duplicates, splitting the rows by element count.
+     */
+    private final class MergeTask extends RecursiveAction {
+        private final int[] offsets;
+        private final int[] cols;
+        private final double[] vals;
+        private final int[] counts;
+        private final int rowStart, rowEnd;
+
+        MergeTask(int[] offsets, int[] cols, double[] vals, int[] counts, int rowStart, int rowEnd) {
+            this.offsets = offsets;
+            this.cols = cols;
+            this.vals = vals;
+            this.counts = counts;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+        }
+
+        @Override
+        protected void compute() {
+            if(rowEnd-rowStart > 1 && offsets[rowEnd]-offsets[rowStart] > PARALLEL_THRESHOLD/2) {
+                // split at the middle element
+                final int target = (offsets[rowStart]+offsets[rowEnd]) >>> 1;
+                int mid = Arrays.binarySearch(offsets, rowStart, rowEnd, target);
+                if(mid < 0)
+                    mid = -mid-1;
+                mid = Math.max(rowStart+1, Math.min(rowEnd-1, mid));
+                ForkJoinTask.invokeAll(new MergeTask(offsets, cols, vals, counts, rowStart, mid),
+                    new MergeTask(offsets, cols, vals, counts, mid, rowEnd));
+            } else {
+                merge();
+            }
+        }
+
+        private void merge() {
+            long[] keys = new long[0];
+            double[] tmp = new double[0];
+            for(int i=rowStart; i<rowEnd; i++) {
+                final int start = offsets[i];
+                final int end = offsets[i+1];
+                boolean sorted = true;
+                for(int n=start+1; n<end && sorted; n++)
+                    sorted = (cols[n-1] <= cols[n]);
+                if(!sorted) {
+                    // sort by column, keeping the position of each value
+                    final int len = end-start;
+                    if(keys.length < len) {
+                        keys = new long[len];
+                        tmp = new double[len];
+                    }
+                    for(int n=0; n<len; n++)
+                        keys[n] = ((long)cols[start+n] << 32) | n;
+                    Arrays.sort(keys, 0, len);
+                    System.arraycopy(vals, start, tmp, 0, len);
+                    for(int n=0; n<len; n++) {
+                        cols[start+n] = (int) (keys[n] >>> 32);
+                        vals[start+n] = tmp[(int) keys[n]];
+                    }
+                }
+                // merge duplicates
+                int q = start;
+                int n = start;
+                while(n < end) {
+                    final int j = cols[n];
+                    double sum = vals[n++];
+                    while(n < end && cols[n] == j)
+                        sum += vals[n++];
+                    if(Math.abs(sum) > zeroTol) {
+                        cols[q] = j;
+                        vals[q] = sum;
+                        q++;
+                    }
+                }
+                counts[i] = q-start;
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package jsci.util.array;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A bounded write-back cache of fixed-size tiles.
+ * Tiles are loaded from, and dirty tiles written back to, a {@link Store}.
+ * The tile to evict is chosen by an {@link EvictionPolicy}.
+ * Not thread-safe.
+ * @author Mark
+ */
+public class TileCache {
+    /**
+     * Backing storage for tiles.
+     */
+    public interface Store {
+        void readTile(long tile, double[] data) throws IOException;
+        void writeTile(long tile, double[] data) throws IOException;
+    }
+
+    /**
+     * Chooses which cache slot to evict.
+     */
+    public interface EvictionPolicy {
+        /**
+         * Returns a new policy of the same kind for the given number of slots.
+         */
+        EvictionPolicy create(int capacity);
+        /**
+         * Called when a tile is loaded into a slot.
+         */
+        void loaded(int slot);
+        /**
+         * Called when a cached tile is accessed.
+         */
+        void accessed(int slot);
+        /**
+         * Returns the slot to evict, only called when all slots are in use.
+         */
+        int victim();
+    }
+
+    /**
+     * Evicts the least recently used tile.
+     */
+    public static final class LRU implements EvictionPolicy {
+        private final int[] prev;
+        private final int[] next;
+        private int head = -1;
+        private int tail = -1;
+
+        public LRU() {
+            this(0);
+        }
+        private LRU(int capacity) {
+            prev = new int[capacity];
+            next = new int[capacity];
+        }
+        public LRU create(int capacity) {
+            return new LRU(capacity);
+        }
+        public void loaded(int slot) {
+            prev[slot] = -1;
+            next[slot] = head;
+            if(head != -1)
+                prev[head] = slot;
+            head = slot;
+            if(tail == -1)
+                tail = slot;
+        }
+        public void accessed(int slot) {
+            if(slot != head) {
+                unlink(slot);
+                loaded(slot);
+            }
+        }
+        public int victim() {
+            int slot = tail;
+            unlink(slot);
+            return slot;
+        }
+        private void unlink(int slot) {
+            if(prev[slot] != -1)
+                next[prev[slot]] = next[slot];
+            else
+                head = next[slot];
+            if(next[slot] != -1)
+                prev[next[slot]] = prev[slot];
+            else
+                tail = prev[slot];
+        }
+    }
+
+    /**
+     * Second-chance (CLOCK) approximation to LRU.
+     */
+    public static final class Clock implements EvictionPolicy {
+        private final boolean[] referenced;
+        private int hand;
+
+        public Clock() {
+            this(0);
+        }
+        private Clock(int capacity) {
+            referenced = new boolean[capacity];
+        }
+        public Clock create(int capacity) {
+            return new Clock(capacity);
+        }
+        public void loaded(int slot) {
+            referenced[slot] = true;
+        }
+        public void accessed(int slot) {
+            referenced[slot] = true;
+        }
+        public int victim() {
+            while(referenced[hand]) {
+                referenced[hand] = false;
+                hand = (hand+1) % referenced.length;
+            }
+            int slot = hand;
+            hand = (hand+1) % referenced.length;
+            return slot;
+        }
+    }
+
+    private final Store store;
+    private final EvictionPolicy policy;
+    private final double[][] data;
+    private final long[] tiles;
+    private final boolean[] dirty;
+    private final Map<Long,Integer> slots;
+    private int size;
+    private long lastTile = -1;
+    private int lastSlot = -1;
+    private long hits;
+    private long misses;
+    private long writeBacks;
+
+    /**
+     * @param tileLength number of elements in a tile
+     * @param capacity maximum number of cached tiles
+     * @param policy prototype eviction policy
+     */
+    public TileCache(Store store, int tileLength, int capacity, EvictionPolicy policy) {
+        if(capacity < 1)
+            throw new IllegalArgumentException("Capacity must be at least one tile.");
+        this.store = store;
+        this.policy = policy.create(capacity);
+        data = new double[capacity][tileLength];
+        tiles = new long[capacity];
+        dirty = new boolean[capacity];
+        slots = new HashMap<Long,Integer>(2*capacity);
+    }
+
+    /**
+     * Returns the cached data of a tile, loading it if necessary.
+     * @param write true if the data will be modified
+     */
+    public double[] get(long tile, boolean write) throws IOException {
+        int slot;
+        if(tile == lastTile) {
+            slot = lastSlot;
+            hits++;
+        } else {
+            Integer cached = slots.get(tile);
+            if(cached != null) {
+                slot = cached.intValue();
+                policy.accessed(slot);
+                hits++;
+            } else {
+                slot = load(tile);
+                misses++;
+            }
+            lastTile = tile;
+            lastSlot = slot;
+        }
+        if(write)
+            dirty[slot] = true;
+        return data[slot];
+    }
+
+    private int load(long tile) throws IOException {
+        int slot;
+        if(size < data.length) {
+            slot = size++;
+        } else {
+            slot = policy.victim();
+            writeBack(slot);
+            slots.remove(tiles[slot]);
+        }
+        store.readTile(tile, data[slot]);
+        tiles[slot] = tile;
+        dirty[slot] = false;
+        slots.put(tile, slot);
+        policy.loaded(slot);
+        return slot;
+    }
+
+    private void writeBack(int slot) throws IOException {
+        if(dirty[slot]) {
+            store.writeTile(tiles[slot], data[slot]);
+            dirty[slot] = false;
+            writeBacks++;
+        }
+    }
+
+    /**
+     * Writes all dirty tiles back to the store.
+     */
+    public void flush() throws IOException {
+        for(int slot=0; slot<size; slot++)
+            writeBack(slot);
+    }
+
+    public long getHits() {
+        return hits;
+    }
+    public long getMisses() {
+        return misses;
+    }
+    public long getWriteBacks() {
+        return writeBacks;
+    }
+}
@@ -0,0 +1,201 @@
+package jsci.util.array;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * Uses an underlying file as storage, laid out as square tiles.
+ * Each tile is stored contiguously (row-major within the tile, tiles in row-major order),
+ * so row and column access patterns cost the same number of reads.
+ * Tiles are held in a bounded {@link TileCache}.
+ * @author Mark
+ */
+public class TiledFileDoubleArray2D extends AbstractDoubleArray2D implements BlockDoubleArray2D {
+    private static final int DEFAULT_TILE_SIZE = 128;
+    private static final int DEFAULT_CACHE_TILES = 64;
+    private static final int DOUBLE_BYTE_SIZE = 8;
+    private final int rows;
+    private final int cols;
+    private final int tileSize;
+    private final int tileCols;
+    private final RandomAccessFile file;
+    private final TileCache.EvictionPolicy policy;
+    private final int cacheTiles;
+    private final TileCache cache;
+    private final byte[] ioBuffer;
+
+    /**
+     * @param tileSize number of rows and columns in a tile
+     * @param cacheTiles number of tiles to cache
+     * @param policy eviction policy for the tile cache
+     */
+    public TiledFileDoubleArray2D(int rows, int cols, File f, int tileSize, int cacheTiles, TileCache.EvictionPolicy policy) throws IOException {
+        this(rows, cols, f, tileSize, cacheTiles, policy, true, null);
+    }
+    /**
+     * Opens an existing tiled file, or creates a new zero-filled one.
+     * An existing file must have been written with the same dimensions and tile size.
+     * @param create true to create a new zero-filled file (truncating any existing one),
+     * false to open an existing file without modifying it
+     * @throws IOException if the file is opened and its length does not match the dimensions and tile size
+     */
+    public TiledFileDoubleArray2D(int rows, int cols, File f, int tileSize, int cacheTiles, TileCache.EvictionPolicy policy, boolean create) throws IOException {
+        this(rows, cols, f, tileSize, cacheTiles, policy, create, null);
+    }
+    public TiledFileDoubleArray2D(int rows, int cols, String filename, int tileSize, int cacheTiles, TileCache.EvictionPolicy policy) throws IOException {
+        this(rows, cols, new File(filename), tileSize, cacheTiles, policy);
+    }
+    public TiledFileDoubleArray2D(int rows, int cols) throws IOException {
+        this(rows, cols, createTempMatrixFile(), DEFAULT_TILE_SIZE, DEFAULT_CACHE_TILES, new TileCache.LRU(), true, null);
+    }
+    public TiledFileDoubleArray2D(double[][] array) throws IOException {
+        this(array.length, array[0].length, createTempMatrixFile(), DEFAULT_TILE_SIZE, DEFAULT_CACHE_TILES, new TileCache.LRU(), true, array);
+    }
+    private static File createTempMatrixFile() throws IOException {
+        File tmp = File.createTempFile("jsci", ".matrix");
+        tmp.deleteOnExit();
+        return tmp;
+    }
+    private TiledFileDoubleArray2D(int rows, int cols, File f, int tileSize, int cacheTiles, TileCache.EvictionPolicy policy, boolean create, double[][] initArray) throws IOException {
+        this.rows = rows;
+        this.cols = cols;
+        this.tileSize = tileSize;
+        this.tileCols = (cols + tileSize - 1)/tileSize;
+        final int tileRows = (rows + tileSize - 1)/tileSize;
+        this.policy = policy;
+        this.cacheTiles = cacheTiles;
+        this.ioBuffer = new byte[tileSize*tileSize*DOUBLE_BYTE_SIZE];
+        final long length = tileRows * (long) tileCols * ioBuffer.length;
+        if(create) {
+            this.file = new RandomAccessFile(f, "rw");
+            // zero fill
+            file.setLength(0L);
+            file.setLength(length);
+        } else {
+            if(!f.isFile())
+                throw new FileNotFoundException(f.toString());
+            this.file = new RandomAccessFile(f, "rw");
+            if(file.length() != length) {
+                final long actual = file.length();
+                file.close();
+                throw new IOException("File length "+actual+" does not match a "+rows+"x"+cols+" array with tile size "+tileSize+": expected "+length);
+            }
+        }
+        this.cache = new TileCache(new TileCache.Store() {
+            public void readTile(long tile, double[] data) throws IOException {
+                file.seek(tile*ioBuffer.length);
+                file.readFully(ioBuffer);
+                ByteBuffer.wrap(ioBuffer).asDoubleBuffer().get(data);
+            }
+            public void writeTile(long tile, double[] data) throws IOException {
+                ByteBuffer.wrap(ioBuffer).asDoubleBuffer().put(data);
+                file.seek(tile*ioBuffer.length);
+                file.write(ioBuffer);
+            }
+        }, tileSize*tileSize, cacheTiles, policy);
+
+        if(initArray != null)
+            setBlock(0, 0, initArray);
+    }
+
+    @Override
+    public TiledFileDoubleArray2D create(int rows, int cols) {
+        try {
+            return new TiledFileDoubleArray2D(rows, cols, createTempMatrixFile(), tileSize, cacheTiles, policy, true, null);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private double[] tile(int i, int j, boolean write) {
+        try {
+            return cache.get((i/tileSize) * (long) tileCols + j/tileSize, write);
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
+    }
+
+    public double getDouble(int i, int j) {
+        return tile(i, j, false)[(i%tileSize)*tileSize + j%tileSize];
+    }
+
+    public void setDouble(int i, int j, double x) {
+        tile(i, j, true)[(i%tileSize)*tileSize + j%tileSize] = x;
+    }
+
+    /**
+     * Copies a block of elements into an array, a tile at a time.
+     * @param row row index of the top-left corner of the block
+     * @param col column index of the top-left corner of the block
+     * @param block destination, its size determines the size of the block
+     */
+    public void getBlock(int row, int col, double[][] block) {
+        copyBlock(row, col, block, false);
+    }
+    /**
+     * Copies an array into a block of elements, a tile at a time.
+     * @param row row index of the top-left corner of the block
+     * @param col column index of the top-left corner of the block
+     * @param block source, its size determines the size of the block
+     */
+    public void setBlock(int row, int col, double[][] block) {
+        copyBlock(row, col, block, true);
+    }
+    private void copyBlock(int row, int col, double[][] block, boolean write) {
+        final int endRow = row + block.length;
+        final int endCol = col + (block.length > 0 ? block[0].length : 0);
+        for(int ti=row - row%tileSize; ti<endRow; ti+=tileSize) {
+            final int i0 = Math.max(row, ti);
+            final int i1 = Math.min(endRow, ti+tileSize);
+            for(int tj=col - col%tileSize; tj<endCol; tj+=tileSize) {
+                final int j0 = Math.max(col, tj);
+                final int j1 = Math.min(endCol, tj+tileSize);
+                final double[] data = tile(ti, tj, write);
+                for(int i=i0; i<i1; i++) {
+                    final int offset = (i-ti)*tileSize + (j0-tj);
+                    if(write)
+                        System.arraycopy(block[i-row], j0-col, data, offset, j1-j0);
+                    else
+                        System.arraycopy(data, offset, block[i-row], j0-col, j1-j0);
+                }
+            }
+        }
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public long getBufferHits() {
+        return cache.getHits();
+    }
+    public long getBufferMisses() {
+        return cache.getMisses();
+    }
+    public long getBufferWriteBacks() {
+        return cache.getWriteBacks();
+    }
+
+    /**
+     * Writes all modified tiles to the file.
+     */
+    public void flush() throws IOException {
+        cache.flush();
+    }
+
+    public void close() throws IOException {
+        cache.flush();
+        file.close();
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int columns() {
+        return cols;
+    }
+}
@@ -10,6 +10,12 @@ public class TransposedDoubleArray2D<E extends DoubleArray2D> extends AbstractDo
     public TransposedDoubleArray2D(E array) {
         this.array = array;
     }
+    /**
+     * Returns the array this is the transpose of.
+     */
+    public E getArray() {
+        return array;
+    }
     public double getDouble(int i, int j) {
         return array.getDouble(j, i);
     }
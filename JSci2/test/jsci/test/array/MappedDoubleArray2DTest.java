@@ -0,0 +1,76 @@
+package jsci.test.array;
+
+import java.io.File;
+import java.io.IOException;
+import jsci.util.array.ArrayUtilities;
+import jsci.util.array.DenseDoubleArray2D;
+import jsci.util.array.FileDoubleArray2D;
+import jsci.util.array.MappedDoubleArray2D;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static jsci.test.IsCloseTo.*;
+
+/**
+ *
+ * @author Mark
+ */
+public class MappedDoubleArray2DTest {
+    private final int rows = 50;
+    private final int cols = 30;
+    private File file;
+    private double[][] arr;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("jsci", ".matrix");
+        file.deleteOnExit();
+        arr = ArrayUtilities.createRandomArray(rows, cols);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void segments() throws IOException {
+        // several rows per mapping, last mapping partially filled
+        MappedDoubleArray2D array = new MappedDoubleArray2D(rows, cols, file, 7*cols*8);
+        for(int i=0; i<rows; i++)
+            array.setRow(i, arr[i]);
+        assertThat(array, closeTo(new DenseDoubleArray2D(arr), 0.0));
+        double[] row = new double[cols];
+        array.getRow(rows-1, row);
+        assertEquals(arr[rows-1][cols-1], row[cols-1], 0.0);
+        assertEquals(arr[rows-1][0], array.getRow(rows-1).get(0), 0.0);
+        array.close();
+    }
+
+    @Test
+    public void noColumns() throws IOException {
+        MappedDoubleArray2D array = new MappedDoubleArray2D(rows, 0, file);
+        assertEquals(rows, array.rows());
+        assertEquals(0, array.columns());
+        assertEquals(0, array.getRow(rows-1).remaining());
+        array.close();
+        array = new MappedDoubleArray2D(0, 0, file);
+        assertEquals(0, array.rows());
+        array.close();
+    }
+
+    @Test
+    public void fileCompatibility() throws IOException {
+        FileDoubleArray2D fileArray = new FileDoubleArray2D(rows, cols, file, 3, true);
+        for(int i=0; i<rows; i++) {
+            for(int j=0; j<cols; j++)
+                fileArray.setDouble(i, j, arr[i][j]);
+        }
+        fileArray.close();
+        MappedDoubleArray2D array = new MappedDoubleArray2D(rows, cols, file);
+        assertThat(array, closeTo(new DenseDoubleArray2D(arr), 0.0));
+        array.close();
+    }
+}
@@ -0,0 +1,81 @@
+package jsci.test.array;
+
+import java.util.Random;
+import jsci.util.array.SparseDoubleArray2D;
+import jsci.util.array.SparseDoubleArray2DBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ *
+ * @author Mark
+ */
+public class SparseDoubleArray2DBuilderTest {
+    private final int rows = 300;
+    private final int cols = 200;
+    private final int elementsPerRow = 150;
+    private final double TOL = 1.0e-12;
+    private Random rnd;
+
+    @Before
+    public void setUp() {
+        rnd = new Random();
+    }
+
+    private void assertArrayEquals(SparseDoubleArray2D expected, SparseDoubleArray2D actual) {
+        assertEquals(expected.getElementCount(), actual.getElementCount());
+        for(int i=0; i<rows; i++) {
+            for(int j=0; j<cols; j++) {
+                assertEquals(expected.getDouble(i,j), actual.getDouble(i,j), TOL);
+            }
+        }
+    }
+
+    @Test
+    public void testRandomOrder() {
+        SparseDoubleArray2D expected = new SparseDoubleArray2D(rows, cols);
+        SparseDoubleArray2DBuilder builder = new SparseDoubleArray2DBuilder(rows, cols);
+        for(int n=0; n<rows*elementsPerRow; n++) {
+            int i = rnd.nextInt(rows);
+            int j = rnd.nextInt(cols);
+            double value = rnd.nextDouble();
+            expected.addTo(i, j, value);
+            builder.addTo(i, j, value);
+        }
+        assertEquals(rows*elementsPerRow, builder.size());
+        assertArrayEquals(expected, builder.build());
+        assertEquals(0, builder.size());
+    }
+
+    @Test
+    public void testCancellation() {
+        SparseDoubleArray2DBuilder builder = new SparseDoubleArray2DBuilder(rows, cols);
+        builder.addTo(2, 3, 1.5);
+        builder.addTo(1, 3, 2.0);
+        builder.addTo(2, 3, -1.5);
+        SparseDoubleArray2D array = builder.build();
+        assertEquals(1, array.getElementCount());
+        assertEquals(2.0, array.getDouble(1, 3), 0.0);
+        assertEquals(0.0, array.getDouble(2, 3), 0.0);
+    }
+
+    @Test
+    public void testAppendRow() {
+        SparseDoubleArray2D expected = new SparseDoubleArray2D(rows, cols);
+        SparseDoubleArray2DBuilder builder = new SparseDoubleArray2DBuilder(rows, cols);
+        int[] rowCols = new int[elementsPerRow];
+        double[] rowValues = new double[elementsPerRow];
+        for(int i=0; i<rows; i++) {
+            // leave some rows empty
+            int count = (i % 7 == 0) ? 0 : rnd.nextInt(elementsPerRow);
+            for(int n=0; n<count; n++) {
+                rowCols[n] = rnd.nextInt(cols);
+                rowValues[n] = rnd.nextDouble();
+                expected.addTo(i, rowCols[n], rowValues[n]);
+            }
+            assertEquals(i, builder.appendRow(rowCols, rowValues, count));
+        }
+        assertArrayEquals(expected, builder.build());
+    }
+}
@@ -0,0 +1,119 @@
+package jsci.test.array;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.logging.Logger;
+import jsci.maths.linalg.EigenDecomposition;
+import jsci.util.array.ArrayUtilities;
+import jsci.util.array.DenseDoubleArray2D;
+import jsci.util.array.SparseDoubleArray1D;
+import jsci.util.array.TileCache;
+import jsci.util.array.TiledFileDoubleArray2D;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import static org.junit.Assert.assertThat;
+import static jsci.test.IsCloseTo.*;
+
+/**
+ *
+ * @author Mark
+ */
+@RunWith(Parameterized.class)
+public class TiledFileDoubleArray2DTest {
+    private final int N = 100;
+    private final int rows = N;
+    private final int cols = N-3;
+    private final TileCache.EvictionPolicy policy;
+    private double[][] arr;
+    private TiledFileDoubleArray2D array;
+
+    @Parameters
+    public static Collection<Object[]> getTestParameters() {
+        ArrayList<Object[]> params = new ArrayList<Object[]>();
+        params.add(new Object[] {new TileCache.LRU()});
+        params.add(new Object[] {new TileCache.Clock()});
+        return params;
+    }
+
+    public TiledFileDoubleArray2DTest(TileCache.EvictionPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        arr = ArrayUtilities.createRandomArray(rows, cols);
+        File f = File.createTempFile("jsci", ".matrix");
+        f.deleteOnExit();
+        array = new TiledFileDoubleArray2D(rows, cols, f, 16, 4, policy);
+        array.setBlock(0, 0, arr);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        array.close();
+    }
+
+    @Test
+    public void elements() {
+        assertThat(array, closeTo(new DenseDoubleArray2D(arr), 0.0));
+        // column-wise, forcing evictions
+        for(int j=0; j<cols; j++) {
+            for(int i=0; i<rows; i++)
+                array.setDouble(i, j, -arr[i][j]);
+        }
+        double[][] block = new double[37][23];
+        array.getBlock(11, 29, block);
+        for(int i=0; i<block.length; i++) {
+            for(int j=0; j<block[0].length; j++)
+                block[i][j] = -block[i][j] - arr[11+i][29+j];
+        }
+        assertThat(new DenseDoubleArray2D(block), closeTo(new DenseDoubleArray2D(new double[37][23]), 0.0));
+    }
+
+    @Test
+    public void reopen() throws IOException {
+        File f = File.createTempFile("jsci", ".matrix");
+        f.deleteOnExit();
+        TiledFileDoubleArray2D written = new TiledFileDoubleArray2D(rows, cols, f, 16, 4, policy, true);
+        written.setBlock(0, 0, arr);
+        written.close();
+        TiledFileDoubleArray2D reopened = new TiledFileDoubleArray2D(rows, cols, f, 16, 4, policy, false);
+        assertThat(reopened, closeTo(new DenseDoubleArray2D(arr), 0.0));
+        reopened.close();
+        f.delete();
+    }
+
+    @Test(expected=IOException.class)
+    public void reopenWrongTileSize() throws IOException {
+        File f = File.createTempFile("jsci", ".matrix");
+        f.deleteOnExit();
+        new TiledFileDoubleArray2D(rows, cols, f, 16, 4, policy, true).close();
+        try {
+            new TiledFileDoubleArray2D(rows, cols, f, 32, 4, policy, false);
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testPerformanceDiagonalize() throws IOException {
+        Logger.getAnonymousLogger().info("Diagonalize");
+
+        TiledFileDoubleArray2D square = new TiledFileDoubleArray2D(ArrayUtilities.createRandomArray(N, N));
+        SparseDoubleArray1D offdiag = new SparseDoubleArray1D(N);
+        EigenDecomposition.reduceSymmetricToTridiagonal(square, offdiag, N-1, 0);
+        EigenDecomposition.diagonalizeSymmetricTridiagonal(square, offdiag, 0, N, 250);
+
+        long hits = square.getBufferHits();
+        long misses = square.getBufferMisses();
+        Logger.getAnonymousLogger().info("Hits/Misses: "+hits+"/"+misses);
+        Logger.getAnonymousLogger().info("Hits: "+(hits*100/(hits+misses))+"%");
+        square.close();
+    }
+}
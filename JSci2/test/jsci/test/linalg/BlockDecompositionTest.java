@@ -0,0 +1,100 @@
+package jsci.test.linalg;
+
+import java.io.IOException;
+import jsci.maths.linalg.BlockCholeskyDecomposition;
+import jsci.maths.linalg.BlockLUDecomposition;
+import jsci.maths.linalg.CholeskyDecomposition;
+import jsci.maths.linalg.LUDecomposition;
+import jsci.maths.matrix.DoubleMatrix;
+import jsci.maths.matrix.impl.AlgorithmsDenseDoubleArray2D;
+import jsci.util.array.ArrayUtilities;
+import jsci.util.array.DoubleArray1D;
+import jsci.util.array.DoubleArray2D;
+import jsci.util.array.FileDoubleArray2D;
+import jsci.util.array.TiledFileDoubleArray2D;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ *
+ * @author Mark
+ */
+public class BlockDecompositionTest {
+    private static final double TOL = 1.0e-10;
+    private final int N = 50;
+    // forces panels of 7 columns
+    private final long memoryBudget = 2L*N*8*7;
+    private double[][] arr;
+    private double[] b;
+
+    @Before
+    public void setUp() {
+        arr = ArrayUtilities.createRandomArray(N, N);
+        b = ArrayUtilities.createRandomArray(1, N)[0];
+    }
+
+    private double[][] createPositiveDefiniteArray() {
+        double[][] spd = new double[N][N];
+        for(int i=0; i<N; i++) {
+            for(int j=0; j<N; j++) {
+                double sum = 0.0;
+                for(int k=0; k<N; k++)
+                    sum += arr[i][k]*arr[j][k];
+                spd[i][j] = sum;
+            }
+            spd[i][i] += N;
+        }
+        return spd;
+    }
+
+    private double[] multiply(double[][] a, double[] x) {
+        double[] y = new double[N];
+        for(int i=0; i<N; i++) {
+            for(int j=0; j<N; j++)
+                y[i] += a[i][j]*x[j];
+        }
+        return y;
+    }
+
+    @Test
+    public void testLU() throws IOException {
+        LUDecomposition luDecomp = new LUDecomposition(DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(arr)));
+        FileDoubleArray2D array = new FileDoubleArray2D(arr);
+        BlockLUDecomposition blockDecomp = new BlockLUDecomposition(array, memoryBudget);
+        assertEquals(7, blockDecomp.getPanelWidth());
+        int[] pivot = blockDecomp.getPivot();
+        assertArrayEquals(luDecomp.getPivot(), pivot);
+        DoubleMatrix<DoubleArray2D,DoubleArray1D> L = luDecomp.getL();
+        DoubleMatrix<DoubleArray2D,DoubleArray1D> U = luDecomp.getU();
+        for(int i=0; i<N; i++) {
+            for(int j=0; j<N; j++) {
+                double expected = (j < i) ? L.getDouble(i, j) : U.getDouble(i, j);
+                assertEquals(expected, array.getDouble(pivot[i], j), TOL);
+            }
+        }
+        assertEquals(luDecomp.det(), blockDecomp.det(), TOL*Math.abs(luDecomp.det()));
+        assertArrayEquals(b, multiply(arr, blockDecomp.solve(b)), TOL);
+        array.close();
+    }
+    @Test
+    public void testCholesky() throws IOException {
+        double[][] spd = createPositiveDefiniteArray();
+        CholeskyDecomposition cholDecomp = new CholeskyDecomposition(DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(spd)));
+        TiledFileDoubleArray2D array = new TiledFileDoubleArray2D(spd);
+        BlockCholeskyDecomposition blockDecomp = new BlockCholeskyDecomposition(array, memoryBudget);
+        DoubleMatrix<DoubleArray2D,DoubleArray1D> L = cholDecomp.getL();
+        for(int i=0; i<N; i++) {
+            for(int j=0; j<=i; j++) {
+                assertEquals(L.getDouble(i, j), array.getDouble(i, j), TOL);
+            }
+            for(int j=i+1; j<N; j++) {
+                assertEquals(spd[i][j], array.getDouble(i, j), 0.0);
+            }
+        }
+        assertEquals(1.0, blockDecomp.det()/cholDecomp.det(), TOL);
+        assertArrayEquals(b, multiply(spd, blockDecomp.solve(b)), TOL);
+        array.close();
+    }
+}
@@ -0,0 +1,121 @@
+package jsci.test.linalg;
+
+import java.util.Arrays;
+import jsci.maths.linalg.ArnoldiEigenDecomposition;
+import jsci.maths.linalg.ArrayLinearOperator;
+import jsci.maths.linalg.EigenDecomposition;
+import jsci.maths.linalg.LanczosEigenDecomposition;
+import jsci.maths.linalg.LinearOperator;
+import jsci.maths.matrix.DoubleMatrix;
+import jsci.maths.matrix.impl.AlgorithmsDenseDoubleArray2D;
+import jsci.util.array.SparseDoubleArray2D;
+import jsci.util.array.SparseDoubleArray2DBuilder;
+import jsci.util.array.TransposedDoubleArray2D;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ *
+ * @author Mark
+ */
+public class KrylovEigenTest {
+    private static final double TOL = 1.0e-8;
+
+    private static SparseDoubleArray2D createTridiagonal(int n) {
+        SparseDoubleArray2DBuilder builder = new SparseDoubleArray2DBuilder(n, n);
+        for(int i=0; i<n; i++) {
+            builder.addTo(i, i, i);
+            if(i > 0)
+                builder.addTo(i, i-1, 1.0);
+            if(i < n-1)
+                builder.addTo(i, i+1, 1.0);
+        }
+        return builder.build();
+    }
+
+    private static double[] multiply(LinearOperator a, double[] x) {
+        double[] y = new double[x.length];
+        a.multiply(x, y);
+        return y;
+    }
+
+    @Test
+    public void testLanczos() {
+        final int n = 300;
+        final int k = 5;
+        SparseDoubleArray2D sparse = createTridiagonal(n);
+        double[][] dense = new double[n][n];
+        for(int i=0; i<n; i++) {
+            for(int j=0; j<n; j++)
+                dense[i][j] = sparse.getDouble(i, j);
+        }
+        double[] expected = new EigenDecomposition(DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(dense)), false).getEigenvalues();
+        Arrays.sort(expected);
+
+        LinearOperator[] operators = {new ArrayLinearOperator(sparse), new ArrayLinearOperator(new TransposedDoubleArray2D<SparseDoubleArray2D>(sparse))};
+        for(int pass=0; pass<2; pass++) {
+            final boolean largest = (pass == 0);
+            LinearOperator a = operators[pass];
+            LanczosEigenDecomposition eigen = new LanczosEigenDecomposition(a, k, largest);
+            double[] eval = eigen.getEigenvalues();
+            double[][] evec = eigen.getEigenvectorArrays();
+            for(int i=0; i<k; i++) {
+                assertEquals(expected[largest ? n-1-i : i], eval[i], TOL);
+                double[] ax = multiply(a, evec[i]);
+                double norm = 0.0;
+                for(int j=0; j<n; j++) {
+                    assertEquals(eval[i]*evec[i][j], ax[j], TOL);
+                    norm += evec[i][j]*evec[i][j];
+                }
+                assertEquals(1.0, norm, TOL);
+            }
+            double dot = 0.0;
+            for(int j=0; j<n; j++)
+                dot += evec[0][j]*evec[k-1][j];
+            assertEquals(0.0, dot, TOL);
+            assertEquals(k, eigen.getEigenvectors().length);
+        }
+    }
+
+    @Test
+    public void testArnoldi() {
+        // block upper triangular, with 2x2 blocks giving the complex eigenvalues a+-5i
+        final int n = 200;
+        final int k = 5;
+        SparseDoubleArray2DBuilder builder = new SparseDoubleArray2DBuilder(n, n);
+        for(int i=0; i<n; i++) {
+            if(i < 6 && i%2 == 0) {
+                final double a = n+10*i;
+                builder.addTo(i, i, a);
+                builder.addTo(i, i+1, 5.0);
+                builder.addTo(i+1, i, -5.0);
+                builder.addTo(i+1, i+1, a);
+            } else if(i >= 6) {
+                builder.addTo(i, i, i);
+            }
+            if(i < n-3)
+                builder.addTo(i, i+3, 0.5);
+        }
+        LinearOperator a = new ArrayLinearOperator(builder.build());
+        ArnoldiEigenDecomposition eigen = new ArnoldiEigenDecomposition(a, k);
+        double[] re = eigen.getRealEigenvalues();
+        double[] im = eigen.getImagEigenvalues();
+        final double[][] expected = {{n+40, 5}, {n+40, -5}, {n+20, 5}, {n+20, -5}, {n, 5}};
+        for(int i=0; i<k; i++) {
+            assertEquals(expected[i][0], re[i], TOL);
+            assertEquals(expected[i][1], im[i], TOL);
+            double[] xr = new double[n];
+            double[] xi = new double[n];
+            for(int j=0; j<n; j++) {
+                xr[j] = eigen.getRealEigenvectors()[i].getDouble(j);
+                xi[j] = eigen.getImagEigenvectors()[i].getDouble(j);
+            }
+            double[] axr = multiply(a, xr);
+            double[] axi = multiply(a, xi);
+            for(int j=0; j<n; j++) {
+                assertEquals(re[i]*xr[j]-im[i]*xi[j], axr[j], TOL);
+                assertEquals(im[i]*xr[j]+re[i]*xi[j], axi[j], TOL);
+            }
+        }
+    }
+}
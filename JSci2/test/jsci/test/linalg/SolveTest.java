@@ -0,0 +1,190 @@
+package jsci.test.linalg;
+
+import jsci.maths.linalg.CholeskyDecomposition;
+import jsci.maths.linalg.LUDecomposition;
+import jsci.maths.linalg.QRDecomposition;
+import jsci.maths.matrix.DoubleMatrix;
+import jsci.maths.matrix.impl.AlgorithmsDenseDoubleArray2D;
+import jsci.util.array.ArrayUtilities;
+import jsci.util.array.DoubleArray1D;
+import jsci.util.array.DoubleArray2D;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ *
+ * @author Mark
+ */
+public class SolveTest {
+    private static final double TOL = 1.0e-9;
+    private final int N = 200;
+    private final int K = 150;
+    private double[][] arr;
+    private double[][] spd;
+    private double[][] rhs;
+
+    @Before
+    public void setUp() {
+        arr = ArrayUtilities.createRandomArray(N, N);
+        // diagonally dominant, so well conditioned
+        for(int i=0; i<N; i++)
+            arr[i][i] += N;
+        spd = new double[N][N];
+        for(int i=0; i<N; i++) {
+            for(int j=0; j<N; j++) {
+                for(int k=0; k<N; k++)
+                    spd[i][j] += arr[k][i]*arr[k][j];
+            }
+        }
+        rhs = ArrayUtilities.createRandomArray(N, K);
+    }
+
+    private static DoubleMatrix<DoubleArray2D,DoubleArray1D> createMatrix(double[][] a) {
+        return DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(a));
+    }
+
+    private static void assertSolution(double[][] a, double[][] b, double[][] x) {
+        for(int i=0; i<a.length; i++) {
+            for(int c=0; c<b[0].length; c++) {
+                double sum = 0.0;
+                for(int k=0; k<a.length; k++)
+                    sum += a[i][k]*x[k][c];
+                assertEquals(b[i][c], sum, TOL*Math.max(1.0, Math.abs(b[i][c])));
+            }
+        }
+    }
+
+    private static double[] column(double[][] a, int c) {
+        double[] v = new double[a.length];
+        for(int i=0; i<a.length; i++)
+            v[i] = a[i][c];
+        return v;
+    }
+
+    @Test
+    public void testLU() {
+        LUDecomposition lu = new LUDecomposition(createMatrix(arr));
+        double[][] x = lu.solve(rhs);
+        assertSolution(arr, rhs, x);
+        double[] x0 = lu.solve(column(rhs, 0));
+        for(int i=0; i<N; i++)
+            assertEquals(x[i][0], x0[i], TOL);
+    }
+
+    @Test
+    public void testLUMatrix() {
+        LUDecomposition lu = new LUDecomposition(createMatrix(arr));
+        DoubleMatrix<DoubleArray2D,DoubleArray1D> x = lu.solve(createMatrix(rhs));
+        assertEquals(N, x.rows());
+        assertEquals(K, x.columns());
+        double[][] xa = new double[N][K];
+        ArrayUtilities.getBlock(x.getArray2D(), 0, 0, xa);
+        assertSolution(arr, rhs, xa);
+    }
+
+    @Test
+    public void testCholesky() {
+        CholeskyDecomposition chol = new CholeskyDecomposition(createMatrix(spd));
+        assertSolution(spd, rhs, chol.solve(rhs));
+    }
+
+    @Test
+    public void testQR() {
+        QRDecomposition qr = new QRDecomposition(createMatrix(arr));
+        assertSolution(arr, rhs, qr.solve(rhs));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testLUWrongRows() {
+        new LUDecomposition(createMatrix(arr)).solve(new double[N-1][K]);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCholeskyRagged() {
+        double[][] b = new double[N][K];
+        b[N-1] = new double[K-1];
+        new CholeskyDecomposition(createMatrix(spd)).solve(b);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testQRWrongRows() {
+        new QRDecomposition(createMatrix(arr)).solve(new double[N+1][K]);
+    }
+
+    @Test
+    public void testPivotCopy() {
+        LUDecomposition lu = new LUDecomposition(createMatrix(arr));
+        double det = lu.det();
+        int[] pivot = lu.getPivot();
+        pivot[N] = -pivot[N];
+        assertEquals(det, lu.det(), 0.0);
+    }
+
+    private static double[][] toArray(DoubleMatrix<DoubleArray2D,DoubleArray1D> m) {
+        double[][] a = new double[m.rows()][m.columns()];
+        ArrayUtilities.getBlock(m.getArray2D(), 0, 0, a);
+        return a;
+    }
+
+    private static void assertInverse(double[][] a, double[][] inv) {
+        for(int i=0; i<a.length; i++) {
+            for(int j=0; j<a.length; j++) {
+                double sum = 0.0;
+                for(int k=0; k<a.length; k++)
+                    sum += a[i][k]*inv[k][j];
+                assertEquals(i == j ? 1.0 : 0.0, sum, TOL);
+            }
+        }
+    }
+
+    @Test
+    public void testLUInverse() {
+        LUDecomposition lu = new LUDecomposition(createMatrix(arr));
+        assertInverse(arr, toArray(lu.inverse()));
+    }
+
+    @Test
+    public void testCholeskyInverse() {
+        CholeskyDecomposition chol = new CholeskyDecomposition(createMatrix(spd));
+        assertInverse(spd, toArray(chol.inverse()));
+    }
+
+    @Test
+    public void testInvertInPlace() {
+        double[][] inv = new double[N][];
+        for(int i=0; i<N; i++)
+            inv[i] = arr[i].clone();
+        LUDecomposition.invert(inv);
+        assertInverse(arr, inv);
+
+        for(int i=0; i<N; i++)
+            inv[i] = arr[i].clone();
+        AlgorithmsDenseDoubleArray2D array = new AlgorithmsDenseDoubleArray2D(inv);
+        array.invert();
+        double[][] a = new double[N][N];
+        array.copyTo(a);
+        assertInverse(arr, a);
+    }
+
+    @Test
+    public void testConcurrentSolve() throws InterruptedException {
+        final LUDecomposition lu = new LUDecomposition(createMatrix(arr));
+        final double[][][] results = new double[4][][];
+        Thread[] threads = new Thread[results.length];
+        for(int t=0; t<threads.length; t++) {
+            final int n = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    results[n] = lu.solve(rhs);
+                }
+            };
+            threads[t].start();
+        }
+        for(int t=0; t<threads.length; t++)
+            threads[t].join();
+        for(int t=0; t<threads.length; t++)
+            assertSolution(arr, rhs, results[t]);
+    }
+}
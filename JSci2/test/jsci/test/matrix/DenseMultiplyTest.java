@@ -0,0 +1,26 @@
+package jsci.test.matrix;
+
+import jsci.maths.matrix.DoubleMatrix;
+import jsci.maths.matrix.impl.AlgorithmsDenseDoubleArray2D;
+import jsci.util.array.ArrayUtilities;
+import jsci.util.array.DenseDoubleArray2D;
+import org.junit.Test;
+import static org.junit.Assert.assertThat;
+import static jsci.test.IsCloseTo.*;
+
+/**
+ * Checks the blocked product against the simple one for sizes that are not a multiple of the block size.
+ * @author Mark
+ */
+public class DenseMultiplyTest {
+    private static final double TOL = 1.0e-10;
+
+    @Test
+    public void multiply() {
+        double[][] arr1 = ArrayUtilities.createRandomArray(131, 67);
+        double[][] arr2 = ArrayUtilities.createRandomArray(67, 259);
+        DoubleMatrix expected = DoubleMatrix.create(new DenseDoubleArray2D(arr1)).multiply(DoubleMatrix.create(new DenseDoubleArray2D(arr2)));
+        DoubleMatrix actual = DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(arr1)).multiply(DoubleMatrix.create(new AlgorithmsDenseDoubleArray2D(arr2)));
+        assertThat(actual, closeTo(expected, TOL));
+    }
+}
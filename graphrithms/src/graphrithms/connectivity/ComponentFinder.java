@@ -34,6 +34,7 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.commons.collections15.KeyValue;
 import org.apache.commons.collections15.keyvalue.DefaultKeyValue;
 
@@ -85,6 +86,78 @@ public final class ComponentFinder
         return sets;
     }
 
+    /**
+     * Finds weakly connected components of the graph with vertices 0 to n-1 and the specified edges,
+     * using the parallel Shiloach-Vishkin algorithm.
+     * Components are repeatedly hooked onto neighbouring components with smaller labels,
+     * then label chains are shortened by pointer jumping, until nothing changes.
+     * @return the component label of each vertex, which is the smallest vertex in its component.
+     */
+    public static int[] findWeaklyConnectedComponents(int n, final int[] sources, final int[] targets)
+    {
+        if (sources.length != targets.length)
+        {
+            throw new IllegalArgumentException("Edge arrays must be the same length");
+        }
+        final int[] comp = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            comp[i] = i;
+        }
+        final AtomicBoolean changed = new AtomicBoolean();
+        RangeTask.Operation hook = new RangeTask.Operation()
+        {
+            @Override
+            public void apply(int start, int end)
+            {
+                boolean hooked = false;
+                for (int i = start; i < end; i++)
+                {
+                    final int c1 = comp[sources[i]];
+                    final int c2 = comp[targets[i]];
+                    if (c1 != c2)
+                    {
+                        final int high = Math.max(c1, c2);
+                        // only roots are hooked, so labels only ever decrease
+                        if (comp[high] == high)
+                        {
+                            comp[high] = Math.min(c1, c2);
+                            hooked = true;
+                        }
+                    }
+                }
+                if (hooked)
+                {
+                    changed.set(true);
+                }
+            }
+        };
+        RangeTask.Operation compress = new RangeTask.Operation()
+        {
+            @Override
+            public void apply(int start, int end)
+            {
+                for (int i = start; i < end; i++)
+                {
+                    int c = comp[i];
+                    while (c != comp[c])
+                    {
+                        c = comp[c];
+                    }
+                    comp[i] = c;
+                }
+            }
+        };
+        do
+        {
+            changed.set(false);
+            RangeTask.run(hook, 0, sources.length);
+            RangeTask.run(compress, 0, n);
+        }
+        while (changed.get());
+        return comp;
+    }
+
     /**
      * Finds weakly connected components using DFS.
      */
@@ -180,6 +253,7 @@ public final class ComponentFinder
 
     /**
      * Merges the disjoint sets of a list of elements with the disjoint sets of a list of edges.
+     * @see IncrementalComponentFinder
      */
     public static <V extends Comparable<? super V>> void merge(List<DefaultKeyValue<V, V>> reps, PairIterable<V, V> edges)
     {
@@ -0,0 +1,150 @@
+/**
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions: The above
+ * copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software. THE SOFTWARE IS PROVIDED "AS IS",
+ * WITHOUT WARRANTY OF ANY KIND, EXPRESS ORIMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THEAUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHERLIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM,OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS INTHE SOFTWARE.
+ */
+package graphrithms.connectivity;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Lock-free disjoint sets (union-find) of the elements 0 to n-1, which can be united from many threads at once.
+ * Parents are updated by compare-and-set, and a root is always linked to a root with a smaller index,
+ * so the forest stays acyclic however the updates interleave.
+ * Finds use path halving, also by compare-and-set, so a failed update is simply skipped.
+ * Initially, each element is in a set on its own.
+ * @see IntDisjointSets
+ */
+public final class ConcurrentIntDisjointSets
+{
+	private final AtomicIntegerArray parent;
+	private final AtomicInteger setCount;
+
+	public ConcurrentIntDisjointSets(int n)
+	{
+		this.parent = new AtomicIntegerArray(n);
+		for(int i=0; i<n; i++)
+		{
+			parent.lazySet(i, i);
+		}
+		this.setCount = new AtomicInteger(n);
+	}
+
+	/**
+	 * Returns the representative of the set containing the specified element.
+	 * If other threads are uniting sets, this may be out of date as soon as it is returned.
+	 */
+	public int find(int x)
+	{
+		int p = parent.get(x);
+		while(p != x)
+		{
+			final int gp = parent.get(p);
+			if(gp != p)
+			{
+				parent.compareAndSet(x, p, gp);
+			}
+			x = gp;
+			p = parent.get(x);
+		}
+		return x;
+	}
+
+	/**
+	 * Unites the sets containing the specified elements.
+	 * @return true if this call joined two different sets
+	 */
+	public boolean union(int x, int y)
+	{
+		while(true)
+		{
+			int root1 = find(x);
+			int root2 = find(y);
+			if(root1 == root2)
+			{
+				return false;
+			}
+			if(root1 < root2)
+			{
+				final int tmp = root1;
+				root1 = root2;
+				root2 = tmp;
+			}
+			// fails if root1 has been linked to another set since it was found
+			if(parent.compareAndSet(root1, root1, root2))
+			{
+				setCount.decrementAndGet();
+				return true;
+			}
+			x = root1;
+			y = root2;
+		}
+	}
+
+	/**
+	 * Unites the sets containing the endpoints of each edge, in parallel.
+	 */
+	public void union(final int[] sources, final int[] targets)
+	{
+		RangeTask.run(new RangeTask.Operation()
+		{
+			@Override
+			public void apply(int start, int end)
+			{
+				for(int i=start; i<end; i++)
+				{
+					union(sources[i], targets[i]);
+				}
+			}
+		}, 0, sources.length);
+	}
+
+	/**
+	 * Returns the number of disjoint sets.
+	 */
+	public int getSetCount()
+	{
+		return setCount.get();
+	}
+
+	/**
+	 * Returns the number of elements.
+	 */
+	public int size()
+	{
+		return parent.length();
+	}
+
+	/**
+	 * Returns the representative of each element, in parallel.
+	 * Should only be called once no other threads are uniting sets.
+	 */
+	public int[] getRepresentatives()
+	{
+		final int[] reps = new int[parent.length()];
+		RangeTask.run(new RangeTask.Operation()
+		{
+			@Override
+			public void apply(int start, int end)
+			{
+				for(int i=start; i<end; i++)
+				{
+					reps[i] = find(i);
+				}
+			}
+		}, 0, reps.length);
+		return reps;
+	}
+}
@@ -0,0 +1,350 @@
+/**
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions: The above
+ * copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software. THE SOFTWARE IS PROVIDED "AS IS",
+ * WITHOUT WARRANTY OF ANY KIND, EXPRESS ORIMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THEAUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHERLIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM,OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS INTHE SOFTWARE.
+ */
+package graphrithms.connectivity;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import graphrithms.util.PairIterable;
+import graphrithms.util.PairIterator;
+
+/**
+ * Keeps track of the weakly connected components of a growing graph, as batches of edges arrive.
+ * Each update is a union by rank with path halving, so takes amortised O(&alpha;(n)) time.
+ * Updates are serialized, but reads never lock,
+ * so counts and membership can be queried while edges are being added.
+ * A read reflects all the updates that completed before it started, and possibly some of those in progress.
+ * The state can be saved and restored by serialization, instead of replaying all the edges.
+ */
+public final class IncrementalComponentFinder<V> implements Serializable
+{
+	private static final long serialVersionUID = -2807515744236180591L;
+	private static final int SEGMENT_BITS = 12;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * A fixed-size block of vertices, so that growing never copies or moves vertex state.
+	 */
+	private static final class Segment
+	{
+		final Object[] vertices = new Object[SEGMENT_SIZE];
+		final AtomicIntegerArray parents = new AtomicIntegerArray(SEGMENT_SIZE);
+		// only accessed by writers
+		final byte[] ranks = new byte[SEGMENT_SIZE];
+	}
+
+	private transient Map<V,Integer> ids;
+	private transient volatile Segment[] segments;
+	private transient volatile int vertexCount;
+	private transient volatile int componentCount;
+
+	public IncrementalComponentFinder()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	public IncrementalComponentFinder(int capacity)
+	{
+		init(capacity);
+	}
+
+	private void init(int capacity)
+	{
+		this.ids = new ConcurrentHashMap<V,Integer>(capacity);
+		this.segments = new Segment[Math.max((capacity + SEGMENT_MASK) >>> SEGMENT_BITS, 1)];
+		this.vertexCount = 0;
+		this.componentCount = 0;
+	}
+
+	/**
+	 * Adds a vertex, in a component on its own, if it is not already present.
+	 * @return true if the vertex was added.
+	 */
+	public synchronized boolean addVertex(V v)
+	{
+		final int n = vertexCount;
+		return getOrAddId(v) == n;
+	}
+
+	/**
+	 * Adds an edge, adding its endpoints if necessary.
+	 * @return true if the edge joined two components.
+	 */
+	public synchronized boolean addEdge(V v1, V v2)
+	{
+		return union(getOrAddId(v1), getOrAddId(v2));
+	}
+
+	/**
+	 * Adds a batch of edges, adding their endpoints if necessary.
+	 * @return the number of pairs of components that were joined.
+	 */
+	public synchronized int addEdges(PairIterable<V,V> edges)
+	{
+		int joined = 0;
+		for(PairIterator<V,V> iter = edges.iterator(); iter.hasNext();)
+		{
+			final int id1 = getOrAddId(iter.nextFirst());
+			final int id2 = getOrAddId(iter.getSecond());
+			if(union(id1, id2))
+			{
+				joined++;
+			}
+		}
+		return joined;
+	}
+
+	private int getOrAddId(V v)
+	{
+		Integer id = ids.get(v);
+		if(id != null)
+		{
+			return id;
+		}
+		final int n = vertexCount;
+		final int segmentIndex = n >>> SEGMENT_BITS;
+		Segment[] segs = segments;
+		if(segmentIndex == segs.length)
+		{
+			segs = Arrays.copyOf(segs, 2*segs.length);
+		}
+		Segment seg = segs[segmentIndex];
+		if(seg == null)
+		{
+			seg = new Segment();
+			segs[segmentIndex] = seg;
+		}
+		final int offset = n & SEGMENT_MASK;
+		seg.vertices[offset] = v;
+		seg.parents.set(offset, n);
+		// publish the vertex before its id
+		segments = segs;
+		componentCount++;
+		vertexCount = n + 1;
+		ids.put(v, n);
+		return n;
+	}
+
+	private boolean union(int id1, int id2)
+	{
+		final int root1 = find(id1);
+		final int root2 = find(id2);
+		if(root1 == root2)
+		{
+			return false;
+		}
+		final Segment seg1 = segments[root1 >>> SEGMENT_BITS];
+		final Segment seg2 = segments[root2 >>> SEGMENT_BITS];
+		final int offset1 = root1 & SEGMENT_MASK;
+		final int offset2 = root2 & SEGMENT_MASK;
+		final byte rank1 = seg1.ranks[offset1];
+		final byte rank2 = seg2.ranks[offset2];
+		// only writers link roots, so a plain write is enough
+		if(rank1 > rank2)
+		{
+			seg2.parents.set(offset2, root1);
+		}
+		else
+		{
+			seg1.parents.set(offset1, root2);
+			if(rank1 == rank2)
+			{
+				seg2.ranks[offset2]++;
+			}
+		}
+		componentCount--;
+		return true;
+	}
+
+	private int getParent(int id)
+	{
+		return segments[id >>> SEGMENT_BITS].parents.get(id & SEGMENT_MASK);
+	}
+
+	/**
+	 * Path halving by compare-and-set, so that readers and writers can both shorten paths.
+	 * A failed update only means another thread got there first.
+	 */
+	private int find(int id)
+	{
+		final Segment[] segs = segments;
+		int p = segs[id >>> SEGMENT_BITS].parents.get(id & SEGMENT_MASK);
+		while(p != id)
+		{
+			final int gp = segs[p >>> SEGMENT_BITS].parents.get(p & SEGMENT_MASK);
+			if(gp != p)
+			{
+				segs[id >>> SEGMENT_BITS].parents.compareAndSet(id & SEGMENT_MASK, p, gp);
+			}
+			id = gp;
+			p = segs[id >>> SEGMENT_BITS].parents.get(id & SEGMENT_MASK);
+		}
+		return id;
+	}
+
+	@SuppressWarnings("unchecked")
+	private V getVertex(int id)
+	{
+		return (V) segments[id >>> SEGMENT_BITS].vertices[id & SEGMENT_MASK];
+	}
+
+	/**
+	 * Returns the representative of the component containing the specified vertex,
+	 * or null if the vertex has not been added.
+	 * Representatives can change as components are joined.
+	 */
+	public V find(V v)
+	{
+		Integer id = ids.get(v);
+		if(id == null)
+		{
+			return null;
+		}
+		return getVertex(find(id));
+	}
+
+	/**
+	 * Returns true if the specified vertices are in the same component.
+	 */
+	public boolean isConnected(V v1, V v2)
+	{
+		Integer id1 = ids.get(v1);
+		Integer id2 = ids.get(v2);
+		if(id1 == null || id2 == null)
+		{
+			return false;
+		}
+		while(true)
+		{
+			final int root1 = find(id1);
+			final int root2 = find(id2);
+			if(root1 == root2)
+			{
+				return true;
+			}
+			// root1 was still a root after root2 was found, so they were disjoint at that point
+			if(getParent(root1) == root1)
+			{
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the specified vertex has been added.
+	 */
+	public boolean contains(V v)
+	{
+		return ids.containsKey(v);
+	}
+
+	/**
+	 * Returns the number of vertices.
+	 */
+	public int getVertexCount()
+	{
+		return vertexCount;
+	}
+
+	/**
+	 * Returns the number of components.
+	 */
+	public int getComponentCount()
+	{
+		return componentCount;
+	}
+
+	/**
+	 * Returns the components keyed by their representatives.
+	 * If edges are being added concurrently, this is only weakly consistent.
+	 */
+	public Map<V,Collection<V>> getComponents()
+	{
+		final int n = vertexCount;
+		Map<Integer,Collection<V>> byRoot = new LinkedHashMap<Integer,Collection<V>>();
+		for(int i=0; i<n; i++)
+		{
+			final Integer root = find(i);
+			Collection<V> component = byRoot.get(root);
+			if(component == null)
+			{
+				component = new ArrayList<V>();
+				byRoot.put(root, component);
+			}
+			component.add(getVertex(i));
+		}
+		Map<V,Collection<V>> components = new LinkedHashMap<V,Collection<V>>(2*byRoot.size());
+		for(Map.Entry<Integer,Collection<V>> entry : byRoot.entrySet())
+		{
+			components.put(getVertex(entry.getKey()), entry.getValue());
+		}
+		return components;
+	}
+
+	/**
+	 * Saves each vertex followed by the id of its representative.
+	 */
+	private synchronized void writeObject(ObjectOutputStream out) throws IOException
+	{
+		out.defaultWriteObject();
+		final int n = vertexCount;
+		out.writeInt(n);
+		for(int i=0; i<n; i++)
+		{
+			out.writeObject(getVertex(i));
+			out.writeInt(find(i));
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		final int n = in.readInt();
+		init(n);
+		final int[] roots = new int[n];
+		for(int i=0; i<n; i++)
+		{
+			@SuppressWarnings("unchecked")
+			V v = (V) in.readObject();
+			if(getOrAddId(v) != i)
+			{
+				throw new IOException("Duplicate vertex: "+v);
+			}
+			roots[i] = in.readInt();
+		}
+		for(int i=0; i<n; i++)
+		{
+			final int root = roots[i];
+			if(root < 0 || root >= n || roots[root] != root)
+			{
+				throw new IOException("Invalid representative for vertex "+i+": "+root);
+			}
+			union(root, i);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions: The above
+ * copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software. THE SOFTWARE IS PROVIDED "AS IS",
+ * WITHOUT WARRANTY OF ANY KIND, EXPRESS ORIMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THEAUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHERLIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM,OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS INTHE SOFTWARE.
+ */
+package graphrithms.connectivity;
+
+/**
+ * Disjoint sets (union-find) of the elements 0 to n-1, stored in arrays.
+ * Uses union by rank and path halving, so there are no per-element objects.
+ * Initially, each element is in a set on its own.
+ * @see ConcurrentIntDisjointSets
+ */
+public final class IntDisjointSets
+{
+	private final int[] parent;
+	private final byte[] rank; // at most log2(n)
+	private int setCount;
+
+	public IntDisjointSets(int n)
+	{
+		this.parent = new int[n];
+		this.rank = new byte[n];
+		for(int i=0; i<n; i++)
+		{
+			parent[i] = i;
+		}
+		this.setCount = n;
+	}
+
+	/**
+	 * Returns the representative of the set containing the specified element.
+	 */
+	public int find(int x)
+	{
+		int p = parent[x];
+		while(p != x)
+		{
+			// path halving: point x at its grandparent and move on to it
+			final int gp = parent[p];
+			parent[x] = gp;
+			x = gp;
+			p = parent[x];
+		}
+		return x;
+	}
+
+	/**
+	 * Unites the sets containing the specified elements.
+	 * @return true if they were in different sets
+	 */
+	public boolean union(int x, int y)
+	{
+		int root1 = find(x);
+		int root2 = find(y);
+		if(root1 == root2)
+		{
+			return false;
+		}
+		if(rank[root1] > rank[root2])
+		{
+			parent[root2] = root1;
+		}
+		else if(rank[root1] < rank[root2])
+		{
+			parent[root1] = root2;
+		}
+		else
+		{
+			parent[root1] = root2;
+			rank[root2]++;
+		}
+		setCount--;
+		return true;
+	}
+
+	/**
+	 * Unites the sets containing the endpoints of each edge.
+	 */
+	public void union(int[] sources, int[] targets)
+	{
+		for(int i=0; i<sources.length; i++)
+		{
+			union(sources[i], targets[i]);
+		}
+	}
+
+	/**
+	 * Returns the number of disjoint sets.
+	 */
+	public int getSetCount()
+	{
+		return setCount;
+	}
+
+	/**
+	 * Returns the number of elements.
+	 */
+	public int size()
+	{
+		return parent.length;
+	}
+
+	/**
+	 * Returns the representative of each element.
+	 */
+	public int[] getRepresentatives()
+	{
+		final int[] reps = new int[parent.length];
+		for(int i=0; i<reps.length; i++)
+		{
+			reps[i] = find(i);
+		}
+		return reps;
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions: The above
+ * copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software. THE SOFTWARE IS PROVIDED "AS IS",
+ * WITHOUT WARRANTY OF ANY KIND, EXPRESS ORIMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THEAUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHERLIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM,OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS INTHE SOFTWARE.
+ */
+package graphrithms.connectivity;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Applies an operation to a range of indices in parallel, by splitting it into halves until they are small enough.
+ */
+final class RangeTask extends RecursiveAction
+{
+	private static final long serialVersionUID = -5723610905146966510L;
+
+	/** Ranges at most this long are not split. */
+	static final int GRAIN = 1 << 13;
+
+	/**
+	 * An operation on a range of indices that is independent of other ranges.
+	 */
+	interface Operation
+	{
+		void apply(int start, int end);
+	}
+
+	private final Operation op;
+	private final int start;
+	private final int end;
+
+	private RangeTask(Operation op, int start, int end)
+	{
+		this.op = op;
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * Applies an operation to [start, end) on the common fork-join pool.
+	 */
+	static void run(Operation op, int start, int end)
+	{
+		if(end - start <= GRAIN)
+		{
+			op.apply(start, end);
+		}
+		else
+		{
+			ForkJoinPool.commonPool().invoke(new RangeTask(op, start, end));
+		}
+	}
+
+	@Override
+	protected void compute()
+	{
+		if(end - start <= GRAIN)
+		{
+			op.apply(start, end);
+		}
+		else
+		{
+			final int mid = (start + end) >>> 1;
+			invokeAll(new RangeTask(op, start, mid), new RangeTask(op, mid, end));
+		}
+	}
+}
@@ -32,6 +32,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.collections15.BidiMap;
 import org.apache.commons.collections15.Factory;
@@ -46,29 +49,29 @@ import edu.uci.ics.jung.graph.UndirectedOrderedSparseMultigraph;
 import edu.uci.ics.jung.graph.UndirectedSparseGraph;
 import edu.uci.ics.jung.graph.util.Pair;
 import graphrithms.util.PairIterator;
-import graphrithms.matching.directed.DirectedEdgeSubgraphMatcherState;
-import graphrithms.matching.directed.DirectedGraphMatcherState;
-import graphrithms.matching.directed.DirectedInducedSubgraphMatcherState;
+import graphrithms.matching.compact.CandidateIndex;
+import graphrithms.matching.compact.CompactGraph;
+import graphrithms.matching.compact.CompactGraphMatcher;
 import graphrithms.matching.mcs.DirectedMCESMatcherState;
 import graphrithms.matching.mcs.DirectedMCISMatcherState;
 import graphrithms.matching.mcs.FirstNMCSVisitor;
 import graphrithms.matching.mcs.MCSMatcherState;
 import graphrithms.matching.mcs.UndirectedMCESMatcherState;
 import graphrithms.matching.mcs.UndirectedMCISMatcherState;
-import graphrithms.matching.undirected.UndirectedEdgeSubgraphMatcherState;
-import graphrithms.matching.undirected.UndirectedGraphMatcherState;
-import graphrithms.matching.undirected.UndirectedInducedSubgraphMatcherState;
 import graphrithms.matching.util.*;
 import java.util.*;
 
 /**
  * A collection of graph matching methods.
+ * To match many patterns or graphs concurrently, see {@link GraphMatcherSession}.
  */
 public final class GraphMatcher
 {
     // heuristics
     private static final int MINIMUM_DEGREE = 2; // based on real-world scale-free networks (conservative guess)
     private static final int AVERAGE_DEGREE = 2*MINIMUM_DEGREE; // based on a scale-free network
+    // never set, so a sequential search only stops when its visitor asks to
+    private static final AtomicBoolean NEVER_STOPPED = new AtomicBoolean();
 
     private GraphMatcher()
 	{
@@ -80,8 +83,8 @@ public final class GraphMatcher
 	public static <V,E,U,F> Set<BidiMap<U,V>> matchGraph(UndirectedGraph<V,E> g, UndirectedGraph<U,F> pattern, int maxMatches)
 	{
 		FirstNVisitor<U,V> visitor = new FirstNVisitor<U,V>(maxMatches);
-		UndirectedGraphMatcherState<V,E,U,F> state = new UndirectedGraphMatcherState<V,E,U,F>(g, pattern);
-		match(state, visitor);
+		CompactGraphMatcher<V,E,U,F> matcher = new CompactGraphMatcher<V,E,U,F>(CompactGraph.create(g), CompactGraph.create(pattern), CompactGraphMatcher.Mode.GRAPH);
+		matcher.match(visitor);
 		return visitor.getMappings();
 	}
 
@@ -91,8 +94,8 @@ public final class GraphMatcher
     public static <V,E,U,F> Set<BidiMap<U,V>> matchGraph(DirectedGraph<V,E> g, DirectedGraph<U,F> pattern, int maxMatches)
     {
         FirstNVisitor<U,V> visitor = new FirstNVisitor<U,V>(maxMatches);
-        DirectedGraphMatcherState<V,E,U,F> state = new DirectedGraphMatcherState<V,E,U,F>(g, pattern);
-        match(state, visitor);
+        CompactGraphMatcher<V,E,U,F> matcher = new CompactGraphMatcher<V,E,U,F>(CompactGraph.create(g), CompactGraph.create(pattern), CompactGraphMatcher.Mode.GRAPH);
+        matcher.match(visitor);
         return visitor.getMappings();
     }
 
@@ -104,8 +107,8 @@ public final class GraphMatcher
 	public static <V,E,U,F> Set<BidiMap<U,V>> matchSubgraph(UndirectedGraph<V,E> g, UndirectedGraph<U,F> pattern, int maxMatches)
 	{
 		FirstNVisitor<U,V> visitor = new FirstNVisitor<U,V>(maxMatches);
-		UndirectedEdgeSubgraphMatcherState<V,E,U,F> state = new UndirectedEdgeSubgraphMatcherState<V,E,U,F>(g, pattern);
-		match(state, visitor);
+		CompactGraphMatcher<V,E,U,F> matcher = new CompactGraphMatcher<V,E,U,F>(CompactGraph.create(g), CompactGraph.create(pattern), CompactGraphMatcher.Mode.SUBGRAPH);
+		matcher.match(visitor);
 		return visitor.getMappings();
 	}
 
@@ -117,8 +120,8 @@ public final class GraphMatcher
 	public static <V,E,U,F> Set<BidiMap<U,V>> matchSubgraph(DirectedGraph<V,E> g, DirectedGraph<U,F> pattern, int maxMatches)
 	{
 		FirstNVisitor<U,V> visitor = new FirstNVisitor<U,V>(maxMatches);
-		DirectedEdgeSubgraphMatcherState<V,E,U,F> state = new DirectedEdgeSubgraphMatcherState<V,E,U,F>(g, pattern);
-		match(state, visitor);
+		CompactGraphMatcher<V,E,U,F> matcher = new CompactGraphMatcher<V,E,U,F>(CompactGraph.create(g), CompactGraph.create(pattern), CompactGraphMatcher.Mode.SUBGRAPH);
+		matcher.match(visitor);
 		return visitor.getMappings();
 	}
 
@@ -130,8 +133,8 @@ public final class GraphMatcher
 	public static <V,E,U,F> Set<BidiMap<U,V>> matchInducedSubgraph(UndirectedGraph<V,E> g, UndirectedGraph<U,F> pattern, int maxMatches)
 	{
 		FirstNVisitor<U,V> visitor = new FirstNVisitor<U,V>(maxMatches);
-		UndirectedInducedSubgraphMatcherState<V,E,U,F> state = new UndirectedInducedSubgraphMatcherState<V,E,U,F>(g, pattern);
-		match(state, visitor);
+		CompactGraphMatcher<V,E,U,F> matcher = new CompactGraphMatcher<V,E,U,F>(CompactGraph.create(g), CompactGraph.create(pattern), CompactGraphMatcher.Mode.INDUCED_SUBGRAPH);
+		matcher.match(visitor);
 		return visitor.getMappings();
 	}
 
@@ -143,8 +146,38 @@ public final class GraphMatcher
 	public static <V,E,U,F> Set<BidiMap<U,V>> matchInducedSubgraph(DirectedGraph<V,E> g, DirectedGraph<U,F> pattern, int maxMatches)
 	{
 		FirstNVisitor<U,V> visitor = new FirstNVisitor<U,V>(maxMatches);
-		DirectedInducedSubgraphMatcherState<V,E,U,F> state = new DirectedInducedSubgraphMatcherState<V,E,U,F>(g, pattern);
-		match(state, visitor);
+		CompactGraphMatcher<V,E,U,F> matcher = new CompactGraphMatcher<V,E,U,F>(CompactGraph.create(g), CompactGraph.create(pattern), CompactGraphMatcher.Mode.INDUCED_SUBGRAPH);
+		matcher.match(visitor);
+		return visitor.getMappings();
+	}
+
+	/**
+	 * Finds occurrences (monomorphisms) of a subgraph in an indexed graph.
+	 * The index and pattern snapshot can be reused to match many patterns against the same graph, or the same pattern against many graphs.
+	 * If both are labelled, vertices only match vertices with an equal label.
+	 * @param g the graph to search
+	 * @param pattern the subgraph to find
+	 */
+	public static <V,E,U,F> Set<BidiMap<U,V>> matchSubgraph(CandidateIndex<V,E> g, CompactGraph<U,F> pattern, int maxMatches)
+	{
+		FirstNVisitor<U,V> visitor = new FirstNVisitor<U,V>(maxMatches);
+		CompactGraphMatcher<V,E,U,F> matcher = new CompactGraphMatcher<V,E,U,F>(g, pattern, CompactGraphMatcher.Mode.SUBGRAPH);
+		matcher.match(visitor);
+		return visitor.getMappings();
+	}
+
+	/**
+	 * Finds occurrences (induced subgraph isomorphisms) of a subgraph in an indexed graph.
+	 * The index and pattern snapshot can be reused to match many patterns against the same graph, or the same pattern against many graphs.
+	 * If both are labelled, vertices only match vertices with an equal label.
+	 * @param g the graph to search
+	 * @param pattern the subgraph to find
+	 */
+	public static <V,E,U,F> Set<BidiMap<U,V>> matchInducedSubgraph(CandidateIndex<V,E> g, CompactGraph<U,F> pattern, int maxMatches)
+	{
+		FirstNVisitor<U,V> visitor = new FirstNVisitor<U,V>(maxMatches);
+		CompactGraphMatcher<V,E,U,F> matcher = new CompactGraphMatcher<V,E,U,F>(g, pattern, CompactGraphMatcher.Mode.INDUCED_SUBGRAPH);
+		matcher.match(visitor);
 		return visitor.getMappings();
 	}
 
@@ -196,11 +229,20 @@ public final class GraphMatcher
 	 * Performs graph matching.
 	 */
 	public static <V,E,U,F> boolean match(MatcherState<V,E,U,F> state, Visitor<U,V> visitor)
+	{
+		return search(state, visitor, NEVER_STOPPED);
+	}
+
+	/**
+	 * Search loop shared by the sequential and parallel matchers.
+	 * @param stopped checked before each candidate, so that a parallel search stops once any task has stopped
+	 */
+	private static <V,E,U,F> boolean search(MatcherState<V,E,U,F> state, Visitor<U,V> visitor, AtomicBoolean stopped)
 	{
 		boolean stop = false;
 		if(!state.isDead())
 		{
-		    for(PairIterator<U,V> iter = state.candidates().iterator(); iter.hasNext(); )
+		    for(PairIterator<U,V> iter = state.candidates().iterator(); iter.hasNext() && !stopped.get(); )
 			{
 			    final U u = iter.nextFirst();
 			    final V v = iter.getSecond();
@@ -213,7 +255,7 @@ public final class GraphMatcher
 					}
 					else
 					{
-						stop = match(nextState, visitor);
+						stop = search(nextState, visitor, stopped);
 					}
 					if(stop)
 					{
@@ -230,15 +272,24 @@ public final class GraphMatcher
      * Performs maximum common subgraph matching.
      */
 	public static <V,E,U,F> boolean matchMCS(MCSMatcherState<V,E,U,F> state, Visitor<U,V> visitor)
+	{
+		return searchMCS(state, visitor, NEVER_STOPPED);
+	}
+
+	/**
+	 * Maximum common subgraph search loop shared by the sequential and parallel matchers.
+	 * @see #search(MatcherState, Visitor, AtomicBoolean)
+	 */
+	private static <V,E,U,F> boolean searchMCS(MCSMatcherState<V,E,U,F> state, Visitor<U,V> visitor, AtomicBoolean stopped)
 	{
 		boolean stop = false;
 		if(!state.isDead())
 		{
 			NestedIterable<U,V> candidates = state.candidates();
-			for(NestedIterator<U,V> nestedIter = candidates.nestedIterator(); nestedIter.hasNext(); )
+			for(NestedIterator<U,V> nestedIter = candidates.nestedIterator(); nestedIter.hasNext() && !stopped.get(); )
 			{
 				final U u = nestedIter.next();
-				for(Iterator<V> iter = nestedIter.iterator(); iter.hasNext(); )
+				for(Iterator<V> iter = nestedIter.iterator(); iter.hasNext() && !stopped.get(); )
 				{
 					final V v = iter.next();
 					if(state.isFeasible(u, v))
@@ -250,7 +301,7 @@ public final class GraphMatcher
 						}
 						if(!nextState.isGoal() && !stop)
 						{
-							stop = matchMCS(nextState, visitor);
+							stop = searchMCS(nextState, visitor, stopped);
 						}
 						if(stop)
 						{
@@ -265,6 +316,187 @@ public final class GraphMatcher
 		return stop;
 	}
 
+	/**
+	 * Performs graph matching in parallel.
+	 * The subtrees of the search below the first <code>forkDepth</code> levels are explored as separate fork-join tasks,
+	 * each on its own copy of the state.
+	 * The visitor must be safe to call from several threads, and the search stops as soon as it returns true.
+	 * @param forkDepth number of levels of the search tree at which candidates are forked (0 is sequential)
+	 */
+	public static <V,E,U,F> boolean match(MatcherState<V,E,U,F> state, Visitor<U,V> visitor, int forkDepth)
+	{
+		SharedVisitor<U,V> sharedVisitor = new SharedVisitor<U,V>(visitor);
+		ForkJoinPool.commonPool().invoke(new MatchTask<V,E,U,F>(state, sharedVisitor, forkDepth));
+		return sharedVisitor.isStopped();
+	}
+
+	/**
+	 * Performs maximum common subgraph matching in parallel.
+	 * The maximum mapping size found so far is shared by all tasks, so that each can prune with it.
+	 * @param forkDepth number of levels of the search tree at which candidates are forked (0 is sequential)
+	 * @see #match(MatcherState, Visitor, int)
+	 */
+	public static <V,E,U,F> boolean matchMCS(MCSMatcherState<V,E,U,F> state, Visitor<U,V> visitor, int forkDepth)
+	{
+		SharedVisitor<U,V> sharedVisitor = new SharedVisitor<U,V>(visitor);
+		ForkJoinPool.commonPool().invoke(new MCSMatchTask<V,E,U,F>(state, sharedVisitor, forkDepth));
+		return sharedVisitor.isStopped();
+	}
+
+	/**
+	 * Visitor shared by the tasks of a parallel search.
+	 * Once the underlying visitor asks to stop, every task stops at its next candidate.
+	 */
+	private static final class SharedVisitor<U,V> implements Visitor<U,V>
+	{
+		private final Visitor<U,V> visitor;
+		final AtomicBoolean stopped = new AtomicBoolean();
+
+		SharedVisitor(Visitor<U,V> visitor)
+		{
+			this.visitor = visitor;
+		}
+
+		@Override
+		public boolean visit(BidiMap<U,V> mapping)
+		{
+			if(!stopped.get() && visitor.visit(mapping))
+			{
+				stopped.set(true);
+			}
+			return stopped.get();
+		}
+
+		boolean isStopped()
+		{
+			return stopped.get();
+		}
+	}
+
+	private static final class MatchTask<V,E,U,F> extends RecursiveAction
+	{
+		private static final long serialVersionUID = -3719621654923828344L;
+
+		private final MatcherState<V,E,U,F> state;
+		private final SharedVisitor<U,V> visitor;
+		private final int forkDepth;
+
+		MatchTask(MatcherState<V,E,U,F> state, SharedVisitor<U,V> visitor, int forkDepth)
+		{
+			this.state = state;
+			this.visitor = visitor;
+			this.forkDepth = forkDepth;
+		}
+
+		@Override
+		protected void compute()
+		{
+			List<MatchTask<V,E,U,F>> forked = new ArrayList<MatchTask<V,E,U,F>>();
+			if(!state.isDead())
+			{
+				for(PairIterator<U,V> iter = state.candidates().iterator(); iter.hasNext() && !visitor.isStopped(); )
+				{
+					final U u = iter.nextFirst();
+					final V v = iter.getSecond();
+					if(state.isFeasible(u, v))
+					{
+						MatcherState<V,E,U,F> nextState = state.newState(u, v);
+						boolean stop = false;
+						if(nextState.isGoal())
+						{
+							stop = visitor.visit(nextState.getMapping());
+						}
+						else if(forkDepth > 0)
+						{
+							MatchTask<V,E,U,F> task = new MatchTask<V,E,U,F>(nextState.copy(), visitor, forkDepth-1);
+							task.fork();
+							forked.add(task);
+						}
+						else
+						{
+							stop = search(nextState, visitor, visitor.stopped);
+						}
+						if(stop)
+						{
+							break;
+						}
+						nextState.backtrack();
+					}
+				}
+			}
+			for(MatchTask<V,E,U,F> task : forked)
+			{
+				task.join();
+			}
+		}
+	}
+
+	private static final class MCSMatchTask<V,E,U,F> extends RecursiveAction
+	{
+		private static final long serialVersionUID = 3206106699760956593L;
+
+		private final MCSMatcherState<V,E,U,F> state;
+		private final SharedVisitor<U,V> visitor;
+		private final int forkDepth;
+
+		MCSMatchTask(MCSMatcherState<V,E,U,F> state, SharedVisitor<U,V> visitor, int forkDepth)
+		{
+			this.state = state;
+			this.visitor = visitor;
+			this.forkDepth = forkDepth;
+		}
+
+		@Override
+		protected void compute()
+		{
+			List<MCSMatchTask<V,E,U,F>> forked = new ArrayList<MCSMatchTask<V,E,U,F>>();
+			if(!state.isDead())
+			{
+				for(NestedIterator<U,V> nestedIter = state.candidates().nestedIterator(); nestedIter.hasNext() && !visitor.isStopped(); )
+				{
+					final U u = nestedIter.next();
+					for(Iterator<V> iter = nestedIter.iterator(); iter.hasNext() && !visitor.isStopped(); )
+					{
+						final V v = iter.next();
+						if(state.isFeasible(u, v))
+						{
+							MCSMatcherState<V,E,U,F> nextState = state.newState(u, v);
+							boolean stop = false;
+							if(nextState.getMappingSize() >= nextState.getMaxMappingSize())
+							{
+								stop = visitor.visit(nextState.getMapping());
+							}
+							if(!nextState.isGoal() && !stop)
+							{
+								if(forkDepth > 0)
+								{
+									// copied before u is marked as visited
+									MCSMatchTask<V,E,U,F> task = new MCSMatchTask<V,E,U,F>(nextState.copy(), visitor, forkDepth-1);
+									task.fork();
+									forked.add(task);
+								}
+								else
+								{
+									stop = searchMCS(nextState, visitor, visitor.stopped);
+								}
+							}
+							if(stop)
+							{
+								break;
+							}
+							nextState.backtrack();
+						}
+					}
+					state.markVisited(u);
+				}
+			}
+			for(MCSMatchTask<V,E,U,F> task : forked)
+			{
+				task.join();
+			}
+		}
+	}
+
 	/**
 	 * Returns the subgraph mapped from pattern to graph.
 	 */
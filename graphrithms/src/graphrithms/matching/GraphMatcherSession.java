@@ -0,0 +1,249 @@
+/*
+ * Based on:
+ * 
+ * The VFLib distribution is
+ * Copyright (c) 2001 by 
+ * Dipartimento di Informatica e Sistemistica 
+ * Universit� degli studi di Napoli ``Federico II'' 
+ * http://amalfi.dis.unina.it
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions: The above
+ * copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software. THE SOFTWARE IS PROVIDED "AS IS",
+ * WITHOUT WARRANTY OF ANY KIND, EXPRESS ORIMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THEAUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHERLIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM,OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS INTHE SOFTWARE.
+ */
+package graphrithms.matching;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.collections15.BidiMap;
+
+import graphrithms.matching.compact.CandidateIndex;
+import graphrithms.matching.compact.CompactGraph;
+import graphrithms.matching.compact.CompactGraphMatcher;
+import graphrithms.matching.util.FirstNVisitor;
+
+/**
+ * Matches many patterns against the same graph, or the same pattern against many graphs, on a bounded pool of threads.
+ * Each graph is preprocessed once into a {@link CandidateIndex} (adjacency snapshot, label groups and degree sequences),
+ * which is then shared by every search against it.
+ * Before a search is queued, the invariants of the graph and the pattern are compared (see {@link CandidateIndex#mayMatch}),
+ * so that graphs that cannot contain the pattern are not searched at all.
+ * If the queue of searches is full, a search is run in the submitting thread instead, which slows down the submitter.
+ * The searches run on daemon threads, so an unclosed session does not keep the JVM alive.
+ */
+public final class GraphMatcherSession implements AutoCloseable
+{
+	private static final AtomicInteger SESSION_COUNT = new AtomicInteger();
+
+	private final ExecutorService executor;
+
+	/**
+	 * @param threads number of searches to run at the same time
+	 * @param queueSize number of searches that can wait to be run
+	 */
+	public GraphMatcherSession(int threads, int queueSize)
+	{
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(queueSize), new DaemonThreadFactory(), new CallerRunsIfOpenPolicy());
+	}
+
+	/**
+	 * Submits a search.
+	 * @param maxMatches the maximum number of mappings to find, or -1 for all
+	 * @param timeout the maximum time to search for, from when the search starts, or 0 for no limit
+	 * @throws RejectedExecutionException if the session has been closed
+	 */
+	public <V,E,U,F> Future<MatchResult<U,V>> submit(CandidateIndex<V,E> g, CompactGraph<U,F> pattern, CompactGraphMatcher.Mode mode, int maxMatches, long timeout, TimeUnit unit)
+	{
+		return submit(g, pattern, new CandidateIndex<U,F>(pattern), mode, maxMatches, timeout, unit);
+	}
+
+	private <V,E,U,F> Future<MatchResult<U,V>> submit(CandidateIndex<V,E> g, CompactGraph<U,F> pattern, CandidateIndex<U,F> patternIndex, CompactGraphMatcher.Mode mode, int maxMatches, long timeout, TimeUnit unit)
+	{
+		if(executor.isShutdown())
+		{
+			throw new RejectedExecutionException("Session is closed");
+		}
+		if(!g.mayMatch(patternIndex, mode))
+		{
+			return CompletableFuture.completedFuture(new MatchResult<U,V>(Collections.<BidiMap<U,V>>emptySet(), false));
+		}
+		return executor.submit(new MatchTask<V,E,U,F>(g, pattern, mode, maxMatches, timeout, unit));
+	}
+
+	/**
+	 * Matches each of a sequence of patterns against a graph.
+	 * @return the results in the same order as the patterns
+	 * @see #submit(CandidateIndex, CompactGraph, CompactGraphMatcher.Mode, int, long, TimeUnit)
+	 */
+	public <V,E,U,F> List<MatchResult<U,V>> matchPatterns(CandidateIndex<V,E> g, Iterable<? extends CompactGraph<U,F>> patterns, CompactGraphMatcher.Mode mode, int maxMatches, long timeout, TimeUnit unit) throws InterruptedException
+	{
+		List<Future<MatchResult<U,V>>> futures = new ArrayList<Future<MatchResult<U,V>>>();
+		for(CompactGraph<U,F> pattern : patterns)
+		{
+			futures.add(submit(g, pattern, mode, maxMatches, timeout, unit));
+		}
+		return getAll(futures);
+	}
+
+	/**
+	 * Matches a pattern against each of a sequence of graphs.
+	 * @return the results in the same order as the graphs
+	 * @see #submit(CandidateIndex, CompactGraph, CompactGraphMatcher.Mode, int, long, TimeUnit)
+	 */
+	public <V,E,U,F> List<MatchResult<U,V>> matchGraphs(Iterable<? extends CandidateIndex<V,E>> graphs, CompactGraph<U,F> pattern, CompactGraphMatcher.Mode mode, int maxMatches, long timeout, TimeUnit unit) throws InterruptedException
+	{
+		final CandidateIndex<U,F> patternIndex = new CandidateIndex<U,F>(pattern);
+		List<Future<MatchResult<U,V>>> futures = new ArrayList<Future<MatchResult<U,V>>>();
+		for(CandidateIndex<V,E> g : graphs)
+		{
+			futures.add(submit(g, pattern, patternIndex, mode, maxMatches, timeout, unit));
+		}
+		return getAll(futures);
+	}
+
+	/**
+	 * Waits for searches to finish, cancelling them if interrupted.
+	 */
+	private static <U,V> List<MatchResult<U,V>> getAll(List<Future<MatchResult<U,V>>> futures) throws InterruptedException
+	{
+		List<MatchResult<U,V>> results = new ArrayList<MatchResult<U,V>>(futures.size());
+		try
+		{
+			for(Future<MatchResult<U,V>> future : futures)
+			{
+				results.add(future.get());
+			}
+		}
+		catch(ExecutionException e)
+		{
+			cancelAll(futures);
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			else if(cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+			else
+			{
+				throw new IllegalStateException(cause);
+			}
+		}
+		catch(InterruptedException e)
+		{
+			cancelAll(futures);
+			throw e;
+		}
+		return results;
+	}
+
+	private static void cancelAll(List<? extends Future<?>> futures)
+	{
+		for(Future<?> future : futures)
+		{
+			future.cancel(true);
+		}
+	}
+
+	/**
+	 * Stops accepting searches. Searches already submitted are still run.
+	 * Searches submitted afterwards are rejected with a {@link RejectedExecutionException}.
+	 */
+	@Override
+	public void close()
+	{
+		executor.shutdown();
+	}
+
+
+
+	/**
+	 * Runs a search in the submitting thread when the queue is full,
+	 * but rejects it once the session is closed, rather than silently discarding it.
+	 */
+	private static final class CallerRunsIfOpenPolicy implements RejectedExecutionHandler
+	{
+		@Override
+		public void rejectedExecution(Runnable r, ThreadPoolExecutor executor)
+		{
+			if(executor.isShutdown())
+			{
+				throw new RejectedExecutionException("Session is closed");
+			}
+			r.run();
+		}
+	}
+
+	private static final class DaemonThreadFactory implements ThreadFactory
+	{
+		private final String prefix = "GraphMatcherSession-"+SESSION_COUNT.incrementAndGet()+"-";
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread t = new Thread(r, prefix+threadCount.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+
+
+	private static final class MatchTask<V,E,U,F> implements Callable<MatchResult<U,V>>
+	{
+		private final CandidateIndex<V,E> g;
+		private final CompactGraph<U,F> pattern;
+		private final CompactGraphMatcher.Mode mode;
+		private final int maxMatches;
+		private final long timeout;
+		private final TimeUnit unit;
+
+		MatchTask(CandidateIndex<V,E> g, CompactGraph<U,F> pattern, CompactGraphMatcher.Mode mode, int maxMatches, long timeout, TimeUnit unit)
+		{
+			this.g = g;
+			this.pattern = pattern;
+			this.mode = mode;
+			this.maxMatches = maxMatches;
+			this.timeout = timeout;
+			this.unit = unit;
+		}
+
+		@Override
+		public MatchResult<U,V> call()
+		{
+			FirstNVisitor<U,V> visitor = new FirstNVisitor<U,V>(maxMatches);
+			CompactGraphMatcher<V,E,U,F> matcher = new CompactGraphMatcher<V,E,U,F>(g, pattern, mode);
+			matcher.match(visitor, timeout, unit);
+			return new MatchResult<U,V>(visitor.getMappings(), matcher.isTimedOut());
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Based on:
+ * 
+ * The VFLib distribution is
+ * Copyright (c) 2001 by 
+ * Dipartimento di Informatica e Sistemistica 
+ * Universit� degli studi di Napoli ``Federico II'' 
+ * http://amalfi.dis.unina.it
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions: The above
+ * copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software. THE SOFTWARE IS PROVIDED "AS IS",
+ * WITHOUT WARRANTY OF ANY KIND, EXPRESS ORIMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THEAUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHERLIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM,OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS INTHE SOFTWARE.
+ */
+package graphrithms.matching;
+
+import java.util.Set;
+
+import org.apache.commons.collections15.BidiMap;
+
+/**
+ * The mappings found by a search.
+ */
+public final class MatchResult<U,V>
+{
+	private final Set<BidiMap<U,V>> mappings;
+	private final boolean timedOut;
+
+	MatchResult(Set<BidiMap<U,V>> mappings, boolean timedOut)
+	{
+		this.mappings = mappings;
+		this.timedOut = timedOut;
+	}
+
+	public Set<BidiMap<U,V>> getMappings()
+	{
+		return mappings;
+	}
+
+	/**
+	 * Returns true if the search gave up before it was complete, so there may be more mappings.
+	 */
+	public boolean isTimedOut()
+	{
+		return timedOut;
+	}
+}
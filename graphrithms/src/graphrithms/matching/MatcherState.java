@@ -40,4 +40,8 @@ public interface MatcherState<V,E,U,F>
 	boolean isFeasible(U u, V v);
 	void backtrack();
 	PairIterable<U,V> candidates();
+	/**
+	 * Returns an independent copy of this state that can be explored concurrently with it.
+	 */
+	MatcherState<V,E,U,F> copy();
 }
@@ -0,0 +1,254 @@
+/*
+ * Based on:
+ * 
+ * The VFLib distribution is
+ * Copyright (c) 2001 by 
+ * Dipartimento di Informatica e Sistemistica 
+ * Universit� degli studi di Napoli ``Federico II'' 
+ * http://amalfi.dis.unina.it
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions: The above
+ * copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software. THE SOFTWARE IS PROVIDED "AS IS",
+ * WITHOUT WARRANTY OF ANY KIND, EXPRESS ORIMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THEAUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHERLIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM,OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS INTHE SOFTWARE.
+ */
+package graphrithms.matching.compact;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the vertices of a {@link CompactGraph} by label and degree.
+ * Vertices with the same label are grouped together, in order of decreasing degree,
+ * so the vertices that could match a pattern vertex form a prefix of its label group.
+ * Build it once and reuse it to match several patterns against the same graph.
+ * It also holds invariants (vertex and edge counts, label counts and degree sequences)
+ * used to rule out patterns without searching (see {@link #mayMatch}).
+ */
+public final class CandidateIndex<V,E>
+{
+	/** Label id of pattern vertices whose label does not occur in the graph. */
+	static final int NO_LABEL = -1;
+
+	private final CompactGraph<V,E> graph;
+	private final Map<Object,Integer> labelIds;
+	private final List<Object> labelValues;
+	/** Sum of the out-neighbour counts. */
+	private final int edgeCount;
+	/** Label id of each vertex, 0 if the graph is unlabelled. */
+	final int[] labels;
+	final int[] outNeighbourCounts;
+	final int[] inNeighbourCounts;
+	/** Out- plus in-neighbour counts for directed graphs, else the neighbour count. */
+	final int[] degrees;
+	/** Vertices grouped by label, in order of decreasing degree. */
+	final int[] byLabel;
+	/** Start of each label group in byLabel. */
+	final int[] labelStart;
+	/** All vertices, in order of decreasing degree. */
+	final int[] byDegree;
+
+	public CandidateIndex(CompactGraph<V,E> graph)
+	{
+		this.graph = graph;
+		final int n = graph.getVertexCount();
+		this.labelIds = new HashMap<Object,Integer>();
+		this.labelValues = new ArrayList<Object>();
+		this.labels = new int[n];
+		this.outNeighbourCounts = new int[n];
+		this.inNeighbourCounts = graph.isDirected() ? new int[n] : outNeighbourCounts;
+		this.degrees = graph.isDirected() ? new int[n] : outNeighbourCounts;
+		for(int v=0; v<n; v++)
+		{
+			if(graph.isLabelled())
+			{
+				final Object label = graph.getLabel(v);
+				Integer id = labelIds.get(label);
+				if(id == null)
+				{
+					id = labelIds.size();
+					labelIds.put(label, id);
+					labelValues.add(label);
+				}
+				labels[v] = id;
+			}
+			outNeighbourCounts[v] = graph.outNeighbourCount(v);
+			if(graph.isDirected())
+			{
+				inNeighbourCounts[v] = graph.inNeighbourCount(v);
+				degrees[v] = outNeighbourCounts[v] + inNeighbourCounts[v];
+			}
+		}
+		int edges = 0;
+		for(int v=0; v<n; v++)
+		{
+			edges += outNeighbourCounts[v];
+		}
+		this.edgeCount = edges;
+
+		final int numLabels = Math.max(labelIds.size(), 1);
+		this.labelStart = new int[numLabels+1];
+		for(int v=0; v<n; v++)
+		{
+			labelStart[labels[v]+1]++;
+		}
+		for(int l=0; l<numLabels; l++)
+		{
+			labelStart[l+1] += labelStart[l];
+		}
+		// sort keys are (label, decreasing degree, vertex)
+		final long[] keys = new long[n];
+		final int[] next = Arrays.copyOf(labelStart, numLabels);
+		for(int v=0; v<n; v++)
+		{
+			keys[next[labels[v]]++] = ((long) (Integer.MAX_VALUE - degrees[v]) << 32) | v;
+		}
+		for(int l=0; l<numLabels; l++)
+		{
+			Arrays.sort(keys, labelStart[l], labelStart[l+1]);
+		}
+		this.byLabel = new int[n];
+		for(int i=0; i<n; i++)
+		{
+			byLabel[i] = (int) keys[i];
+		}
+		if(graph.isLabelled())
+		{
+			for(int v=0; v<n; v++)
+			{
+				keys[v] = ((long) (Integer.MAX_VALUE - degrees[v]) << 32) | v;
+			}
+			Arrays.sort(keys);
+			this.byDegree = new int[n];
+			for(int i=0; i<n; i++)
+			{
+				byDegree[i] = (int) keys[i];
+			}
+		}
+		else
+		{
+			// a single label group
+			this.byDegree = byLabel;
+		}
+	}
+
+	public CompactGraph<V,E> getGraph()
+	{
+		return graph;
+	}
+
+	/**
+	 * Returns the id of a label, or -1 if no vertex has that label.
+	 */
+	public int getLabelId(Object label)
+	{
+		Integer id = labelIds.get(label);
+		return (id != null) ? id : NO_LABEL;
+	}
+
+	/**
+	 * Returns the number of vertices with a label.
+	 */
+	public int getLabelCount(int labelId)
+	{
+		return (labelId != NO_LABEL) ? labelStart[labelId+1] - labelStart[labelId] : 0;
+	}
+
+	/**
+	 * Compares the invariants of this graph with those of a pattern.
+	 * The pattern can only be matched if it has no more vertices and edges (exactly as many for {@link CompactGraphMatcher.Mode#GRAPH}),
+	 * and, if both are labelled, each label is on no more vertices.
+	 * Also, the degrees of the pattern vertices with each label, in decreasing order,
+	 * must be no greater than the degrees of the graph vertices with that label.
+	 * @return false if the pattern cannot be matched, true if it might be
+	 */
+	public boolean mayMatch(CandidateIndex<?,?> pattern, CompactGraphMatcher.Mode mode)
+	{
+		final boolean exact = (mode == CompactGraphMatcher.Mode.GRAPH);
+		if(!compare(pattern.labels.length, labels.length, exact) || !compare(pattern.edgeCount, edgeCount, exact))
+		{
+			return false;
+		}
+		if(graph.isLabelled() && pattern.graph.isLabelled())
+		{
+			if(exact && pattern.labelValues.size() != labelValues.size())
+			{
+				return false;
+			}
+			for(int pl=0; pl<pattern.labelValues.size(); pl++)
+			{
+				final int l = getLabelId(pattern.labelValues.get(pl));
+				if(l == NO_LABEL || !dominates(byLabel, labelStart[l], labelStart[l+1], pattern, pattern.byLabel, pattern.labelStart[pl], pattern.labelStart[pl+1], exact))
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+		else
+		{
+			return dominates(byDegree, 0, byDegree.length, pattern, pattern.byDegree, 0, pattern.byDegree.length, exact);
+		}
+	}
+
+	/**
+	 * Compares the degree sequences of a group of graph vertices and a group of pattern vertices.
+	 */
+	private boolean dominates(int[] group, int start, int end, CandidateIndex<?,?> pattern, int[] patternGroup, int patternStart, int patternEnd, boolean exact)
+	{
+		final int size = patternEnd - patternStart;
+		if(!compare(size, end-start, exact))
+		{
+			return false;
+		}
+		for(int i=0; i<size; i++)
+		{
+			if(!compare(pattern.degrees[patternGroup[patternStart+i]], degrees[group[start+i]], exact))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean compare(int patternValue, int graphValue, boolean exact)
+	{
+		return exact ? (patternValue == graphValue) : (patternValue <= graphValue);
+	}
+
+	/**
+	 * Returns the number of vertices in a group that have at least the given degree.
+	 * @param group vertices in order of decreasing degree
+	 */
+	int countWithDegree(int[] group, int start, int end, int minDegree)
+	{
+		int lo = start;
+		int hi = end;
+		while(lo < hi)
+		{
+			final int mid = (lo + hi) >>> 1;
+			if(degrees[group[mid]] >= minDegree)
+			{
+				lo = mid+1;
+			}
+			else
+			{
+				hi = mid;
+			}
+		}
+		return lo - start;
+	}
+}
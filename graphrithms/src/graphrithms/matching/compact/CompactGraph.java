@@ -0,0 +1,329 @@
+/*
+ * Based on:
+ * 
+ * The VFLib distribution is
+ * Copyright (c) 2001 by 
+ * Dipartimento di Informatica e Sistemistica 
+ * Universit� degli studi di Napoli ``Federico II'' 
+ * http://amalfi.dis.unina.it
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions: The above
+ * copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software. THE SOFTWARE IS PROVIDED "AS IS",
+ * WITHOUT WARRANTY OF ANY KIND, EXPRESS ORIMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THEAUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHERLIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM,OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS INTHE SOFTWARE.
+ */
+package graphrithms.matching.compact;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedGraph;
+import org.apache.commons.collections15.Transformer;
+
+/**
+ * Immutable snapshot of a graph, with vertices numbered 0 to n-1 (in the order of <code>getVertices()</code>)
+ * and adjacency stored in compressed sparse row form.
+ * The neighbours of each vertex are sorted by id, so that edges can be found by binary search.
+ * For undirected graphs, the in-adjacency is the same as the out-adjacency.
+ * Vertices may optionally be labelled, in which case they only match vertices with an equal label.
+ */
+public final class CompactGraph<V,E>
+{
+	private final boolean directed;
+	private final Object[] vertices;
+	private final Map<V,Integer> ids;
+	private final Object[] labels; // null if unlabelled
+	// adjacency arrays, read directly by the matcher
+	final int[] outStart;
+	final int[] outAdj;
+	final Object[] outEdges;
+	final int[] inStart;
+	final int[] inAdj;
+	final Object[] inEdges;
+
+	public static <V,E> CompactGraph<V,E> create(UndirectedGraph<V,E> graph)
+	{
+		return new CompactGraph<V,E>(graph, false, null);
+	}
+
+	public static <V,E> CompactGraph<V,E> create(DirectedGraph<V,E> graph)
+	{
+		return new CompactGraph<V,E>(graph, true, null);
+	}
+
+	/**
+	 * @param labeller returns the label of a vertex
+	 */
+	public static <V,E> CompactGraph<V,E> create(UndirectedGraph<V,E> graph, Transformer<? super V,?> labeller)
+	{
+		return new CompactGraph<V,E>(graph, false, labeller);
+	}
+
+	/**
+	 * @param labeller returns the label of a vertex
+	 */
+	public static <V,E> CompactGraph<V,E> create(DirectedGraph<V,E> graph, Transformer<? super V,?> labeller)
+	{
+		return new CompactGraph<V,E>(graph, true, labeller);
+	}
+
+	private CompactGraph(Graph<V,E> graph, boolean directed, Transformer<? super V,?> labeller)
+	{
+		this.directed = directed;
+		final int n = graph.getVertexCount();
+		this.vertices = graph.getVertices().toArray();
+		this.ids = new HashMap<V,Integer>(2*n);
+		for(int i=0; i<n; i++)
+		{
+			ids.put(getVertex(i), i);
+		}
+		if(labeller != null)
+		{
+			this.labels = new Object[n];
+			for(int i=0; i<n; i++)
+			{
+				labels[i] = labeller.transform(getVertex(i));
+			}
+		}
+		else
+		{
+			this.labels = null;
+		}
+		this.outStart = new int[n+1];
+		if(directed)
+		{
+			this.inStart = new int[n+1];
+			for(int i=0; i<n; i++)
+			{
+				outStart[i+1] = outStart[i] + graph.outDegree(getVertex(i));
+				inStart[i+1] = inStart[i] + graph.inDegree(getVertex(i));
+			}
+		}
+		else
+		{
+			for(int i=0; i<n; i++)
+			{
+				outStart[i+1] = outStart[i] + graph.getIncidentEdges(getVertex(i)).size();
+			}
+			this.inStart = outStart;
+		}
+		this.outAdj = new int[outStart[n]];
+		this.outEdges = new Object[outStart[n]];
+		for(int i=0; i<n; i++)
+		{
+			final V v = getVertex(i);
+			fill(graph, v, directed ? graph.getOutEdges(v) : graph.getIncidentEdges(v), outStart[i], outAdj, outEdges);
+		}
+		if(directed)
+		{
+			this.inAdj = new int[inStart[n]];
+			this.inEdges = new Object[inStart[n]];
+			for(int i=0; i<n; i++)
+			{
+				final V v = getVertex(i);
+				fill(graph, v, graph.getInEdges(v), inStart[i], inAdj, inEdges);
+			}
+		}
+		else
+		{
+			this.inAdj = outAdj;
+			this.inEdges = outEdges;
+		}
+	}
+
+	/**
+	 * Copies the edges of v, sorted by opposite vertex.
+	 */
+	@SuppressWarnings("unchecked")
+	private void fill(Graph<V,E> graph, V v, Collection<E> edges, int start, int[] adj, Object[] edgeArray)
+	{
+		final int degree = edges.size();
+		// sort keys are (opposite vertex, original position)
+		final long[] keys = new long[degree];
+		final Object[] unsorted = edges.toArray();
+		for(int i=0; i<degree; i++)
+		{
+			final int w = ids.get(graph.getOpposite(v, (E) unsorted[i]));
+			keys[i] = ((long) w << 32) | i;
+		}
+		Arrays.sort(keys);
+		for(int i=0; i<degree; i++)
+		{
+			adj[start+i] = (int) (keys[i] >>> 32);
+			edgeArray[start+i] = unsorted[(int) keys[i]];
+		}
+	}
+
+	public boolean isDirected()
+	{
+		return directed;
+	}
+
+	public int getVertexCount()
+	{
+		return vertices.length;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V getVertex(int id)
+	{
+		return (V) vertices[id];
+	}
+
+	public boolean isLabelled()
+	{
+		return labels != null;
+	}
+
+	/**
+	 * Returns the label of a vertex, or null if the graph is unlabelled.
+	 */
+	public Object getLabel(int id)
+	{
+		return (labels != null) ? labels[id] : null;
+	}
+
+	/**
+	 * Returns the id of a vertex, or -1 if it is not in the graph.
+	 */
+	public int getId(V v)
+	{
+		Integer id = ids.get(v);
+		return (id != null) ? id : -1;
+	}
+
+	/**
+	 * Index of the first out-edge of a vertex.
+	 */
+	public int outStart(int v)
+	{
+		return outStart[v];
+	}
+
+	/**
+	 * Index after the last out-edge of a vertex.
+	 */
+	public int outEnd(int v)
+	{
+		return outStart[v+1];
+	}
+
+	public int outDegree(int v)
+	{
+		return outStart[v+1] - outStart[v];
+	}
+
+	/**
+	 * Returns the number of distinct vertices that v has out-edges to (parallel edges are only counted once).
+	 */
+	public int outNeighbourCount(int v)
+	{
+		return countNeighbours(outStart, outAdj, v);
+	}
+
+	/**
+	 * Returns the opposite vertex of an out-edge.
+	 */
+	public int outTarget(int index)
+	{
+		return outAdj[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	public E outEdge(int index)
+	{
+		return (E) outEdges[index];
+	}
+
+	public int inStart(int v)
+	{
+		return inStart[v];
+	}
+
+	public int inEnd(int v)
+	{
+		return inStart[v+1];
+	}
+
+	public int inDegree(int v)
+	{
+		return inStart[v+1] - inStart[v];
+	}
+
+	/**
+	 * Returns the number of distinct vertices that have edges to v.
+	 */
+	public int inNeighbourCount(int v)
+	{
+		return countNeighbours(inStart, inAdj, v);
+	}
+
+	private static int countNeighbours(int[] start, int[] adj, int v)
+	{
+		int count = 0;
+		for(int k=start[v], end=start[v+1]; k<end; k++)
+		{
+			// neighbours are sorted
+			if(k == start[v] || adj[k] != adj[k-1])
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the opposite vertex of an in-edge.
+	 */
+	public int inSource(int index)
+	{
+		return inAdj[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	public E inEdge(int index)
+	{
+		return (E) inEdges[index];
+	}
+
+	/**
+	 * Returns the index of an out-edge from v to w, or -1 if there is none.
+	 */
+	public int findOutEdge(int v, int w)
+	{
+		int lo = outStart[v];
+		int hi = outStart[v+1]-1;
+		while(lo <= hi)
+		{
+			final int mid = (lo + hi) >>> 1;
+			final int x = outAdj[mid];
+			if(x < w)
+			{
+				lo = mid+1;
+			}
+			else if(x > w)
+			{
+				hi = mid-1;
+			}
+			else
+			{
+				return mid;
+			}
+		}
+		return -1;
+	}
+}
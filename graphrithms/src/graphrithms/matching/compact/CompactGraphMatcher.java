@@ -0,0 +1,800 @@
+/*
+ * Based on:
+ * 
+ * The VFLib distribution is
+ * Copyright (c) 2001 by 
+ * Dipartimento di Informatica e Sistemistica 
+ * Universit� degli studi di Napoli ``Federico II'' 
+ * http://amalfi.dis.unina.it
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions: The above
+ * copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software. THE SOFTWARE IS PROVIDED "AS IS",
+ * WITHOUT WARRANTY OF ANY KIND, EXPRESS ORIMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THEAUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHERLIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM,OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS INTHE SOFTWARE.
+ */
+package graphrithms.matching.compact;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.collections15.BidiMap;
+
+import graphrithms.matching.Matcher;
+import graphrithms.matching.Visitor;
+import graphrithms.matching.util.DualLinkedBidiMap;
+
+/**
+ * VF2 graph matching on {@link CompactGraph} snapshots.
+ * Follows the same feasibility rules as the {@link graphrithms.matching.MatcherState} implementations,
+ * but keeps a single mutable state in primitive arrays: the mapping in both directions,
+ * the depth at which each vertex joined a terminal set (for backtracking)
+ * and bitsets of the current terminal sets.
+ * Mappings are only converted back to vertex objects when they are passed to the visitor.
+ * <p>
+ * As in VF2++ and RI, pattern vertices are mapped in a fixed order, computed up-front:
+ * each connected component is started from the vertex with the rarest label (then the highest degree)
+ * and grown greedily by the vertex most constrained by those already ordered (see {@link #isBefore}).
+ * So every vertex other than the first of a component can only be mapped to a neighbour of the image of an earlier vertex,
+ * and the first is only mapped to vertices from the {@link CandidateIndex} with the same label and enough neighbours.
+ * Instances are not thread-safe.
+ */
+public final class CompactGraphMatcher<V,E,U,F>
+{
+	public enum Mode
+	{
+		/** Graph isomorphism. */
+		GRAPH,
+		/** Subgraph monomorphism. */
+		SUBGRAPH,
+		/** Induced subgraph isomorphism. */
+		INDUCED_SUBGRAPH
+	}
+
+	private static final int NULL_NODE = -1;
+	/** Number of pairs tried between checks for a timeout (a power of two). */
+	private static final int CHECK_INTERVAL = 1024;
+
+	private final CandidateIndex<V,E> index;
+	private final CompactGraph<V,E> graph;
+	private final CompactGraph<U,F> pattern;
+	private final Mode mode;
+	private final boolean directed;
+	private final Matcher<U,V> vertexMatcher; // null matches everything
+	private final Matcher<F,E> edgeMatcher; // null matches everything
+
+	private final boolean useLabels;
+	private final int[] patternLabels; // label ids in the index
+	private final int[] patternOutCounts;
+	private final int[] patternInCounts;
+	private final int[] patternDegrees;
+	private final int[] order; // pattern vertices in the order they are mapped
+	private final int[] parents; // an earlier neighbour of each vertex in the order, or NULL_NODE
+	private final boolean[] parentOut; // true if candidates are out-neighbours of the image of the parent
+
+	private final int[] patternCore;
+	private final int[] graphCore;
+	private int depth;
+	private int steps;
+	private boolean hasDeadline;
+	private long deadline;
+	private boolean timedOut;
+	private final TerminalSet patternOut;
+	private final TerminalSet patternIn;
+	private final TerminalSet graphOut;
+	private final TerminalSet graphIn;
+
+	public CompactGraphMatcher(CompactGraph<V,E> graph, CompactGraph<U,F> pattern, Mode mode)
+	{
+		this(graph, pattern, mode, null, null);
+	}
+
+	public CompactGraphMatcher(CompactGraph<V,E> graph, CompactGraph<U,F> pattern, Mode mode, Matcher<U,V> vertexMatcher, Matcher<F,E> edgeMatcher)
+	{
+		this(new CandidateIndex<V,E>(graph), pattern, mode, vertexMatcher, edgeMatcher);
+	}
+
+	public CompactGraphMatcher(CandidateIndex<V,E> index, CompactGraph<U,F> pattern, Mode mode)
+	{
+		this(index, pattern, mode, null, null);
+	}
+
+	/**
+	 * If both the graph and the pattern are labelled, vertices only match vertices with an equal label
+	 * (in addition to the vertex matcher).
+	 */
+	public CompactGraphMatcher(CandidateIndex<V,E> index, CompactGraph<U,F> pattern, Mode mode, Matcher<U,V> vertexMatcher, Matcher<F,E> edgeMatcher)
+	{
+		final CompactGraph<V,E> graph = index.getGraph();
+		if(graph.isDirected() != pattern.isDirected())
+		{
+			throw new IllegalArgumentException("Graph and pattern must both be directed or both be undirected.");
+		}
+		this.index = index;
+		this.graph = graph;
+		this.pattern = pattern;
+		this.mode = mode;
+		this.directed = graph.isDirected();
+		this.vertexMatcher = vertexMatcher;
+		this.edgeMatcher = edgeMatcher;
+		final int pn = pattern.getVertexCount();
+		final int gn = graph.getVertexCount();
+		this.patternCore = new int[pn];
+		this.graphCore = new int[gn];
+		Arrays.fill(patternCore, NULL_NODE);
+		Arrays.fill(graphCore, NULL_NODE);
+		this.patternOut = new TerminalSet(pn);
+		this.graphOut = new TerminalSet(gn);
+		// an undirected graph has a single terminal set
+		this.patternIn = directed ? new TerminalSet(pn) : patternOut;
+		this.graphIn = directed ? new TerminalSet(gn) : graphOut;
+
+		this.useLabels = graph.isLabelled() && pattern.isLabelled();
+		this.patternLabels = new int[pn];
+		this.patternOutCounts = new int[pn];
+		this.patternInCounts = directed ? new int[pn] : patternOutCounts;
+		this.patternDegrees = directed ? new int[pn] : patternOutCounts;
+		for(int u=0; u<pn; u++)
+		{
+			if(useLabels)
+			{
+				patternLabels[u] = index.getLabelId(pattern.getLabel(u));
+			}
+			patternOutCounts[u] = pattern.outNeighbourCount(u);
+			if(directed)
+			{
+				patternInCounts[u] = pattern.inNeighbourCount(u);
+				patternDegrees[u] = patternOutCounts[u] + patternInCounts[u];
+			}
+		}
+		this.order = new int[pn];
+		this.parents = new int[pn];
+		this.parentOut = new boolean[pn];
+		computeOrder();
+	}
+
+	/**
+	 * Computes the order in which pattern vertices are mapped, and the parent of each.
+	 */
+	private void computeOrder()
+	{
+		final int pn = order.length;
+		final int gn = graphCore.length;
+		// number of graph vertices each pattern vertex could be mapped to, based on its label
+		final int[] frequencies = new int[pn];
+		for(int u=0; u<pn; u++)
+		{
+			frequencies[u] = useLabels ? index.getLabelCount(patternLabels[u]) : gn;
+		}
+		final int[] positions = new int[pn];
+		Arrays.fill(positions, pn);
+		final int[] connections = new int[pn]; // number of ordered neighbours
+		final int[] constraints = new int[pn]; // number of unordered neighbours adjacent to ordered vertices
+		for(int i=0; i<pn; i++)
+		{
+			for(int u=0; u<pn; u++)
+			{
+				constraints[u] = 0;
+				if(positions[u] == pn)
+				{
+					for(int d=0; d<(directed ? 2 : 1); d++)
+					{
+						final int[] start = (d == 0) ? pattern.outStart : pattern.inStart;
+						final int[] adj = (d == 0) ? pattern.outAdj : pattern.inAdj;
+						for(int k=start[u], end=start[u+1]; k<end; k++)
+						{
+							final int w = adj[k];
+							if(positions[w] == pn && connections[w] > 0)
+							{
+								constraints[u]++;
+							}
+						}
+					}
+				}
+			}
+			int best = NULL_NODE;
+			for(int u=0; u<pn; u++)
+			{
+				if(positions[u] == pn && (best == NULL_NODE || isBefore(u, best, connections, constraints, frequencies)))
+				{
+					best = u;
+				}
+			}
+			positions[best] = i;
+			order[i] = best;
+			for(int d=0; d<(directed ? 2 : 1); d++)
+			{
+				final int[] start = (d == 0) ? pattern.outStart : pattern.inStart;
+				final int[] adj = (d == 0) ? pattern.outAdj : pattern.inAdj;
+				for(int k=start[best], end=start[best+1]; k<end; k++)
+				{
+					connections[adj[k]]++;
+				}
+			}
+		}
+
+		// the parent is the earliest neighbour in the order
+		for(int i=0; i<pn; i++)
+		{
+			final int u = order[i];
+			int parent = NULL_NODE;
+			boolean out = true;
+			for(int d=0; d<(directed ? 2 : 1); d++)
+			{
+				final int[] start = (d == 0) ? pattern.outStart : pattern.inStart;
+				final int[] adj = (d == 0) ? pattern.outAdj : pattern.inAdj;
+				for(int k=start[u], end=start[u+1]; k<end; k++)
+				{
+					final int w = adj[k];
+					if(positions[w] < i && (parent == NULL_NODE || positions[w] < positions[parent]))
+					{
+						parent = w;
+						// an edge u -> parent must map to an edge v -> image of parent, so v is an in-neighbour
+						out = (d != 0) || !directed;
+					}
+				}
+			}
+			parents[i] = parent;
+			parentOut[i] = out;
+		}
+	}
+
+	/**
+	 * Returns true if unordered vertex u should be ordered before b.
+	 * The first vertex of a component has the rarest label, then the highest degree.
+	 * Other vertices have the most ordered neighbours, then the most neighbours adjacent to ordered vertices,
+	 * then the highest degree, then the rarest label.
+	 */
+	private boolean isBefore(int u, int b, int[] connections, int[] constraints, int[] frequencies)
+	{
+		if(connections[u] != connections[b])
+		{
+			return connections[u] > connections[b];
+		}
+		else if(connections[u] == 0 && frequencies[u] != frequencies[b])
+		{
+			return frequencies[u] < frequencies[b];
+		}
+		else if(constraints[u] != constraints[b])
+		{
+			return constraints[u] > constraints[b];
+		}
+		else if(patternDegrees[u] != patternDegrees[b])
+		{
+			return patternDegrees[u] > patternDegrees[b];
+		}
+		else
+		{
+			return frequencies[u] < frequencies[b];
+		}
+	}
+
+	public CandidateIndex<V,E> getIndex()
+	{
+		return index;
+	}
+
+	public CompactGraph<V,E> getGraph()
+	{
+		return graph;
+	}
+
+	public CompactGraph<U,F> getPattern()
+	{
+		return pattern;
+	}
+
+	/**
+	 * Performs graph matching.
+	 * @return true if the visitor stopped the search
+	 */
+	public boolean match(Visitor<U,V> visitor)
+	{
+		return match(visitor, 0L, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Performs graph matching, giving up if it takes longer than a timeout or the thread is interrupted.
+	 * @param timeout the maximum time to search for, or 0 for no limit
+	 * @return true if the visitor stopped the search or it gave up
+	 */
+	public boolean match(Visitor<U,V> visitor, long timeout, TimeUnit unit)
+	{
+		steps = 0;
+		hasDeadline = (timeout > 0L);
+		deadline = System.nanoTime() + unit.toNanos(timeout);
+		timedOut = false;
+		return search(visitor);
+	}
+
+	/**
+	 * Returns true if the last search gave up before it was complete.
+	 */
+	public boolean isTimedOut()
+	{
+		return timedOut;
+	}
+
+	private boolean search(Visitor<U,V> visitor)
+	{
+		if(depth == order.length || isDead())
+		{
+			return false;
+		}
+		final int u = order[depth];
+		final int parent = parents[depth];
+		if(parent != NULL_NODE)
+		{
+			// u can only be mapped to a neighbour of the image of its parent
+			final int gp = patternCore[parent];
+			final int[] start = parentOut[depth] ? graph.outStart : graph.inStart;
+			final int[] adj = parentOut[depth] ? graph.outAdj : graph.inAdj;
+			for(int k=start[gp], end=start[gp+1]; k<end; k++)
+			{
+				final int v = adj[k];
+				// skip parallel edges
+				if((k == start[gp] || v != adj[k-1]) && graphCore[v] == NULL_NODE && isCandidate(u, v) && tryPair(u, v, visitor))
+				{
+					return true;
+				}
+			}
+		}
+		else
+		{
+			// first vertex of a component, so look up the vertices with the same label and enough neighbours
+			final int[] group;
+			final int start;
+			int end;
+			if(useLabels)
+			{
+				final int label = patternLabels[u];
+				if(label == CandidateIndex.NO_LABEL)
+				{
+					return false;
+				}
+				group = index.byLabel;
+				start = index.labelStart[label];
+				end = index.labelStart[label+1];
+			}
+			else
+			{
+				group = index.byDegree;
+				start = 0;
+				end = group.length;
+			}
+			end = start + index.countWithDegree(group, start, end, patternDegrees[u]);
+			for(int i=start; i<end; i++)
+			{
+				final int v = group[i];
+				if(graphCore[v] == NULL_NODE && isCandidate(u, v) && tryPair(u, v, visitor))
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks the label and neighbour counts of a candidate pair.
+	 */
+	private boolean isCandidate(int u, int v)
+	{
+		if(useLabels && index.labels[v] != patternLabels[u])
+		{
+			return false;
+		}
+		if(mode == Mode.GRAPH)
+		{
+			return index.outNeighbourCounts[v] == patternOutCounts[u] && index.inNeighbourCounts[v] == patternInCounts[u];
+		}
+		else
+		{
+			return index.outNeighbourCounts[v] >= patternOutCounts[u] && index.inNeighbourCounts[v] >= patternInCounts[u];
+		}
+	}
+
+	private boolean tryPair(int u, int v, Visitor<U,V> visitor)
+	{
+		if((++steps & (CHECK_INTERVAL-1)) == 0 && isExpired())
+		{
+			timedOut = true;
+			return true;
+		}
+		boolean stop = false;
+		if(isFeasible(u, v))
+		{
+			addPair(u, v);
+			if(depth == patternCore.length)
+			{
+				stop = visitor.visit(getMapping());
+			}
+			else
+			{
+				stop = search(visitor);
+			}
+			backtrack();
+		}
+		return stop;
+	}
+
+	private boolean isExpired()
+	{
+		return Thread.currentThread().isInterrupted() || (hasDeadline && System.nanoTime() - deadline > 0L);
+	}
+
+	private boolean isDead()
+	{
+		final int pn = patternCore.length;
+		final int gn = graphCore.length;
+		if(mode == Mode.GRAPH)
+		{
+			return (pn != gn)
+				|| (patternOut.size != graphOut.size)
+				|| (patternIn.size != graphIn.size);
+		}
+		else
+		{
+			return (pn > gn)
+				|| (patternOut.size > graphOut.size)
+				|| (patternIn.size > graphIn.size);
+		}
+	}
+
+	private BidiMap<U,V> getMapping()
+	{
+		BidiMap<U,V> mapping = new DualLinkedBidiMap<U,V>(depth);
+		for(int i=0; i<depth; i++)
+		{
+			final int u = order[i];
+			mapping.put(pattern.getVertex(u), graph.getVertex(patternCore[u]));
+		}
+		return mapping;
+	}
+
+	private boolean isFeasible(int u, int v)
+	{
+		if(vertexMatcher != null && !vertexMatcher.match(pattern.getVertex(u), graph.getVertex(v)))
+		{
+			return false;
+		}
+		return directed ? matchDirectedEdges(u, v) : matchUndirectedEdges(u, v);
+	}
+
+	private boolean matchUndirectedEdges(final int pv, final int gv)
+	{
+		int pterm = 0;
+		int pnew = 0;
+		final int[] padj = pattern.outAdj;
+		for(int k=pattern.outStart[pv], end=pattern.outStart[pv+1]; k<end; k++)
+		{
+			final int u = padj[k];
+			final int v = patternCore[u];
+			if(v != NULL_NODE)
+			{
+				final int ge = graph.findOutEdge(gv, v);
+				if(ge == NULL_NODE || !matchEdge(pattern.outEdges[k], graph.outEdges[ge]))
+				{
+					return false;
+				}
+			}
+			else if(patternOut.contains(u))
+			{
+				pterm++;
+			}
+			else
+			{
+				pnew++;
+			}
+		}
+		int gterm = 0;
+		int gnew = 0;
+		final boolean checkMapped = (mode != Mode.SUBGRAPH);
+		final int[] gadj = graph.outAdj;
+		for(int k=graph.outStart[gv], end=graph.outStart[gv+1]; k<end; k++)
+		{
+			final int v = gadj[k];
+			final int u = graphCore[v];
+			if(u != NULL_NODE)
+			{
+				if(checkMapped)
+				{
+					final int pe = pattern.findOutEdge(pv, u);
+					if(pe == NULL_NODE || !matchEdge(pattern.outEdges[pe], graph.outEdges[k]))
+					{
+						return false;
+					}
+				}
+			}
+			else if(graphOut.contains(v))
+			{
+				gterm++;
+			}
+			else
+			{
+				gnew++;
+			}
+		}
+		switch(mode)
+		{
+			case GRAPH:
+				return (pterm == gterm) && (pnew == gnew);
+			case SUBGRAPH:
+				return (pterm <= gterm) && (pterm+pnew <= gterm+gnew);
+			default:
+				return (pterm <= gterm) && (pnew <= gnew);
+		}
+	}
+
+	private boolean matchDirectedEdges(final int pv, final int gv)
+	{
+		int ptermIn = 0;
+		int ptermOut = 0;
+		int pnew = 0;
+		// pattern out-edges pv -> u must map to graph edges gv -> v
+		final int[] padj = pattern.outAdj;
+		for(int k=pattern.outStart[pv], end=pattern.outStart[pv+1]; k<end; k++)
+		{
+			final int u = padj[k];
+			final int v = patternCore[u];
+			if(v != NULL_NODE)
+			{
+				final int ge = graph.findOutEdge(gv, v);
+				if(ge == NULL_NODE || !matchEdge(pattern.outEdges[k], graph.outEdges[ge]))
+				{
+					return false;
+				}
+			}
+			else
+			{
+				final boolean isIn = patternIn.contains(u);
+				final boolean isOut = patternOut.contains(u);
+				if(isIn)
+				{
+					ptermIn++;
+				}
+				if(isOut)
+				{
+					ptermOut++;
+				}
+				if(!isIn && !isOut)
+				{
+					pnew++;
+				}
+			}
+		}
+		// pattern in-edges u -> pv must map to graph edges v -> gv
+		final int[] pinadj = pattern.inAdj;
+		for(int k=pattern.inStart[pv], end=pattern.inStart[pv+1]; k<end; k++)
+		{
+			final int u = pinadj[k];
+			final int v = patternCore[u];
+			if(v != NULL_NODE)
+			{
+				final int ge = graph.findOutEdge(v, gv);
+				if(ge == NULL_NODE || !matchEdge(pattern.inEdges[k], graph.outEdges[ge]))
+				{
+					return false;
+				}
+			}
+			else
+			{
+				final boolean isIn = patternIn.contains(u);
+				final boolean isOut = patternOut.contains(u);
+				if(isIn)
+				{
+					ptermIn++;
+				}
+				if(isOut)
+				{
+					ptermOut++;
+				}
+				if(!isIn && !isOut)
+				{
+					pnew++;
+				}
+			}
+		}
+		int gtermIn = 0;
+		int gtermOut = 0;
+		int gnew = 0;
+		final boolean checkMapped = (mode != Mode.SUBGRAPH);
+		final int[] gadj = graph.outAdj;
+		for(int k=graph.outStart[gv], end=graph.outStart[gv+1]; k<end; k++)
+		{
+			final int v = gadj[k];
+			final int u = graphCore[v];
+			if(u != NULL_NODE)
+			{
+				if(checkMapped)
+				{
+					final int pe = pattern.findOutEdge(pv, u);
+					if(pe == NULL_NODE || !matchEdge(pattern.outEdges[pe], graph.outEdges[k]))
+					{
+						return false;
+					}
+				}
+			}
+			else
+			{
+				final boolean isIn = graphIn.contains(v);
+				final boolean isOut = graphOut.contains(v);
+				if(isIn)
+				{
+					gtermIn++;
+				}
+				if(isOut)
+				{
+					gtermOut++;
+				}
+				if(!isIn && !isOut)
+				{
+					gnew++;
+				}
+			}
+		}
+		final int[] ginadj = graph.inAdj;
+		for(int k=graph.inStart[gv], end=graph.inStart[gv+1]; k<end; k++)
+		{
+			final int v = ginadj[k];
+			final int u = graphCore[v];
+			if(u != NULL_NODE)
+			{
+				if(checkMapped)
+				{
+					final int pe = pattern.findOutEdge(u, pv);
+					if(pe == NULL_NODE || !matchEdge(pattern.outEdges[pe], graph.inEdges[k]))
+					{
+						return false;
+					}
+				}
+			}
+			else
+			{
+				final boolean isIn = graphIn.contains(v);
+				final boolean isOut = graphOut.contains(v);
+				if(isIn)
+				{
+					gtermIn++;
+				}
+				if(isOut)
+				{
+					gtermOut++;
+				}
+				if(!isIn && !isOut)
+				{
+					gnew++;
+				}
+			}
+		}
+		switch(mode)
+		{
+			case GRAPH:
+				return (ptermIn == gtermIn) && (ptermOut == gtermOut) && (pnew == gnew);
+			case SUBGRAPH:
+				return (ptermIn <= gtermIn) && (ptermOut <= gtermOut) && (ptermIn+ptermOut+pnew <= gtermIn+gtermOut+gnew);
+			default:
+				return (ptermIn <= gtermIn) && (ptermOut <= gtermOut) && (pnew <= gnew);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean matchEdge(Object pe, Object ge)
+	{
+		return edgeMatcher == null || edgeMatcher.match((F) pe, (E) ge);
+	}
+
+	private void addPair(int u, int v)
+	{
+		patternCore[u] = v;
+		graphCore[v] = u;
+		depth++;
+		extend(patternOut, pattern.outStart, pattern.outAdj, patternCore, u);
+		extend(graphOut, graph.outStart, graph.outAdj, graphCore, v);
+		if(directed)
+		{
+			extend(patternIn, pattern.inStart, pattern.inAdj, patternCore, u);
+			extend(graphIn, graph.inStart, graph.inAdj, graphCore, v);
+		}
+	}
+
+	private void backtrack()
+	{
+		final int u = order[depth-1];
+		final int v = patternCore[u];
+		retract(patternOut, pattern.outStart, pattern.outAdj, u);
+		retract(graphOut, graph.outStart, graph.outAdj, v);
+		if(directed)
+		{
+			retract(patternIn, pattern.inStart, pattern.inAdj, u);
+			retract(graphIn, graph.inStart, graph.inAdj, v);
+		}
+		depth--;
+		patternCore[u] = NULL_NODE;
+		graphCore[v] = NULL_NODE;
+	}
+
+	/**
+	 * Moves the newly mapped vertex x out of the terminal set and adds its unmapped neighbours.
+	 */
+	private void extend(TerminalSet t, int[] start, int[] adj, int[] core, int x)
+	{
+		if(t.contains(x))
+		{
+			t.clear(x);
+		}
+		for(int k=start[x], end=start[x+1]; k<end; k++)
+		{
+			final int w = adj[k];
+			if(core[w] == NULL_NODE && t.depths[w] == 0)
+			{
+				t.depths[w] = depth;
+				t.set(w);
+			}
+		}
+	}
+
+	/**
+	 * Undoes {@link #extend}.
+	 */
+	private void retract(TerminalSet t, int[] start, int[] adj, int x)
+	{
+		for(int k=start[x], end=start[x+1]; k<end; k++)
+		{
+			final int w = adj[k];
+			if(t.depths[w] == depth)
+			{
+				t.depths[w] = 0;
+				t.clear(w);
+			}
+		}
+		if(t.depths[x] != 0)
+		{
+			t.set(x);
+		}
+	}
+
+	/**
+	 * Terminal set of unmapped vertices adjacent to the mapping.
+	 */
+	private static final class TerminalSet
+	{
+		/** Depth at which each vertex joined the set, 0 if it has not. */
+		final int[] depths;
+		/** Current (unmapped) members. */
+		final long[] bits;
+		int size;
+
+		TerminalSet(int n)
+		{
+			this.depths = new int[n];
+			this.bits = new long[(n+63) >>> 6];
+		}
+
+		boolean contains(int x)
+		{
+			return (bits[x >>> 6] & (1L << x)) != 0L;
+		}
+
+		void set(int x)
+		{
+			bits[x >>> 6] |= 1L << x;
+			size++;
+		}
+
+		void clear(int x)
+		{
+			bits[x >>> 6] &= ~(1L << x);
+			size--;
+		}
+	}
+}
@@ -56,6 +56,14 @@ public abstract class AbstractDirectedSubgraphMatcherState<V,E,U,F> extends Abst
 		this.candidates = createCandidates();
 	}
 
+	protected AbstractDirectedSubgraphMatcherState(AbstractDirectedSubgraphMatcherState<V,E,U,F> s)
+	{
+		super(s);
+		this.patternState = s.patternState.copy();
+		this.graphState = s.graphState.copy();
+		this.candidates = s.candidates;
+	}
+
 	protected final PairIterable<U,V> createDefaultCandidates()
 	{
 		U pmin = getPatternMin();
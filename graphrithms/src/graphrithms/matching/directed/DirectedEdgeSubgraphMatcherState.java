@@ -43,12 +43,23 @@ public final class DirectedEdgeSubgraphMatcherState<V,E,U,F> extends AbstractDir
 		super(s, u, v);
 	}
 
+	private DirectedEdgeSubgraphMatcherState(DirectedEdgeSubgraphMatcherState<V,E,U,F> s)
+	{
+		super(s);
+	}
+
 	@Override
 	public DirectedEdgeSubgraphMatcherState<V,E,U,F> newState(U u, V v)
 	{
 		return new DirectedEdgeSubgraphMatcherState<V,E,U,F>(this, u, v);
 	}
 
+	@Override
+	public DirectedEdgeSubgraphMatcherState<V,E,U,F> copy()
+	{
+		return new DirectedEdgeSubgraphMatcherState<V,E,U,F>(this);
+	}
+
 	@Override
 	protected boolean matchEdges(U pv, V gv)
 	{
@@ -118,8 +129,32 @@ public final class DirectedEdgeSubgraphMatcherState<V,E,U,F> extends AbstractDir
         int gtermIn = 0;
         int gtermOut = 0;
         int gnew = 0;
-        for(V v : graph.getNeighbors(gv))
+        // count per edge, as for the pattern
+        for(E ge : graph.getOutEdges(gv))
+        {
+            V v = graph.getOpposite(gv, ge);
+            U u = mapping.getKey(v);
+            if(u == null)
+            {
+                boolean isIn = graphState.inTerminalSetContains(v);
+                boolean isOut = graphState.outTerminalSetContains(v);
+                if(isIn)
+                {
+                    gtermIn++;
+                }
+                if(isOut)
+                {
+                    gtermOut++;
+                }
+                if(!isIn && !isOut)
+                {
+                    gnew++;
+                }
+            }
+        }
+        for(E ge : graph.getInEdges(gv))
         {
+            V v = graph.getOpposite(gv, ge);
             U u = mapping.getKey(v);
             if(u == null)
             {
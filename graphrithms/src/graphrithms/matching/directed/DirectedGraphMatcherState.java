@@ -46,6 +46,11 @@ public final class DirectedGraphMatcherState<V,E,U,F> extends AbstractDirectedSu
 	{
 		super(s, u, v);
 	}
+
+	private DirectedGraphMatcherState(DirectedGraphMatcherState<V,E,U,F> s)
+	{
+		super(s);
+	}
 	
 	@Override
 	public DirectedGraphMatcherState<V,E,U,F> newState(U u, V v)
@@ -53,6 +58,12 @@ public final class DirectedGraphMatcherState<V,E,U,F> extends AbstractDirectedSu
 		return new DirectedGraphMatcherState<V,E,U,F>(this, u, v);
 	}
 
+	@Override
+	public DirectedGraphMatcherState<V,E,U,F> copy()
+	{
+		return new DirectedGraphMatcherState<V,E,U,F>(this);
+	}
+
     @Override
     public boolean isDead()
     {
@@ -42,6 +42,11 @@ public final class DirectedInducedSubgraphMatcherState<V,E,U,F> extends Abstract
 	{
 		super(s, u, v);
 	}
+
+	private DirectedInducedSubgraphMatcherState(DirectedInducedSubgraphMatcherState<V,E,U,F> s)
+	{
+		super(s);
+	}
 	
 	@Override
 	public DirectedInducedSubgraphMatcherState<V,E,U,F> newState(U u, V v)
@@ -49,6 +54,12 @@ public final class DirectedInducedSubgraphMatcherState<V,E,U,F> extends Abstract
 		return new DirectedInducedSubgraphMatcherState<V,E,U,F>(this, u, v);
 	}
 
+	@Override
+	public DirectedInducedSubgraphMatcherState<V,E,U,F> copy()
+	{
+		return new DirectedInducedSubgraphMatcherState<V,E,U,F>(this);
+	}
+
 	@Override
 	protected boolean matchEdges(U pv, V gv)
 	{
@@ -66,8 +66,8 @@ public class DirectedTraversalState<V>
 		this.visitedSet = s.visitedSet;
 
 		// promote added vertex from terminal sets to visited set
-		Integer inDepthVertexAdded = !inTerminalSet.isEmpty() ? inTerminalSet.remove(v) : DEPTH_ZERO;
-		Integer outDepthVertexAdded = !outTerminalSet.isEmpty() ? outTerminalSet.remove(v) : DEPTH_ZERO;
+		Integer inDepthVertexAdded = inTerminalSet.containsKey(v) ? inTerminalSet.remove(v) : DEPTH_ZERO;
+		Integer outDepthVertexAdded = outTerminalSet.containsKey(v) ? outTerminalSet.remove(v) : DEPTH_ZERO;
 		visitedSet.put(v, new Integer[] {inDepthVertexAdded, outDepthVertexAdded});
 
 		// add unvisited neighbours to terminal sets
@@ -76,11 +76,30 @@ public class DirectedTraversalState<V>
 		this.outBacktracking = AbstractMatcherState.extendTerminalSet(outTerminalSet, v, graph.getSuccessors(v), this.depth, visitedSet);
 	}
 
+	/**
+	 * Copy constructor.
+	 */
+	protected DirectedTraversalState(DirectedTraversalState<V> s)
+	{
+		this.graph = s.graph;
+		this.inTerminalSet = new LinkedMap<V,Integer>(s.inTerminalSet);
+		this.outTerminalSet = new LinkedMap<V,Integer>(s.outTerminalSet);
+		this.visitedSet = new HashMap<V,Integer[]>(s.visitedSet);
+		this.inBacktracking = s.inBacktracking;
+		this.outBacktracking = s.outBacktracking;
+		this.depth = s.depth;
+	}
+
 	public DirectedTraversalState<V> newState(V v)
 	{
 		return new DirectedTraversalState<V>(this, v);
 	}
 
+	public DirectedTraversalState<V> copy()
+	{
+		return new DirectedTraversalState<V>(this);
+	}
+
 	public final boolean inTerminalSetContains(V v)
 	{
 		return inTerminalSet.containsKey(v);
@@ -33,13 +33,14 @@ import graphrithms.matching.util.PairIterables;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractDirectedMCSMatcherState<V,E,U,F> extends AbstractMatcherState<V,E,U,F> implements MCSMatcherState<V,E,U,F>
 {
     protected final DirectedMCSTraversalState<U> patternState;
     protected final DirectedTraversalState<V> graphState;
 	private final NestedIterable<U,V> candidates;
-	private int[] maxMappingSizeHolder;
+	private final AtomicInteger maxMappingSize; // shared by all states of a search
 
 	protected AbstractDirectedMCSMatcherState(DirectedGraph<V,E> graph, DirectedGraph<U,F> pattern, Matcher<U,V> vertexMatcher, Matcher<F,E> edgeMatcher)
     {
@@ -47,7 +48,7 @@ public abstract class AbstractDirectedMCSMatcherState<V,E,U,F> extends AbstractM
 		this.patternState = new DirectedMCSTraversalState<U>(pattern);
 		this.graphState = new DirectedTraversalState<V>(graph);
 		this.candidates = createDefaultCandidates();
-		this.maxMappingSizeHolder = new int[1];
+		this.maxMappingSize = new AtomicInteger();
     }
 
     protected AbstractDirectedMCSMatcherState(AbstractDirectedMCSMatcherState<V,E,U,F> s, U u, V v)
@@ -56,10 +57,24 @@ public abstract class AbstractDirectedMCSMatcherState<V,E,U,F> extends AbstractM
 		this.patternState = s.patternState.newState(u);
 		this.graphState = s.graphState.newState(v);
 		this.candidates = createCandidates();
-		this.maxMappingSizeHolder = s.maxMappingSizeHolder;
-		this.maxMappingSizeHolder[0] = Math.max(mapping.size(), maxMappingSizeHolder[0]);
+		this.maxMappingSize = s.maxMappingSize;
+		final int size = mapping.size();
+		int max = maxMappingSize.get();
+		while(size > max && !maxMappingSize.compareAndSet(max, size))
+		{
+			max = maxMappingSize.get();
+		}
     }
 
+	protected AbstractDirectedMCSMatcherState(AbstractDirectedMCSMatcherState<V,E,U,F> s)
+	{
+		super(s);
+		this.patternState = s.patternState.copy();
+		this.graphState = s.graphState.copy();
+		this.candidates = s.candidates;
+		this.maxMappingSize = s.maxMappingSize;
+	}
+
     private NestedIterable<U,V> createDefaultCandidates()
     {
     	return PairIterables.crossProduct(pattern.getVertices(), graph.getVertices());
@@ -140,7 +155,7 @@ public abstract class AbstractDirectedMCSMatcherState<V,E,U,F> extends AbstractM
 				}
 			}
 		}
-		return mapping.size() + possibleMatches < maxMappingSizeHolder[0];
+		return mapping.size() + possibleMatches < maxMappingSize.get();
     }
 
 	@Override
@@ -159,7 +174,7 @@ public abstract class AbstractDirectedMCSMatcherState<V,E,U,F> extends AbstractM
 	@Override
 	public final int getMaxMappingSize()
 	{
-		return maxMappingSizeHolder[0];
+		return maxMappingSize.get();
 	}
 
 	@Override
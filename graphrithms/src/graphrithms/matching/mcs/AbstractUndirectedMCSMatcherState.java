@@ -33,13 +33,14 @@ import graphrithms.matching.util.PairIterables;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractUndirectedMCSMatcherState<V,E,U,F> extends AbstractMatcherState<V,E,U,F> implements MCSMatcherState<V,E,U,F>
 {
 	protected final UndirectedMCSTraversalState<U> patternState;
 	protected final UndirectedTraversalState<V> graphState;
 	private final NestedIterable<U,V> candidates;
-	private int[] maxMappingSizeHolder;
+	private final AtomicInteger maxMappingSize; // shared by all states of a search
 
 	protected AbstractUndirectedMCSMatcherState(UndirectedGraph<V,E> graph, UndirectedGraph<U,F> pattern, Matcher<U,V> vertexMatcher, Matcher<F,E> edgeMatcher)
     {
@@ -47,7 +48,7 @@ public abstract class AbstractUndirectedMCSMatcherState<V,E,U,F> extends Abstrac
 		this.patternState = new UndirectedMCSTraversalState<U>(pattern);
 		this.graphState = new UndirectedTraversalState<V>(graph);
 		this.candidates = createDefaultCandidates();
-		this.maxMappingSizeHolder = new int[1];
+		this.maxMappingSize = new AtomicInteger();
     }
 
     protected AbstractUndirectedMCSMatcherState(AbstractUndirectedMCSMatcherState<V,E,U,F> s, U u, V v)
@@ -56,10 +57,24 @@ public abstract class AbstractUndirectedMCSMatcherState<V,E,U,F> extends Abstrac
 		this.patternState = s.patternState.newState(u);
 		this.graphState = s.graphState.newState(v);
 		this.candidates = createCandidates();
-		this.maxMappingSizeHolder = s.maxMappingSizeHolder;
-		this.maxMappingSizeHolder[0] = Math.max(mapping.size(), maxMappingSizeHolder[0]);
+		this.maxMappingSize = s.maxMappingSize;
+		final int size = mapping.size();
+		int max = maxMappingSize.get();
+		while(size > max && !maxMappingSize.compareAndSet(max, size))
+		{
+			max = maxMappingSize.get();
+		}
     }
 
+	protected AbstractUndirectedMCSMatcherState(AbstractUndirectedMCSMatcherState<V,E,U,F> s)
+	{
+		super(s);
+		this.patternState = s.patternState.copy();
+		this.graphState = s.graphState.copy();
+		this.candidates = s.candidates;
+		this.maxMappingSize = s.maxMappingSize;
+	}
+
     private NestedIterable<U,V> createDefaultCandidates()
     {
         return PairIterables.crossProduct(pattern.getVertices(), graph.getVertices());
@@ -118,7 +133,7 @@ public abstract class AbstractUndirectedMCSMatcherState<V,E,U,F> extends Abstrac
 				}
 			}
 		}
-		return mapping.size() + possibleMatches < maxMappingSizeHolder[0];
+		return mapping.size() + possibleMatches < maxMappingSize.get();
     }
 
 	@Override
@@ -137,7 +152,7 @@ public abstract class AbstractUndirectedMCSMatcherState<V,E,U,F> extends Abstrac
 	@Override
 	public final int getMaxMappingSize()
 	{
-		return maxMappingSizeHolder[0];
+		return maxMappingSize.get();
 	}
 
 	@Override
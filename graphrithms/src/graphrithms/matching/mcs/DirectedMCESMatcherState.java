@@ -44,6 +44,11 @@ public final class DirectedMCESMatcherState<V,E,U,F> extends AbstractDirectedMCS
 	{
 		super(s, u, v);
 	}
+
+	private DirectedMCESMatcherState(DirectedMCESMatcherState<V,E,U,F> s)
+	{
+		super(s);
+	}
 	
 	@Override
 	public DirectedMCESMatcherState<V,E,U,F> newState(U u, V v)
@@ -51,6 +56,12 @@ public final class DirectedMCESMatcherState<V,E,U,F> extends AbstractDirectedMCS
 		return new DirectedMCESMatcherState<V,E,U,F>(this, u, v);
 	}
 
+	@Override
+	public DirectedMCESMatcherState<V,E,U,F> copy()
+	{
+		return new DirectedMCESMatcherState<V,E,U,F>(this);
+	}
+
 	@Override
 	protected NestedIterable<U,V> createCandidates()
     {
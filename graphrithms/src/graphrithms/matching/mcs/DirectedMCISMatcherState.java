@@ -42,6 +42,11 @@ public final class DirectedMCISMatcherState<V,E,U,F> extends AbstractDirectedMCS
 	{
 		super(s, u, v);
 	}
+
+	private DirectedMCISMatcherState(DirectedMCISMatcherState<V,E,U,F> s)
+	{
+		super(s);
+	}
 	
 	@Override
 	public DirectedMCISMatcherState<V,E,U,F> newState(U u, V v)
@@ -49,6 +54,12 @@ public final class DirectedMCISMatcherState<V,E,U,F> extends AbstractDirectedMCS
 		return new DirectedMCISMatcherState<V,E,U,F>(this, u, v);
 	}
 
+	@Override
+	public DirectedMCISMatcherState<V,E,U,F> copy()
+	{
+		return new DirectedMCISMatcherState<V,E,U,F>(this);
+	}
+
 	@Override
 	protected final boolean matchEdges(U pv, V gv)
 	{
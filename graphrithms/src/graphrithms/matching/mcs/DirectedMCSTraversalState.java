@@ -46,12 +46,24 @@ public final class DirectedMCSTraversalState<V> extends DirectedTraversalState<V
 		this.visitedBacktracking = new ArrayList<V>(inTerminalSet.size()+outTerminalSet.size());
 	}
 
+	private DirectedMCSTraversalState(DirectedMCSTraversalState<V> s)
+	{
+		super(s);
+		this.visitedBacktracking = new ArrayList<V>(s.visitedBacktracking);
+	}
+
 	@Override
 	public DirectedMCSTraversalState<V> newState(V v)
 	{
 		return new DirectedMCSTraversalState<V>(this, v);
 	}
 
+	@Override
+	public DirectedMCSTraversalState<V> copy()
+	{
+		return new DirectedMCSTraversalState<V>(this);
+	}
+
 	public void addVisited(V v)
 	{
 		visitedSet.put(v, new Integer[] {depth, depth});
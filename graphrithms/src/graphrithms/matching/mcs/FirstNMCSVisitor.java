@@ -33,6 +33,7 @@ import org.apache.commons.collections15.BidiMap;
 
 /**
  * Maximum common subgraph matching visitor.
+ * Can be shared by the tasks of a parallel search.
  */
 public class FirstNMCSVisitor<U,V> extends AbstractVisitor<U,V>
 {
@@ -71,8 +72,13 @@ public class FirstNMCSVisitor<U,V> extends AbstractVisitor<U,V>
 	}
 
 	@Override
-	public boolean visit(BidiMap<U,V> mapping)
+	public synchronized boolean visit(BidiMap<U,V> mapping)
 	{
+		if(mapping.size() < mappingSize)
+		{
+			// a larger mapping has already been found by another task
+			return false;
+		}
 		if(mapping.size() > mappingSize)
 		{
 			mappingSize = mapping.size();
@@ -88,7 +94,7 @@ public class FirstNMCSVisitor<U,V> extends AbstractVisitor<U,V>
 	}
 
 	@Override
-	public Set<BidiMap<U,V>> getMappings()
+	public synchronized Set<BidiMap<U,V>> getMappings()
 	{
 		return mappings;
 	}
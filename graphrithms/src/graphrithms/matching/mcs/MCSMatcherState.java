@@ -38,4 +38,6 @@ public interface MCSMatcherState<V,E,U,F> extends MatcherState<V,E,U,F>
 	@Override
 	NestedIterable<U,V> candidates();
 	void markVisited(U u);
+	@Override
+	MCSMatcherState<V,E,U,F> copy();
 }
@@ -44,6 +44,11 @@ public final class UndirectedMCESMatcherState<V,E,U,F> extends AbstractUndirecte
 	{
 		super(s, u, v);
 	}
+
+	private UndirectedMCESMatcherState(UndirectedMCESMatcherState<V,E,U,F> s)
+	{
+		super(s);
+	}
 	
 	@Override
 	public UndirectedMCESMatcherState<V,E,U,F> newState(U u, V v)
@@ -51,6 +56,12 @@ public final class UndirectedMCESMatcherState<V,E,U,F> extends AbstractUndirecte
 		return new UndirectedMCESMatcherState<V,E,U,F>(this, u, v);
 	}
 
+	@Override
+	public UndirectedMCESMatcherState<V,E,U,F> copy()
+	{
+		return new UndirectedMCESMatcherState<V,E,U,F>(this);
+	}
+
 	@Override
     protected NestedIterable<U,V> createCandidates()
     {
@@ -42,6 +42,11 @@ public final class UndirectedMCISMatcherState<V,E,U,F> extends AbstractUndirecte
 	{
 		super(s, u, v);
 	}
+
+	private UndirectedMCISMatcherState(UndirectedMCISMatcherState<V,E,U,F> s)
+	{
+		super(s);
+	}
 	
 	@Override
 	public UndirectedMCISMatcherState<V,E,U,F> newState(U u, V v)
@@ -49,6 +54,12 @@ public final class UndirectedMCISMatcherState<V,E,U,F> extends AbstractUndirecte
 		return new UndirectedMCISMatcherState<V,E,U,F>(this, u, v);
 	}
 
+	@Override
+	public UndirectedMCISMatcherState<V,E,U,F> copy()
+	{
+		return new UndirectedMCISMatcherState<V,E,U,F>(this);
+	}
+
 	@Override
 	protected final boolean matchEdges(U pv, V gv)
 	{
@@ -46,12 +46,24 @@ public final class UndirectedMCSTraversalState<V> extends UndirectedTraversalSta
 		this.visitedBacktracking = new ArrayList<V>(terminalSet.size());
 	}
 
+	private UndirectedMCSTraversalState(UndirectedMCSTraversalState<V> s)
+	{
+		super(s);
+		this.visitedBacktracking = new ArrayList<V>(s.visitedBacktracking);
+	}
+
 	@Override
 	public UndirectedMCSTraversalState<V> newState(V v)
 	{
 		return new UndirectedMCSTraversalState<V>(this, v);
 	}
 
+	@Override
+	public UndirectedMCSTraversalState<V> copy()
+	{
+		return new UndirectedMCSTraversalState<V>(this);
+	}
+
 	public void addVisited(V v)
 	{
 		visitedSet.put(v, depth);
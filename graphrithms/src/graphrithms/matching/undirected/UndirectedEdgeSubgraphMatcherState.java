@@ -42,6 +42,11 @@ public final class UndirectedEdgeSubgraphMatcherState<V,E,U,F> extends AbstractU
 	{
 		super(s, u, v);
 	}
+
+	private UndirectedEdgeSubgraphMatcherState(UndirectedEdgeSubgraphMatcherState<V,E,U,F> s)
+	{
+		super(s);
+	}
 	
 	@Override
 	public UndirectedEdgeSubgraphMatcherState<V,E,U,F> newState(U u, V v)
@@ -49,6 +54,12 @@ public final class UndirectedEdgeSubgraphMatcherState<V,E,U,F> extends AbstractU
 		return new UndirectedEdgeSubgraphMatcherState<V,E,U,F>(this, u, v);
 	}
 
+	@Override
+	public UndirectedEdgeSubgraphMatcherState<V,E,U,F> copy()
+	{
+		return new UndirectedEdgeSubgraphMatcherState<V,E,U,F>(this);
+	}
+
 	@Override
 	protected final boolean matchEdges(U pv, V gv)
 	{
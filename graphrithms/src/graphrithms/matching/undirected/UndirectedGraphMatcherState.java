@@ -46,6 +46,11 @@ public final class UndirectedGraphMatcherState<V,E,U,F> extends AbstractUndirect
 	{
 		super(s, u, v);
 	}
+
+	private UndirectedGraphMatcherState(UndirectedGraphMatcherState<V,E,U,F> s)
+	{
+		super(s);
+	}
 	
 	@Override
 	public UndirectedGraphMatcherState<V,E,U,F> newState(U u, V v)
@@ -53,6 +58,12 @@ public final class UndirectedGraphMatcherState<V,E,U,F> extends AbstractUndirect
 		return new UndirectedGraphMatcherState<V,E,U,F>(this, u, v);
 	}
 
+	@Override
+	public UndirectedGraphMatcherState<V,E,U,F> copy()
+	{
+		return new UndirectedGraphMatcherState<V,E,U,F>(this);
+	}
+
 	@Override
 	public boolean isDead()
 	{
@@ -42,6 +42,11 @@ public final class UndirectedInducedSubgraphMatcherState<V,E,U,F> extends Abstra
 	{
 		super(s, u, v);
 	}
+
+	private UndirectedInducedSubgraphMatcherState(UndirectedInducedSubgraphMatcherState<V,E,U,F> s)
+	{
+		super(s);
+	}
 	
 	@Override
 	public UndirectedInducedSubgraphMatcherState<V,E,U,F> newState(U u, V v)
@@ -49,6 +54,12 @@ public final class UndirectedInducedSubgraphMatcherState<V,E,U,F> extends Abstra
 		return new UndirectedInducedSubgraphMatcherState<V,E,U,F>(this, u, v);
 	}
 
+	@Override
+	public UndirectedInducedSubgraphMatcherState<V,E,U,F> copy()
+	{
+		return new UndirectedInducedSubgraphMatcherState<V,E,U,F>(this);
+	}
+
 	@Override
 	protected final boolean matchEdges(U pv, V gv)
 	{
@@ -61,7 +61,7 @@ public class UndirectedTraversalState<V>
 		this.visitedSet = s.visitedSet;
 
 		// promote added vertex from terminal set to visited set
-		Integer depthVertexAdded = !terminalSet.isEmpty() ? terminalSet.remove(v) : DEPTH_ZERO;
+		Integer depthVertexAdded = terminalSet.containsKey(v) ? terminalSet.remove(v) : DEPTH_ZERO;
 		visitedSet.put(v, depthVertexAdded);
 
 		// add unvisited neighbours to terminal set
@@ -69,11 +69,28 @@ public class UndirectedTraversalState<V>
 		this.backtracking = AbstractMatcherState.extendTerminalSet(terminalSet, v, graph.getNeighbors(v), this.depth, visitedSet);
 	}
 
+	/**
+	 * Copy constructor.
+	 */
+	protected UndirectedTraversalState(UndirectedTraversalState<V> s)
+	{
+		this.graph = s.graph;
+		this.terminalSet = new LinkedMap<V,Integer>(s.terminalSet);
+		this.visitedSet = new HashMap<V,Integer>(s.visitedSet);
+		this.backtracking = s.backtracking;
+		this.depth = s.depth;
+	}
+
 	public UndirectedTraversalState<V> newState(V v)
 	{
 		return new UndirectedTraversalState<V>(this, v);
 	}
 
+	public UndirectedTraversalState<V> copy()
+	{
+		return new UndirectedTraversalState<V>(this);
+	}
+
 	public final boolean terminalSetContains(V v)
 	{
 		return terminalSet.containsKey(v);
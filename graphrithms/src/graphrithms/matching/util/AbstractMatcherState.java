@@ -62,6 +62,18 @@ public abstract class AbstractMatcherState<V,E,U,F> implements MatcherState<V,E,
 		this.mapping.put(pv, gv);
 	}
 
+	/**
+	 * Copy constructor.
+	 */
+	protected AbstractMatcherState(AbstractMatcherState<V,E,U,F> s)
+	{
+		this.graph = s.graph;
+		this.pattern = s.pattern;
+		this.mapping = new DualLinkedBidiMap<U,V>(s.mapping);
+		this.vertexMatcher = s.vertexMatcher;
+		this.edgeMatcher = s.edgeMatcher;
+	}
+
 	@Override
 	public boolean isGoal()
 	{
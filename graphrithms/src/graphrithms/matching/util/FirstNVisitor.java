@@ -24,13 +24,16 @@
  */
 package graphrithms.matching.util;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.collections15.BidiMap;
 
 /**
  * Visits the first N mappings.
+ * Can be shared by the tasks of a parallel search.
  */
 public class FirstNVisitor<U,V> extends AbstractVisitor<U,V>
 {
@@ -38,6 +41,7 @@ public class FirstNVisitor<U,V> extends AbstractVisitor<U,V>
 
 	private final Set<BidiMap<U,V>> mappings;
 	private final int maxMappings;
+	private final AtomicInteger count = new AtomicInteger();
 
 	/**
 	 * Constructor to visit all mappings.
@@ -61,15 +65,27 @@ public class FirstNVisitor<U,V> extends AbstractVisitor<U,V>
 		{
 			throw new IllegalArgumentException("Must visit at least one mapping.");
 		}
-		this.mappings = new HashSet<BidiMap<U,V>>(initialCapacity);
+		this.mappings = Collections.newSetFromMap(new ConcurrentHashMap<BidiMap<U,V>,Boolean>(initialCapacity));
 		this.maxMappings = max;
 	}
 
 	@Override
 	public boolean visit(BidiMap<U,V> mapping)
 	{
-		mappings.add(mapping);
-		return (maxMappings != -1) && (mappings.size() >= maxMappings);
+		if(maxMappings == -1)
+		{
+			mappings.add(mapping);
+			return false;
+		}
+		if(count.get() < maxMappings && mappings.add(mapping))
+		{
+			// concurrent visits may overshoot the limit, so undo any that do
+			if(count.incrementAndGet() > maxMappings)
+			{
+				mappings.remove(mapping);
+			}
+		}
+		return (count.get() >= maxMappings);
 	}
 
 	@Override
@@ -40,6 +40,12 @@ public final class ObservableMCSMatcherState<V,E,U,F> extends ObservableMatcherS
 		return new ObservableMCSMatcherState<V,E,U,F>(delegate.newState(u, v), observer);
 	}
 
+	@Override
+	public ObservableMCSMatcherState<V,E,U,F> copy()
+	{
+		return new ObservableMCSMatcherState<V,E,U,F>(delegate.copy(), observer);
+	}
+
 	@Override
 	public NestedIterable<U,V> candidates()
 	{
@@ -39,6 +39,12 @@ public class ObservableMatcherState<V,E,U,F> implements MatcherState<V,E,U,F>
 		return new ObservableMatcherState<V,E,U,F>(delegate.newState(u, v), observer);
 	}
 
+	@Override
+	public ObservableMatcherState<V,E,U,F> copy()
+	{
+		return new ObservableMatcherState<V,E,U,F>(delegate.copy(), observer);
+	}
+
 	@Override
 	public void backtrack()
 	{
@@ -0,0 +1,185 @@
+package graphrithms.connectivity;
+
+import edu.uci.ics.jung.graph.util.Pair;
+import graphrithms.util.PairCollection;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.CoreMatchers.*;
+
+public class IncrementalComponentFinderTest
+{
+	private static final int N = 20000;
+	private static final int BATCH_SIZE = 1000;
+	private static final int BATCHES = 16;
+
+	private static List<PairCollection<Integer>> createBatches(long seed)
+	{
+		Random rnd = new Random(seed);
+		List<PairCollection<Integer>> batches = new ArrayList<PairCollection<Integer>>(BATCHES);
+		for(int b=0; b<BATCHES; b++)
+		{
+			List<Pair<Integer>> edges = new ArrayList<Pair<Integer>>(BATCH_SIZE);
+			for(int i=0; i<BATCH_SIZE; i++)
+			{
+				edges.add(new Pair<Integer>(rnd.nextInt(N), rnd.nextInt(N)));
+			}
+			batches.add(new PairCollection<Integer>(edges));
+		}
+		return batches;
+	}
+
+	@Test
+	public void testBatches()
+	{
+		IncrementalComponentFinder<Integer> finder = new IncrementalComponentFinder<Integer>();
+		IntDisjointSets expected = new IntDisjointSets(N);
+		boolean[] added = new boolean[N];
+		int vertexCount = 0;
+		for(PairCollection<Integer> batch : createBatches(7))
+		{
+			int joined = 0;
+			for(Pair<Integer> edge : batch)
+			{
+				for(int v : new int[] {edge.getFirst(), edge.getSecond()})
+				{
+					if(!added[v])
+					{
+						added[v] = true;
+						vertexCount++;
+					}
+				}
+				if(expected.union(edge.getFirst(), edge.getSecond()))
+				{
+					joined++;
+				}
+			}
+			assertThat(finder.addEdges(batch), is(joined));
+			assertThat(finder.getVertexCount(), is(vertexCount));
+			assertThat(finder.getComponentCount(), is(expected.getSetCount() - (N - vertexCount)));
+		}
+		assertComponents(finder, expected);
+		assertThat(finder.addVertex(-1), is(true));
+		assertThat(finder.addVertex(-1), is(false));
+		assertThat(finder.find(-1), is(-1));
+		assertThat(finder.find(-2), is(nullValue()));
+		assertThat(finder.isConnected(-1, -2), is(false));
+	}
+
+	@Test
+	public void testSerialization() throws Exception
+	{
+		List<PairCollection<Integer>> batches = createBatches(11);
+		IncrementalComponentFinder<Integer> finder = new IncrementalComponentFinder<Integer>();
+		for(PairCollection<Integer> batch : batches.subList(0, BATCHES/2))
+		{
+			finder.addEdges(batch);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(finder);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		@SuppressWarnings("unchecked")
+		IncrementalComponentFinder<Integer> reloaded = (IncrementalComponentFinder<Integer>) in.readObject();
+		in.close();
+		assertThat(reloaded.getVertexCount(), is(finder.getVertexCount()));
+		assertThat(reloaded.getComponentCount(), is(finder.getComponentCount()));
+
+		IntDisjointSets expected = new IntDisjointSets(N);
+		for(PairCollection<Integer> batch : batches)
+		{
+			for(Pair<Integer> edge : batch)
+			{
+				expected.union(edge.getFirst(), edge.getSecond());
+			}
+		}
+		for(PairCollection<Integer> batch : batches.subList(BATCHES/2, BATCHES))
+		{
+			reloaded.addEdges(batch);
+		}
+		assertComponents(reloaded, expected);
+	}
+
+	@Test
+	public void testConcurrentReads() throws Exception
+	{
+		final List<PairCollection<Integer>> batches = createBatches(13);
+		final IncrementalComponentFinder<Integer> finder = new IncrementalComponentFinder<Integer>();
+		Thread writer = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				for(PairCollection<Integer> batch : batches)
+				{
+					finder.addEdges(batch);
+				}
+			}
+		};
+		writer.start();
+		Random rnd = new Random(17);
+		boolean[] connected = new boolean[100];
+		int[] pairs = new int[2*connected.length];
+		for(int i=0; i<pairs.length; i++)
+		{
+			pairs[i] = rnd.nextInt(N);
+		}
+		while(writer.isAlive())
+		{
+			assertThat(finder.getComponentCount() <= finder.getVertexCount(), is(true));
+			for(int i=0; i<connected.length; i++)
+			{
+				boolean c = finder.isConnected(pairs[2*i], pairs[2*i+1]);
+				// components are only ever joined
+				assertThat(c || !connected[i], is(true));
+				connected[i] = c;
+			}
+		}
+		writer.join();
+
+		IntDisjointSets expected = new IntDisjointSets(N);
+		for(PairCollection<Integer> batch : batches)
+		{
+			for(Pair<Integer> edge : batch)
+			{
+				expected.union(edge.getFirst(), edge.getSecond());
+			}
+		}
+		assertComponents(finder, expected);
+	}
+
+	private static void assertComponents(IncrementalComponentFinder<Integer> finder, IntDisjointSets expected)
+	{
+		Map<Integer,Collection<Integer>> components = finder.getComponents();
+		assertThat(components.size(), is(finder.getComponentCount()));
+		Set<Integer> expectedReps = new HashSet<Integer>();
+		int vertexCount = 0;
+		for(Map.Entry<Integer,Collection<Integer>> entry : components.entrySet())
+		{
+			final int rep = entry.getKey();
+			for(int v : entry.getValue())
+			{
+				assertThat(finder.find(v), is(rep));
+				assertThat(expected.find(v), is(expected.find(rep)));
+				expectedReps.add(expected.find(v));
+			}
+			vertexCount += entry.getValue().size();
+		}
+		assertThat(vertexCount, is(finder.getVertexCount()));
+		assertThat(expectedReps.size(), is(components.size()));
+	}
+}
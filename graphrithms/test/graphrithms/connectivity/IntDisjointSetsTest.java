@@ -0,0 +1,140 @@
+package graphrithms.connectivity;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.CoreMatchers.*;
+
+public class IntDisjointSetsTest
+{
+	private static final int N = 200000;
+	private static final int M = 150000;
+
+	@Test
+	public void testUnion()
+	{
+		IntDisjointSets sets = new IntDisjointSets(6);
+		assertThat(sets.union(0, 1), is(true));
+		assertThat(sets.union(2, 3), is(true));
+		assertThat(sets.union(1, 0), is(false));
+		assertThat(sets.union(3, 0), is(true));
+		assertThat(sets.union(1, 2), is(false));
+		assertThat(sets.getSetCount(), is(3));
+		assertThat(sets.find(2), is(sets.find(0)));
+		assertThat(sets.find(4) == sets.find(5), is(false));
+	}
+
+	@Test
+	public void testConcurrentUnion()
+	{
+		ConcurrentIntDisjointSets sets = new ConcurrentIntDisjointSets(6);
+		assertThat(sets.union(0, 1), is(true));
+		assertThat(sets.union(2, 3), is(true));
+		assertThat(sets.union(1, 0), is(false));
+		assertThat(sets.union(3, 0), is(true));
+		assertThat(sets.union(1, 2), is(false));
+		assertThat(sets.getSetCount(), is(3));
+		assertThat(sets.find(2), is(0));
+		assertThat(sets.find(4) == sets.find(5), is(false));
+	}
+
+	@Test
+	public void testRandomEdges()
+	{
+		Random rnd = new Random(2011);
+		int[] sources = new int[M];
+		int[] targets = new int[M];
+		for(int i=0; i<M; i++)
+		{
+			sources[i] = rnd.nextInt(N);
+			targets[i] = rnd.nextInt(N);
+		}
+		int[] expected = findByBFS(N, sources, targets);
+		int expectedCount = 0;
+		for(int i=0; i<N; i++)
+		{
+			if(expected[i] == i)
+			{
+				expectedCount++;
+			}
+		}
+
+		IntDisjointSets sets = new IntDisjointSets(N);
+		sets.union(sources, targets);
+		assertThat(sets.getSetCount(), is(expectedCount));
+		assertPartition(expected, sets.getRepresentatives());
+
+		ConcurrentIntDisjointSets concurrentSets = new ConcurrentIntDisjointSets(N);
+		concurrentSets.union(sources, targets);
+		assertThat(concurrentSets.getSetCount(), is(expectedCount));
+		assertThat(concurrentSets.getRepresentatives(), is(expected));
+
+		assertThat(ComponentFinder.findWeaklyConnectedComponents(N, sources, targets), is(expected));
+	}
+
+	/**
+	 * Labels each vertex with the smallest vertex in its component.
+	 */
+	private static int[] findByBFS(int n, int[] sources, int[] targets)
+	{
+		int[] degrees = new int[n+1];
+		for(int i=0; i<sources.length; i++)
+		{
+			degrees[sources[i]+1]++;
+			degrees[targets[i]+1]++;
+		}
+		for(int i=0; i<n; i++)
+		{
+			degrees[i+1] += degrees[i];
+		}
+		int[] next = Arrays.copyOf(degrees, n);
+		int[] adj = new int[2*sources.length];
+		for(int i=0; i<sources.length; i++)
+		{
+			adj[next[sources[i]]++] = targets[i];
+			adj[next[targets[i]]++] = sources[i];
+		}
+		int[] labels = new int[n];
+		Arrays.fill(labels, -1);
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		for(int root=0; root<n; root++)
+		{
+			if(labels[root] == -1)
+			{
+				labels[root] = root;
+				queue.add(root);
+				while(!queue.isEmpty())
+				{
+					int v = queue.remove();
+					for(int j=degrees[v]; j<degrees[v+1]; j++)
+					{
+						if(labels[adj[j]] == -1)
+						{
+							labels[adj[j]] = root;
+							queue.add(adj[j]);
+						}
+					}
+				}
+			}
+		}
+		return labels;
+	}
+
+	private static void assertPartition(int[] expected, int[] actual)
+	{
+		int[] repLabels = new int[expected.length];
+		Arrays.fill(repLabels, -1);
+		for(int i=0; i<expected.length; i++)
+		{
+			if(repLabels[actual[i]] == -1)
+			{
+				repLabels[actual[i]] = expected[i];
+			}
+			assertThat("Vertex "+i, repLabels[actual[i]], is(expected[i]));
+		}
+	}
+}
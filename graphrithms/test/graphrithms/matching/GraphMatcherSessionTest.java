@@ -0,0 +1,160 @@
+package graphrithms.matching;
+
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedGraph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+import graphrithms.matching.compact.CandidateIndex;
+import graphrithms.matching.compact.CompactGraph;
+import graphrithms.matching.compact.CompactGraphMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.CoreMatchers.*;
+
+public class GraphMatcherSessionTest
+{
+	private static final int COUNT = 30;
+
+	@Test
+	public void testMatchPatterns() throws InterruptedException
+	{
+		Random rnd = new Random(7L);
+		UndirectedGraph<Integer,Integer> g = createGraph(new UndirectedSparseGraph<Integer,Integer>(), 20, 0.2, rnd);
+		List<UndirectedGraph<Integer,Integer>> patterns = new ArrayList<UndirectedGraph<Integer,Integer>>();
+		List<CompactGraph<Integer,Integer>> compactPatterns = new ArrayList<CompactGraph<Integer,Integer>>();
+		for(int i=0; i<COUNT; i++)
+		{
+			UndirectedGraph<Integer,Integer> pattern = createGraph(new UndirectedSparseGraph<Integer,Integer>(), 2+rnd.nextInt(3), 0.6, rnd);
+			patterns.add(pattern);
+			compactPatterns.add(CompactGraph.create(pattern));
+		}
+		GraphMatcherSession session = new GraphMatcherSession(4, 2);
+		try
+		{
+			CandidateIndex<Integer,Integer> index = new CandidateIndex<Integer,Integer>(CompactGraph.create(g));
+			List<MatchResult<Integer,Integer>> results = session.matchPatterns(index, compactPatterns, CompactGraphMatcher.Mode.SUBGRAPH, -1, 0L, TimeUnit.SECONDS);
+			assertThat(results.size(), is(COUNT));
+			for(int i=0; i<COUNT; i++)
+			{
+				assertThat(results.get(i).isTimedOut(), is(false));
+				assertThat(results.get(i).getMappings(), is(GraphMatcher.matchSubgraph(g, patterns.get(i), -1)));
+			}
+
+			results = session.matchPatterns(index, compactPatterns, CompactGraphMatcher.Mode.SUBGRAPH, 2, 0L, TimeUnit.SECONDS);
+			for(int i=0; i<COUNT; i++)
+			{
+				int expected = Math.min(2, GraphMatcher.matchSubgraph(g, patterns.get(i), -1).size());
+				assertThat(results.get(i).getMappings().size(), is(expected));
+			}
+		}
+		finally
+		{
+			session.close();
+		}
+	}
+
+	@Test
+	public void testMatchGraphs() throws InterruptedException
+	{
+		Random rnd = new Random(11L);
+		DirectedGraph<Integer,Integer> pattern = createGraph(new DirectedSparseGraph<Integer,Integer>(), 4, 0.4, rnd);
+		List<DirectedGraph<Integer,Integer>> graphs = new ArrayList<DirectedGraph<Integer,Integer>>();
+		List<CandidateIndex<Integer,Integer>> indices = new ArrayList<CandidateIndex<Integer,Integer>>();
+		int filtered = 0;
+		for(int i=0; i<COUNT; i++)
+		{
+			DirectedGraph<Integer,Integer> g = createGraph(new DirectedSparseGraph<Integer,Integer>(), 3+rnd.nextInt(6), 0.3, rnd);
+			graphs.add(g);
+			CandidateIndex<Integer,Integer> index = new CandidateIndex<Integer,Integer>(CompactGraph.create(g));
+			indices.add(index);
+			if(!index.mayMatch(new CandidateIndex<Integer,Integer>(CompactGraph.create(pattern)), CompactGraphMatcher.Mode.INDUCED_SUBGRAPH))
+			{
+				filtered++;
+			}
+		}
+		// some graphs are ruled out by their invariants
+		assertThat(filtered > 0, is(true));
+		GraphMatcherSession session = new GraphMatcherSession(3, 4);
+		try
+		{
+			List<MatchResult<Integer,Integer>> results = session.matchGraphs(indices, CompactGraph.create(pattern), CompactGraphMatcher.Mode.INDUCED_SUBGRAPH, -1, 0L, TimeUnit.SECONDS);
+			for(int i=0; i<COUNT; i++)
+			{
+				assertThat(results.get(i).getMappings(), is(GraphMatcher.matchInducedSubgraph(graphs.get(i), pattern, -1)));
+			}
+		}
+		finally
+		{
+			session.close();
+		}
+	}
+
+	@Test
+	public void testTimeout() throws Exception
+	{
+		Random rnd = new Random(13L);
+		// a path in a complete graph has a huge number of occurrences
+		UndirectedGraph<Integer,Integer> g = createGraph(new UndirectedSparseGraph<Integer,Integer>(), 14, 1.0, rnd);
+		UndirectedGraph<Integer,Integer> path = new UndirectedSparseGraph<Integer,Integer>();
+		for(int v=0; v<12; v++)
+		{
+			path.addVertex(v);
+			if(v > 0)
+			{
+				path.addEdge(v, v-1, v);
+			}
+		}
+		GraphMatcherSession session = new GraphMatcherSession(1, 1);
+		try
+		{
+			MatchResult<Integer,Integer> result = session.submit(new CandidateIndex<Integer,Integer>(CompactGraph.create(g)), CompactGraph.create(path),
+				CompactGraphMatcher.Mode.SUBGRAPH, -1, 50L, TimeUnit.MILLISECONDS).get();
+			assertThat(result.isTimedOut(), is(true));
+		}
+		finally
+		{
+			session.close();
+		}
+	}
+
+	@Test(expected=RejectedExecutionException.class)
+	public void testSubmitAfterClose() throws Exception
+	{
+		Random rnd = new Random(17L);
+		UndirectedGraph<Integer,Integer> g = createGraph(new UndirectedSparseGraph<Integer,Integer>(), 10, 0.5, rnd);
+		UndirectedGraph<Integer,Integer> pattern = createGraph(new UndirectedSparseGraph<Integer,Integer>(), 3, 1.0, rnd);
+		CandidateIndex<Integer,Integer> index = new CandidateIndex<Integer,Integer>(CompactGraph.create(g));
+		GraphMatcherSession session = new GraphMatcherSession(1, 1);
+		assertThat(session.submit(index, CompactGraph.create(pattern), CompactGraphMatcher.Mode.SUBGRAPH, -1, 0L, TimeUnit.SECONDS).get().getMappings(),
+			is(GraphMatcher.matchSubgraph(g, pattern, -1)));
+		session.close();
+		session.submit(index, CompactGraph.create(pattern), CompactGraphMatcher.Mode.SUBGRAPH, -1, 0L, TimeUnit.SECONDS);
+	}
+
+	private static <G extends Graph<Integer,Integer>> G createGraph(G graph, int n, double p, Random rnd)
+	{
+		for(int v=0; v<n; v++)
+		{
+			graph.addVertex(v);
+		}
+		int edge = 0;
+		for(int v=0; v<n; v++)
+		{
+			for(int w=0; w<n; w++)
+			{
+				if(v != w && (graph instanceof DirectedGraph<?,?> || v < w) && rnd.nextDouble() < p)
+				{
+					graph.addEdge(edge++, v, w);
+				}
+			}
+		}
+		return graph;
+	}
+}
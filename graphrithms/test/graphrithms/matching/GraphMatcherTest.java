@@ -6,6 +6,13 @@ import edu.uci.ics.jung.graph.DirectedGraph;
 import edu.uci.ics.jung.graph.DirectedSparseGraph;
 import edu.uci.ics.jung.graph.UndirectedGraph;
 import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+import graphrithms.matching.directed.DirectedEdgeSubgraphMatcherState;
+import graphrithms.matching.directed.DirectedInducedSubgraphMatcherState;
+import graphrithms.matching.mcs.FirstNMCSVisitor;
+import graphrithms.matching.mcs.UndirectedMCISMatcherState;
+import graphrithms.matching.undirected.UndirectedEdgeSubgraphMatcherState;
+import graphrithms.matching.undirected.UndirectedInducedSubgraphMatcherState;
+import graphrithms.matching.util.FirstNVisitor;
 import java.util.Set;
 import org.apache.commons.collections15.BidiMap;
 import org.apache.commons.collections15.Factory;
@@ -135,6 +142,118 @@ public class GraphMatcherTest<V,E>
 	}
 
 
+	@Test
+	public void testParallelMatch()
+	{
+		UndirectedGraph<Integer,Integer> graph = createGrid(4);
+		UndirectedGraph<Integer,Integer> pattern = createGrid(2);
+		Set<BidiMap<Integer,Integer>> expected = GraphMatcher.matchSubgraph(graph, pattern, MAX_MATCHES);
+		for(int forkDepth = 0; forkDepth <= 2; forkDepth++)
+		{
+			FirstNVisitor<Integer,Integer> visitor = new FirstNVisitor<Integer,Integer>();
+			boolean stopped = GraphMatcher.match(new UndirectedEdgeSubgraphMatcherState<Integer,Integer,Integer,Integer>(graph, pattern), visitor, forkDepth);
+			assertThat(stopped, is(false));
+			assertThat(visitor.getMappings(), is(expected));
+		}
+
+		FirstNVisitor<Integer,Integer> visitor = new FirstNVisitor<Integer,Integer>(5);
+		boolean stopped = GraphMatcher.match(new UndirectedEdgeSubgraphMatcherState<Integer,Integer,Integer,Integer>(graph, pattern), visitor, 2);
+		assertThat(stopped, is(true));
+		assertThat(visitor.getMappings().size(), is(5));
+		assertThat(expected.containsAll(visitor.getMappings()), is(true));
+	}
+
+	@Test
+	public void testParallelMatchMCS()
+	{
+		UndirectedGraph<Integer,Integer> graph = createGrid(3);
+		UndirectedGraph<Integer,Integer> pattern = createGrid(2);
+		pattern.addEdge(100, 0, 3);
+		Set<BidiMap<Integer,Integer>> expected = GraphMatcher.findMCIS(graph, pattern, MAX_MATCHES);
+		for(int forkDepth = 0; forkDepth <= 2; forkDepth++)
+		{
+			FirstNMCSVisitor<Integer,Integer> visitor = new FirstNMCSVisitor<Integer,Integer>();
+			GraphMatcher.matchMCS(new UndirectedMCISMatcherState<Integer,Integer,Integer,Integer>(graph, pattern), visitor, forkDepth);
+			assertThat(visitor.getMappings(), is(expected));
+		}
+	}
+
+	@Test
+	public void testDisconnectedPattern()
+	{
+		// a path and a separate edge, so the second pattern edge is mapped
+		// while the graph terminal set is still non-empty
+		UndirectedGraph<Integer,Integer> graph = new UndirectedSparseGraph<Integer,Integer>();
+		graph.addEdge(0, 0, 1);
+		graph.addEdge(1, 1, 2);
+		graph.addEdge(2, 3, 4);
+		UndirectedGraph<Integer,Integer> pattern = new UndirectedSparseGraph<Integer,Integer>();
+		pattern.addEdge(0, 10, 11);
+		pattern.addEdge(1, 12, 13);
+		assertThat(match(new UndirectedEdgeSubgraphMatcherState<Integer,Integer,Integer,Integer>(graph, pattern)).size(), is(16));
+		assertThat(match(new UndirectedInducedSubgraphMatcherState<Integer,Integer,Integer,Integer>(graph, pattern)).size(), is(16));
+
+		DirectedGraph<Integer,Integer> dgraph = new DirectedSparseGraph<Integer,Integer>();
+		dgraph.addEdge(0, 0, 1);
+		dgraph.addEdge(1, 1, 2);
+		dgraph.addEdge(2, 3, 4);
+		DirectedGraph<Integer,Integer> dpattern = new DirectedSparseGraph<Integer,Integer>();
+		dpattern.addEdge(0, 10, 11);
+		dpattern.addEdge(1, 12, 13);
+		assertThat(match(new DirectedEdgeSubgraphMatcherState<Integer,Integer,Integer,Integer>(dgraph, dpattern)).size(), is(4));
+		assertThat(match(new DirectedInducedSubgraphMatcherState<Integer,Integer,Integer,Integer>(dgraph, dpattern)).size(), is(4));
+	}
+
+	@Test
+	public void testBidirectedEdgeSubgraph()
+	{
+		// a pair of vertices linked in both directions
+		DirectedGraph<Integer,Integer> graph = new DirectedSparseGraph<Integer,Integer>();
+		graph.addEdge(0, 0, 1);
+		graph.addEdge(1, 1, 0);
+		graph.addEdge(2, 1, 2);
+		DirectedGraph<Integer,Integer> pattern = new DirectedSparseGraph<Integer,Integer>();
+		pattern.addEdge(0, 10, 11);
+		pattern.addEdge(1, 11, 10);
+		Set<BidiMap<Integer,Integer>> mappings = match(new DirectedEdgeSubgraphMatcherState<Integer,Integer,Integer,Integer>(graph, pattern));
+		assertThat(mappings.size(), is(2));
+		for(BidiMap<Integer,Integer> mapping : mappings)
+		{
+			assertThat(mapping.values().contains(2), is(false));
+		}
+	}
+
+	private static Set<BidiMap<Integer,Integer>> match(MatcherState<Integer,Integer,Integer,Integer> state)
+	{
+		FirstNVisitor<Integer,Integer> visitor = new FirstNVisitor<Integer,Integer>();
+		GraphMatcher.match(state, visitor);
+		return visitor.getMappings();
+	}
+
+	/**
+	 * Returns an n by n grid graph.
+	 */
+	private static UndirectedGraph<Integer,Integer> createGrid(int n)
+	{
+		UndirectedGraph<Integer,Integer> graph = new UndirectedSparseGraph<Integer,Integer>();
+		int edge = 0;
+		for(int i=0; i<n; i++)
+		{
+			for(int j=0; j<n; j++)
+			{
+				graph.addVertex(i*n+j);
+				if(i > 0)
+				{
+					graph.addEdge(edge++, (i-1)*n+j, i*n+j);
+				}
+				if(j > 0)
+				{
+					graph.addEdge(edge++, i*n+j-1, i*n+j);
+				}
+			}
+		}
+		return graph;
+	}
 
 	static class ObjectFactory implements Factory<Object>
 	{
@@ -0,0 +1,203 @@
+package graphrithms.matching.compact;
+
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedGraph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+import edu.uci.ics.jung.graph.util.Pair;
+import graphrithms.matching.GraphMatcher;
+import graphrithms.matching.Matcher;
+import graphrithms.matching.MatcherState;
+import graphrithms.matching.directed.DirectedEdgeSubgraphMatcherState;
+import graphrithms.matching.directed.DirectedGraphMatcherState;
+import graphrithms.matching.directed.DirectedInducedSubgraphMatcherState;
+import graphrithms.matching.undirected.UndirectedEdgeSubgraphMatcherState;
+import graphrithms.matching.undirected.UndirectedGraphMatcherState;
+import graphrithms.matching.undirected.UndirectedInducedSubgraphMatcherState;
+import graphrithms.matching.util.FirstNVisitor;
+import graphrithms.matching.util.TrueMatcher;
+import java.util.Random;
+import java.util.Set;
+import org.apache.commons.collections15.BidiMap;
+import org.apache.commons.collections15.Transformer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.CoreMatchers.*;
+
+public class CompactGraphMatcherTest
+{
+	private static final int TRIALS = 20;
+	private static final int LABELS = 3;
+
+	private static final Transformer<Integer,Integer> LABELLER = new Transformer<Integer,Integer>()
+	{
+		@Override
+		public Integer transform(Integer v)
+		{
+			return v % LABELS;
+		}
+	};
+
+	private static final Matcher<Integer,Integer> LABEL_MATCHER = new Matcher<Integer,Integer>()
+	{
+		@Override
+		public boolean match(Integer u, Integer v)
+		{
+			return LABELLER.transform(u).equals(LABELLER.transform(v));
+		}
+	};
+
+	@Test
+	public void testUndirected()
+	{
+		Random rnd = new Random(17L);
+		for(int i=0; i<TRIALS; i++)
+		{
+			UndirectedGraph<Integer,Integer> g = createGraph(new UndirectedSparseGraph<Integer,Integer>(), 9, 0.4, rnd);
+			UndirectedGraph<Integer,Integer> pattern = createGraph(new UndirectedSparseGraph<Integer,Integer>(), 4, 0.6, rnd);
+			UndirectedGraph<Integer,Integer> h = relabel(g, new UndirectedSparseGraph<Integer,Integer>(), rnd);
+			assertSameMappings(new UndirectedGraphMatcherState<Integer,Integer,Integer,Integer>(g, h),
+				match(CompactGraph.create(g), CompactGraph.create(h), CompactGraphMatcher.Mode.GRAPH));
+			assertSameMappings(new UndirectedEdgeSubgraphMatcherState<Integer,Integer,Integer,Integer>(g, pattern),
+				match(CompactGraph.create(g), CompactGraph.create(pattern), CompactGraphMatcher.Mode.SUBGRAPH));
+			assertSameMappings(new UndirectedInducedSubgraphMatcherState<Integer,Integer,Integer,Integer>(g, pattern),
+				match(CompactGraph.create(g), CompactGraph.create(pattern), CompactGraphMatcher.Mode.INDUCED_SUBGRAPH));
+		}
+	}
+
+	@Test
+	public void testDirected()
+	{
+		Random rnd = new Random(31L);
+		for(int i=0; i<TRIALS; i++)
+		{
+			DirectedGraph<Integer,Integer> g = createGraph(new DirectedSparseGraph<Integer,Integer>(), 9, 0.3, rnd);
+			DirectedGraph<Integer,Integer> pattern = createGraph(new DirectedSparseGraph<Integer,Integer>(), 4, 0.5, rnd);
+			DirectedGraph<Integer,Integer> h = relabel(g, new DirectedSparseGraph<Integer,Integer>(), rnd);
+			assertSameMappings(new DirectedGraphMatcherState<Integer,Integer,Integer,Integer>(g, h),
+				match(CompactGraph.create(g), CompactGraph.create(h), CompactGraphMatcher.Mode.GRAPH));
+			assertSameMappings(new DirectedEdgeSubgraphMatcherState<Integer,Integer,Integer,Integer>(g, pattern),
+				match(CompactGraph.create(g), CompactGraph.create(pattern), CompactGraphMatcher.Mode.SUBGRAPH));
+			assertSameMappings(new DirectedInducedSubgraphMatcherState<Integer,Integer,Integer,Integer>(g, pattern),
+				match(CompactGraph.create(g), CompactGraph.create(pattern), CompactGraphMatcher.Mode.INDUCED_SUBGRAPH));
+		}
+	}
+
+	@Test
+	public void testLabelled()
+	{
+		Random rnd = new Random(43L);
+		for(int i=0; i<TRIALS; i++)
+		{
+			UndirectedGraph<Integer,Integer> g = createGraph(new UndirectedSparseGraph<Integer,Integer>(), 12, 0.4, rnd);
+			UndirectedGraph<Integer,Integer> pattern = createGraph(new UndirectedSparseGraph<Integer,Integer>(), 4, 0.6, rnd);
+			CandidateIndex<Integer,Integer> index = new CandidateIndex<Integer,Integer>(CompactGraph.create(g, LABELLER));
+			CompactGraph<Integer,Integer> compactPattern = CompactGraph.create(pattern, LABELLER);
+			assertSameMappings(new UndirectedEdgeSubgraphMatcherState<Integer,Integer,Integer,Integer>(g, pattern, LABEL_MATCHER, TrueMatcher.<Integer,Integer>getInstance()),
+				GraphMatcher.matchSubgraph(index, compactPattern, -1));
+			assertSameMappings(new UndirectedInducedSubgraphMatcherState<Integer,Integer,Integer,Integer>(g, pattern, LABEL_MATCHER, TrueMatcher.<Integer,Integer>getInstance()),
+				GraphMatcher.matchInducedSubgraph(index, compactPattern, -1));
+
+			DirectedGraph<Integer,Integer> dg = createGraph(new DirectedSparseGraph<Integer,Integer>(), 12, 0.3, rnd);
+			DirectedGraph<Integer,Integer> dpattern = createGraph(new DirectedSparseGraph<Integer,Integer>(), 4, 0.5, rnd);
+			CandidateIndex<Integer,Integer> dindex = new CandidateIndex<Integer,Integer>(CompactGraph.create(dg, LABELLER));
+			CompactGraph<Integer,Integer> compactDPattern = CompactGraph.create(dpattern, LABELLER);
+			assertSameMappings(new DirectedEdgeSubgraphMatcherState<Integer,Integer,Integer,Integer>(dg, dpattern, LABEL_MATCHER, TrueMatcher.<Integer,Integer>getInstance()),
+				GraphMatcher.matchSubgraph(dindex, compactDPattern, -1));
+			assertSameMappings(new DirectedInducedSubgraphMatcherState<Integer,Integer,Integer,Integer>(dg, dpattern, LABEL_MATCHER, TrueMatcher.<Integer,Integer>getInstance()),
+				GraphMatcher.matchInducedSubgraph(dindex, compactDPattern, -1));
+		}
+	}
+
+	@Test
+	public void testIndexReuse()
+	{
+		Random rnd = new Random(59L);
+		DirectedGraph<Integer,Integer> g = createGraph(new DirectedSparseGraph<Integer,Integer>(), 15, 0.25, rnd);
+		CandidateIndex<Integer,Integer> index = new CandidateIndex<Integer,Integer>(CompactGraph.create(g));
+		for(int i=0; i<TRIALS; i++)
+		{
+			DirectedGraph<Integer,Integer> pattern = createGraph(new DirectedSparseGraph<Integer,Integer>(), 2+rnd.nextInt(4), 0.5, rnd);
+			assertThat(GraphMatcher.matchSubgraph(index, CompactGraph.create(pattern), -1), is(GraphMatcher.matchSubgraph(g, pattern, -1)));
+			assertSameMappings(new DirectedInducedSubgraphMatcherState<Integer,Integer,Integer,Integer>(g, pattern),
+				GraphMatcher.matchInducedSubgraph(index, CompactGraph.create(pattern), -1));
+		}
+	}
+
+	@Test
+	public void testMaxMatches()
+	{
+		Random rnd = new Random(5L);
+		UndirectedGraph<Integer,Integer> g = createGraph(new UndirectedSparseGraph<Integer,Integer>(), 12, 0.5, rnd);
+		UndirectedGraph<Integer,Integer> pattern = createGraph(new UndirectedSparseGraph<Integer,Integer>(), 3, 1.0, rnd);
+		CompactGraphMatcher<Integer,Integer,Integer,Integer> matcher = new CompactGraphMatcher<Integer,Integer,Integer,Integer>(CompactGraph.create(g), CompactGraph.create(pattern), CompactGraphMatcher.Mode.SUBGRAPH);
+		FirstNVisitor<Integer,Integer> visitor = new FirstNVisitor<Integer,Integer>(2);
+		assertThat(matcher.match(visitor), is(true));
+		assertThat(visitor.getMappings().size(), is(2));
+		// the state is fully backtracked, so the matcher can be reused
+		FirstNVisitor<Integer,Integer> all = new FirstNVisitor<Integer,Integer>();
+		matcher.match(all);
+		assertThat(all.getMappings(), is(GraphMatcher.matchSubgraph(g, pattern, -1)));
+	}
+
+	private static Set<BidiMap<Integer,Integer>> match(CompactGraph<Integer,Integer> g, CompactGraph<Integer,Integer> pattern, CompactGraphMatcher.Mode mode)
+	{
+		FirstNVisitor<Integer,Integer> visitor = new FirstNVisitor<Integer,Integer>();
+		new CompactGraphMatcher<Integer,Integer,Integer,Integer>(g, pattern, mode).match(visitor);
+		return visitor.getMappings();
+	}
+
+	private static void assertSameMappings(MatcherState<Integer,Integer,Integer,Integer> state, Set<BidiMap<Integer,Integer>> mappings)
+	{
+		FirstNVisitor<Integer,Integer> visitor = new FirstNVisitor<Integer,Integer>();
+		GraphMatcher.match(state, visitor);
+		assertThat(mappings, is(visitor.getMappings()));
+	}
+
+	private static <G extends Graph<Integer,Integer>> G createGraph(G graph, int n, double p, Random rnd)
+	{
+		for(int v=0; v<n; v++)
+		{
+			graph.addVertex(v);
+		}
+		int edge = 0;
+		for(int v=0; v<n; v++)
+		{
+			for(int w=0; w<n; w++)
+			{
+				if(v != w && (graph instanceof DirectedGraph<?,?> || v < w) && rnd.nextDouble() < p)
+				{
+					graph.addEdge(edge++, v, w);
+				}
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Returns an isomorphic copy with shuffled vertex labels.
+	 */
+	private static <G extends Graph<Integer,Integer>> G relabel(Graph<Integer,Integer> graph, G copy, Random rnd)
+	{
+		final int n = graph.getVertexCount();
+		int[] perm = new int[n];
+		for(int i=0; i<n; i++)
+		{
+			int j = rnd.nextInt(i+1);
+			perm[i] = perm[j];
+			perm[j] = i;
+		}
+		for(int v=0; v<n; v++)
+		{
+			copy.addVertex(100+perm[v]);
+		}
+		for(Integer e : graph.getEdges())
+		{
+			Pair<Integer> ends = graph.getEndpoints(e);
+			copy.addEdge(e, 100+perm[ends.getFirst()], 100+perm[ends.getSecond()]);
+		}
+		return copy;
+	}
+}
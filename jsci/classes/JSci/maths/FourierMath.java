@@ -5,6 +5,8 @@ package JSci.maths;
 * This class cannot be subclassed or instantiated because all methods are static.
 * Use <code>sort(transform(sort(...)))</code> for the discrete analogue of the continuous Fourier transform,
 * and <code>sort(inverseTransform(sort(...)))</code> for the inverse transform.
+* Any number of samples is supported, see {@link FourierPlan}.
+* Use a plan directly to transform arrays in place without creating <code>Complex</code> objects.
 * @jsci.planetmath FourierTransform
 * @version 0.9
 * @author Mark Hale
@@ -22,21 +24,13 @@ public final class FourierMath extends AbstractMath implements NumericalConstant
         */
         public static Complex[] transform(final Complex data[]) {
                 final int N=data.length;
-                if(!isPowerOf2(N))
-                        throw new IllegalArgumentException("The number of samples must be a power of 2.");
-
                 final double arrayRe[]=new double[N];
                 final double arrayIm[]=new double[N];
-
-                final int numBits=numberOfBitsNeeded(N);
-// Simultaneous data copy and bit-reversal ordering into output
                 for(int i=0;i<N;i++) {
-                        final int j=reverseBits(i,numBits);
-                        arrayRe[j]=data[i].real();
-                        arrayIm[j]=data[i].imag();
+                        arrayRe[i]=data[i].real();
+                        arrayIm[i]=data[i].imag();
                 }
-// FFT
-                fft(arrayRe, arrayIm, TWO_PI);
+                FourierPlan.getInstance(N).transform(arrayRe, arrayIm);
 
                 final Complex answer[]=new Complex[N];
                 for(int i=0;i<N;i++)
@@ -55,21 +49,11 @@ public final class FourierMath extends AbstractMath implements NumericalConstant
         */
         public static Complex[] transform(final double dataReal[], final double dataImag[]) {
                 final int N=dataReal.length;
-                if(!isPowerOf2(N))
-                        throw new IllegalArgumentException("The number of samples must be a power of 2.");
-
                 final double arrayRe[]=new double[N];
                 final double arrayIm[]=new double[N];
-
-                final int numBits=numberOfBitsNeeded(N);
-// Simultaneous data copy and bit-reversal ordering into output
-                for(int i=0;i<N;i++) {
-                        final int j=reverseBits(i,numBits);
-                        arrayRe[j]=dataReal[i];
-                        arrayIm[j]=dataImag[i];
-                }
-// FFT
-                fft(arrayRe, arrayIm, TWO_PI);
+                System.arraycopy(dataReal, 0, arrayRe, 0, N);
+                System.arraycopy(dataImag, 0, arrayIm, 0, N);
+                FourierPlan.getInstance(N).transform(arrayRe, arrayIm);
 
                 final Complex answer[]=new Complex[N];
                 for(int i=0;i<N;i++)
@@ -85,27 +69,78 @@ public final class FourierMath extends AbstractMath implements NumericalConstant
         */
         public static Complex[] transform(final double data[]) {
                 final int N=data.length;
-                if(!isPowerOf2(N))
-                        throw new IllegalArgumentException("The number of samples must be a power of 2.");
-
-                final double arrayRe[]=new double[N];
-                final double arrayIm[]=new double[N];
-
-                final int numBits=numberOfBitsNeeded(N);
-// Simultaneous data copy and bit-reversal ordering into output
-                for(int i=0;i<N;i++) {
-                        final int j=reverseBits(i,numBits);
-                        arrayRe[j]=data[i];
-                }
-// FFT
-                fft(arrayRe, arrayIm, TWO_PI);
+                final int Nby2=N/2;
+                final double arrayRe[]=new double[Nby2+1];
+                final double arrayIm[]=new double[Nby2+1];
+                FourierPlan.getInstance(N).realTransform(data, arrayRe, arrayIm);
 
                 final Complex answer[]=new Complex[N];
-                for(int i=0;i<N;i++)
+                for(int i=0;i<=Nby2;i++)
                         answer[i]=new Complex(arrayRe[i],arrayIm[i]);
+                for(int i=Nby2+1;i<N;i++)
+                        answer[i]=answer[N-i].conjugate();
                 return answer;
         }
         /**
+        * Fourier transform (2Pi convention) of a real signal, in half-complex form.
+        * @param data an array containing the positive time part of the signal
+        * followed by the negative time part.
+        * @param re an array of length at least N/2+1, overwritten with the real part of
+        * frequencies 0 to N/2 in ascending order.
+        * @param im an array of length at least N/2+1, overwritten with the imaginary part of
+        * frequencies 0 to N/2 in ascending order.
+        * The negative frequencies are the complex conjugates of the positive ones.
+        */
+        public static void realTransform(final double data[], final double re[], final double im[]) {
+                FourierPlan.getInstance(data.length).realTransform(data, re, im);
+        }
+        /**
+        * Inverse of {@link #realTransform(double[], double[], double[])}.
+        * @param re the real part of frequencies 0 to N/2 in ascending order.
+        * @param im the imaginary part of frequencies 0 to N/2 in ascending order.
+        * @param data an array overwritten with the positive time part of the signal
+        * followed by the negative time part.
+        */
+        public static void inverseRealTransform(final double re[], final double im[], final double data[]) {
+                FourierPlan.getInstance(data.length).inverseRealTransform(re, im, data);
+        }
+        /**
+        * Fourier transforms (2Pi convention) of many complex signals of the same length, in place.
+        * The signals are shared out between threads.
+        * @param re the real parts of the signals, overwritten with the real parts of the transforms.
+        * @param im the imaginary parts of the signals, overwritten with the imaginary parts of the transforms.
+        */
+        public static void transform(final double re[][], final double im[][]) {
+                if(re.length>0)
+                        FourierPlan.getInstance(re[0].length).transform(re, im);
+        }
+        /**
+        * Inverse Fourier transforms (-2Pi convention) of many complex signals of the same length, in place.
+        * The signals are shared out between threads.
+        */
+        public static void inverseTransform(final double re[][], final double im[][]) {
+                if(re.length>0)
+                        FourierPlan.getInstance(re[0].length).inverseTransform(re, im);
+        }
+        /**
+        * Fourier transforms (2Pi convention) of many real signals of the same length, in half-complex form.
+        * The signals are shared out between threads.
+        * @see #realTransform(double[], double[], double[])
+        */
+        public static void realTransform(final double data[][], final double re[][], final double im[][]) {
+                if(data.length>0)
+                        FourierPlan.getInstance(data[0].length).realTransform(data, re, im);
+        }
+        /**
+        * Inverse Fourier transforms (-2Pi convention) of many real signals of the same length.
+        * The signals are shared out between threads.
+        * @see #inverseRealTransform(double[], double[], double[])
+        */
+        public static void inverseRealTransform(final double re[][], final double im[][], final double data[][]) {
+                if(data.length>0)
+                        FourierPlan.getInstance(data[0].length).inverseRealTransform(re, im, data);
+        }
+        /**
         * Inverse Fourier transform (-2Pi convention).
         * @param data an array containing positive frequencies in ascending order
         * followed by negative frequencies in ascending order.
@@ -115,26 +150,17 @@ public final class FourierMath extends AbstractMath implements NumericalConstant
         */
         public static Complex[] inverseTransform(final Complex data[]) {
                 final int N=data.length;
-                if(!isPowerOf2(N))
-                        throw new IllegalArgumentException("Data length must be a power of 2.");
-
                 final double arrayRe[]=new double[N];
                 final double arrayIm[]=new double[N];
-
-                final int numBits=numberOfBitsNeeded(N);
-// Simultaneous data copy and bit-reversal ordering into output
                 for(int i=0;i<N;i++) {
-                        final int j=reverseBits(i,numBits);
-                        arrayRe[j]=data[i].real();
-                        arrayIm[j]=data[i].imag();
+                        arrayRe[i]=data[i].real();
+                        arrayIm[i]=data[i].imag();
                 }
-// inverse FFT
-                fft(arrayRe, arrayIm, -TWO_PI);
-// Normalize
+                FourierPlan.getInstance(N).inverseTransform(arrayRe, arrayIm);
+
                 final Complex answer[]=new Complex[N];
-                final double denom=N;
                 for(int i=0;i<N;i++)
-                        answer[i]=new Complex(arrayRe[i]/denom,arrayIm[i]/denom);
+                        answer[i]=new Complex(arrayRe[i],arrayIm[i]);
                 return answer;
         }
         /**
@@ -149,26 +175,15 @@ public final class FourierMath extends AbstractMath implements NumericalConstant
         */
         public static Complex[] inverseTransform(final double dataReal[], final double dataImag[]) {
                 final int N=dataReal.length;
-                if(!isPowerOf2(N))
-                        throw new IllegalArgumentException("Data length must be a power of 2.");
-
                 final double arrayRe[]=new double[N];
                 final double arrayIm[]=new double[N];
+                System.arraycopy(dataReal, 0, arrayRe, 0, N);
+                System.arraycopy(dataImag, 0, arrayIm, 0, N);
+                FourierPlan.getInstance(N).inverseTransform(arrayRe, arrayIm);
 
-                final int numBits=numberOfBitsNeeded(N);
-// Simultaneous data copy and bit-reversal ordering into output
-                for(int i=0;i<N;i++) {
-                        final int j=reverseBits(i,numBits);
-                        arrayRe[j]=dataReal[i];
-                        arrayIm[j]=dataImag[i];
-                }
-// inverse FFT
-                fft(arrayRe, arrayIm, -TWO_PI);
-// Normalize
                 final Complex answer[]=new Complex[N];
-                final double denom=N;
                 for(int i=0;i<N;i++)
-                        answer[i]=new Complex(arrayRe[i]/denom,arrayIm[i]/denom);
+                        answer[i]=new Complex(arrayRe[i],arrayIm[i]);
                 return answer;
         }
         /**
@@ -180,98 +195,16 @@ public final class FourierMath extends AbstractMath implements NumericalConstant
         */
         public static Complex[] inverseTransform(final double data[]) {
                 final int N=data.length;
-                if(!isPowerOf2(N))
-                        throw new IllegalArgumentException("Data length must be a power of 2.");
-
                 final double arrayRe[]=new double[N];
                 final double arrayIm[]=new double[N];
+                System.arraycopy(data, 0, arrayRe, 0, N);
+                FourierPlan.getInstance(N).inverseTransform(arrayRe, arrayIm);
 
-                final int numBits=numberOfBitsNeeded(N);
-// Simultaneous data copy and bit-reversal ordering into output
-                for(int i=0;i<N;i++) {
-                        final int j=reverseBits(i,numBits);
-                        arrayRe[j]=data[i];
-                }
-// inverse FFT
-                fft(arrayRe, arrayIm, -TWO_PI);
-// Normalize
                 final Complex answer[]=new Complex[N];
-                final double denom=N;
                 for(int i=0;i<N;i++)
-                        answer[i]=new Complex(arrayRe[i]/denom,arrayIm[i]/denom);
+                        answer[i]=new Complex(arrayRe[i],arrayIm[i]);
                 return answer;
         }
-        /**
-        * Common FFT code.
-        * @param twoPi TWO_PI for transform, -TWO_PI for inverse transform.
-        */
-        private static void fft(double arrayRe[], double arrayIm[], final double twoPi) {
-                final int N=arrayRe.length;
-                int blockEnd=1;
-                for(int blockSize=2; blockSize<=N; blockSize<<=1) {
-                        final double deltaAngle = twoPi/blockSize;
-                        double alpha = Math.sin(0.5*deltaAngle);
-                        alpha = 2.0*alpha*alpha;
-                        final double beta = Math.sin(deltaAngle);
-                        for(int i=0; i<N; i+=blockSize) {
-                                double angleRe=1.0;
-                                double angleIm=0.0;
-                                for(int j=i,n=0; n<blockEnd; j++,n++) {
-                                        final int k = j+blockEnd;
-                                        // tmp = angle*array[k]
-                                        double tmpRe = angleRe*arrayRe[k]-angleIm*arrayIm[k];
-                                        double tmpIm = angleRe*arrayIm[k]+angleIm*arrayRe[k];
-                                        arrayRe[k] = arrayRe[j]-tmpRe;
-                                        arrayIm[k] = arrayIm[j]-tmpIm;
-                                        arrayRe[j] += tmpRe;
-                                        arrayIm[j] += tmpIm;
-                                        // angle = angle - (a-bi)*angle
-                                        tmpRe = alpha*angleRe + beta*angleIm;
-                                        tmpIm = alpha*angleIm - beta*angleRe;
-					angleRe -= tmpRe;
-					angleIm -= tmpIm;
-                                }
-                        }
-                        blockEnd=blockSize;
-                }
-        }
-        /**
-        * Returns true if x is a power of 2.
-        * @author Don Cross
-        */
-        private static boolean isPowerOf2(final int x) {
-                final int BITS_PER_WORD=32;
-                for(int i=1,y=2; i<BITS_PER_WORD; i++,y<<=1) {
-                        if(x==y)
-                                return true;
-                }
-                return false;
-        }
-        /**
-        * Number of bits needed.
-        * @author Don Cross
-        */
-        private static int numberOfBitsNeeded(final int pwrOf2) {
-                if(pwrOf2<2)
-                        throw new IllegalArgumentException();
-                for(int i=0;;i++) {
-                        if((pwrOf2&(1<<i))>0)
-                                return i;
-                }
-        }
-        /**
-        * Reverse bits.
-        * @author Don Cross
-        */
-        private static int reverseBits(int index,final int numBits) {
-                int i,rev;
-                for(i=rev=0;i<numBits;i++) {
-                        rev=(rev<<1)|(index&1);
-                        index>>=1;
-                }
-                return rev;
-        }
-
         /**
         * Sorts the output from the Fourier transfom methods into
         * ascending frequency/time order.
@@ -279,19 +212,15 @@ public final class FourierMath extends AbstractMath implements NumericalConstant
         public static Complex[] sort(final Complex output[]) {
                 final Complex ret[]=new Complex[output.length];
                 final int Nby2=output.length/2;
-                for(int i=0;i<Nby2;i++) {
-                        ret[Nby2+i]=output[i];
-                        ret[i]=output[Nby2+i];
-                }
+                System.arraycopy(output, 0, ret, Nby2, output.length-Nby2);
+                System.arraycopy(output, output.length-Nby2, ret, 0, Nby2);
                 return ret;
         }
         public static double[] sort(final double input[]) {
                 final double ret[]=new double[input.length];
                 final int Nby2=input.length/2;
-                for(int i=0;i<Nby2;i++) {
-                        ret[Nby2+i]=input[i];
-                        ret[i]=input[Nby2+i];
-                }
+                System.arraycopy(input, 0, ret, Nby2, input.length-Nby2);
+                System.arraycopy(input, input.length-Nby2, ret, 0, Nby2);
                 return ret;
         }
 }
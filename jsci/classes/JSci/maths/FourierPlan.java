@@ -0,0 +1,657 @@
+package JSci.maths;
+
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+* A precomputed fast Fourier transform of a fixed length.
+* Lengths with prime factors 2, 3 and 5 use a mixed radix 2/3/4/5 algorithm,
+* all other lengths use Bluestein's algorithm.
+* Twiddle factors and the input permutation are computed once per length,
+* and transforms work in place on split real/imaginary arrays.
+* Real signals are transformed to half-complex form using a complex transform of half the length,
+* and many signals of the same length can be transformed in parallel in one call.
+* Plans are immutable and may be shared between threads.
+* The sign conventions are the same as {@link FourierMath}.
+* @version 1.0
+* @author Mark Hale
+*/
+public final class FourierPlan extends Object implements NumericalConstants {
+        private static final Map cache=new HashMap();
+        /** Minimum number of samples for a batch to be split across threads. */
+        private static final int PARALLEL_BATCH_SIZE=1<<14;
+
+        private final int N;
+        /** Radices, innermost stage first. */
+        private final int factors[];
+        /** Input index to position before the first stage. */
+        private final int permutation[];
+        /** cos(2 pi j/N) */
+        private final double cosTable[];
+        /** sin(2 pi j/N) */
+        private final double sinTable[];
+        private final ThreadLocal workspace;
+// Bluestein
+        private final FourierPlan convolution;
+        private final double chirpRe[];
+        private final double chirpIm[];
+        private final double filterRe[];
+        private final double filterIm[];
+// real transforms, created on first use
+        private volatile RealTables realTables;
+
+        /**
+        * Returns a (cached) plan for the given length.
+        * @param n number of samples
+        */
+        public static FourierPlan getInstance(final int n) {
+                if(n<1)
+                        throw new IllegalArgumentException("The number of samples must be positive.");
+                final Integer key=Integer.valueOf(n);
+                synchronized(cache) {
+                        final SoftReference ref=(SoftReference)cache.get(key);
+                        FourierPlan plan=(ref!=null ? (FourierPlan)ref.get() : null);
+                        if(plan==null) {
+                                plan=new FourierPlan(n);
+                                cache.put(key, new SoftReference(plan));
+                        }
+                        return plan;
+                }
+        }
+
+        private FourierPlan(final int n) {
+                N=n;
+                final int radices[]=factorize(n);
+                final int size=(radices!=null ? n : nextPowerOf2(2*n-1));
+                workspace=new ThreadLocal() {
+                        protected Object initialValue() {
+                                return new double[2][size];
+                        }
+                };
+                if(radices!=null) {
+                        factors=radices;
+                        permutation=createPermutation(n, factors);
+                        cosTable=new double[n];
+                        sinTable=new double[n];
+                        for(int j=0;j<n;j++) {
+                                final double angle=TWO_PI*j/n;
+                                cosTable[j]=Math.cos(angle);
+                                sinTable[j]=Math.sin(angle);
+                        }
+                        convolution=null;
+                        chirpRe=chirpIm=null;
+                        filterRe=filterIm=null;
+                } else {
+                        factors=null;
+                        permutation=null;
+                        cosTable=sinTable=null;
+                        convolution=getInstance(size);
+                        // chirp exp(i pi j^2/N), with j^2 reduced modulo 2N to keep the angle accurate
+                        chirpRe=new double[n];
+                        chirpIm=new double[n];
+                        final long twoN=2L*n;
+                        for(int j=0;j<n;j++) {
+                                final double angle=Math.PI*(((long)j*(long)j)%twoN)/n;
+                                chirpRe[j]=Math.cos(angle);
+                                chirpIm[j]=Math.sin(angle);
+                        }
+                        // transform of the conjugate chirp, wrapped for a circular convolution
+                        filterRe=new double[size];
+                        filterIm=new double[size];
+                        filterRe[0]=chirpRe[0];
+                        filterIm[0]=-chirpIm[0];
+                        for(int j=1;j<n;j++) {
+                                filterRe[j]=filterRe[size-j]=chirpRe[j];
+                                filterIm[j]=filterIm[size-j]=-chirpIm[j];
+                        }
+                        convolution.transform(filterRe, filterIm);
+                }
+        }
+        /**
+        * Returns the radices of n if it only has the prime factors 2, 3 and 5, otherwise null.
+        */
+        private static int[] factorize(int n) {
+                final int tmp[]=new int[32];
+                int count=0;
+                while(n%4==0) {
+                        tmp[count++]=4;
+                        n/=4;
+                }
+                while(n%2==0) {
+                        tmp[count++]=2;
+                        n/=2;
+                }
+                while(n%3==0) {
+                        tmp[count++]=3;
+                        n/=3;
+                }
+                while(n%5==0) {
+                        tmp[count++]=5;
+                        n/=5;
+                }
+                if(n!=1)
+                        return null;
+                final int radices[]=new int[count];
+                System.arraycopy(tmp, 0, radices, 0, count);
+                return radices;
+        }
+        /**
+        * Mixed radix digit reversal.
+        */
+        private static int[] createPermutation(final int n, final int radices[]) {
+                final int perm[]=new int[n];
+                for(int i=0;i<n;i++) {
+                        int index=i;
+                        int span=n;
+                        int pos=0;
+                        for(int s=radices.length-1;s>=0;s--) {
+                                final int p=radices[s];
+                                span/=p;
+                                pos+=(index%p)*span;
+                                index/=p;
+                        }
+                        perm[i]=pos;
+                }
+                return perm;
+        }
+        private static int nextPowerOf2(final int n) {
+                int m=1;
+                while(m<n)
+                        m<<=1;
+                return m;
+        }
+
+        /**
+        * Returns the number of samples.
+        */
+        public int length() {
+                return N;
+        }
+        /**
+        * Fourier transform (2Pi convention), in place.
+        * @param re the real part of the signal, overwritten with the real part of the transform.
+        * @param im the imaginary part of the signal, overwritten with the imaginary part of the transform.
+        */
+        public void transform(final double re[], final double im[]) {
+                checkLength(re, im);
+                if(convolution==null)
+                        fft(re, im, 1.0);
+                else
+                        bluestein(re, im, 1.0);
+        }
+        /**
+        * Inverse Fourier transform (-2Pi convention), in place.
+        * @param re the real part of the transform, overwritten with the real part of the signal.
+        * @param im the imaginary part of the transform, overwritten with the imaginary part of the signal.
+        */
+        public void inverseTransform(final double re[], final double im[]) {
+                checkLength(re, im);
+                if(convolution==null)
+                        fft(re, im, -1.0);
+                else
+                        bluestein(re, im, -1.0);
+                final double norm=1.0/N;
+                for(int i=0;i<N;i++) {
+                        re[i]*=norm;
+                        im[i]*=norm;
+                }
+        }
+        private void checkLength(final double re[], final double im[]) {
+                if(re.length<N || im.length<N)
+                        throw new IllegalArgumentException("Arrays must have at least "+N+" elements.");
+        }
+        /**
+        * Fourier transform (2Pi convention) of a real signal.
+        * Only the non-negative frequencies are returned, the others being their complex conjugates.
+        * @param data the signal.
+        * @param re an array of at least N/2+1 elements, overwritten with the real part of frequencies 0 to N/2.
+        * @param im an array of at least N/2+1 elements, overwritten with the imaginary part of frequencies 0 to N/2.
+        */
+        public void realTransform(final double data[], final double re[], final double im[]) {
+                final int H=N/2;
+                if(data.length<N || re.length<=H || im.length<=H)
+                        throw new IllegalArgumentException("Arrays must have at least "+N+" and "+(H+1)+" elements.");
+                final RealTables tables=getRealTables();
+                final FourierPlan halfPlan=tables.halfPlan;
+                final double realCos[]=tables.cos;
+                final double realSin[]=tables.sin;
+                final double work[][]=(double[][])tables.workspace.get();
+                final double zRe[]=work[0];
+                final double zIm[]=work[1];
+                if(halfPlan==null) {
+                        System.arraycopy(data, 0, zRe, 0, N);
+                        for(int i=0;i<N;i++)
+                                zIm[i]=0.0;
+                        transform(zRe, zIm);
+                        System.arraycopy(zRe, 0, re, 0, H+1);
+                        System.arraycopy(zIm, 0, im, 0, H+1);
+                        return;
+                }
+                // pack even samples into the real part and odd samples into the imaginary part
+                for(int j=0;j<H;j++) {
+                        zRe[j]=data[2*j];
+                        zIm[j]=data[2*j+1];
+                }
+                halfPlan.transform(zRe, zIm);
+                re[0]=zRe[0]+zIm[0];
+                im[0]=0.0;
+                re[H]=zRe[0]-zIm[0];
+                im[H]=0.0;
+                for(int k=1;k<H;k++) {
+                        // even and odd spectra
+                        final double eRe=0.5*(zRe[k]+zRe[H-k]);
+                        final double eIm=0.5*(zIm[k]-zIm[H-k]);
+                        final double oRe=0.5*(zIm[k]+zIm[H-k]);
+                        final double oIm=-0.5*(zRe[k]-zRe[H-k]);
+                        final double wr=realCos[k];
+                        final double wi=realSin[k];
+                        re[k]=eRe+wr*oRe-wi*oIm;
+                        im[k]=eIm+wr*oIm+wi*oRe;
+                }
+        }
+        /**
+        * Inverse Fourier transform (-2Pi convention) to a real signal.
+        * @param re the real part of frequencies 0 to N/2.
+        * @param im the imaginary part of frequencies 0 to N/2.
+        * @param data an array of at least N elements, overwritten with the signal.
+        */
+        public void inverseRealTransform(final double re[], final double im[], final double data[]) {
+                final int H=N/2;
+                if(data.length<N || re.length<=H || im.length<=H)
+                        throw new IllegalArgumentException("Arrays must have at least "+N+" and "+(H+1)+" elements.");
+                final RealTables tables=getRealTables();
+                final FourierPlan halfPlan=tables.halfPlan;
+                final double realCos[]=tables.cos;
+                final double realSin[]=tables.sin;
+                final double work[][]=(double[][])tables.workspace.get();
+                final double zRe[]=work[0];
+                final double zIm[]=work[1];
+                if(halfPlan==null) {
+                        zRe[0]=re[0];
+                        zIm[0]=im[0];
+                        for(int k=1;k<=H;k++) {
+                                zRe[k]=zRe[N-k]=re[k];
+                                zIm[k]=im[k];
+                                zIm[N-k]=-im[k];
+                        }
+                        inverseTransform(zRe, zIm);
+                        System.arraycopy(zRe, 0, data, 0, N);
+                        return;
+                }
+                for(int k=0;k<H;k++) {
+                        final double eRe=0.5*(re[k]+re[H-k]);
+                        final double eIm=0.5*(im[k]-im[H-k]);
+                        final double dRe=0.5*(re[k]-re[H-k]);
+                        final double dIm=0.5*(im[k]+im[H-k]);
+                        // odd spectrum = d/w
+                        final double wr=realCos[k];
+                        final double wi=realSin[k];
+                        final double oRe=dRe*wr+dIm*wi;
+                        final double oIm=dIm*wr-dRe*wi;
+                        zRe[k]=eRe-oIm;
+                        zIm[k]=eIm+oRe;
+                }
+                halfPlan.inverseTransform(zRe, zIm);
+                for(int j=0;j<H;j++) {
+                        data[2*j]=zRe[j];
+                        data[2*j+1]=zIm[j];
+                }
+        }
+        /**
+        * Returns the tables of the real transforms, which are built on first use
+        * so that plans only used for complex transforms do not create the half length plan.
+        * Only the first call takes a lock.
+        */
+        private RealTables getRealTables() {
+                RealTables tables=realTables;
+                if(tables==null) {
+                        synchronized(this) {
+                                tables=realTables;
+                                if(tables==null)
+                                        realTables=tables=new RealTables(N);
+                        }
+                }
+                return tables;
+        }
+
+        /**
+        * Fourier transforms (2Pi convention) of many signals, in place.
+        * Large batches are split across threads.
+        * @param re the real parts of the signals, overwritten with the real parts of the transforms.
+        * @param im the imaginary parts of the signals, overwritten with the imaginary parts of the transforms.
+        */
+        public void transform(final double re[][], final double im[][]) {
+                runBatch(new BatchTask(this, BatchTask.TRANSFORM, re, im, null, 0, re.length));
+        }
+        /**
+        * Inverse Fourier transforms (-2Pi convention) of many signals, in place.
+        * Large batches are split across threads.
+        * @param re the real parts of the transforms, overwritten with the real parts of the signals.
+        * @param im the imaginary parts of the transforms, overwritten with the imaginary parts of the signals.
+        */
+        public void inverseTransform(final double re[][], final double im[][]) {
+                runBatch(new BatchTask(this, BatchTask.INVERSE_TRANSFORM, re, im, null, 0, re.length));
+        }
+        /**
+        * Fourier transforms (2Pi convention) of many real signals.
+        * Large batches are split across threads.
+        * @param data the signals.
+        * @param re overwritten with the real parts of frequencies 0 to N/2.
+        * @param im overwritten with the imaginary parts of frequencies 0 to N/2.
+        * @see #realTransform(double[], double[], double[])
+        */
+        public void realTransform(final double data[][], final double re[][], final double im[][]) {
+                runBatch(new BatchTask(this, BatchTask.REAL_TRANSFORM, re, im, data, 0, data.length));
+        }
+        /**
+        * Inverse Fourier transforms (-2Pi convention) of many real signals.
+        * Large batches are split across threads.
+        * @param re the real parts of frequencies 0 to N/2.
+        * @param im the imaginary parts of frequencies 0 to N/2.
+        * @param data overwritten with the signals.
+        * @see #inverseRealTransform(double[], double[], double[])
+        */
+        public void inverseRealTransform(final double re[][], final double im[][], final double data[][]) {
+                runBatch(new BatchTask(this, BatchTask.INVERSE_REAL_TRANSFORM, re, im, data, 0, re.length));
+        }
+        private void runBatch(final BatchTask task) {
+                if((long)(task.end-task.start)*N<PARALLEL_BATCH_SIZE)
+                        task.compute();
+                else
+                        ForkJoinPool.commonPool().invoke(task);
+        }
+
+        /**
+        * Mixed radix decimation in time.
+        * @param sign 1 for transform, -1 for inverse transform.
+        */
+        private void fft(final double re[], final double im[], final double sign) {
+                if(N==1)
+                        return;
+                final double work[][]=(double[][])workspace.get();
+                final double tmpRe[]=work[0];
+                final double tmpIm[]=work[1];
+                System.arraycopy(re, 0, tmpRe, 0, N);
+                System.arraycopy(im, 0, tmpIm, 0, N);
+                for(int i=0;i<N;i++) {
+                        final int j=permutation[i];
+                        re[j]=tmpRe[i];
+                        im[j]=tmpIm[i];
+                }
+                int span=1;
+                for(int s=0;s<factors.length;s++) {
+                        final int p=factors[s];
+                        switch(p) {
+                                case 2: radix2(re, im, span, sign); break;
+                                case 3: radix3(re, im, span, sign); break;
+                                case 4: radix4(re, im, span, sign); break;
+                                case 5: radix5(re, im, span, sign); break;
+                        }
+                        span*=p;
+                }
+        }
+        private void radix2(final double re[], final double im[], final int m, final double sign) {
+                final int stride=N/(2*m);
+                for(int base=0;base<N;base+=2*m) {
+                        for(int k=0,t=0;k<m;k++,t+=stride) {
+                                final int i0=base+k;
+                                final int i1=i0+m;
+                                final double wr=cosTable[t];
+                                final double wi=sign*sinTable[t];
+                                final double r1=wr*re[i1]-wi*im[i1];
+                                final double j1=wr*im[i1]+wi*re[i1];
+                                re[i1]=re[i0]-r1;
+                                im[i1]=im[i0]-j1;
+                                re[i0]+=r1;
+                                im[i0]+=j1;
+                        }
+                }
+        }
+        private void radix3(final double re[], final double im[], final int m, final double sign) {
+                final double s60=sign*0.86602540378443864676372317075293618347140262690519;
+                final int stride=N/(3*m);
+                for(int base=0;base<N;base+=3*m) {
+                        for(int k=0,t=0;k<m;k++,t+=stride) {
+                                final int i0=base+k;
+                                final int i1=i0+m;
+                                final int i2=i1+m;
+                                double wr=cosTable[t];
+                                double wi=sign*sinTable[t];
+                                final double r1=wr*re[i1]-wi*im[i1];
+                                final double j1=wr*im[i1]+wi*re[i1];
+                                wr=cosTable[2*t];
+                                wi=sign*sinTable[2*t];
+                                final double r2=wr*re[i2]-wi*im[i2];
+                                final double j2=wr*im[i2]+wi*re[i2];
+                                final double sr=r1+r2;
+                                final double sj=j1+j2;
+                                final double dr=s60*(r1-r2);
+                                final double dj=s60*(j1-j2);
+                                final double mr=re[i0]-0.5*sr;
+                                final double mj=im[i0]-0.5*sj;
+                                re[i0]+=sr;
+                                im[i0]+=sj;
+                                re[i1]=mr-dj;
+                                im[i1]=mj+dr;
+                                re[i2]=mr+dj;
+                                im[i2]=mj-dr;
+                        }
+                }
+        }
+        private void radix4(final double re[], final double im[], final int m, final double sign) {
+                final int stride=N/(4*m);
+                for(int base=0;base<N;base+=4*m) {
+                        for(int k=0,t=0;k<m;k++,t+=stride) {
+                                final int i0=base+k;
+                                final int i1=i0+m;
+                                final int i2=i1+m;
+                                final int i3=i2+m;
+                                double wr=cosTable[t];
+                                double wi=sign*sinTable[t];
+                                final double r1=wr*re[i1]-wi*im[i1];
+                                final double j1=wr*im[i1]+wi*re[i1];
+                                wr=cosTable[2*t];
+                                wi=sign*sinTable[2*t];
+                                final double r2=wr*re[i2]-wi*im[i2];
+                                final double j2=wr*im[i2]+wi*re[i2];
+                                wr=cosTable[3*t];
+                                wi=sign*sinTable[3*t];
+                                final double r3=wr*re[i3]-wi*im[i3];
+                                final double j3=wr*im[i3]+wi*re[i3];
+                                final double t0r=re[i0]+r2;
+                                final double t0j=im[i0]+j2;
+                                final double t1r=re[i0]-r2;
+                                final double t1j=im[i0]-j2;
+                                final double t2r=r1+r3;
+                                final double t2j=j1+j3;
+                                // sign*i*(a1-a3)
+                                final double t3r=-sign*(j1-j3);
+                                final double t3j=sign*(r1-r3);
+                                re[i0]=t0r+t2r;
+                                im[i0]=t0j+t2j;
+                                re[i1]=t1r+t3r;
+                                im[i1]=t1j+t3j;
+                                re[i2]=t0r-t2r;
+                                im[i2]=t0j-t2j;
+                                re[i3]=t1r-t3r;
+                                im[i3]=t1j-t3j;
+                        }
+                }
+        }
+        private void radix5(final double re[], final double im[], final int m, final double sign) {
+                final double c1=0.30901699437494742410229341718281905886436444230136;
+                final double c2=-0.80901699437494742410229341718281905886436444230136;
+                final double s1=sign*0.95105651629515357211643933337938214340569863412575;
+                final double s2=sign*0.58778525229247312916870595463907276859765243764314;
+                final int stride=N/(5*m);
+                for(int base=0;base<N;base+=5*m) {
+                        for(int k=0,t=0;k<m;k++,t+=stride) {
+                                final int i0=base+k;
+                                final int i1=i0+m;
+                                final int i2=i1+m;
+                                final int i3=i2+m;
+                                final int i4=i3+m;
+                                double wr=cosTable[t];
+                                double wi=sign*sinTable[t];
+                                final double r1=wr*re[i1]-wi*im[i1];
+                                final double j1=wr*im[i1]+wi*re[i1];
+                                wr=cosTable[2*t];
+                                wi=sign*sinTable[2*t];
+                                final double r2=wr*re[i2]-wi*im[i2];
+                                final double j2=wr*im[i2]+wi*re[i2];
+                                wr=cosTable[3*t];
+                                wi=sign*sinTable[3*t];
+                                final double r3=wr*re[i3]-wi*im[i3];
+                                final double j3=wr*im[i3]+wi*re[i3];
+                                wr=cosTable[4*t];
+                                wi=sign*sinTable[4*t];
+                                final double r4=wr*re[i4]-wi*im[i4];
+                                final double j4=wr*im[i4]+wi*re[i4];
+                                final double t1r=r1+r4, t1j=j1+j4;
+                                final double d1r=r1-r4, d1j=j1-j4;
+                                final double t2r=r2+r3, t2j=j2+j3;
+                                final double d2r=r2-r3, d2j=j2-j3;
+                                final double a0r=re[i0], a0j=im[i0];
+                                final double m1r=a0r+c1*t1r+c2*t2r;
+                                final double m1j=a0j+c1*t1j+c2*t2j;
+                                final double m2r=a0r+c2*t1r+c1*t2r;
+                                final double m2j=a0j+c2*t1j+c1*t2j;
+                                // i*(s1*d1+s2*d2) and i*(s2*d1-s1*d2)
+                                final double n1r=-(s1*d1j+s2*d2j);
+                                final double n1j=s1*d1r+s2*d2r;
+                                final double n2r=-(s2*d1j-s1*d2j);
+                                final double n2j=s2*d1r-s1*d2r;
+                                re[i0]=a0r+t1r+t2r;
+                                im[i0]=a0j+t1j+t2j;
+                                re[i1]=m1r+n1r;
+                                im[i1]=m1j+n1j;
+                                re[i4]=m1r-n1r;
+                                im[i4]=m1j-n1j;
+                                re[i2]=m2r+n2r;
+                                im[i2]=m2j+n2j;
+                                re[i3]=m2r-n2r;
+                                im[i3]=m2j-n2j;
+                        }
+                }
+        }
+
+        /**
+        * Bluestein's algorithm, expressing the transform as a power of 2 convolution.
+        * @param sign 1 for transform, -1 for inverse transform.
+        */
+        private void bluestein(final double re[], final double im[], final double sign) {
+                final int M=convolution.N;
+                final double work[][]=(double[][])workspace.get();
+                final double aRe[]=work[0];
+                final double aIm[]=work[1];
+                // a = x.chirp
+                for(int j=0;j<N;j++) {
+                        final double cr=chirpRe[j];
+                        final double ci=sign*chirpIm[j];
+                        aRe[j]=re[j]*cr-im[j]*ci;
+                        aIm[j]=re[j]*ci+im[j]*cr;
+                }
+                for(int j=N;j<M;j++) {
+                        aRe[j]=0.0;
+                        aIm[j]=0.0;
+                }
+                convolution.transform(aRe, aIm);
+                // the inverse filter is the conjugate chirp reflected, whose transform is the conjugate of the forward filter
+                for(int j=0;j<M;j++) {
+                        final double fr=filterRe[j];
+                        final double fi=sign*filterIm[j];
+                        final double tr=aRe[j]*fr-aIm[j]*fi;
+                        aIm[j]=aRe[j]*fi+aIm[j]*fr;
+                        aRe[j]=tr;
+                }
+                convolution.inverseTransform(aRe, aIm);
+                // X = chirp.(a*conj(chirp))
+                for(int k=0;k<N;k++) {
+                        final double cr=chirpRe[k];
+                        final double ci=sign*chirpIm[k];
+                        re[k]=aRe[k]*cr-aIm[k]*ci;
+                        im[k]=aRe[k]*ci+aIm[k]*cr;
+                }
+        }
+
+        private static final class BatchTask extends RecursiveAction {
+                static final int TRANSFORM=0;
+                static final int INVERSE_TRANSFORM=1;
+                static final int REAL_TRANSFORM=2;
+                static final int INVERSE_REAL_TRANSFORM=3;
+                private final FourierPlan plan;
+                private final int type;
+                private final double re[][];
+                private final double im[][];
+                private final double data[][];
+                final int start;
+                final int end;
+
+                BatchTask(FourierPlan plan, int type, double re[][], double im[][], double data[][], int start, int end) {
+                        this.plan=plan;
+                        this.type=type;
+                        this.re=re;
+                        this.im=im;
+                        this.data=data;
+                        this.start=start;
+                        this.end=end;
+                }
+                protected void compute() {
+                        if(end-start>1 && (long)(end-start)*plan.N>=PARALLEL_BATCH_SIZE) {
+                                final int mid=(start+end)>>>1;
+                                invokeAll(new BatchTask(plan, type, re, im, data, start, mid),
+                                        new BatchTask(plan, type, re, im, data, mid, end));
+                                return;
+                        }
+                        for(int i=start;i<end;i++) {
+                                switch(type) {
+                                        case TRANSFORM: plan.transform(re[i], im[i]); break;
+                                        case INVERSE_TRANSFORM: plan.inverseTransform(re[i], im[i]); break;
+                                        case REAL_TRANSFORM: plan.realTransform(data[i], re[i], im[i]); break;
+                                        case INVERSE_REAL_TRANSFORM: plan.inverseRealTransform(re[i], im[i], data[i]); break;
+                                }
+                        }
+                }
+        }
+
+        /**
+        * Immutable tables of the real transforms of length N.
+        * Odd lengths use a complex transform of length N and have no half length plan.
+        */
+        private static final class RealTables {
+                final FourierPlan halfPlan;
+                /** cos(2 pi k/N) */
+                final double cos[];
+                /** sin(2 pi k/N) */
+                final double sin[];
+                final ThreadLocal workspace;
+
+                RealTables(final int N) {
+                        final int size;
+                        if(N%2==0) {
+                                final int H=N/2;
+                                halfPlan=getInstance(H);
+                                cos=new double[H];
+                                sin=new double[H];
+                                for(int k=0;k<H;k++) {
+                                        final double angle=TWO_PI*k/N;
+                                        cos[k]=Math.cos(angle);
+                                        sin[k]=Math.sin(angle);
+                                }
+                                size=H;
+                        } else {
+                                halfPlan=null;
+                                cos=sin=null;
+                                size=N;
+                        }
+                        workspace=new ThreadLocal() {
+                                protected Object initialValue() {
+                                        return new double[2][size];
+                                }
+                        };
+                }
+        }
+}
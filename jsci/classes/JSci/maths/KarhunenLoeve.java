@@ -29,20 +29,26 @@ public final class KarhunenLoeve {
                 }
                 return(ans);
         }
-        private static void add(double[][] a, double c, double[][] b) {
-                for(int k=0;k<a.length;k++) {
-                        for(int l=0;l<a[k].length;l++) {
-                                a[k][l]+=b[k][l]*c;
-                        }
-                }
-        }
 	/**
 	 * @param v an array where [i][j] is the jth component of the ith vector.
 	 */
 	public static double[][] getProductMatrix (double[][] v) {
-		double[][] ans=new double[v[0].length][v[0].length];
+		final int n=v[0].length;
+		final double c=1.0/v.length;
+		double[][] ans=new double[n][n];
+                // accumulate the lower triangle only, without a temporary square per vector
                 for(int k=0;k<v.length;k++) {
-                        add(ans,1.0/v.length,vectorToSquare(v[k]));
+                        final double[] vk=v[k];
+                        for(int i=0;i<n;i++) {
+                                final double[] ansi=ans[i];
+                                final double vki=vk[i];
+                                for(int j=0;j<=i;j++)
+                                        ansi[j]+=vki*vk[j]*c;
+                        }
+                }
+                for(int i=0;i<n;i++) {
+                        for(int j=0;j<i;j++)
+                                ans[j][i]=ans[i][j];
                 }
 		return(ans);
 	}
@@ -77,6 +83,25 @@ public final class KarhunenLoeve {
 		return beta;
 	}
 	/**
+	* Returns the eigenvectors of the k largest eigenvalues, ordered from max to min.
+	* This is much faster than finding all of them when k is small.
+	* @param k the number of eigenvectors.
+	*/
+	public AbstractDoubleVector[] getEigenvectors(int k) {
+		DoubleSquareMatrix alpha=new DoubleSquareMatrix(getProductMatrix(data));
+		AbstractDoubleVector[] beta=new AbstractDoubleVector[k];
+		LinearMath.eigenSolveSymmetric(alpha,k,beta);
+		return beta;
+	}
+	/**
+	* Returns the eigenvectors of the k largest eigenvalues, ordered from max to min.
+	* @param k the number of eigenvectors.
+	* @return an array where [i][j] is the jth component of the ith eigenvector.
+	*/
+	public double[][] getEigenvectorArrays(int k) {
+		return toArrays(getEigenvectors(k));
+	}
+	/**
 	* Returns the eigenvectors ordered by the norm of the eigenvalues
         * (from max to min).
 	* @return an array where [i][j] is the jth component of the ith eigenvector.
@@ -84,8 +109,10 @@ public final class KarhunenLoeve {
         * the eigenvectors within the limited number of iterations allowed.
 	*/
 	public double[][] getEigenvectorArrays() throws MaximumIterationsExceededException {
-                AbstractDoubleVector[] beta=getEigenvectors();
-                double[][] ans=new double[beta.length][beta[0].dimension()];
+                return toArrays(getEigenvectors());
+	}
+	private static double[][] toArrays(AbstractDoubleVector[] beta) {
+                double[][] ans=new double[beta.length][beta.length>0 ? beta[0].dimension() : 0];
                 for(int k=0;k<beta.length;k++) {
                         for(int l=0;l<beta[k].dimension();l++) {
                                 ans[k][l]=beta[k].getComponent(l);
@@ -0,0 +1,928 @@
+package JSci.maths;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Restarted Krylov subspace eigensolvers for large (sparse) matrices,
+ * which only need the product of the matrix with a vector.
+ * The symmetric solver is thick-restart Lanczos (Wu and Simon),
+ * which is equivalent to implicitly restarted Lanczos with exact shifts, but simpler to implement stably.
+ * The general solver is implicitly restarted Arnoldi (Sorensen) with exact shifts.
+ * The basis is kept orthogonal by classical Gram-Schmidt with one reorthogonalization,
+ * done a chunk of vector elements at a time, in parallel on a fork-join pool.
+ * Apart from the products, memory use is ncv+1 vectors of length n.
+ * @author Mark
+ */
+final class KrylovEigenKernel {
+    /** Vector elements processed by one task. */
+    private static final int CHUNK = 4096;
+    /** Work (multiply-adds) below which a loop is run serially. */
+    private static final long PARALLEL_THRESHOLD = 1L<<16;
+    private static final double EPS = Math.ulp(1.0);
+    /** A new basis vector smaller than this, relative to its norm before orthogonalization, is taken to be zero. */
+    private static final double BREAKDOWN = 64.0*EPS;
+    private static final int JACOBI_MAX_SWEEPS = 50;
+    private static final int HQR_MAX_ITERATIONS = 30;
+    private static final int INVERSE_ITERATIONS = 2;
+
+    private KrylovEigenKernel() {}
+
+    /**
+     * A matrix, known only by its product with a vector.
+     */
+    static abstract class Operator {
+        /**
+         * Computes y = Ax.
+         */
+        abstract void multiply(double x[], double y[]);
+    }
+
+// LANCZOS
+
+    /**
+     * Finds the largest or smallest eigenvalues of a symmetric operator.
+     * @param n the dimension of the operator
+     * @param k the number of eigenvalues to find
+     * @param ncv the size of the Krylov subspace, k &lt; ncv &le; n
+     * @param v0 the starting vector, or null for a random one
+     * @param x if not null, filled with the k (unit) eigenvectors
+     * @return the eigenvalues, largest first if largest, otherwise smallest first
+     */
+    static double[] lanczos(final Operator A, final int n, final int k, final boolean largest, final int ncv, final int maxRestarts, final double tol, final double v0[], final double x[][]) throws MaximumIterationsExceededException {
+        final int m = ncv;
+        final Random random = new Random(1L);
+        final double V[][] = new double[m+1][];
+        V[0] = startVector(n, v0, random);
+        final double H[][] = new double[m][m];
+        final double h[] = new double[m];
+        final double theta[] = new double[m];
+        final double Y[][] = new double[m][m];
+        final double S[][] = new double[m][m];
+        int l = 0;
+        double beta = 0.0;
+        double anorm = 0.0;
+        int order[];
+        for(int restart=0;; restart++) {
+            for(int j=l; j<m; j++) {
+                if(V[j+1] == null)
+                    V[j+1] = new double[n];
+                final double w[] = V[j+1];
+                A.multiply(V[j], w);
+                final double wnorm = norm(w);
+                anorm = Math.max(anorm, wnorm);
+                beta = orthogonalize(V, j+1, w, h);
+                for(int i=0; i<=j; i++) {
+                    H[i][j] = h[i];
+                    H[j][i] = h[i];
+                }
+                beta = normalize(V, j+1, w, beta, wnorm, random);
+                if(j+1 < m) {
+                    H[j+1][j] = beta;
+                    H[j][j+1] = beta;
+                }
+            }
+            // Rayleigh-Ritz
+            for(int i=0; i<m; i++)
+                System.arraycopy(H[i], 0, S[i], 0, m);
+            jacobi(S, theta, Y);
+            order = sortIndex(theta, largest);
+            int nconv = 0;
+            for(int i=0; i<k; i++) {
+                if(Math.abs(beta*Y[m-1][order[i]]) <= tol*anorm)
+                    nconv++;
+            }
+            if(nconv >= k)
+                break;
+            if(restart == maxRestarts)
+                throw new MaximumIterationsExceededException("No convergence after "+maxRestarts+" restarts.", theta);
+            // thick restart: keep the best Ritz vectors and the residual direction
+            l = Math.min(k + Math.min(nconv, (m-k)/2), m-1);
+            final double C[][] = new double[m][l];
+            for(int j=0; j<m; j++) {
+                for(int i=0; i<l; i++)
+                    C[j][i] = Y[j][order[i]];
+            }
+            combine(V, m, C, l, V);
+            final double tmp[] = V[l];
+            V[l] = V[m];
+            V[m] = tmp;
+            for(int i=0; i<m; i++) {
+                for(int j=0; j<m; j++)
+                    H[i][j] = 0.0;
+            }
+            for(int i=0; i<l; i++) {
+                H[i][i] = theta[order[i]];
+                H[i][l] = H[l][i] = beta*Y[m-1][order[i]];
+            }
+        }
+        final double eigenvalue[] = new double[k];
+        for(int i=0; i<k; i++)
+            eigenvalue[i] = theta[order[i]];
+        if(x != null) {
+            final double C[][] = new double[m][k];
+            for(int j=0; j<m; j++) {
+                for(int i=0; i<k; i++)
+                    C[j][i] = Y[j][order[i]];
+            }
+            combine(V, m, C, k, V);
+            for(int i=0; i<k; i++) {
+                scale(V[i], 1.0/norm(V[i]));
+                x[i] = V[i];
+            }
+        }
+        return eigenvalue;
+    }
+
+    /**
+     * Jacobi eigensolver for the small projected matrix.
+     * Only the upper triangle of a is used, and it is overwritten.
+     * @param v output eigenvectors, as columns
+     */
+    private static void jacobi(final double a[][], final double d[], final double v[][]) {
+        final int n = d.length;
+        final double b[] = new double[n];
+        final double z[] = new double[n];
+        for(int i=0; i<n; i++) {
+            for(int j=0; j<n; j++)
+                v[i][j] = 0.0;
+            v[i][i] = 1.0;
+            b[i] = d[i] = a[i][i];
+        }
+        for(int sweep=1; sweep<=JACOBI_MAX_SWEEPS; sweep++) {
+            double sm = 0.0;
+            for(int p=0; p<n-1; p++) {
+                for(int q=p+1; q<n; q++)
+                    sm += Math.abs(a[p][q]);
+            }
+            if(sm == 0.0)
+                return;
+            final double thresh = (sweep < 4) ? 0.2*sm/(n*n) : 0.0;
+            for(int p=0; p<n-1; p++) {
+                for(int q=p+1; q<n; q++) {
+                    final double g = 100.0*Math.abs(a[p][q]);
+                    if(sweep > 4 && Math.abs(d[p])+g == Math.abs(d[p]) && Math.abs(d[q])+g == Math.abs(d[q])) {
+                        a[p][q] = 0.0;
+                    } else if(Math.abs(a[p][q]) > thresh) {
+                        double h = d[q]-d[p];
+                        double t;
+                        if(Math.abs(h)+g == Math.abs(h)) {
+                            t = a[p][q]/h;
+                        } else {
+                            final double th = 0.5*h/a[p][q];
+                            t = 1.0/(Math.abs(th)+Math.sqrt(1.0+th*th));
+                            if(th < 0.0)
+                                t = -t;
+                        }
+                        final double c = 1.0/Math.sqrt(1.0+t*t);
+                        final double s = t*c;
+                        final double tau = s/(1.0+c);
+                        h = t*a[p][q];
+                        z[p] -= h;
+                        z[q] += h;
+                        d[p] -= h;
+                        d[q] += h;
+                        a[p][q] = 0.0;
+                        for(int j=0; j<p; j++)
+                            rotate(a, j, p, j, q, s, tau);
+                        for(int j=p+1; j<q; j++)
+                            rotate(a, p, j, j, q, s, tau);
+                        for(int j=q+1; j<n; j++)
+                            rotate(a, p, j, q, j, s, tau);
+                        for(int j=0; j<n; j++)
+                            rotate(v, j, p, j, q, s, tau);
+                    }
+                }
+            }
+            for(int p=0; p<n; p++) {
+                b[p] += z[p];
+                d[p] = b[p];
+                z[p] = 0.0;
+            }
+        }
+    }
+    private static void rotate(final double a[][], int i, int j, int k, int l, double s, double tau) {
+        final double g = a[i][j];
+        final double h = a[k][l];
+        a[i][j] = g-s*(h+g*tau);
+        a[k][l] = h+s*(g-h*tau);
+    }
+    /**
+     * Returns the indices of the values, largest first if descending, otherwise smallest first.
+     */
+    private static int[] sortIndex(final double value[], final boolean descending) {
+        final int n = value.length;
+        final int index[] = new int[n];
+        for(int i=0; i<n; i++)
+            index[i] = i;
+        // insertion sort, n is small
+        for(int i=1; i<n; i++) {
+            final int t = index[i];
+            int j = i-1;
+            while(j >= 0 && (descending ? value[index[j]] < value[t] : value[index[j]] > value[t])) {
+                index[j+1] = index[j];
+                j--;
+            }
+            index[j+1] = t;
+        }
+        return index;
+    }
+
+// ARNOLDI
+
+    /**
+     * Finds the eigenvalues of largest modulus of a general operator.
+     * A complex conjugate pair is stored with the positive imaginary part first.
+     * @param n the dimension of the operator
+     * @param ncv the size of the Krylov subspace, k+2 &le; ncv &le; n
+     * @param v0 the starting vector, or null for a random one
+     * @param wr output real parts of the k eigenvalues, in order of decreasing modulus
+     * @param wi output imaginary parts of the k eigenvalues
+     * @param xr if not null, filled with the real parts of the k (unit) eigenvectors
+     * @param xi if xr is not null, filled with the imaginary parts of the k eigenvectors
+     */
+    static void arnoldi(final Operator A, final int n, final int ncv, final int maxRestarts, final double tol, final double v0[], final double wr[], final double wi[], final double xr[][], final double xi[][]) throws MaximumIterationsExceededException {
+        final int k = wr.length;
+        final int m = ncv;
+        final Random random = new Random(1L);
+        final double V[][] = new double[m+1][];
+        V[0] = startVector(n, v0, random);
+        final double H[][] = new double[m][m];
+        final double T[][] = new double[m][m];
+        final double Q[][] = new double[m][m];
+        final double h[] = new double[m];
+        final double ritzRe[] = new double[m];
+        final double ritzIm[] = new double[m];
+        final double yr[][] = new double[m][];
+        final double yi[][] = new double[m][];
+        int l = 0;
+        double beta = 0.0;
+        double anorm = 0.0;
+        int order[];
+        for(int restart=0;; restart++) {
+            for(int j=l; j<m; j++) {
+                if(V[j+1] == null)
+                    V[j+1] = new double[n];
+                final double w[] = V[j+1];
+                A.multiply(V[j], w);
+                final double wnorm = norm(w);
+                anorm = Math.max(anorm, wnorm);
+                beta = orthogonalize(V, j+1, w, h);
+                for(int i=0; i<=j; i++)
+                    H[i][j] = h[i];
+                beta = normalize(V, j+1, w, beta, wnorm, random);
+                if(j+1 < m)
+                    H[j+1][j] = beta;
+            }
+            // Ritz values
+            for(int i=0; i<m; i++)
+                System.arraycopy(H[i], 0, T[i], 0, m);
+            hqr(T, ritzRe, ritzIm);
+            order = sortByModulus(ritzRe, ritzIm);
+            final int kk = keepPairs(ritzIm, order, k, m);
+            int nconv = 0;
+            for(int i=0; i<kk; i++) {
+                final int p = order[i];
+                yr[i] = new double[m];
+                yi[i] = new double[m];
+                hessenbergEigenvector(H, ritzRe[p], ritzIm[p], anorm, yr[i], yi[i]);
+                if(i < k && beta*Math.hypot(yr[i][m-1], yi[i][m-1]) <= tol*anorm)
+                    nconv++;
+            }
+            if(nconv >= k)
+                break;
+            if(restart == maxRestarts)
+                throw new MaximumIterationsExceededException("No convergence after "+maxRestarts+" restarts.", new double[][] {ritzRe, ritzIm});
+            // implicit restart, using the unwanted Ritz values as shifts
+            int kp = keepPairs(ritzIm, order, kk + Math.min(nconv, (m-kk)/2), m);
+            if(kp >= m)
+                kp = kk;
+            for(int i=0; i<m; i++) {
+                for(int j=0; j<m; j++)
+                    Q[i][j] = 0.0;
+                Q[i][i] = 1.0;
+            }
+            for(int s=kp; s<m; s++) {
+                final int p = order[s];
+                for(int i=0; i<m-1; i++) {
+                    if(Math.abs(H[i+1][i]) <= EPS*(Math.abs(H[i][i])+Math.abs(H[i+1][i+1])))
+                        H[i+1][i] = 0.0;
+                }
+                if(ritzIm[p] == 0.0) {
+                    applyShift(H, Q, ritzRe[p]);
+                } else if(ritzIm[p] > 0.0) {
+                    applyDoubleShift(H, Q, 2.0*ritzRe[p], ritzRe[p]*ritzRe[p]+ritzIm[p]*ritzIm[p]);
+                }
+                // the conjugate follows and has been applied with it
+            }
+            // V = V Q, keeping the first kp+1 columns
+            final double C[][] = new double[m][kp+1];
+            for(int j=0; j<m; j++)
+                System.arraycopy(Q[j], 0, C[j], 0, kp+1);
+            combine(V, m, C, kp+1, V);
+            // new residual f = V q(kp) H(kp,kp-1) + beta q(m-1,kp-1) v(m)
+            final double f[] = V[kp];
+            final double a = H[kp][kp-1];
+            final double b = beta*Q[m-1][kp-1];
+            final double vm[] = V[m];
+            for(int i=0; i<n; i++)
+                f[i] = a*f[i] + b*vm[i];
+            final double fnorm = norm(f);
+            beta = orthogonalize(V, kp, f, h);
+            for(int i=0; i<kp; i++)
+                H[i][kp-1] += h[i];
+            beta = normalize(V, kp, f, beta, fnorm, random);
+            for(int i=0; i<m; i++) {
+                for(int j=(i < kp) ? kp : 0; j<m; j++)
+                    H[i][j] = 0.0;
+            }
+            H[kp][kp-1] = beta;
+            l = kp;
+        }
+        for(int i=0; i<k; i++) {
+            wr[i] = ritzRe[order[i]];
+            wi[i] = ritzIm[order[i]];
+        }
+        if(xr != null) {
+            final double C[][] = new double[m][2*k];
+            for(int j=0; j<m; j++) {
+                for(int i=0; i<k; i++) {
+                    C[j][2*i] = yr[i][j];
+                    C[j][2*i+1] = yi[i][j];
+                }
+            }
+            final double X[][] = new double[2*k][];
+            for(int i=0; i<2*k; i++)
+                X[i] = new double[n];
+            combine(V, m, C, 2*k, X);
+            for(int i=0; i<k; i++) {
+                xr[i] = X[2*i];
+                xi[i] = X[2*i+1];
+                final double d = 1.0/Math.hypot(norm(xr[i]), norm(xi[i]));
+                scale(xr[i], d);
+                scale(xi[i], d);
+            }
+        }
+    }
+
+    /**
+     * Orders eigenvalues by decreasing modulus, a conjugate pair being adjacent with the positive imaginary part first.
+     */
+    private static int[] sortByModulus(final double re[], final double im[]) {
+        final int n = re.length;
+        final double mod[] = new double[n];
+        final int index[] = new int[n];
+        for(int i=0; i<n; i++) {
+            mod[i] = Math.hypot(re[i], im[i]);
+            index[i] = i;
+        }
+        for(int i=1; i<n; i++) {
+            final int t = index[i];
+            int j = i-1;
+            while(j >= 0 && precedes(t, index[j], mod, re, im)) {
+                index[j+1] = index[j];
+                j--;
+            }
+            index[j+1] = t;
+        }
+        return index;
+    }
+    private static boolean precedes(int a, int b, double mod[], double re[], double im[]) {
+        if(mod[a] != mod[b])
+            return mod[a] > mod[b];
+        if(re[a] != re[b])
+            return re[a] > re[b];
+        return im[a] > im[b];
+    }
+    /**
+     * Increases a number of wanted eigenvalues so as not to split a conjugate pair.
+     */
+    private static int keepPairs(final double im[], final int order[], int k, int m) {
+        if(k < m && im[order[k-1]] > 0.0)
+            k++;
+        return k;
+    }
+
+    /**
+     * EISPACK hqr routine (as in Numerical Recipes).
+     * Finds the eigenvalues of an upper Hessenberg array, which is overwritten.
+     */
+    private static void hqr(final double a[][], final double wr[], final double wi[]) throws MaximumIterationsExceededException {
+        final int n = wr.length;
+        double anorm = 0.0;
+        for(int i=0; i<n; i++) {
+            for(int j=Math.max(i-1, 0); j<n; j++)
+                anorm += Math.abs(a[i][j]);
+        }
+        int nn = n-1;
+        double t = 0.0;
+        double p = 0.0, q = 0.0, r = 0.0;
+        while(nn >= 0) {
+            int its = 0;
+            int l;
+            do {
+                for(l=nn; l>=1; l--) {
+                    double s = Math.abs(a[l-1][l-1])+Math.abs(a[l][l]);
+                    if(s == 0.0)
+                        s = anorm;
+                    if(Math.abs(a[l][l-1])+s == s) {
+                        a[l][l-1] = 0.0;
+                        break;
+                    }
+                }
+                double x = a[nn][nn];
+                if(l == nn) {
+                    wr[nn] = x+t;
+                    wi[nn] = 0.0;
+                    nn--;
+                } else {
+                    double y = a[nn-1][nn-1];
+                    double w = a[nn][nn-1]*a[nn-1][nn];
+                    if(l == nn-1) {
+                        p = 0.5*(y-x);
+                        q = p*p+w;
+                        double z = Math.sqrt(Math.abs(q));
+                        x += t;
+                        if(q >= 0.0) {
+                            z = p+(p >= 0.0 ? z : -z);
+                            wr[nn-1] = wr[nn] = x+z;
+                            if(z != 0.0)
+                                wr[nn] = x-w/z;
+                            wi[nn-1] = wi[nn] = 0.0;
+                        } else {
+                            wr[nn-1] = wr[nn] = x+p;
+                            wi[nn-1] = z;
+                            wi[nn] = -z;
+                        }
+                        nn -= 2;
+                    } else {
+                        if(its == HQR_MAX_ITERATIONS)
+                            throw new MaximumIterationsExceededException("No convergence after "+HQR_MAX_ITERATIONS+" iterations.", a);
+                        if(its == 10 || its == 20) {
+                            // exceptional shift
+                            t += x;
+                            for(int i=0; i<=nn; i++)
+                                a[i][i] -= x;
+                            final double s = Math.abs(a[nn][nn-1])+Math.abs(a[nn-1][nn-2]);
+                            y = x = 0.75*s;
+                            w = -0.4375*s*s;
+                        }
+                        its++;
+                        int mm;
+                        double z = 0.0;
+                        for(mm=nn-2; mm>=l; mm--) {
+                            z = a[mm][mm];
+                            r = x-z;
+                            double s = y-z;
+                            p = (r*s-w)/a[mm+1][mm]+a[mm][mm+1];
+                            q = a[mm+1][mm+1]-z-r-s;
+                            r = a[mm+2][mm+1];
+                            s = Math.abs(p)+Math.abs(q)+Math.abs(r);
+                            p /= s;
+                            q /= s;
+                            r /= s;
+                            if(mm == l)
+                                break;
+                            final double u = Math.abs(a[mm][mm-1])*(Math.abs(q)+Math.abs(r));
+                            final double v = Math.abs(p)*(Math.abs(a[mm-1][mm-1])+Math.abs(z)+Math.abs(a[mm+1][mm+1]));
+                            if(u+v == v)
+                                break;
+                        }
+                        for(int i=mm+2; i<=nn; i++) {
+                            a[i][i-2] = 0.0;
+                            if(i != mm+2)
+                                a[i][i-3] = 0.0;
+                        }
+                        for(int kk=mm; kk<=nn-1; kk++) {
+                            if(kk != mm) {
+                                p = a[kk][kk-1];
+                                q = a[kk+1][kk-1];
+                                r = 0.0;
+                                if(kk != nn-1)
+                                    r = a[kk+2][kk-1];
+                                if((x = Math.abs(p)+Math.abs(q)+Math.abs(r)) != 0.0) {
+                                    p /= x;
+                                    q /= x;
+                                    r /= x;
+                                }
+                            }
+                            double s = Math.sqrt(p*p+q*q+r*r);
+                            if(p < 0.0)
+                                s = -s;
+                            if(s != 0.0) {
+                                if(kk == mm) {
+                                    if(l != mm)
+                                        a[kk][kk-1] = -a[kk][kk-1];
+                                } else {
+                                    a[kk][kk-1] = -s*x;
+                                }
+                                p += s;
+                                x = p/s;
+                                y = q/s;
+                                z = r/s;
+                                q /= p;
+                                r /= p;
+                                for(int j=kk; j<=nn; j++) {
+                                    p = a[kk][j]+q*a[kk+1][j];
+                                    if(kk != nn-1) {
+                                        p += r*a[kk+2][j];
+                                        a[kk+2][j] -= p*z;
+                                    }
+                                    a[kk+1][j] -= p*y;
+                                    a[kk][j] -= p*x;
+                                }
+                                final int mmin = Math.min(nn, kk+3);
+                                for(int i=l; i<=mmin; i++) {
+                                    p = x*a[i][kk]+y*a[i][kk+1];
+                                    if(kk != nn-1) {
+                                        p += z*a[i][kk+2];
+                                        a[i][kk+2] -= p*r;
+                                    }
+                                    a[i][kk+1] -= p*q;
+                                    a[i][kk] -= p;
+                                }
+                            }
+                        }
+                    }
+                }
+            } while(l < nn-1);
+        }
+    }
+
+    /**
+     * Finds the (unit) eigenvector of an upper Hessenberg array for a complex eigenvalue, by inverse iteration.
+     * Partial pivoting of a Hessenberg array only ever swaps adjacent rows.
+     */
+    private static void hessenbergEigenvector(final double H[][], final double lr, final double li, final double anorm, final double yr[], final double yi[]) {
+        final int m = yr.length;
+        final double small = EPS*Math.max(anorm, Double.MIN_NORMAL);
+        final double br[][] = new double[m][m];
+        final double bi[][] = new double[m][m];
+        for(int i=0; i<m; i++) {
+            for(int j=Math.max(i-1, 0); j<m; j++)
+                br[i][j] = H[i][j];
+            br[i][i] -= lr;
+            bi[i][i] = -li;
+        }
+        final boolean swap[] = new boolean[m];
+        final double lRe[] = new double[m];
+        final double lIm[] = new double[m];
+        for(int j=0; j<m-1; j++) {
+            if(Math.hypot(br[j+1][j], bi[j+1][j]) > Math.hypot(br[j][j], bi[j][j])) {
+                double tmp[] = br[j];
+                br[j] = br[j+1];
+                br[j+1] = tmp;
+                tmp = bi[j];
+                bi[j] = bi[j+1];
+                bi[j+1] = tmp;
+                swap[j] = true;
+            }
+            if(br[j][j] == 0.0 && bi[j][j] == 0.0)
+                br[j][j] = small;
+            final double denom = br[j][j]*br[j][j]+bi[j][j]*bi[j][j];
+            final double xr = (br[j+1][j]*br[j][j]+bi[j+1][j]*bi[j][j])/denom;
+            final double xi = (bi[j+1][j]*br[j][j]-br[j+1][j]*bi[j][j])/denom;
+            lRe[j] = xr;
+            lIm[j] = xi;
+            br[j+1][j] = 0.0;
+            bi[j+1][j] = 0.0;
+            for(int c=j+1; c<m; c++) {
+                br[j+1][c] -= xr*br[j][c]-xi*bi[j][c];
+                bi[j+1][c] -= xi*br[j][c]+xr*bi[j][c];
+            }
+        }
+        if(br[m-1][m-1] == 0.0 && bi[m-1][m-1] == 0.0)
+            br[m-1][m-1] = small;
+        for(int i=0; i<m; i++) {
+            yr[i] = 1.0;
+            yi[i] = 0.0;
+        }
+        for(int it=0; it<INVERSE_ITERATIONS; it++) {
+            // forward elimination
+            for(int j=0; j<m-1; j++) {
+                if(swap[j]) {
+                    double tmp = yr[j];
+                    yr[j] = yr[j+1];
+                    yr[j+1] = tmp;
+                    tmp = yi[j];
+                    yi[j] = yi[j+1];
+                    yi[j+1] = tmp;
+                }
+                yr[j+1] -= lRe[j]*yr[j]-lIm[j]*yi[j];
+                yi[j+1] -= lIm[j]*yr[j]+lRe[j]*yi[j];
+            }
+            // back substitution
+            for(int i=m-1; i>=0; i--) {
+                double sr = yr[i];
+                double si = yi[i];
+                for(int c=i+1; c<m; c++) {
+                    sr -= br[i][c]*yr[c]-bi[i][c]*yi[c];
+                    si -= bi[i][c]*yr[c]+br[i][c]*yi[c];
+                }
+                final double denom = br[i][i]*br[i][i]+bi[i][i]*bi[i][i];
+                yr[i] = (sr*br[i][i]+si*bi[i][i])/denom;
+                yi[i] = (si*br[i][i]-sr*bi[i][i])/denom;
+            }
+            double norm = 0.0;
+            for(int i=0; i<m; i++)
+                norm += yr[i]*yr[i]+yi[i]*yi[i];
+            norm = 1.0/Math.sqrt(norm);
+            for(int i=0; i<m; i++) {
+                yr[i] *= norm;
+                yi[i] *= norm;
+            }
+        }
+    }
+
+    /**
+     * Applies an implicit QR step with real shift mu to the Hessenberg array H,
+     * accumulating the rotations into Q.
+     */
+    private static void applyShift(final double H[][], final double Q[][], final double mu) {
+        final int m = H.length;
+        for(int i=0; i<m-1; i++) {
+            final double x = (i == 0) ? H[0][0]-mu : H[i][i-1];
+            final double y = (i == 0) ? H[1][0] : H[i+1][i-1];
+            final double r = Math.hypot(x, y);
+            if(r == 0.0)
+                continue;
+            final double c = x/r;
+            final double s = y/r;
+            for(int j=Math.max(i-1, 0); j<m; j++) {
+                final double a = H[i][j];
+                final double b = H[i+1][j];
+                H[i][j] = c*a+s*b;
+                H[i+1][j] = -s*a+c*b;
+            }
+            if(i > 0)
+                H[i+1][i-1] = 0.0;
+            final int rowEnd = Math.min(i+3, m);
+            for(int row=0; row<rowEnd; row++) {
+                final double a = H[row][i];
+                final double b = H[row][i+1];
+                H[row][i] = c*a+s*b;
+                H[row][i+1] = -s*a+c*b;
+            }
+            for(int row=0; row<m; row++) {
+                final double a = Q[row][i];
+                final double b = Q[row][i+1];
+                Q[row][i] = c*a+s*b;
+                Q[row][i+1] = -s*a+c*b;
+            }
+        }
+    }
+    /**
+     * Applies an implicit double-shift QR step to the Hessenberg array H,
+     * for a complex conjugate pair of shifts with sum s and product t,
+     * accumulating the reflections into Q.
+     */
+    private static void applyDoubleShift(final double H[][], final double Q[][], final double s, final double t) {
+        final int m = H.length;
+        final double v[] = new double[3];
+        for(int k=0; k<m-1; k++) {
+            final int nr = (k+2 < m) ? 3 : 2;
+            if(k == 0) {
+                v[0] = H[0][0]*H[0][0]+H[0][1]*H[1][0]-s*H[0][0]+t;
+                v[1] = H[1][0]*(H[0][0]+H[1][1]-s);
+                v[2] = (nr == 3) ? H[1][0]*H[2][1] : 0.0;
+            } else {
+                v[0] = H[k][k-1];
+                v[1] = H[k+1][k-1];
+                v[2] = (nr == 3) ? H[k+2][k-1] : 0.0;
+            }
+            double alpha = Math.sqrt(v[0]*v[0]+v[1]*v[1]+v[2]*v[2]);
+            if(alpha == 0.0)
+                continue;
+            if(v[0] > 0.0)
+                alpha = -alpha;
+            v[0] -= alpha;
+            final double vtv = v[0]*v[0]+v[1]*v[1]+v[2]*v[2];
+            if(vtv == 0.0)
+                continue;
+            final double f = 2.0/vtv;
+            for(int j=Math.max(k-1, 0); j<m; j++) {
+                double d = v[0]*H[k][j]+v[1]*H[k+1][j];
+                if(nr == 3)
+                    d += v[2]*H[k+2][j];
+                d *= f;
+                H[k][j] -= d*v[0];
+                H[k+1][j] -= d*v[1];
+                if(nr == 3)
+                    H[k+2][j] -= d*v[2];
+            }
+            if(k > 0) {
+                H[k][k-1] = alpha;
+                H[k+1][k-1] = 0.0;
+                if(nr == 3)
+                    H[k+2][k-1] = 0.0;
+            }
+            final int rowEnd = Math.min(k+4, m);
+            for(int row=0; row<rowEnd; row++)
+                reflect(H[row], k, nr, v, f);
+            for(int row=0; row<m; row++)
+                reflect(Q[row], k, nr, v, f);
+        }
+    }
+    private static void reflect(final double a[], final int k, final int nr, final double v[], final double f) {
+        double d = a[k]*v[0]+a[k+1]*v[1];
+        if(nr == 3)
+            d += a[k+2]*v[2];
+        d *= f;
+        a[k] -= d*v[0];
+        a[k+1] -= d*v[1];
+        if(nr == 3)
+            a[k+2] -= d*v[2];
+    }
+
+// BASIS OPERATIONS
+
+    private static double[] startVector(final int n, final double v0[], final Random random) {
+        final double v[] = new double[n];
+        if(v0 != null) {
+            System.arraycopy(v0, 0, v, 0, n);
+        } else {
+            for(int i=0; i<n; i++)
+                v[i] = random.nextDouble()-0.5;
+        }
+        final double norm = norm(v);
+        if(norm == 0.0)
+            throw new IllegalArgumentException("Starting vector is zero.");
+        scale(v, 1.0/norm);
+        return v;
+    }
+    /**
+     * Normalizes the new basis vector w, of norm beta after orthogonalization.
+     * If it is negligible compared to its norm before, the Krylov subspace is invariant,
+     * and w is replaced by a random vector orthogonal to the basis.
+     * @return the norm to use for the coupling to w
+     */
+    private static double normalize(final double V[][], final int count, final double w[], final double beta, final double wnorm, final Random random) {
+        final int n = w.length;
+        if(beta > BREAKDOWN*wnorm && beta > 0.0) {
+            scale(w, 1.0/beta);
+            return beta;
+        }
+        final double h[] = new double[count];
+        if(count < n) {
+            for(int i=0; i<n; i++)
+                w[i] = random.nextDouble()-0.5;
+            final double norm = orthogonalize(V, count, w, h);
+            if(norm > 0.0) {
+                scale(w, 1.0/norm);
+                return 0.0;
+            }
+        }
+        for(int i=0; i<n; i++)
+            w[i] = 0.0;
+        return 0.0;
+    }
+    /**
+     * Orthogonalizes w against the first count basis vectors,
+     * by classical Gram-Schmidt with one reorthogonalization.
+     * @param h output projection coefficients
+     * @return the norm of w
+     */
+    private static double orthogonalize(final double V[][], final int count, final double w[], final double h[]) {
+        final double c[] = new double[count];
+        for(int i=0; i<count; i++)
+            h[i] = 0.0;
+        for(int pass=0; pass<2; pass++) {
+            dot(V, count, w, c);
+            subtract(V, count, c, w);
+            for(int i=0; i<count; i++)
+                h[i] += c[i];
+        }
+        return norm(w);
+    }
+    /**
+     * c[j] = V[j].w, for j &lt; count.
+     * Each chunk sums into its own slot, so the result does not depend on the number of threads.
+     */
+    private static void dot(final double V[][], final int count, final double w[], final double c[]) {
+        final int n = w.length;
+        final int chunks = (n+CHUNK-1)/CHUNK;
+        final double partial[][] = new double[chunks][count];
+        forChunks(new ChunkOperation() {
+            void apply(int start, int end) {
+                for(int b=start; b<end; b++) {
+                    final int i0 = b*CHUNK;
+                    final int i1 = Math.min(i0+CHUNK, n);
+                    final double p[] = partial[b];
+                    for(int j=0; j<count; j++) {
+                        final double v[] = V[j];
+                        double sum = 0.0;
+                        for(int i=i0; i<i1; i++)
+                            sum += v[i]*w[i];
+                        p[j] = sum;
+                    }
+                }
+            }
+        }, chunks, (long)count*n);
+        for(int j=0; j<count; j++) {
+            double sum = 0.0;
+            for(int b=0; b<chunks; b++)
+                sum += partial[b][j];
+            c[j] = sum;
+        }
+    }
+    /**
+     * w -= sum c[j] V[j], for j &lt; count.
+     */
+    private static void subtract(final double V[][], final int count, final double c[], final double w[]) {
+        final int n = w.length;
+        forChunks(new ChunkOperation() {
+            void apply(int start, int end) {
+                final int i0 = start*CHUNK;
+                final int i1 = Math.min(end*CHUNK, n);
+                for(int j=0; j<count; j++) {
+                    final double v[] = V[j];
+                    final double cj = c[j];
+                    if(cj != 0.0) {
+                        for(int i=i0; i<i1; i++)
+                            w[i] -= cj*v[i];
+                    }
+                }
+            }
+        }, (n+CHUNK-1)/CHUNK, (long)count*n);
+    }
+    /**
+     * X[i] = sum C[j][i] V[j], for i &lt; cols and j &lt; m.
+     * X may share arrays with V, since each chunk is combined into a temporary first.
+     */
+    private static void combine(final double V[][], final int m, final double C[][], final int cols, final double X[][]) {
+        final int n = V[0].length;
+        forChunks(new ChunkOperation() {
+            void apply(int start, int end) {
+                final double tmp[][] = new double[cols][CHUNK];
+                for(int b=start; b<end; b++) {
+                    final int i0 = b*CHUNK;
+                    final int len = Math.min(CHUNK, n-i0);
+                    for(int c=0; c<cols; c++) {
+                        final double t[] = tmp[c];
+                        for(int i=0; i<len; i++)
+                            t[i] = 0.0;
+                    }
+                    for(int j=0; j<m; j++) {
+                        final double v[] = V[j];
+                        final double Cj[] = C[j];
+                        for(int c=0; c<cols; c++) {
+                            final double cjc = Cj[c];
+                            if(cjc != 0.0) {
+                                final double t[] = tmp[c];
+                                for(int i=0; i<len; i++)
+                                    t[i] += cjc*v[i0+i];
+                            }
+                        }
+                    }
+                    for(int c=0; c<cols; c++)
+                        System.arraycopy(tmp[c], 0, X[c], i0, len);
+                }
+            }
+        }, (n+CHUNK-1)/CHUNK, (long)m*cols*n);
+    }
+    private static double norm(final double v[]) {
+        double sum = 0.0;
+        for(int i=0; i<v.length; i++)
+            sum += v[i]*v[i];
+        return Math.sqrt(sum);
+    }
+    private static void scale(final double v[], final double s) {
+        for(int i=0; i<v.length; i++)
+            v[i] *= s;
+    }
+
+    /**
+     * An operation on a range of chunks that is independent of other ranges.
+     */
+    private static abstract class ChunkOperation {
+        abstract void apply(int start, int end);
+    }
+
+    private static void forChunks(ChunkOperation op, int chunks, long work) {
+        if(work < PARALLEL_THRESHOLD || chunks <= 1)
+            op.apply(0, chunks);
+        else
+            ForkJoinPool.commonPool().invoke(new ChunkTask(op, 0, chunks));
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private final ChunkOperation op;
+        private final int start, end;
+
+        ChunkTask(ChunkOperation op, int start, int end) {
+            this.op = op;
+            this.start = start;
+            this.end = end;
+        }
+        protected void compute() {
+            if(end-start <= 1) {
+                op.apply(start, end);
+            } else {
+                final int mid = (start+end) >>> 1;
+                invokeAll(new ChunkTask(op, start, mid),
+                        new ChunkTask(op, mid, end));
+            }
+        }
+    }
+}
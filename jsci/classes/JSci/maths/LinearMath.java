@@ -1,5 +1,6 @@
 package JSci.maths;
 
+import java.util.Arrays;
 import JSci.maths.matrices.*;
 import JSci.maths.vectors.*;
 import JSci.maths.polynomials.RealPolynomial;
@@ -94,51 +95,51 @@ public final class LinearMath extends AbstractMath {
                 }
                 return array;
         }
-		/**
-		 * Solves the linear system Ax=b using the conjugate gradient method.
-		 * @param x initial guess.
-		 */
-        public static AbstractDoubleVector solveCG(final AbstractDoubleMatrix A,final AbstractDoubleVector b,AbstractDoubleVector x,int recomputeResidualInterval,int max_iter,double tol) throws MaximumIterationsExceededException {
-			if(max_iter<=0)
-					throw new IllegalArgumentException("Number of allowed iterations must be a positive integer: "+max_iter+" <= 0.");
-			if(tol<0)
-					throw new IllegalArgumentException("Tolerance must be positive or zero: "+tol+" < 0.");
-			double tolSqr = tol*tol;
-			AbstractDoubleVector r = b.subtract(A.multiply(x));
-			AbstractDoubleVector d = r;
-			double deltaNew = r.scalarProduct(r);
-			double delta0 = deltaNew;
-			int i;
-			for(i=0; i<max_iter && deltaNew/delta0>tolSqr; i++)
-			{
-				AbstractDoubleVector q = A.multiply(d);
-				double alpha = deltaNew/d.scalarProduct(q);
-				x = x.add(d.scalarMultiply(alpha));
-				boolean computeExactResidual = ((i+1) % recomputeResidualInterval) == 0;
-				if(computeExactResidual)
-				{
-					r = b.subtract(A.multiply(x));
-				}
-				else
-				{
-					r = r.subtract(q.scalarMultiply(alpha));
-				}
-				double deltaOld = deltaNew;
-				deltaNew = r.scalarProduct(r);
-				if(!computeExactResidual && deltaNew/delta0 <= tolSqr)
-				{
-					r = b.subtract(A.multiply(x));
-					deltaNew = r.scalarProduct(r);
-				}
-				double beta = deltaNew/deltaOld;
-				d = r.add(d.scalarMultiply(beta));
-			}
-			if(i == max_iter)
-			{
-				throw new MaximumIterationsExceededException("No convergence after "+max_iter+" iterations", x);
-			}
-			return x;
-		}
+        /**
+        * Solves the linear system Ax=b using the conjugate gradient method.
+        * The iterations are performed in place, without allocating any vectors.
+        * @param x initial guess.
+        * @param recomputeResidualInterval number of iterations after which the residual is recomputed exactly.
+        */
+        public static AbstractDoubleVector solveCG(final AbstractDoubleMatrix A,final AbstractDoubleVector b,final AbstractDoubleVector x,int recomputeResidualInterval,int max_iter,double tol) throws MaximumIterationsExceededException {
+                checkIterativeArgs(max_iter,tol);
+                final double tolSqr=tol*tol;
+                final int n=b.dimension();
+                final double ba[]=toArray(b);
+                final double xa[]=toArray(x);
+                final double ra[]=new double[n];
+                final double da[]=new double[n];
+                final double qa[]=new double[n];
+                final DoubleVector xv=new DoubleVector(xa);
+                final DoubleVector r=new DoubleVector(ra);
+                final DoubleVector d=new DoubleVector(da);
+                final DoubleVector q=new DoubleVector(qa);
+                residual(A,ba,xa,ra);
+                d.set(r);
+                double deltaNew=r.scalarProduct(r);
+                final double delta0=deltaNew;
+                int i;
+                for(i=0;i<max_iter && deltaNew/delta0>tolSqr;i++) {
+                        multiply(A,da,qa);
+                        final double alpha=deltaNew/d.scalarProduct(q);
+                        xv.axpy(alpha,d);
+                        final boolean computeExactResidual=((i+1) % recomputeResidualInterval)==0;
+                        if(computeExactResidual)
+                                residual(A,ba,xa,ra);
+                        else
+                                r.axpy(-alpha,q);
+                        final double deltaOld=deltaNew;
+                        deltaNew=r.scalarProduct(r);
+                        if(!computeExactResidual && deltaNew/delta0<=tolSqr) {
+                                residual(A,ba,xa,ra);
+                                deltaNew=r.scalarProduct(r);
+                        }
+                        d.axpby(1.0,r,deltaNew/deltaOld);
+                }
+                if(i==max_iter)
+                        throw new MaximumIterationsExceededException("No convergence after "+max_iter+" iterations",xv);
+                return xv;
+        }
         /**
         * Solves the unsymmetric linear system Ax=b using the
         * Generalized Minimum Residual method (doesn't require A
@@ -226,6 +227,275 @@ public final class LinearMath extends AbstractMath {
    		tol = resid;
    		throw new MaximumIterationsExceededException("(tol) "+tol+". It doesn't converge in "+max_iter+"iterations. Try raising the number of allowed iterations or raising the tolerance.", x);
 	}
+        /**
+        * Solves the symmetric positive definite linear system Ax=b
+        * using the preconditioned conjugate gradient method.
+        * Work arrays are allocated once, so no vectors are created per iteration.
+        * @param x initial guess.
+        * @param M a preconditioner (null for none).
+        * @param max_iter maximum number of iterations.
+        * @param tol tolerance on the relative residual |b-Ax|/|b|.
+        * @exception MaximumIterationsExceededException If it cannot
+        * converge according to the given parameters.
+        */
+        public static AbstractDoubleVector solvePCG(final AbstractDoubleMatrix A,final AbstractDoubleVector b,final AbstractDoubleVector x,final Preconditioner M,int max_iter,double tol) throws MaximumIterationsExceededException {
+                checkIterativeArgs(max_iter,tol);
+                final int n=b.dimension();
+                final double xa[]=toArray(x);
+                final double ba[]=toArray(b);
+                final double r[]=new double[n];
+                final double z[]=new double[n];
+                final double p[]=new double[n];
+                final double q[]=new double[n];
+                final double normb=normOrOne(ba);
+                residual(A,ba,xa,r);
+                double rnorm=norm(r);
+                precondition(M,r,z);
+                System.arraycopy(z,0,p,0,n);
+                double rz=dot(r,z);
+                for(int i=0;i<max_iter;i++) {
+                        if(rnorm/normb<=tol)
+                                return new DoubleVector(xa);
+                        multiply(A,p,q);
+                        final double alpha=rz/dot(p,q);
+                        for(int k=0;k<n;k++) {
+                                xa[k]+=alpha*p[k];
+                                r[k]-=alpha*q[k];
+                        }
+                        rnorm=norm(r);
+                        if(rnorm/normb<=tol)
+                                return new DoubleVector(xa);
+                        precondition(M,r,z);
+                        final double rzNew=dot(r,z);
+                        final double beta=rzNew/rz;
+                        rz=rzNew;
+                        for(int k=0;k<n;k++)
+                                p[k]=z[k]+beta*p[k];
+                }
+                if(rnorm/normb<=tol)
+                        return new DoubleVector(xa);
+                throw new MaximumIterationsExceededException("No convergence after "+max_iter+" iterations", new DoubleVector(xa));
+        }
+        /**
+        * Solves the unsymmetric linear system Ax=b
+        * using the right-preconditioned biconjugate gradient stabilized method (BiCGSTAB).
+        * Work arrays are allocated once, so no vectors are created per iteration.
+        * @param x initial guess.
+        * @param M a preconditioner (null for none).
+        * @param max_iter maximum number of iterations.
+        * @param tol tolerance on the relative residual |b-Ax|/|b|.
+        * @exception MaximumIterationsExceededException If it cannot
+        * converge according to the given parameters, or the method breaks down.
+        */
+        public static AbstractDoubleVector solveBiCGSTAB(final AbstractDoubleMatrix A,final AbstractDoubleVector b,final AbstractDoubleVector x,final Preconditioner M,int max_iter,double tol) throws MaximumIterationsExceededException {
+                checkIterativeArgs(max_iter,tol);
+                final int n=b.dimension();
+                final double xa[]=toArray(x);
+                final double ba[]=toArray(b);
+                final double r[]=new double[n];
+                final double rhat[]=new double[n];
+                final double p[]=new double[n];
+                final double v[]=new double[n];
+                final double phat[]=new double[n];
+                final double shat[]=new double[n];
+                final double t[]=new double[n];
+                final double normb=normOrOne(ba);
+                residual(A,ba,xa,r);
+                System.arraycopy(r,0,rhat,0,n);
+                double rnorm=norm(r);
+                double rho=1.0, alpha=1.0, omega=1.0;
+                for(int i=0;i<max_iter;i++) {
+                        if(rnorm/normb<=tol)
+                                return new DoubleVector(xa);
+                        final double rhoNew=dot(rhat,r);
+                        if(rhoNew==0.0 || omega==0.0)
+                                throw new MaximumIterationsExceededException("Breakdown after "+i+" iterations", new DoubleVector(xa));
+                        final double beta=(rhoNew/rho)*(alpha/omega);
+                        rho=rhoNew;
+                        for(int k=0;k<n;k++)
+                                p[k]=r[k]+beta*(p[k]-omega*v[k]);
+                        precondition(M,p,phat);
+                        multiply(A,phat,v);
+                        alpha=rho/dot(rhat,v);
+                        // s is stored in r
+                        for(int k=0;k<n;k++)
+                                r[k]-=alpha*v[k];
+                        if(norm(r)/normb<=tol) {
+                                for(int k=0;k<n;k++)
+                                        xa[k]+=alpha*phat[k];
+                                return new DoubleVector(xa);
+                        }
+                        precondition(M,r,shat);
+                        multiply(A,shat,t);
+                        final double tt=dot(t,t);
+                        omega=(tt==0.0) ? 0.0 : dot(t,r)/tt;
+                        for(int k=0;k<n;k++) {
+                                xa[k]+=alpha*phat[k]+omega*shat[k];
+                                r[k]-=omega*t[k];
+                        }
+                        rnorm=norm(r);
+                }
+                if(rnorm/normb<=tol)
+                        return new DoubleVector(xa);
+                throw new MaximumIterationsExceededException("No convergence after "+max_iter+" iterations", new DoubleVector(xa));
+        }
+        /**
+        * Solves the unsymmetric linear system Ax=b using the
+        * right-preconditioned restarted Generalized Minimum Residual method, GMRES(m).
+        * The Krylov basis and other work arrays are allocated once.
+        * @param x initial guess.
+        * @param M a preconditioner (null for none).
+        * @param restart the number of iterations between restarts (m).
+        * @param max_iter maximum number of iterations.
+        * @param tol tolerance on the relative residual |b-Ax|/|b|.
+        * @exception MaximumIterationsExceededException If it cannot
+        * converge according to the given parameters.
+        */
+        public static AbstractDoubleVector solveGMRes(final AbstractDoubleMatrix A,final AbstractDoubleVector b,final AbstractDoubleVector x,final Preconditioner M,int restart,int max_iter,double tol) throws MaximumIterationsExceededException {
+                checkIterativeArgs(max_iter,tol);
+                if(restart<=0)
+                        throw new IllegalArgumentException("Restart must be a positive integer: "+restart+" <= 0.");
+                final int n=b.dimension();
+                final int m=Math.min(restart,n);
+                final double xa[]=toArray(x);
+                final double ba[]=toArray(b);
+                final double V[][]=new double[m+1][n];
+                final double H[][]=new double[m+1][m];
+                final double cs[]=new double[m];
+                final double sn[]=new double[m];
+                final double s[]=new double[m+1];
+                final double w[]=new double[n];
+                final double z[]=new double[n];
+                final double normb=normOrOne(ba);
+                residual(A,ba,xa,V[0]);
+                double beta=norm(V[0]);
+                int iter=0;
+                while(beta/normb>tol) {
+                        if(iter>=max_iter)
+                                throw new MaximumIterationsExceededException("(tol) "+beta/normb+". It doesn't converge in "+max_iter+" iterations.", new DoubleVector(xa));
+                        for(int k=0;k<n;k++)
+                                V[0][k]/=beta;
+                        for(int k=1;k<=m;k++)
+                                s[k]=0.0;
+                        s[0]=beta;
+                        int j=0;
+                        double resid=beta/normb;
+                        while(j<m && iter<max_iter && resid>tol) {
+                                precondition(M,V[j],z);
+                                multiply(A,z,w);
+                                // modified Gram-Schmidt
+                                for(int k=0;k<=j;k++) {
+                                        final double h=dot(w,V[k]);
+                                        H[k][j]=h;
+                                        final double Vk[]=V[k];
+                                        for(int l=0;l<n;l++)
+                                                w[l]-=h*Vk[l];
+                                }
+                                final double h=norm(w);
+                                H[j+1][j]=h;
+                                if(h!=0.0) {
+                                        for(int l=0;l<n;l++)
+                                                V[j+1][l]=w[l]/h;
+                                }
+                                // apply previous plane rotations
+                                for(int k=0;k<j;k++) {
+                                        final double tmp=cs[k]*H[k][j]+sn[k]*H[k+1][j];
+                                        H[k+1][j]=-sn[k]*H[k][j]+cs[k]*H[k+1][j];
+                                        H[k][j]=tmp;
+                                }
+                                // generate and apply a new rotation
+                                final double hjj=H[j][j];
+                                final double denom=Math.sqrt(hjj*hjj+h*h);
+                                if(denom==0.0) {
+                                        cs[j]=1.0;
+                                        sn[j]=0.0;
+                                } else {
+                                        cs[j]=hjj/denom;
+                                        sn[j]=h/denom;
+                                }
+                                H[j][j]=cs[j]*hjj+sn[j]*h;
+                                H[j+1][j]=0.0;
+                                s[j+1]=-sn[j]*s[j];
+                                s[j]=cs[j]*s[j];
+                                resid=Math.abs(s[j+1])/normb;
+                                j++;
+                                iter++;
+                        }
+                        // x += M^-1 V y, where H y = s
+                        for(int i=j-1;i>=0;i--) {
+                                s[i]/=H[i][i];
+                                for(int k=i-1;k>=0;k--)
+                                        s[k]-=H[k][i]*s[i];
+                        }
+                        for(int l=0;l<n;l++)
+                                w[l]=0.0;
+                        for(int k=0;k<j;k++) {
+                                final double Vk[]=V[k];
+                                final double yk=s[k];
+                                for(int l=0;l<n;l++)
+                                        w[l]+=yk*Vk[l];
+                        }
+                        precondition(M,w,z);
+                        for(int l=0;l<n;l++)
+                                xa[l]+=z[l];
+                        residual(A,ba,xa,V[0]);
+                        beta=norm(V[0]);
+                }
+                return new DoubleVector(xa);
+        }
+        private static void checkIterativeArgs(int max_iter,double tol) {
+                if(max_iter<=0)
+                        throw new IllegalArgumentException("Number of allowed iterations must be a positive integer: "+max_iter+" <= 0.");
+                if(tol<0)
+                        throw new IllegalArgumentException("Tolerance must be positive or zero: "+tol+" < 0.");
+        }
+        /**
+        * Computes y=Ax, without allocating a result vector if A is sparse.
+        */
+        private static void multiply(final AbstractDoubleMatrix A,final double x[],final double y[]) {
+                if(A instanceof DoubleSparseSquareMatrix) {
+                        ((DoubleSparseSquareMatrix)A).multiply(x,y);
+                } else if(A instanceof DoubleSparseMatrix) {
+                        ((DoubleSparseMatrix)A).multiply(x,y);
+                } else {
+                        final AbstractDoubleVector Ax=A.multiply(new DoubleVector(x));
+                        for(int i=0;i<y.length;i++)
+                                y[i]=Ax.getComponent(i);
+                }
+        }
+        /**
+        * Computes r=b-Ax.
+        */
+        private static void residual(final AbstractDoubleMatrix A,final double b[],final double x[],final double r[]) {
+                multiply(A,x,r);
+                for(int i=0;i<r.length;i++)
+                        r[i]=b[i]-r[i];
+        }
+        private static void precondition(final Preconditioner M,final double r[],final double z[]) {
+                if(M!=null)
+                        M.solve(r,z);
+                else
+                        System.arraycopy(r,0,z,0,r.length);
+        }
+        private static double[] toArray(final AbstractDoubleVector v) {
+                final double array[]=new double[v.dimension()];
+                for(int i=0;i<array.length;i++)
+                        array[i]=v.getComponent(i);
+                return array;
+        }
+        private static double dot(final double a[],final double b[]) {
+                double sum=0.0;
+                for(int i=0;i<a.length;i++)
+                        sum+=a[i]*b[i];
+                return sum;
+        }
+        private static double norm(final double a[]) {
+                return Math.sqrt(dot(a,a));
+        }
+        private static double normOrOne(final double a[]) {
+                final double norm=norm(a);
+                return (norm==0.0) ? 1.0 : norm;
+        }
 	private static double[] generatePlaneRotation(double dx, double dy) {
    		double [] cs = new double[2];
    		double temp;
@@ -458,6 +728,7 @@ public final class LinearMath extends AbstractMath {
         /**
         * This method finds the eigenvalues and eigenvectors of a symmetric tridiagonal matrix by the QL method.
         * It is based on the NETLIB algol/fortran procedure tql2 by Bowdler, Martin, Reinsch and Wilkinson.
+        * Large matrices are solved by divide-and-conquer instead, and their eigenvalues are returned in ascending order.
         * @param matrix a double symmetric tridiagonal matrix.
         * @param eigenvector an empty array of double vectors to hold the eigenvectors.
         * All eigenvectors will be orthogonal.
@@ -469,17 +740,22 @@ public final class LinearMath extends AbstractMath {
                 final int nm1=n-1;
                 final double eigenvalue[]=new double[n];
                 final double offdiag[]=new double[n];
-                final double id[][]=new double[n][n];
                 int i,j;
                 for(i=0;i<nm1;i++) {
-                        id[i][i]=1.0;
                         eigenvalue[i]=matrix.getElement(i,i);
                         offdiag[i]=matrix.getElement(i,i+1);
                 }
-                id[nm1][nm1]=1.0;
                 eigenvalue[nm1]=matrix.getElement(nm1,nm1);
                 offdiag[nm1]=0.0;
-                eigenSolveSymmetricTridiagonalMatrix(eigenvalue,offdiag,id);
+                final double id[][];
+                if(n>=SymmetricEigenKernel.THRESHOLD) {
+                        id=SymmetricEigenKernel.divideAndConquer(eigenvalue,offdiag);
+                } else {
+                        id=new double[n][n];
+                        for(i=0;i<n;i++)
+                                id[i][i]=1.0;
+                        eigenSolveSymmetricTridiagonalMatrix(eigenvalue,offdiag,id);
+                }
                 for(i=0;i<n;i++) {
                         DoubleVector evec = new DoubleVector(n);
                         for(j=0; j<n; j++)
@@ -492,6 +768,8 @@ public final class LinearMath extends AbstractMath {
         * This method finds the eigenvalues of a symmetric square matrix.
         * The matrix is reduced to tridiagonal form and then the QL method is applied.
         * It is based on the NETLIB algol/fortran procedure tred1/tql1 by Bowdler, Martin, Reinsch and Wilkinson.
+        * Large matrices are reduced by blocked Householder transformations instead,
+        * and their eigenvalues are returned in ascending order.
         * @param matrix a double symmetric square matrix.
         * @return an array containing the eigenvalues.
         * @exception MaximumIterationsExceededException If it takes too many iterations to determine an eigenvalue.
@@ -500,11 +778,12 @@ public final class LinearMath extends AbstractMath {
                 final int n=matrix.rows();
                 final double eigenvalue[]=new double[n];
                 final double offdiag[]=new double[n];
-                final double array[][]=new double[n][n];
-                int i,j;
-                for(i=0;i<n;i++) {
-                        for(j=0;j<n;j++)
-                                array[i][j]=matrix.getElement(i,j);
+                final double array[][]=toArray(matrix);
+                if(n>=SymmetricEigenKernel.THRESHOLD) {
+                        SymmetricEigenKernel.tridiagonalize(array,eigenvalue,offdiag,new double[n]);
+                        eigenvalueSolveSymmetricTridiagonalMatrix(eigenvalue,offdiag);
+                        Arrays.sort(eigenvalue);
+                        return eigenvalue;
                 }
                 reduceSymmetric1_SquareToTridiagonal(array,eigenvalue,offdiag);
                 System.arraycopy(offdiag,1,offdiag,0,n-1);
@@ -516,6 +795,8 @@ public final class LinearMath extends AbstractMath {
         * This method finds the eigenvalues and eigenvectors of a symmetric square matrix.
         * The matrix is reduced to tridiagonal form and then the QL method is applied.
         * It is based on the NETLIB algol/fortran procedure tred2/tql2 by Bowdler, Martin, Reinsch and Wilkinson.
+        * Large matrices are reduced by blocked Householder transformations and solved by divide-and-conquer instead,
+        * and their eigenvalues are returned in ascending order.
         * @param matrix a double symmetric square matrix.
         * @param eigenvector an empty array of double vectors to hold the eigenvectors.
         * All eigenvectors will be orthogonal.
@@ -526,32 +807,110 @@ public final class LinearMath extends AbstractMath {
                 final int n=matrix.rows();
                 final double eigenvalue[]=new double[n];
                 final double offdiag[]=new double[n];
-                final double transf[][]=new double[n][n];
-                int i,j;
-                for(i=0;i<n;i++) {
-                        for(j=0;j<n;j++)
-                                transf[i][j]=matrix.getElement(i,j);
-                }
-                reduceSymmetric2_SquareToTridiagonal(transf,eigenvalue,offdiag);
-                System.arraycopy(offdiag,1,offdiag,0,n-1);
-                offdiag[n-1]=0.0;
-                eigenSolveSymmetricTridiagonalMatrix(eigenvalue,offdiag,transf);
-                for(i=0;i<n;i++) {
-                        DoubleVector evec = new DoubleVector(n);
-                        for(j=0; j<n; j++)
-                                evec.setComponent(j, transf[j][i]);
-                        eigenvector[i] = evec;
+                double transf[][]=toArray(matrix);
+                if(n>=SymmetricEigenKernel.THRESHOLD) {
+                        final double tau[]=new double[n];
+                        SymmetricEigenKernel.tridiagonalize(transf,eigenvalue,offdiag,tau);
+                        final double z[][]=SymmetricEigenKernel.divideAndConquer(eigenvalue,offdiag);
+                        SymmetricEigenKernel.backTransform(transf,tau,z);
+                        transf=z;
+                } else {
+                        reduceSymmetric2_SquareToTridiagonal(transf,eigenvalue,offdiag);
+                        System.arraycopy(offdiag,1,offdiag,0,n-1);
+                        offdiag[n-1]=0.0;
+                        eigenSolveSymmetricTridiagonalMatrix(eigenvalue,offdiag,transf);
                 }
+                copyColumns(transf,eigenvector);
+                return eigenvalue;
+        }
+        /**
+        * This method finds the largest eigenvalues of a symmetric square matrix.
+        * The matrix is reduced to tridiagonal form by blocked Householder transformations
+        * and the eigenvalues are found by bisection.
+        * @param matrix a double symmetric square matrix.
+        * @param k the number of eigenvalues to find.
+        * @return an array containing the k largest eigenvalues, in descending order.
+        */
+        public static double[] eigenvalueSolveSymmetric(final AbstractDoubleSquareMatrix matrix,final int k) {
+                final int n=matrix.rows();
+                checkEigenCount(k,n);
+                final double diag[]=new double[n];
+                final double offdiag[]=new double[n];
+                SymmetricEigenKernel.tridiagonalize(toArray(matrix),diag,offdiag,new double[n]);
+                final double eigenvalue[]=new double[k];
+                SymmetricEigenKernel.largest(diag,offdiag,eigenvalue,null);
                 return eigenvalue;
         }
+        /**
+        * This method finds the largest eigenvalues and corresponding eigenvectors of a symmetric square matrix.
+        * The matrix is reduced to tridiagonal form by blocked Householder transformations,
+        * the eigenvalues are found by bisection and the eigenvectors by inverse iteration.
+        * This is much faster than finding all the eigenvectors when k is small.
+        * @param matrix a double symmetric square matrix.
+        * @param k the number of eigenvalues to find.
+        * @param eigenvector an empty array of (at least) k double vectors to hold the eigenvectors.
+        * All eigenvectors will be orthogonal.
+        * @return an array containing the k largest eigenvalues, in descending order.
+        */
+        public static double[] eigenSolveSymmetric(final AbstractDoubleSquareMatrix matrix,final int k,final AbstractDoubleVector eigenvector[]) {
+                final int n=matrix.rows();
+                checkEigenCount(k,n);
+                final double diag[]=new double[n];
+                final double offdiag[]=new double[n];
+                final double tau[]=new double[n];
+                final double array[][]=toArray(matrix);
+                SymmetricEigenKernel.tridiagonalize(array,diag,offdiag,tau);
+                final double eigenvalue[]=new double[k];
+                final double z[][]=new double[n][k];
+                SymmetricEigenKernel.largest(diag,offdiag,eigenvalue,z);
+                SymmetricEigenKernel.backTransform(array,tau,z);
+                copyColumns(z,eigenvector);
+                return eigenvalue;
+        }
+        private static void checkEigenCount(int k,int n) {
+                if(k<0 || k>n)
+                        throw new IllegalArgumentException("Number of eigenvalues must be between 0 and "+n+": "+k+".");
+        }
+        private static double[][] toArray(final AbstractDoubleSquareMatrix matrix) {
+                final int n=matrix.rows();
+                final double array[][]=new double[n][n];
+                for(int i=0;i<n;i++) {
+                        for(int j=0;j<n;j++)
+                                array[i][j]=matrix.getElement(i,j);
+                }
+                return array;
+        }
+        /**
+        * Copies the columns of an array into vectors.
+        */
+        private static void copyColumns(final double array[][],final AbstractDoubleVector vector[]) {
+                final int n=array.length;
+                final int k=(n>0) ? array[0].length : 0;
+                for(int j=0;j<k;j++) {
+                        final double v[]=new double[n];
+                        for(int i=0;i<n;i++)
+                                v[i]=array[i][j];
+                        vector[j]=new DoubleVector(v);
+                }
+        }
 
         /**
          * Diagonalizes a symmetric matrix in-place.
          * Memory conservative method for finding the eigenvalues of a (large) symmetric matrix.
+         * Large in-memory matrices ({@link DoubleSquareMatrix}) are instead reduced in a working copy
+         * by blocked Householder transformations, which is much faster than element by element,
+         * and their eigenvalues are left on the diagonal in ascending order.
+         * Other matrices, such as file-backed ones, are always diagonalized in place.
          * @param matrix a double symmetric square matrix.
          */
         public static void diagonalizeSymmetric(AbstractDoubleSquareMatrix matrix) throws MaximumIterationsExceededException {
                 final int n=matrix.rows();
+                if(n>=SymmetricEigenKernel.THRESHOLD && matrix instanceof DoubleSquareMatrix) {
+                        final double eigenvalue[]=eigenvalueSolveSymmetric(matrix);
+                        for(int i=0;i<n;i++)
+                                matrix.setElement(i,i,eigenvalue[i]);
+                        return;
+                }
                 final double offdiag[]=new double[n];
                 reduceSymmetric1_SquareToTridiagonal(matrix,offdiag);
                 System.arraycopy(offdiag,1,offdiag,0,n-1);
@@ -778,7 +1137,7 @@ public final class LinearMath extends AbstractMath {
         * @param transf output eigenvectors.
         * @author Richard Cannings
         */
-        private static void eigenSolveSymmetricTridiagonalMatrix(final double diag[],final double offdiag[],final double transf[][]) throws MaximumIterationsExceededException {
+        static void eigenSolveSymmetricTridiagonalMatrix(final double diag[],final double offdiag[],final double transf[][]) throws MaximumIterationsExceededException {
                 final int n=diag.length;
                 final int nm1=n-1;
                 int m,l,iteration,i,k;
@@ -940,4 +1299,75 @@ public final class LinearMath extends AbstractMath {
             }
             return r;
         }
+
+        /**
+        * This method finds the largest or smallest eigenvalues and corresponding eigenvectors of a large symmetric matrix,
+        * using the thick-restart Lanczos method.
+        * Only products of the matrix with a vector are used, so sparse matrices are never made dense.
+        * The Krylov subspace has the default size max(2k+1, 20), or n if smaller.
+        * @param matrix a double symmetric square matrix.
+        * @param k the number of eigenvalues to find.
+        * @param largest true to find the largest eigenvalues, false to find the smallest.
+        * @param eigenvector an empty array of (at least) k double vectors to hold the eigenvectors, or null if they are not needed.
+        * All eigenvectors will be orthogonal.
+        * @param max_iter the maximum number of restarts.
+        * @param tol the tolerance on the residual of each eigenvector, relative to the norm of the matrix.
+        * @return an array containing the k eigenvalues, largest first or smallest first.
+        * @exception MaximumIterationsExceededException If the eigenvalues do not converge within max_iter restarts.
+        */
+        public static double[] eigenSolveLanczos(final AbstractDoubleMatrix matrix,final int k,final boolean largest,final AbstractDoubleVector eigenvector[],int max_iter,double tol) throws MaximumIterationsExceededException {
+                final int n=matrix.rows();
+                checkKrylovArgs(matrix,k,n,max_iter,tol);
+                final double x[][]=(eigenvector!=null) ? new double[k][] : null;
+                final double eigenvalue[]=KrylovEigenKernel.lanczos(operator(matrix),n,k,largest,Math.min(Math.max(2*k+1,20),n),max_iter,tol,null,x);
+                if(eigenvector!=null) {
+                        for(int i=0;i<k;i++)
+                                eigenvector[i]=new DoubleVector(x[i]);
+                }
+                return eigenvalue;
+        }
+        /**
+        * This method finds the eigenvalues of largest modulus and corresponding eigenvectors of a large (non-symmetric) square matrix,
+        * using the implicitly restarted Arnoldi method.
+        * Only products of the matrix with a vector are used, so sparse matrices are never made dense.
+        * The Krylov subspace has the default size max(2k+1, 20), or n if smaller.
+        * @param matrix a double square matrix.
+        * @param k the number of eigenvalues to find, at most n-2.
+        * @param eigenvector an empty array of (at least) k complex vectors to hold the eigenvectors, or null if they are not needed.
+        * @param max_iter the maximum number of restarts.
+        * @param tol the tolerance on the residual of each eigenvector, relative to the norm of the matrix.
+        * @return an array containing the k eigenvalues, in order of decreasing modulus.
+        * Complex conjugate pairs are adjacent, the one with positive imaginary part first.
+        * @exception MaximumIterationsExceededException If the eigenvalues do not converge within max_iter restarts.
+        */
+        public static Complex[] eigenSolveArnoldi(final AbstractDoubleMatrix matrix,final int k,final AbstractComplexVector eigenvector[],int max_iter,double tol) throws MaximumIterationsExceededException {
+                final int n=matrix.rows();
+                checkKrylovArgs(matrix,k,n-2,max_iter,tol);
+                final double wr[]=new double[k];
+                final double wi[]=new double[k];
+                final double xr[][]=(eigenvector!=null) ? new double[k][] : null;
+                final double xi[][]=(eigenvector!=null) ? new double[k][] : null;
+                KrylovEigenKernel.arnoldi(operator(matrix),n,Math.min(Math.max(2*k+1,20),n),max_iter,tol,null,wr,wi,xr,xi);
+                final Complex eigenvalue[]=new Complex[k];
+                for(int i=0;i<k;i++) {
+                        eigenvalue[i]=new Complex(wr[i],wi[i]);
+                        if(eigenvector!=null)
+                                eigenvector[i]=new ComplexVector(xr[i],xi[i]);
+                }
+                return eigenvalue;
+        }
+        private static void checkKrylovArgs(final AbstractDoubleMatrix matrix,int k,int maxK,int max_iter,double tol) {
+                if(matrix.rows()!=matrix.columns())
+                        throw new MatrixDimensionException("Matrix is not square.");
+                if(k<1 || k>maxK)
+                        throw new IllegalArgumentException("Number of eigenvalues must be between 1 and "+maxK+": "+k+".");
+                checkIterativeArgs(max_iter,tol);
+        }
+        private static KrylovEigenKernel.Operator operator(final AbstractDoubleMatrix matrix) {
+                return new KrylovEigenKernel.Operator() {
+                        void multiply(double x[],double y[]) {
+                                LinearMath.multiply(matrix,x,y);
+                        }
+                };
+        }
 }
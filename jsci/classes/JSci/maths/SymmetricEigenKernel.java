@@ -0,0 +1,860 @@
+package JSci.maths;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Eigensolver for dense symmetric <code>double[][]</code> arrays.
+ * The array is reduced to tridiagonal form by blocked Householder transformations,
+ * the tridiagonal matrix is solved either completely by divide-and-conquer,
+ * or for its largest eigenvalues only by bisection and inverse iteration,
+ * and the eigenvectors are transformed back a block of reflectors at a time.
+ * Independent rows, columns, eigenvalues and sub-problems are processed in parallel on a fork-join pool.
+ * @author Mark
+ */
+final class SymmetricEigenKernel {
+    /** Matrices smaller than this are better solved with the unblocked routines. */
+    static final int THRESHOLD = 64;
+    /** Number of reflectors in a block. */
+    private static final int NB = 32;
+    /** Tridiagonal sub-problems no bigger than this are solved by the QL method. */
+    private static final int LEAF_SIZE = 25;
+    /** Rows processed by one task. */
+    private static final int ROWS_PER_TASK = 16;
+    /** Work (multiply-adds) below which a loop is run serially. */
+    private static final long PARALLEL_THRESHOLD = 1L<<16;
+    private static final double EPS = Math.ulp(1.0);
+    private static final int SECULAR_MAX_ITERATIONS = 100;
+    private static final int INVERSE_ITERATIONS = 3;
+
+    private SymmetricEigenKernel() {}
+
+// TRIDIAGONAL REDUCTION
+
+    /**
+     * Reduces a symmetric array to tridiagonal form, A = Q T Q<sup>T</sup>.
+     * The reflectors that make up Q are left below the sub-diagonal of a,
+     * the reflector for column c being (1, a[c+2][c], ..., a[n-1][c]) starting at row c+1.
+     * @param a a full (both triangles) symmetric array, overwritten
+     * @param d output diagonal of T
+     * @param e output off-diagonal of T, e[i] = T[i][i+1], and e[n-1] = 0
+     * @param tau output scale factors of the reflectors
+     */
+    static void tridiagonalize(final double[][] a, final double[] d, final double[] e, final double[] tau) {
+        final int n = a.length;
+        final double[][] v = new double[n][NB];
+        final double[][] w = new double[n][NB];
+        final double[] y = new double[n];
+        for(int kb=0; kb<n-1; kb+=NB) {
+            final int k0 = kb;
+            final int k1 = Math.min(k0+NB, n-1);
+            for(int j=0; j<k1-k0; j++) {
+                final int c = k0+j;
+                // bring column c up to date with the reflectors of this panel
+                for(int i=c; i<n; i++) {
+                    final double[] vi = v[i];
+                    final double[] wi = w[i];
+                    final double[] vc = v[c];
+                    final double[] wc = w[c];
+                    double sum = a[i][c];
+                    for(int t=0; t<j; t++)
+                        sum -= vi[t]*wc[t] + wi[t]*vc[t];
+                    a[i][c] = sum;
+                }
+                d[c] = a[c][c];
+                // generate the reflector that zeros column c below the sub-diagonal
+                final double alpha = a[c+1][c];
+                double xnorm = 0.0;
+                for(int i=c+2; i<n; i++)
+                    xnorm = ExtraMath.hypot(xnorm, a[i][c]);
+                final double tauc;
+                if(xnorm == 0.0) {
+                    tauc = 0.0;
+                    e[c] = alpha;
+                } else {
+                    final double beta = (alpha >= 0.0) ? -ExtraMath.hypot(alpha, xnorm) : ExtraMath.hypot(alpha, xnorm);
+                    tauc = (beta-alpha)/beta;
+                    final double scale = 1.0/(alpha-beta);
+                    for(int i=c+2; i<n; i++)
+                        a[i][c] *= scale;
+                    e[c] = beta;
+                }
+                tau[c] = tauc;
+                for(int i=0; i<=c; i++)
+                    v[i][j] = 0.0;
+                v[c+1][j] = 1.0;
+                for(int i=c+2; i<n; i++)
+                    v[i][j] = a[i][c];
+                // w = tau (A - V W' - W V') v, with the trailing part of A as it was at the start of the panel
+                final int jj = j;
+                forRows(new RowOperation() {
+                    void apply(int rowStart, int rowEnd) {
+                        for(int i=rowStart; i<rowEnd; i++) {
+                            final double[] ai = a[i];
+                            double sum = 0.0;
+                            for(int k=c+1; k<n; k++)
+                                sum += ai[k]*v[k][jj];
+                            y[i] = sum;
+                        }
+                    }
+                }, c+1, n, (long)(n-c)*(n-c));
+                for(int t=0; t<j; t++) {
+                    double wv = 0.0, vv = 0.0;
+                    for(int k=c+1; k<n; k++) {
+                        wv += w[k][t]*v[k][j];
+                        vv += v[k][t]*v[k][j];
+                    }
+                    for(int i=c+1; i<n; i++)
+                        y[i] -= v[i][t]*wv + w[i][t]*vv;
+                }
+                double yv = 0.0;
+                for(int i=c+1; i<n; i++) {
+                    y[i] *= tauc;
+                    yv += y[i]*v[i][j];
+                }
+                final double half = -0.5*tauc*yv;
+                for(int i=0; i<=c; i++)
+                    w[i][j] = 0.0;
+                for(int i=c+1; i<n; i++)
+                    w[i][j] = y[i] + half*v[i][j];
+            }
+            // trailing update A -= V W' + W V'
+            final int nb = k1-k0;
+            final double[][] vt = new double[nb][n];
+            final double[][] wt = new double[nb][n];
+            for(int i=k1; i<n; i++) {
+                for(int t=0; t<nb; t++) {
+                    vt[t][i] = v[i][t];
+                    wt[t][i] = w[i][t];
+                }
+            }
+            forRows(new RowOperation() {
+                void apply(int rowStart, int rowEnd) {
+                    for(int i=rowStart; i<rowEnd; i++) {
+                        final double[] ai = a[i];
+                        final double[] vi = v[i];
+                        final double[] wi = w[i];
+                        for(int t=0; t<nb; t++) {
+                            final double vit = vi[t];
+                            final double wit = wi[t];
+                            final double[] vtt = vt[t];
+                            final double[] wtt = wt[t];
+                            for(int k=k1; k<n; k++)
+                                ai[k] -= vit*wtt[k] + wit*vtt[k];
+                        }
+                    }
+                }
+            }, k1, n, 2L*(n-k1)*(n-k1)*nb);
+        }
+        if(n > 0) {
+            d[n-1] = a[n-1][n-1];
+            e[n-1] = 0.0;
+        }
+    }
+
+    /**
+     * Multiplies z by the orthogonal matrix Q of {@link #tridiagonalize(double[][],double[],double[],double[]) tridiagonalize}.
+     * @param a the reduced array
+     * @param tau the scale factors of the reflectors
+     * @param z an n&times;k array, overwritten by Qz
+     */
+    static void backTransform(final double[][] a, final double[] tau, final double[][] z) {
+        final int n = a.length;
+        if(n < 2 || z[0].length == 0)
+            return;
+        final int k = z[0].length;
+        final double[][] vb = new double[n][NB];
+        final double[][] t = new double[NB][NB];
+        final double[] vtv = new double[NB];
+        final int lastBlock = ((n-2)/NB)*NB;
+        for(int cb=lastBlock; cb>=0; cb-=NB) {
+            final int c0 = cb;
+            final int nb = Math.min(NB, n-1-c0);
+            // pack the block of reflectors
+            for(int i=0; i<n; i++) {
+                final double[] vbi = vb[i];
+                for(int s=0; s<nb; s++) {
+                    final int c = c0+s;
+                    vbi[s] = (i == c+1) ? 1.0 : (i > c+1 ? a[i][c] : 0.0);
+                }
+            }
+            // triangular factor, H(c0)...H(c0+nb-1) = I - V T V'
+            for(int s=0; s<nb; s++) {
+                final double taus = tau[c0+s];
+                for(int r=0; r<s; r++) {
+                    double sum = 0.0;
+                    for(int i=c0+s+1; i<n; i++)
+                        sum += vb[i][r]*vb[i][s];
+                    vtv[r] = sum;
+                }
+                for(int r=0; r<s; r++) {
+                    double sum = 0.0;
+                    for(int q=r; q<s; q++)
+                        sum += t[r][q]*vtv[q];
+                    t[r][s] = -taus*sum;
+                }
+                t[s][s] = taus;
+            }
+            forColumns(new RowOperation() {
+                void apply(int colStart, int colEnd) {
+                    final int m = colEnd-colStart;
+                    final double[][] vz = new double[nb][m];
+                    // V'Z
+                    for(int i=c0+1; i<n; i++) {
+                        final double[] zi = z[i];
+                        final double[] vbi = vb[i];
+                        final int sEnd = Math.min(nb, i-c0);
+                        for(int s=0; s<sEnd; s++) {
+                            final double vis = vbi[s];
+                            if(vis != 0.0) {
+                                final double[] vzs = vz[s];
+                                for(int col=0; col<m; col++)
+                                    vzs[col] += vis*zi[colStart+col];
+                            }
+                        }
+                    }
+                    // T V'Z
+                    for(int r=0; r<nb; r++) {
+                        final double[] vzr = vz[r];
+                        for(int col=0; col<m; col++) {
+                            double sum = t[r][r]*vzr[col];
+                            for(int q=r+1; q<nb; q++)
+                                sum += t[r][q]*vz[q][col];
+                            vzr[col] = sum;
+                        }
+                    }
+                    // Z - V T V'Z
+                    for(int i=c0+1; i<n; i++) {
+                        final double[] zi = z[i];
+                        final double[] vbi = vb[i];
+                        final int sEnd = Math.min(nb, i-c0);
+                        for(int s=0; s<sEnd; s++) {
+                            final double vis = vbi[s];
+                            if(vis != 0.0) {
+                                final double[] vzs = vz[s];
+                                for(int col=0; col<m; col++)
+                                    zi[colStart+col] -= vis*vzs[col];
+                            }
+                        }
+                    }
+                }
+            }, 0, k, 2L*n*nb*k);
+        }
+    }
+
+// DIVIDE AND CONQUER
+
+    /**
+     * Finds all the eigenvalues and eigenvectors of a symmetric tridiagonal matrix by divide-and-conquer.
+     * @param d the diagonal, overwritten by the eigenvalues in ascending order
+     * @param e the off-diagonal, e[i] = T[i][i+1], destroyed
+     * @return the eigenvectors, as the columns of an n&times;n array
+     */
+    static double[][] divideAndConquer(final double[] d, final double[] e) throws MaximumIterationsExceededException {
+        final DivideAndConquerTask task = new DivideAndConquerTask(d, e, 0, d.length);
+        try {
+            if(d.length >= 4*LEAF_SIZE)
+                ForkJoinPool.commonPool().invoke(task);
+            else
+                task.compute();
+        } catch(RuntimeException ex) {
+            for(Throwable cause = ex; cause != null; cause = cause.getCause()) {
+                if(cause instanceof MaximumIterationsExceededException)
+                    throw (MaximumIterationsExceededException) cause;
+            }
+            throw ex;
+        }
+        return task.z;
+    }
+
+    private static final class NoConvergenceException extends RuntimeException {
+        NoConvergenceException(MaximumIterationsExceededException cause) {
+            super(cause);
+        }
+    }
+
+    private static final class DivideAndConquerTask extends RecursiveAction {
+        private final double[] d, e;
+        private final int lo, hi;
+        double[][] z;
+
+        DivideAndConquerTask(double[] d, double[] e, int lo, int hi) {
+            this.d = d;
+            this.e = e;
+            this.lo = lo;
+            this.hi = hi;
+        }
+        protected void compute() {
+            final int m = hi-lo;
+            if(m <= LEAF_SIZE) {
+                z = solveLeaf(d, e, lo, hi);
+            } else {
+                final int mid = lo + m/2;
+                final double beta = e[mid-1];
+                d[mid-1] -= Math.abs(beta);
+                d[mid] -= Math.abs(beta);
+                final DivideAndConquerTask left = new DivideAndConquerTask(d, e, lo, mid);
+                final DivideAndConquerTask right = new DivideAndConquerTask(d, e, mid, hi);
+                if(m >= 4*LEAF_SIZE)
+                    invokeAll(left, right);
+                else {
+                    left.compute();
+                    right.compute();
+                }
+                z = merge(d, lo, left.z, right.z, beta);
+            }
+        }
+    }
+
+    /**
+     * Solves a small sub-problem by the QL method.
+     */
+    private static double[][] solveLeaf(final double[] d, final double[] e, final int lo, final int hi) {
+        final int m = hi-lo;
+        final double[] diag = new double[m];
+        final double[] offdiag = new double[m];
+        final double[][] q = new double[m][m];
+        System.arraycopy(d, lo, diag, 0, m);
+        System.arraycopy(e, lo, offdiag, 0, m-1);
+        for(int i=0; i<m; i++)
+            q[i][i] = 1.0;
+        try {
+            LinearMath.eigenSolveSymmetricTridiagonalMatrix(diag, offdiag, q);
+        } catch(MaximumIterationsExceededException ex) {
+            throw new NoConvergenceException(ex);
+        }
+        final int[] order = sortIndex(diag);
+        final double[][] z = new double[m][m];
+        for(int j=0; j<m; j++) {
+            final int src = order[j];
+            d[lo+j] = diag[src];
+            for(int i=0; i<m; i++)
+                z[i][j] = q[i][src];
+        }
+        return z;
+    }
+
+    /**
+     * Merges the solutions of two sub-problems coupled by beta.
+     * On entry d[lo...] holds the eigenvalues of each half.
+     */
+    private static double[][] merge(final double[] d, final int lo, final double[][] z1, final double[][] z2, final double beta) {
+        final int n1 = z1.length;
+        final int m = n1 + z2.length;
+        // T = Q (D + rho z z') Q' with Q = diag(z1, z2)
+        final double[][] q = new double[m][m];
+        for(int i=0; i<n1; i++)
+            System.arraycopy(z1[i], 0, q[i], 0, n1);
+        for(int i=n1; i<m; i++)
+            System.arraycopy(z2[i-n1], 0, q[i], n1, m-n1);
+        final double rho = 2.0*Math.abs(beta);
+        final double sign = (beta >= 0.0) ? 1.0 : -1.0;
+        final double[] dd = new double[m];
+        final double[] zz = new double[m];
+        final double invSqrt2 = 1.0/Math.sqrt(2.0);
+        for(int j=0; j<n1; j++) {
+            dd[j] = d[lo+j];
+            zz[j] = z1[n1-1][j]*invSqrt2;
+        }
+        for(int j=n1; j<m; j++) {
+            dd[j] = d[lo+j];
+            zz[j] = sign*z2[0][j-n1]*invSqrt2;
+        }
+        final int[] order = sortIndex(dd);
+        // deflation
+        double dmax = 0.0, zmax = 0.0;
+        for(int j=0; j<m; j++) {
+            dmax = Math.max(dmax, Math.abs(dd[j]));
+            zmax = Math.max(zmax, Math.abs(zz[j]));
+        }
+        final double tol = 8.0*EPS*Math.max(dmax, zmax);
+        final int[] nondeflated = new int[m];
+        final int[] deflated = new int[m];
+        int numNondeflated = 0, numDeflated = 0;
+        int prev = -1;
+        for(int s=0; s<m; s++) {
+            final int j = order[s];
+            if(rho*Math.abs(zz[j]) <= tol) {
+                deflated[numDeflated++] = j;
+            } else if(prev == -1) {
+                prev = j;
+            } else {
+                final double r = ExtraMath.hypot(zz[prev], zz[j]);
+                final double c = zz[j]/r;
+                final double sn = zz[prev]/r;
+                if(Math.abs((dd[j]-dd[prev])*c*sn) <= tol) {
+                    // rotate the weight of prev into j
+                    for(int i=0; i<m; i++) {
+                        final double[] qi = q[i];
+                        final double qp = qi[prev];
+                        final double qj = qi[j];
+                        qi[prev] = c*qp - sn*qj;
+                        qi[j] = sn*qp + c*qj;
+                    }
+                    final double dp = dd[prev];
+                    final double dj = dd[j];
+                    dd[prev] = c*c*dp + sn*sn*dj;
+                    dd[j] = sn*sn*dp + c*c*dj;
+                    zz[prev] = 0.0;
+                    zz[j] = r;
+                    deflated[numDeflated++] = prev;
+                } else {
+                    nondeflated[numNondeflated++] = prev;
+                }
+                prev = j;
+            }
+        }
+        if(prev != -1)
+            nondeflated[numNondeflated++] = prev;
+        // secular equation
+        final int k = numNondeflated;
+        final double[] dl = new double[k];
+        final double[] zl = new double[k];
+        for(int s=0; s<k; s++) {
+            dl[s] = dd[nondeflated[s]];
+            zl[s] = zz[nondeflated[s]];
+        }
+        final double[] lambda = new double[k];
+        final double[][] delta = new double[k][k];
+        forRows(new RowOperation() {
+            void apply(int start, int end) {
+                for(int j=start; j<end; j++)
+                    lambda[j] = secularRoot(dl, zl, rho, j, delta[j]);
+            }
+        }, 0, k, 10L*k*k);
+        // eigenvectors of D + rho z z', with z recomputed so that they are orthogonal
+        final double[] zhat = new double[k];
+        for(int i=0; i<k; i++) {
+            double prod = -delta[k-1][i]/rho;
+            for(int j=0; j<i; j++)
+                prod *= delta[j][i]/(dl[i]-dl[j]);
+            for(int j=i; j<k-1; j++)
+                prod *= delta[j][i]/(dl[i]-dl[j+1]);
+            final double abs = Math.sqrt(Math.abs(prod));
+            zhat[i] = (zl[i] >= 0.0) ? abs : -abs;
+        }
+        final double[][] u = new double[k][k];
+        for(int j=0; j<k; j++) {
+            final double[] deltaj = delta[j];
+            double norm = 0.0;
+            for(int i=0; i<k; i++) {
+                final double x = zhat[i]/deltaj[i];
+                u[i][j] = x;
+                norm += x*x;
+            }
+            norm = Math.sqrt(norm);
+            for(int i=0; i<k; i++)
+                u[i][j] /= norm;
+        }
+        // eigenvectors of T
+        final double[][] qk = new double[m][k];
+        for(int i=0; i<m; i++) {
+            final double[] qi = q[i];
+            final double[] qki = qk[i];
+            for(int s=0; s<k; s++)
+                qki[s] = qi[nondeflated[s]];
+        }
+        final double[][] x = new double[m][k];
+        forRows(new RowOperation() {
+            void apply(int rowStart, int rowEnd) {
+                for(int i=rowStart; i<rowEnd; i++) {
+                    final double[] qki = qk[i];
+                    final double[] xi = x[i];
+                    for(int s=0; s<k; s++) {
+                        final double qis = qki[s];
+                        if(qis != 0.0) {
+                            final double[] us = u[s];
+                            for(int j=0; j<k; j++)
+                                xi[j] += qis*us[j];
+                        }
+                    }
+                }
+            }
+        }, 0, m, (long)m*k*k);
+        // sort everything into ascending order
+        final double[] eval = new double[m];
+        System.arraycopy(lambda, 0, eval, 0, k);
+        for(int s=0; s<numDeflated; s++)
+            eval[k+s] = dd[deflated[s]];
+        final int[] evalOrder = sortIndex(eval);
+        final double[][] z = new double[m][m];
+        for(int j=0; j<m; j++) {
+            final int src = evalOrder[j];
+            d[lo+j] = eval[src];
+            if(src < k) {
+                for(int i=0; i<m; i++)
+                    z[i][j] = x[i][src];
+            } else {
+                final int col = deflated[src-k];
+                for(int i=0; i<m; i++)
+                    z[i][j] = q[i][col];
+            }
+        }
+        return z;
+    }
+
+    /**
+     * Finds the j-th root of the secular equation 1 + rho sum z<sub>i</sub><sup>2</sup>/(d<sub>i</sub> - lambda) = 0.
+     * @param d strictly increasing poles
+     * @param rho positive
+     * @param delta output, delta[i] = d[i] - lambda, computed accurately
+     * @return the root
+     */
+    static double secularRoot(final double[] d, final double[] z, final double rho, final int j, final double[] delta) {
+        final int k = d.length;
+        final double invRho = 1.0/rho;
+        int origin;
+        double lo, hi;
+        if(j < k-1) {
+            final double mid = 0.5*(d[j+1]-d[j]);
+            double f = invRho;
+            for(int i=0; i<k; i++)
+                f += z[i]*z[i]/((d[i]-d[j]) - mid);
+            if(f >= 0.0) {
+                origin = j;
+                lo = 0.0;
+                hi = mid;
+            } else {
+                origin = j+1;
+                lo = -mid;
+                hi = 0.0;
+            }
+        } else {
+            double zsqr = 0.0;
+            for(int i=0; i<k; i++)
+                zsqr += z[i]*z[i];
+            origin = j;
+            lo = 0.0;
+            hi = rho*zsqr;
+        }
+        final double dOrigin = d[origin];
+        double tau = 0.5*(lo+hi);
+        for(int iter=0; iter<SECULAR_MAX_ITERATIONS; iter++) {
+            // psi sums over the poles up to j, phi over the rest
+            double psi = 0.0, dpsi = 0.0, phi = 0.0, dphi = 0.0;
+            for(int i=0; i<k; i++) {
+                final double del = (d[i]-dOrigin) - tau;
+                delta[i] = del;
+                final double t = z[i]/del;
+                if(i <= j) {
+                    psi += z[i]*t;
+                    dpsi += t*t;
+                } else {
+                    phi += z[i]*t;
+                    dphi += t*t;
+                }
+            }
+            final double f = invRho + psi + phi;
+            final double err = k*(invRho + Math.abs(psi) + Math.abs(phi)) + Math.abs(tau)*(dpsi+dphi);
+            if(Math.abs(f) <= EPS*err)
+                break;
+            if(f < 0.0)
+                lo = tau;
+            else
+                hi = tau;
+            if(hi-lo <= 2.0*EPS*Math.max(Math.abs(lo), Math.abs(hi)))
+                break;
+            // step to the root of a rational model with the two nearest poles
+            double eta;
+            final double a = delta[j];
+            if(j < k-1) {
+                final double b = delta[j+1];
+                final double s = a*a*dpsi;
+                final double ss = b*b*dphi;
+                final double c = f - a*dpsi - b*dphi;
+                final double qb = -(c*(a+b) + s + ss);
+                final double qc = c*a*b + s*b + ss*a;
+                final double disc = qb*qb - 4.0*c*qc;
+                if(disc < 0.0) {
+                    eta = Double.NaN;
+                } else {
+                    final double q = -0.5*(qb + (qb >= 0.0 ? Math.sqrt(disc) : -Math.sqrt(disc)));
+                    final double r1 = q/c;
+                    final double r2 = qc/q;
+                    eta = (r1 > a && r1 < b) ? r1 : r2;
+                }
+            } else {
+                final double c = f - a*dpsi;
+                eta = a + a*a*dpsi/c;
+            }
+            double next = tau + eta;
+            if(iter >= 20 || !(next > lo && next < hi))
+                next = 0.5*(lo+hi);
+            tau = next;
+        }
+        for(int i=0; i<k; i++)
+            delta[i] = (d[i]-dOrigin) - tau;
+        return dOrigin + tau;
+    }
+
+// BISECTION AND INVERSE ITERATION
+
+    /**
+     * Finds the largest eigenvalues, and optionally the corresponding eigenvectors, of a symmetric tridiagonal matrix.
+     * @param d the diagonal
+     * @param e the off-diagonal, e[i] = T[i][i+1]
+     * @param eigenvalue output, the k largest eigenvalues in descending order
+     * @param z output n&times;k eigenvectors, or null
+     */
+    static void largest(final double[] d, final double[] e, final double[] eigenvalue, final double[][] z) {
+        final int n = d.length;
+        final int k = eigenvalue.length;
+        if(k == 0)
+            return;
+        double lower = Double.POSITIVE_INFINITY, upper = Double.NEGATIVE_INFINITY;
+        double norm = 0.0, emax = 0.0;
+        for(int i=0; i<n; i++) {
+            final double r = (i > 0 ? Math.abs(e[i-1]) : 0.0) + (i < n-1 ? Math.abs(e[i]) : 0.0);
+            lower = Math.min(lower, d[i]-r);
+            upper = Math.max(upper, d[i]+r);
+            norm = Math.max(norm, Math.abs(d[i])+r);
+            if(i < n-1)
+                emax = Math.max(emax, e[i]*e[i]);
+        }
+        final double pivmin = Double.MIN_NORMAL*Math.max(1.0, emax);
+        final double gl = lower - 2.0*EPS*norm - pivmin;
+        final double gu = upper + 2.0*EPS*norm + pivmin;
+        forRows(new RowOperation() {
+            void apply(int start, int end) {
+                for(int s=start; s<end; s++)
+                    eigenvalue[s] = bisect(d, e, n-1-s, gl, gu, pivmin);
+            }
+        }, 0, k, 64L*n*k);
+        if(z == null)
+            return;
+        // clusters of close eigenvalues are orthogonalized against each other
+        final double ortol = 1.0e-3*norm;
+        final int[] clusterStart = new int[k+1];
+        int numClusters = 0;
+        for(int s=0; s<k; s++) {
+            if(s == 0 || eigenvalue[s-1]-eigenvalue[s] > ortol)
+                clusterStart[numClusters++] = s;
+        }
+        clusterStart[numClusters] = k;
+        final int clusters = numClusters;
+        final double tiny = EPS*Math.max(norm, Double.MIN_NORMAL);
+        forRows(new RowOperation() {
+            void apply(int start, int end) {
+                final double[] x = new double[n];
+                for(int cl=start; cl<end; cl++) {
+                    double prevLambda = Double.NaN;
+                    for(int s=clusterStart[cl]; s<clusterStart[cl+1]; s++) {
+                        double lambda = eigenvalue[s];
+                        // separate equal eigenvalues so that the iterations differ
+                        if(prevLambda-lambda < 10.0*EPS*Math.abs(lambda))
+                            lambda = prevLambda - 10.0*EPS*Math.abs(lambda);
+                        prevLambda = lambda;
+                        inverseIteration(d, e, lambda, tiny, s, z, clusterStart[cl], x);
+                        for(int i=0; i<n; i++)
+                            z[i][s] = x[i];
+                    }
+                }
+            }
+        }, 0, clusters, (long)n*k);
+    }
+
+    /**
+     * Returns the number of eigenvalues less than x.
+     */
+    private static int sturmCount(final double[] d, final double[] e, final double x, final double pivmin) {
+        int count = 0;
+        double q = d[0] - x;
+        if(Math.abs(q) < pivmin)
+            q = -pivmin;
+        if(q < 0.0)
+            count++;
+        for(int i=1; i<d.length; i++) {
+            q = d[i] - x - e[i-1]*e[i-1]/q;
+            if(Math.abs(q) < pivmin)
+                q = -pivmin;
+            if(q < 0.0)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Finds the eigenvalue with the given index in ascending order.
+     */
+    private static double bisect(final double[] d, final double[] e, final int index, double lo, double hi, final double pivmin) {
+        while(hi-lo > 2.0*EPS*Math.max(Math.abs(lo), Math.abs(hi)) + pivmin) {
+            final double mid = 0.5*(lo+hi);
+            if(mid <= lo || mid >= hi)
+                break;
+            if(sturmCount(d, e, mid, pivmin) > index)
+                hi = mid;
+            else
+                lo = mid;
+        }
+        return 0.5*(lo+hi);
+    }
+
+    /**
+     * Computes an eigenvector by inverse iteration,
+     * orthogonalizing against columns first to s-1 of z.
+     */
+    private static void inverseIteration(final double[] d, final double[] e, final double lambda, final double tiny, final int s, final double[][] z, final int first, final double[] x) {
+        final int n = d.length;
+        // factor T - lambda I = P L U with partial pivoting, U having two super-diagonals
+        final double[] u0 = new double[n];
+        final double[] u1 = new double[n];
+        final double[] u2 = new double[n];
+        final double[] mult = new double[n];
+        final boolean[] swapped = new boolean[n];
+        double p0 = d[0] - lambda;
+        double p1 = (n > 1) ? e[0] : 0.0;
+        for(int i=0; i<n-1; i++) {
+            final double sub = e[i];
+            final double next = d[i+1] - lambda;
+            final double nextSuper = (i+1 < n-1) ? e[i+1] : 0.0;
+            if(Math.abs(p0) >= Math.abs(sub)) {
+                u0[i] = p0;
+                u1[i] = p1;
+                u2[i] = 0.0;
+                final double m = (p0 != 0.0) ? sub/p0 : 0.0;
+                mult[i] = m;
+                swapped[i] = false;
+                p0 = next - m*p1;
+                p1 = nextSuper;
+            } else {
+                u0[i] = sub;
+                u1[i] = next;
+                u2[i] = nextSuper;
+                final double m = p0/sub;
+                mult[i] = m;
+                swapped[i] = true;
+                p0 = p1 - m*next;
+                p1 = -m*nextSuper;
+            }
+        }
+        u0[n-1] = p0;
+        for(int i=0; i<n; i++) {
+            if(Math.abs(u0[i]) < tiny)
+                u0[i] = (u0[i] >= 0.0) ? tiny : -tiny;
+        }
+        final Random random = new Random(s+1);
+        for(int i=0; i<n; i++)
+            x[i] = random.nextDouble() - 0.5;
+        for(int iter=0; iter<INVERSE_ITERATIONS; iter++) {
+            // forward elimination
+            for(int i=0; i<n-1; i++) {
+                if(swapped[i]) {
+                    final double xi = x[i];
+                    x[i] = x[i+1];
+                    x[i+1] = xi - mult[i]*x[i+1];
+                } else {
+                    x[i+1] -= mult[i]*x[i];
+                }
+            }
+            // back substitution
+            x[n-1] /= u0[n-1];
+            if(n > 1)
+                x[n-2] = (x[n-2] - u1[n-2]*x[n-1])/u0[n-2];
+            for(int i=n-3; i>=0; i--)
+                x[i] = (x[i] - u1[i]*x[i+1] - u2[i]*x[i+2])/u0[i];
+            // orthogonalize against the rest of the cluster
+            for(int t=first; t<s; t++) {
+                double dot = 0.0;
+                for(int i=0; i<n; i++)
+                    dot += z[i][t]*x[i];
+                for(int i=0; i<n; i++)
+                    x[i] -= dot*z[i][t];
+            }
+            double scale = 0.0;
+            for(int i=0; i<n; i++)
+                scale = Math.max(scale, Math.abs(x[i]));
+            double norm = 0.0;
+            for(int i=0; i<n; i++) {
+                x[i] /= scale;
+                norm += x[i]*x[i];
+            }
+            norm = Math.sqrt(norm);
+            for(int i=0; i<n; i++)
+                x[i] /= norm;
+        }
+    }
+
+// UTILITIES
+
+    /**
+     * Returns the indices that sort x into ascending order.
+     */
+    static int[] sortIndex(final double[] x) {
+        final int n = x.length;
+        final int[] index = new int[n];
+        for(int i=0; i<n; i++)
+            index[i] = i;
+        // insertion sort for short runs, merge sort otherwise
+        final int[] tmp = new int[n];
+        mergeSort(x, index, tmp, 0, n);
+        return index;
+    }
+    private static void mergeSort(final double[] x, final int[] index, final int[] tmp, final int lo, final int hi) {
+        if(hi-lo <= 16) {
+            for(int i=lo+1; i<hi; i++) {
+                final int idx = index[i];
+                int j = i-1;
+                while(j >= lo && x[index[j]] > x[idx]) {
+                    index[j+1] = index[j];
+                    j--;
+                }
+                index[j+1] = idx;
+            }
+            return;
+        }
+        final int mid = (lo+hi) >>> 1;
+        mergeSort(x, index, tmp, lo, mid);
+        mergeSort(x, index, tmp, mid, hi);
+        int i = lo, j = mid, t = lo;
+        while(i < mid && j < hi)
+            tmp[t++] = (x[index[j]] < x[index[i]]) ? index[j++] : index[i++];
+        while(i < mid)
+            tmp[t++] = index[i++];
+        while(j < hi)
+            tmp[t++] = index[j++];
+        System.arraycopy(tmp, lo, index, lo, hi-lo);
+    }
+
+    /**
+     * An operation on a range of rows (or columns) that is independent of other ranges.
+     */
+    static abstract class RowOperation {
+        abstract void apply(int start, int end);
+    }
+
+    static void forRows(RowOperation op, int start, int end, long work) {
+        if(work < PARALLEL_THRESHOLD || end-start <= 1)
+            op.apply(start, end);
+        else
+            ForkJoinPool.commonPool().invoke(new RangeTask(op, start, end, Math.max(1, Math.min(ROWS_PER_TASK, (end-start)/8))));
+    }
+    static void forColumns(RowOperation op, int start, int end, long work) {
+        if(work < PARALLEL_THRESHOLD || end-start <= 2*ROWS_PER_TASK)
+            op.apply(start, end);
+        else
+            ForkJoinPool.commonPool().invoke(new RangeTask(op, start, end, 2*ROWS_PER_TASK));
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private final RowOperation op;
+        private final int start, end;
+        private final int grain;
+
+        RangeTask(RowOperation op, int start, int end, int grain) {
+            this.op = op;
+            this.start = start;
+            this.end = end;
+            this.grain = grain;
+        }
+        protected void compute() {
+            if(end-start <= grain) {
+                op.apply(start, end);
+            } else {
+                final int mid = (start+end) >>> 1;
+                invokeAll(new RangeTask(op, start, mid, grain),
+                        new RangeTask(op, mid, end, grain));
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package JSci.maths.matrices;
+
+/**
+ * In-place inversion of dense complex arrays, stored as separate real and imaginary parts.
+ * Uses the same blocked algorithm as {@link DoubleInverseKernel}.
+ * @author Mark
+ */
+final class ComplexInverseKernel {
+    /** Number of columns in a block. */
+    private static final int NB = 32;
+    /** Number of columns updated together, so that the rows being read stay in cache. */
+    private static final int NC = 256;
+
+    private ComplexInverseKernel() {}
+
+    /**
+     * Inverts a square array in place.
+     */
+    static void invert(double[][] re, double[][] im) {
+        final int n = re.length;
+        if(n == 0)
+            return;
+        final int perm[] = new int[n];
+        luDecompose(re, im, perm);
+        invertUpper(re, im);
+        solveLower(re, im);
+        DoubleInverseKernel.permuteColumns(re, perm);
+        DoubleInverseKernel.permuteColumns(im, perm);
+    }
+
+    /**
+     * Overwrites (re, im) with its LU decomposition, L having an implied unit diagonal.
+     * Rows are swapped by reference.
+     * @param perm filled with the original index of each row
+     */
+    static void luDecompose(final double[][] re, final double[][] im, final int[] perm) {
+        final int n = re.length;
+        for(int i=0; i<n; i++)
+            perm[i] = i;
+        for(int kb=0; kb<n; kb+=NB) {
+            final int k0 = kb;
+            final int k1 = Math.min(k0+NB, n);
+            // factor the panel of columns [k0, k1)
+            for(int j=k0; j<k1; j++) {
+                int p = j;
+                double max = re[j][j]*re[j][j]+im[j][j]*im[j][j];
+                for(int i=j+1; i<n; i++) {
+                    final double modSqr = re[i][j]*re[i][j]+im[i][j]*im[i][j];
+                    if(modSqr > max) {
+                        max = modSqr;
+                        p = i;
+                    }
+                }
+                if(p != j) {
+                    double[] tmp = re[j];
+                    re[j] = re[p];
+                    re[p] = tmp;
+                    tmp = im[j];
+                    im[j] = im[p];
+                    im[p] = tmp;
+                    final int k = perm[j];
+                    perm[j] = perm[p];
+                    perm[p] = k;
+                }
+                final double[] rj = re[j];
+                final double[] ij = im[j];
+                final double denom = rj[j]*rj[j]+ij[j]*ij[j];
+                final double invRe = rj[j]/denom;
+                final double invIm = -ij[j]/denom;
+                for(int i=j+1; i<n; i++) {
+                    final double[] ri = re[i];
+                    final double[] ii = im[i];
+                    final double lRe = ri[j]*invRe - ii[j]*invIm;
+                    final double lIm = ii[j]*invRe + ri[j]*invIm;
+                    ri[j] = lRe;
+                    ii[j] = lIm;
+                    for(int c=j+1; c<k1; c++) {
+                        ri[c] -= lRe*rj[c] - lIm*ij[c];
+                        ii[c] -= lIm*rj[c] + lRe*ij[c];
+                    }
+                }
+            }
+            if(k1 < n) {
+                // U12 = inv(L11) A12
+                for(int j=k0; j<k1; j++) {
+                    final double[] rj = re[j];
+                    final double[] ij = im[j];
+                    for(int i=j+1; i<k1; i++) {
+                        final double[] ri = re[i];
+                        final double[] ii = im[i];
+                        final double lRe = ri[j];
+                        final double lIm = ii[j];
+                        for(int c=k1; c<n; c++) {
+                            ri[c] -= lRe*rj[c] - lIm*ij[c];
+                            ii[c] -= lIm*rj[c] + lRe*ij[c];
+                        }
+                    }
+                }
+                // A22 -= L21 U12
+                DoubleInverseKernel.forRows(new DoubleInverseKernel.RowOperation() {
+                    void apply(int rowStart, int rowEnd) {
+                        for(int c0=k1; c0<n; c0+=NC) {
+                            final int c1 = Math.min(c0+NC, n);
+                            for(int i=rowStart; i<rowEnd; i++) {
+                                final double[] ri = re[i];
+                                final double[] ii = im[i];
+                                for(int j=k0; j<k1; j++) {
+                                    final double lRe = ri[j];
+                                    final double lIm = ii[j];
+                                    final double[] rj = re[j];
+                                    final double[] ij = im[j];
+                                    for(int c=c0; c<c1; c++) {
+                                        ri[c] -= lRe*rj[c] - lIm*ij[c];
+                                        ii[c] -= lIm*rj[c] + lRe*ij[c];
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }, k1, n, 4L*(n-k1)*(n-k1)*(k1-k0));
+            }
+        }
+    }
+
+    /**
+     * Replaces the upper triangle U of (re, im) by its inverse.
+     * Rows are computed from the bottom up, a block at a time.
+     */
+    static void invertUpper(final double[][] re, final double[][] im) {
+        final int n = re.length;
+        final double[][] uRe = new double[NB][n];
+        final double[][] uIm = new double[NB][n];
+        for(int ib=n; ib>0; ib-=NB) {
+            final int i1 = ib;
+            final int i0 = Math.max(i1-NB, 0);
+            // move the strictly upper part of the block rows out of the way
+            for(int i=i0; i<i1; i++) {
+                for(int k=i+1; k<n; k++) {
+                    uRe[i-i0][k] = re[i][k];
+                    uIm[i-i0][k] = im[i][k];
+                    re[i][k] = 0.0;
+                    im[i][k] = 0.0;
+                }
+            }
+            // contribution of the rows already inverted
+            if(i1 < n) {
+                DoubleInverseKernel.forColumns(new DoubleInverseKernel.RowOperation() {
+                    void apply(int colStart, int colEnd) {
+                        for(int i=i0; i<i1; i++) {
+                            final double[] ri = re[i];
+                            final double[] ii = im[i];
+                            for(int k=i1; k<colEnd; k++) {
+                                final double ukRe = uRe[i-i0][k];
+                                final double ukIm = uIm[i-i0][k];
+                                final double[] rk = re[k];
+                                final double[] ik = im[k];
+                                for(int c=Math.max(k, colStart); c<colEnd; c++) {
+                                    ri[c] -= ukRe*rk[c] - ukIm*ik[c];
+                                    ii[c] -= ukIm*rk[c] + ukRe*ik[c];
+                                }
+                            }
+                        }
+                    }
+                }, i1, n, 2L*(i1-i0)*(n-i1)*(n-i1));
+            }
+            // contribution from within the block
+            for(int i=i1-1; i>=i0; i--) {
+                final double[] ri = re[i];
+                final double[] ii = im[i];
+                for(int k=i+1; k<i1; k++) {
+                    final double ukRe = uRe[i-i0][k];
+                    final double ukIm = uIm[i-i0][k];
+                    final double[] rk = re[k];
+                    final double[] ik = im[k];
+                    for(int c=k; c<n; c++) {
+                        ri[c] -= ukRe*rk[c] - ukIm*ik[c];
+                        ii[c] -= ukIm*rk[c] + ukRe*ik[c];
+                    }
+                }
+                final double denom = ri[i]*ri[i]+ii[i]*ii[i];
+                final double dRe = ri[i]/denom;
+                final double dIm = -ii[i]/denom;
+                for(int c=i+1; c<n; c++) {
+                    final double xRe = ri[c];
+                    final double xIm = ii[c];
+                    ri[c] = xRe*dRe - xIm*dIm;
+                    ii[c] = xIm*dRe + xRe*dIm;
+                }
+                ri[i] = dRe;
+                ii[i] = dIm;
+            }
+        }
+    }
+
+    /**
+     * Given inv(U) in the upper triangle and L in the strict lower triangle,
+     * overwrites (re, im) with X = inv(U) inv(L), by solving X L = inv(U) a block of columns at a time.
+     */
+    static void solveLower(final double[][] re, final double[][] im) {
+        final int n = re.length;
+        // block columns of L, stored by row: lb[k*NB+jj] = L[k][j0+jj]
+        final double[] lbRe = new double[n*NB];
+        final double[] lbIm = new double[n*NB];
+        for(int jb=n; jb>0; jb-=NB) {
+            final int j1 = jb;
+            final int j0 = Math.max(j1-NB, 0);
+            final int nb = j1-j0;
+            // move the block columns of L out of the way
+            for(int k=j0+1; k<n; k++) {
+                final int end = Math.min(k, j1);
+                for(int j=j0; j<end; j++) {
+                    lbRe[k*NB+j-j0] = re[k][j];
+                    lbIm[k*NB+j-j0] = im[k][j];
+                    re[k][j] = 0.0;
+                    im[k][j] = 0.0;
+                }
+            }
+            DoubleInverseKernel.forRows(new DoubleInverseKernel.RowOperation() {
+                void apply(int rowStart, int rowEnd) {
+                    final double[] sRe = new double[NB];
+                    final double[] sIm = new double[NB];
+                    for(int i=rowStart; i<rowEnd; i++) {
+                        final double[] ri = re[i];
+                        final double[] ii = im[i];
+                        // contribution of the columns already solved for
+                        for(int jj=0; jj<nb; jj++) {
+                            sRe[jj] = 0.0;
+                            sIm[jj] = 0.0;
+                        }
+                        for(int k=j1; k<n; k++) {
+                            final double xRe = ri[k];
+                            final double xIm = ii[k];
+                            final int kb = k*NB;
+                            for(int jj=0; jj<nb; jj++) {
+                                sRe[jj] += xRe*lbRe[kb+jj] - xIm*lbIm[kb+jj];
+                                sIm[jj] += xIm*lbRe[kb+jj] + xRe*lbIm[kb+jj];
+                            }
+                        }
+                        // contribution from within the block
+                        for(int j=j1-1; j>=j0; j--) {
+                            double sumRe = ri[j] - sRe[j-j0];
+                            double sumIm = ii[j] - sIm[j-j0];
+                            for(int k=j+1; k<j1; k++) {
+                                final double lRe = lbRe[k*NB+j-j0];
+                                final double lIm = lbIm[k*NB+j-j0];
+                                sumRe -= ri[k]*lRe - ii[k]*lIm;
+                                sumIm -= ii[k]*lRe + ri[k]*lIm;
+                            }
+                            ri[j] = sumRe;
+                            ii[j] = sumIm;
+                        }
+                    }
+                }
+            }, 0, n, 4L*n*(n-j0)*nb);
+        }
+    }
+}
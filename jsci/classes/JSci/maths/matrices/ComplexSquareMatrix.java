@@ -567,66 +567,18 @@ public class ComplexSquareMatrix extends AbstractComplexSquareMatrix {
 
         /**
         * Returns the inverse of this matrix.
+        * The inverse is computed by a blocked LU-based algorithm, in place in a single pair of arrays.
         * @return a complex square matrix
         */
         public AbstractComplexSquareMatrix inverse() {
                 final int N=numRows;
-                final double arrayLRe[][]=new double[N][N];
-                final double arrayLIm[][]=new double[N][N];
-                final double arrayURe[][]=new double[N][N];
-                final double arrayUIm[][]=new double[N][N];
-                final int[] luPivot = new int[numRows+1];
-                final ComplexSquareMatrix lu[] = (ComplexSquareMatrix[]) this.luDecompose(luPivot);
-                double denom;
-                denom=lu[0].matrixRe[0][0]*lu[0].matrixRe[0][0]+lu[0].matrixIm[0][0]*lu[0].matrixIm[0][0];
-                arrayLRe[0][0]=lu[0].matrixRe[0][0]/denom;
-                arrayLIm[0][0]=-lu[0].matrixIm[0][0]/denom;
-                denom=lu[1].matrixRe[0][0]*lu[1].matrixRe[0][0]+lu[1].matrixIm[0][0]*lu[1].matrixIm[0][0];
-                arrayURe[0][0]=lu[1].matrixRe[0][0]/denom;
-                arrayUIm[0][0]=-lu[1].matrixIm[0][0]/denom;
-                for(int i=1;i<N;i++) {
-                        denom=lu[0].matrixRe[i][i]*lu[0].matrixRe[i][i]+lu[0].matrixIm[i][i]*lu[0].matrixIm[i][i];
-                        arrayLRe[i][i]=lu[0].matrixRe[i][i]/denom;
-                        arrayLIm[i][i]=-lu[0].matrixIm[i][i]/denom;
-                        denom=lu[1].matrixRe[i][i]*lu[1].matrixRe[i][i]+lu[1].matrixIm[i][i]*lu[1].matrixIm[i][i];
-                        arrayURe[i][i]=lu[1].matrixRe[i][i]/denom;
-                        arrayUIm[i][i]=-lu[1].matrixIm[i][i]/denom;
-                }
-                for(int i=0;i<N-1;i++) {
-                        for(int j=i+1;j<N;j++) {
-                                double tmpLRe=0.0, tmpLIm=0.0;
-                                double tmpURe=0.0, tmpUIm=0.0;
-                                for(int k=i;k<j;k++) {
-                                        tmpLRe-=(lu[0].matrixRe[j][k]*arrayLRe[k][i] - lu[0].matrixIm[j][k]*arrayLIm[k][i]);
-                                        tmpLIm-=(lu[0].matrixIm[j][k]*arrayLRe[k][i] + lu[0].matrixRe[j][k]*arrayLIm[k][i]);
-                                        tmpURe-=(arrayURe[i][k]*lu[1].matrixRe[k][j] - arrayUIm[i][k]*lu[1].matrixIm[k][j]);
-                                        tmpUIm-=(arrayUIm[i][k]*lu[1].matrixRe[k][j] + arrayURe[i][k]*lu[1].matrixIm[k][j]);
-                                }
-                                denom=lu[0].matrixRe[j][j]*lu[0].matrixRe[j][j]+lu[0].matrixIm[j][j]*lu[0].matrixIm[j][j];
-                                arrayLRe[j][i]=(tmpLRe*lu[0].matrixRe[j][j]+tmpLIm*lu[0].matrixIm[j][j])/denom;
-                                arrayLIm[j][i]=(tmpLIm*lu[0].matrixRe[j][j]-tmpLRe*lu[0].matrixIm[j][j])/denom;
-                                denom=lu[1].matrixRe[j][j]*lu[1].matrixRe[j][j]+lu[1].matrixIm[j][j]*lu[1].matrixIm[j][j];
-                                arrayURe[i][j]=(tmpURe*lu[1].matrixRe[j][j]+tmpUIm*lu[1].matrixIm[j][j])/denom;
-                                arrayUIm[i][j]=(tmpUIm*lu[1].matrixRe[j][j]-tmpURe*lu[1].matrixIm[j][j])/denom;
-                        }
-                }
-                // matrix multiply arrayU x arrayL
                 final double invRe[][]=new double[N][N];
                 final double invIm[][]=new double[N][N];
                 for(int i=0;i<N;i++) {
-                        for(int j=0;j<i;j++) {
-                                for(int k=i;k<N;k++) {
-                                        invRe[i][luPivot[j]]+=(arrayURe[i][k]*arrayLRe[k][j] - arrayUIm[i][k]*arrayLIm[k][j]);
-                                        invIm[i][luPivot[j]]+=(arrayUIm[i][k]*arrayLRe[k][j] + arrayURe[i][k]*arrayLIm[k][j]);
-                                }
-                        }
-                        for(int j=i;j<N;j++) {
-                                for(int k=j;k<N;k++) {
-                                        invRe[i][luPivot[j]]+=(arrayURe[i][k]*arrayLRe[k][j] - arrayUIm[i][k]*arrayLIm[k][j]);
-                                        invIm[i][luPivot[j]]+=(arrayUIm[i][k]*arrayLRe[k][j] + arrayURe[i][k]*arrayLIm[k][j]);
-                                }
-                        }
+                        System.arraycopy(matrixRe[i],0,invRe[i],0,N);
+                        System.arraycopy(matrixIm[i],0,invIm[i],0,N);
                 }
+                ComplexInverseKernel.invert(invRe,invIm);
                 return new ComplexSquareMatrix(invRe,invIm);
         }
 
@@ -1,12 +1,9 @@
 package JSci.maths.matrices;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 
 /**
  * Uses an underlying file as storage.
@@ -49,28 +46,18 @@ public class DoubleFileSquareMatrix extends AbstractDoubleSquareMatrix {
         diagBuffer = (bufferDiag ? new double[size] : null);
         this.file = new RandomAccessFile(f, "rw");
 
+        // zero fill
+        file.setLength(0L);
+        file.setLength(size * (long) size * DOUBLE_BYTE_SIZE);
         if(initArray != null) {
+            ByteBuffer arr = ByteBuffer.allocate(size*DOUBLE_BYTE_SIZE);
             for(int i=0; i<size; i++) {
-                ByteArrayOutputStream arr = new ByteArrayOutputStream(numCols*DOUBLE_BYTE_SIZE);
-                DataOutputStream out = new DataOutputStream(arr);
-                for(int j=0; j<size; j++) {
-                    out.writeDouble(initArray[i][j]);
-                }
-                out.close();
-                file.write(arr.toByteArray());
+                arr.clear();
+                arr.asDoubleBuffer().put(initArray[i], 0, size);
+                file.write(arr.array());
                 if(bufferDiag)
                     diagBuffer[i] = initArray[i][i];
             }
-        } else {
-            for(int i=0; i<size; i++) {
-                ByteArrayOutputStream arr = new ByteArrayOutputStream(numCols*DOUBLE_BYTE_SIZE);
-                DataOutputStream out = new DataOutputStream(arr);
-                for(int j=0; j<size; j++) {
-                    out.writeDouble(0.0);
-                }
-                out.close();
-                file.write(arr.toByteArray());
-            }
         }
     }
     public DoubleFileSquareMatrix(int size, String filename, int numBuffers, boolean bufferDiag) throws IOException {
@@ -97,13 +84,9 @@ public class DoubleFileSquareMatrix extends AbstractDoubleSquareMatrix {
             int endCol = bufferEndCols[bufferRow];
             seek(bufferRows[bufferRow], startCol);
             int cols = endCol - startCol;
-            ByteArrayOutputStream arr = new ByteArrayOutputStream(cols*DOUBLE_BYTE_SIZE);
-            DataOutputStream out = new DataOutputStream(arr);
-            for(int j=startCol; j<endCol; j++) {
-                out.writeDouble(buffers[bufferRow][j]);
-            }
-            out.close();
-            file.write(arr.toByteArray());
+            ByteBuffer arr = ByteBuffer.allocate(cols*DOUBLE_BYTE_SIZE);
+            arr.asDoubleBuffer().put(buffers[bufferRow], startCol, cols);
+            file.write(arr.array());
         }
     }
     private void readBuffer(int bufferRow, int i, int startCol, int endCol) throws IOException {
@@ -113,11 +96,7 @@ public class DoubleFileSquareMatrix extends AbstractDoubleSquareMatrix {
         int cols = endCol - startCol;
         byte[] arr = new byte[cols*DOUBLE_BYTE_SIZE];
         file.readFully(arr);
-        DataInputStream in = new DataInputStream(new ByteArrayInputStream(arr));
-        for (int j=startCol; j<endCol; j++) {
-            buffers[bufferRow][j] = in.readDouble();
-        }
-        in.close();
+        ByteBuffer.wrap(arr).asDoubleBuffer().get(buffers[bufferRow], startCol, cols);
     }
     private double[] buffer(int i, int j, int oldCol) throws IOException {
         writeBuffer(buffers.length-1);
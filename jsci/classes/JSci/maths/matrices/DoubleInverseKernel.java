@@ -0,0 +1,327 @@
+package JSci.maths.matrices;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * In-place inversion of dense <code>double[][]</code> arrays.
+ * The array is overwritten by its LU decomposition (blocked, right-looking, with partial pivoting),
+ * then U is replaced by its inverse and finally the inverse of the matrix is solved for
+ * from inv(U) and L, a block of columns at a time.
+ * No other matrix-sized storage is used.
+ * The trailing updates and the column solves work on independent rows,
+ * which are processed in parallel on a fork-join pool.
+ * @author Mark
+ */
+final class DoubleInverseKernel {
+    /** Number of columns in a block. */
+    private static final int NB = 32;
+    /** Number of columns updated together, so that the rows being read stay in cache. */
+    private static final int NC = 256;
+    /** Rows processed by one task. */
+    private static final int ROWS_PER_TASK = 16;
+    /** Updates with fewer multiply-adds than this are done serially. */
+    private static final long PARALLEL_THRESHOLD = 1L<<16;
+
+    private DoubleInverseKernel() {}
+
+    /**
+     * Inverts a square array in place.
+     */
+    static void invert(double[][] a) {
+        final int n = a.length;
+        if(n == 0)
+            return;
+        final int perm[] = new int[n];
+        luDecompose(a, perm);
+        invertUpper(a);
+        solveLower(a);
+        permuteColumns(a, perm);
+    }
+
+    /**
+     * Overwrites a with its LU decomposition, L having an implied unit diagonal.
+     * Rows are swapped by reference.
+     * @param perm filled with the original index of each row
+     * @return the parity of the row permutation
+     */
+    static int luDecompose(final double[][] a, final int[] perm) {
+        final int n = a.length;
+        int parity = 1;
+        for(int i=0; i<n; i++)
+            perm[i] = i;
+        for(int kb=0; kb<n; kb+=NB) {
+            final int k0 = kb;
+            final int k1 = Math.min(k0+NB, n);
+            // factor the panel of columns [k0, k1)
+            for(int j=k0; j<k1; j++) {
+                int p = j;
+                double max = Math.abs(a[j][j]);
+                for(int i=j+1; i<n; i++) {
+                    final double abs = Math.abs(a[i][j]);
+                    if(abs > max) {
+                        max = abs;
+                        p = i;
+                    }
+                }
+                if(p != j) {
+                    final double[] tmp = a[j];
+                    a[j] = a[p];
+                    a[p] = tmp;
+                    final int k = perm[j];
+                    perm[j] = perm[p];
+                    perm[p] = k;
+                    parity = -parity;
+                }
+                final double[] aj = a[j];
+                final double pivot = aj[j];
+                for(int i=j+1; i<n; i++) {
+                    final double[] ai = a[i];
+                    final double lij = ai[j]/pivot;
+                    ai[j] = lij;
+                    for(int c=j+1; c<k1; c++)
+                        ai[c] -= lij*aj[c];
+                }
+            }
+            if(k1 < n) {
+                // U12 = inv(L11) A12
+                for(int j=k0; j<k1; j++) {
+                    final double[] aj = a[j];
+                    for(int i=j+1; i<k1; i++) {
+                        final double[] ai = a[i];
+                        final double lij = ai[j];
+                        for(int c=k1; c<n; c++)
+                            ai[c] -= lij*aj[c];
+                    }
+                }
+                // A22 -= L21 U12
+                forRows(new RowOperation() {
+                    void apply(int rowStart, int rowEnd) {
+                        for(int c0=k1; c0<n; c0+=NC) {
+                            final int c1 = Math.min(c0+NC, n);
+                            for(int i=rowStart; i<rowEnd; i++) {
+                                final double[] ai = a[i];
+                                for(int j=k0; j<k1; j++) {
+                                    final double lij = ai[j];
+                                    if(lij != 0.0) {
+                                        final double[] aj = a[j];
+                                        for(int c=c0; c<c1; c++)
+                                            ai[c] -= lij*aj[c];
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }, k1, n, (long)(n-k1)*(n-k1)*(k1-k0));
+            }
+        }
+        return parity;
+    }
+
+    /**
+     * Replaces the upper triangle U of a by its inverse.
+     * Rows are computed from the bottom up, a block at a time.
+     */
+    static void invertUpper(final double[][] a) {
+        final int n = a.length;
+        final double[][] u = new double[NB][n];
+        for(int ib=n; ib>0; ib-=NB) {
+            final int i1 = ib;
+            final int i0 = Math.max(i1-NB, 0);
+            // move the strictly upper part of the block rows out of the way
+            for(int i=i0; i<i1; i++) {
+                final double[] ai = a[i];
+                final double[] ui = u[i-i0];
+                for(int k=i+1; k<n; k++) {
+                    ui[k] = ai[k];
+                    ai[k] = 0.0;
+                }
+            }
+            // contribution of the rows already inverted
+            if(i1 < n) {
+                forColumns(new RowOperation() {
+                    void apply(int colStart, int colEnd) {
+                        for(int i=i0; i<i1; i++) {
+                            final double[] ai = a[i];
+                            final double[] ui = u[i-i0];
+                            for(int k=i1; k<colEnd; k++) {
+                                final double uik = ui[k];
+                                if(uik != 0.0) {
+                                    final double[] ak = a[k];
+                                    for(int c=Math.max(k, colStart); c<colEnd; c++)
+                                        ai[c] -= uik*ak[c];
+                                }
+                            }
+                        }
+                    }
+                }, i1, n, (long)(i1-i0)*(n-i1)*(n-i1)/2);
+            }
+            // contribution from within the block
+            for(int i=i1-1; i>=i0; i--) {
+                final double[] ai = a[i];
+                final double[] ui = u[i-i0];
+                for(int k=i+1; k<i1; k++) {
+                    final double uik = ui[k];
+                    if(uik != 0.0) {
+                        final double[] ak = a[k];
+                        for(int c=k; c<n; c++)
+                            ai[c] -= uik*ak[c];
+                    }
+                }
+                final double d = 1.0/ai[i];
+                for(int c=i+1; c<n; c++)
+                    ai[c] *= d;
+                ai[i] = d;
+            }
+        }
+    }
+
+    /**
+     * Given inv(U) in the upper triangle and L in the strict lower triangle,
+     * overwrites a with X = inv(U) inv(L), by solving X L = inv(U) a block of columns at a time.
+     */
+    static void solveLower(final double[][] a) {
+        final int n = a.length;
+        // block columns of L, stored by row: lb[k*NB+jj] = L[k][j0+jj]
+        final double[] lb = new double[n*NB];
+        for(int jb=n; jb>0; jb-=NB) {
+            final int j1 = jb;
+            final int j0 = Math.max(j1-NB, 0);
+            final int nb = j1-j0;
+            // move the block columns of L out of the way
+            for(int k=j0+1; k<n; k++) {
+                final double[] ak = a[k];
+                final int end = Math.min(k, j1);
+                for(int j=j0; j<end; j++) {
+                    lb[k*NB+j-j0] = ak[j];
+                    ak[j] = 0.0;
+                }
+            }
+            forRows(new RowOperation() {
+                void apply(int rowStart, int rowEnd) {
+                    // contribution of the columns already solved for, four rows at a time
+                    final double[] s0 = new double[NB];
+                    final double[] s1 = new double[NB];
+                    final double[] s2 = new double[NB];
+                    final double[] s3 = new double[NB];
+                    int i = rowStart;
+                    for(; i+3<rowEnd; i+=4) {
+                        final double[] a0 = a[i];
+                        final double[] a1 = a[i+1];
+                        final double[] a2 = a[i+2];
+                        final double[] a3 = a[i+3];
+                        for(int jj=0; jj<nb; jj++) {
+                            s0[jj] = 0.0;
+                            s1[jj] = 0.0;
+                            s2[jj] = 0.0;
+                            s3[jj] = 0.0;
+                        }
+                        for(int k=j1; k<n; k++) {
+                            final double x0 = a0[k];
+                            final double x1 = a1[k];
+                            final double x2 = a2[k];
+                            final double x3 = a3[k];
+                            final int kb = k*NB;
+                            for(int jj=0; jj<nb; jj++) {
+                                final double l = lb[kb+jj];
+                                s0[jj] += x0*l;
+                                s1[jj] += x1*l;
+                                s2[jj] += x2*l;
+                                s3[jj] += x3*l;
+                            }
+                        }
+                        for(int jj=0; jj<nb; jj++) {
+                            a0[j0+jj] -= s0[jj];
+                            a1[j0+jj] -= s1[jj];
+                            a2[j0+jj] -= s2[jj];
+                            a3[j0+jj] -= s3[jj];
+                        }
+                    }
+                    for(; i<rowEnd; i++) {
+                        final double[] ai = a[i];
+                        for(int jj=0; jj<nb; jj++)
+                            s0[jj] = 0.0;
+                        for(int k=j1; k<n; k++) {
+                            final double x = ai[k];
+                            final int kb = k*NB;
+                            for(int jj=0; jj<nb; jj++)
+                                s0[jj] += x*lb[kb+jj];
+                        }
+                        for(int jj=0; jj<nb; jj++)
+                            ai[j0+jj] -= s0[jj];
+                    }
+                    // contribution from within the block
+                    for(i=rowStart; i<rowEnd; i++) {
+                        final double[] ai = a[i];
+                        for(int j=j1-1; j>=j0; j--) {
+                            double sum = ai[j];
+                            for(int k=j+1; k<j1; k++)
+                                sum -= ai[k]*lb[k*NB+j-j0];
+                            ai[j] = sum;
+                        }
+                    }
+                }
+            }, 0, n, (long)n*(n-j0)*nb);
+        }
+    }
+
+    /**
+     * Moves column j to column perm[j].
+     */
+    static void permuteColumns(final double[][] a, final int[] perm) {
+        final int n = a.length;
+        forRows(new RowOperation() {
+            void apply(int rowStart, int rowEnd) {
+                final double[] tmp = new double[n];
+                for(int i=rowStart; i<rowEnd; i++) {
+                    final double[] ai = a[i];
+                    for(int j=0; j<n; j++)
+                        tmp[perm[j]] = ai[j];
+                    System.arraycopy(tmp, 0, ai, 0, n);
+                }
+            }
+        }, 0, n, (long)n*n);
+    }
+
+    /**
+     * An operation on a range of rows (or columns) that is independent of other ranges.
+     */
+    static abstract class RowOperation {
+        abstract void apply(int start, int end);
+    }
+
+    static void forRows(RowOperation op, int start, int end, long work) {
+        if(work < PARALLEL_THRESHOLD || end-start <= ROWS_PER_TASK)
+            op.apply(start, end);
+        else
+            ForkJoinPool.commonPool().invoke(new RangeTask(op, start, end, ROWS_PER_TASK));
+    }
+    static void forColumns(RowOperation op, int start, int end, long work) {
+        if(work < PARALLEL_THRESHOLD || end-start <= NC)
+            op.apply(start, end);
+        else
+            ForkJoinPool.commonPool().invoke(new RangeTask(op, start, end, NC/4));
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private final RowOperation op;
+        private final int start, end;
+        private final int grain;
+
+        RangeTask(RowOperation op, int start, int end, int grain) {
+            this.op = op;
+            this.start = start;
+            this.end = end;
+            this.grain = grain;
+        }
+        protected void compute() {
+            if(end-start <= grain) {
+                op.apply(start, end);
+            } else {
+                final int mid = (start+end) >>> 1;
+                invokeAll(new RangeTask(op, start, mid, grain),
+                        new RangeTask(op, mid, end, grain));
+            }
+        }
+    }
+}
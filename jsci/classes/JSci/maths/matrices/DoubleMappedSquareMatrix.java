@@ -0,0 +1,145 @@
+package JSci.maths.matrices;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Uses a memory-mapped file as storage.
+ * The file has the same layout as {@link DoubleFileSquareMatrix}
+ * and is mapped in segments of whole rows, so matrices larger than 2GB are supported
+ * and each row can be accessed without copying.
+ * @author Mark
+ */
+public class DoubleMappedSquareMatrix extends AbstractDoubleSquareMatrix {
+    private static final int DOUBLE_BYTE_SIZE = 8;
+    private static final long DEFAULT_SEGMENT_SIZE = 1L<<30;
+    private final RandomAccessFile file;
+    private final int rowsPerSegment;
+    private final MappedByteBuffer[] mappings;
+    private final DoubleBuffer[] segments;
+
+    /**
+     * Maps an existing file, or creates a new one.
+     */
+    public DoubleMappedSquareMatrix(int size, File f) throws IOException {
+        this(size, f, DEFAULT_SEGMENT_SIZE, null);
+    }
+    /**
+     * @param segmentSize maximum number of bytes in each mapping
+     */
+    public DoubleMappedSquareMatrix(int size, File f, long segmentSize) throws IOException {
+        this(size, f, segmentSize, null);
+    }
+    public DoubleMappedSquareMatrix(int size, String filename) throws IOException {
+        this(size, new File(filename));
+    }
+    public DoubleMappedSquareMatrix(int size) throws IOException {
+        this(size, createTempMatrixFile(), DEFAULT_SEGMENT_SIZE, null);
+    }
+    public DoubleMappedSquareMatrix(double[][] array) throws IOException {
+        this(array.length, createTempMatrixFile(), DEFAULT_SEGMENT_SIZE, array);
+    }
+    private static File createTempMatrixFile() throws IOException {
+        File tmp = File.createTempFile("jsci", ".matrix");
+        tmp.deleteOnExit();
+        return tmp;
+    }
+    private DoubleMappedSquareMatrix(int size, File f, long segmentSize, double[][] initArray) throws IOException {
+        super(size);
+        final long rowBytes = size * (long) DOUBLE_BYTE_SIZE;
+        if(rowBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Rows are too long to map: "+size);
+        this.file = new RandomAccessFile(f, "rw");
+        if(rowBytes == 0L) {
+            // empty matrix: nothing to map
+            rowsPerSegment = 1;
+            mappings = new MappedByteBuffer[0];
+            segments = new DoubleBuffer[0];
+            return;
+        }
+        segmentSize = Math.min(segmentSize, Integer.MAX_VALUE);
+        rowsPerSegment = (int) Math.max(1L, Math.min(size, segmentSize/rowBytes));
+        final int numSegments = (size + rowsPerSegment - 1)/rowsPerSegment;
+        mappings = new MappedByteBuffer[numSegments];
+        segments = new DoubleBuffer[numSegments];
+
+        final long length = size * rowBytes;
+        if(file.length() < length)
+            file.setLength(length);
+        FileChannel channel = file.getChannel();
+        for(int s=0; s<numSegments; s++) {
+            final int segRows = Math.min(rowsPerSegment, size - s*rowsPerSegment);
+            mappings[s] = channel.map(FileChannel.MapMode.READ_WRITE, s*rowsPerSegment*rowBytes, segRows*rowBytes);
+            segments[s] = mappings[s].asDoubleBuffer();
+        }
+
+        if(initArray != null) {
+            for(int i=0; i<size; i++)
+                setRow(i, initArray[i]);
+        }
+    }
+
+    public double getElement(int i, int j) {
+        if(i>=0 && i<numRows && j>=0 && j<numCols) {
+            return segments[i/rowsPerSegment].get((i%rowsPerSegment)*numCols + j);
+        } else {
+            throw new MatrixDimensionException(getInvalidElementMsg(i,j));
+        }
+    }
+
+    public void setElement(int i, int j, double x) {
+        if(i>=0 && i<numRows && j>=0 && j<numCols) {
+            segments[i/rowsPerSegment].put((i%rowsPerSegment)*numCols + j, x);
+            luCache = null;
+        } else {
+            throw new MatrixDimensionException(getInvalidElementMsg(i,j));
+        }
+    }
+
+    /**
+     * Returns a view of a row, backed directly by the mapped file.
+     */
+    public DoubleBuffer getRow(int i) {
+        if(i<0 || i>=numRows)
+            throw new MatrixDimensionException(getInvalidElementMsg(i,0));
+        final int offset = (i%rowsPerSegment)*numCols;
+        DoubleBuffer row = segments[i/rowsPerSegment].duplicate();
+        row.limit(offset+numCols);
+        row.position(offset);
+        return row.slice();
+    }
+    /**
+     * Copies a row into an array.
+     */
+    public void getRow(int i, double[] row) {
+        getRow(i).get(row, 0, numCols);
+    }
+    /**
+     * Copies an array into a row.
+     */
+    public void setRow(int i, double[] row) {
+        getRow(i).put(row, 0, numCols);
+        luCache = null;
+    }
+
+    /**
+     * Writes any changes to the file.
+     */
+    public void flush() {
+        for(int s=0; s<mappings.length; s++)
+            mappings[s].force();
+    }
+
+    /**
+     * Writes any changes to the file and closes it.
+     * The matrix must not be used after it has been closed.
+     */
+    public void close() throws IOException {
+        flush();
+        file.close();
+    }
+}
@@ -317,6 +317,9 @@ public class DoubleMatrix extends AbstractDoubleMatrix {
                 if(numCols==m.rows()) {
                         final int mColumns = m.columns();
                         final double array[][]=new double[numRows][mColumns];
+                        if(DoubleMultiplyKernel.isBlocked(numRows, numCols, mColumns))
+                                DoubleMultiplyKernel.multiply(matrix, DoubleMultiplyKernel.toArray(m), array);
+                        else
                         for(int j=0; j<numRows; j++) {
                                 for(int k=0; k<mColumns; k++) {
                                         array[j][k] = matrix[j][0]*m.getElement(0,k);
@@ -335,6 +338,9 @@ public class DoubleMatrix extends AbstractDoubleMatrix {
         public AbstractDoubleMatrix multiply(final DoubleMatrix m) {
                 if(numCols==m.numRows) {
                         final double array[][]=new double[numRows][m.numCols];
+                        if(DoubleMultiplyKernel.isBlocked(numRows, numCols, m.numCols))
+                                DoubleMultiplyKernel.multiply(matrix, m.matrix, array);
+                        else
                         for(int j=0;j<numRows;j++) {
                                 for(int k=0;k<m.numCols;k++) {
                                         array[j][k]=matrix[j][0]*m.matrix[0][k];
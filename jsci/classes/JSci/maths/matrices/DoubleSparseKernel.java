@@ -0,0 +1,431 @@
+package JSci.maths.matrices;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import JSci.GlobalSettings;
+import JSci.maths.vectors.AbstractDoubleVector;
+
+/**
+ * Kernels for matrices in compressed row storage (CSR).
+ * Rows are partitioned so that each task gets a similar number of non-zero elements,
+ * and the partitions are computed in parallel on a fork-join pool.
+ * @author Mark
+ */
+final class DoubleSparseKernel {
+    /**
+     * Matrices with fewer non-zero elements than this are processed by a single thread.
+     */
+    static final int PARALLEL_THRESHOLD = 1<<15;
+
+    /**
+     * Compressed row storage arrays.
+     */
+    static final class CSR {
+        final double elements[];
+        final int colPos[];
+        final int rows[];
+
+        CSR(double elements[], int colPos[], int rows[]) {
+            this.elements = elements;
+            this.colPos = colPos;
+            this.rows = rows;
+        }
+    }
+
+    private DoubleSparseKernel() {}
+
+    /**
+     * Returns the row boundaries of partitions with similar numbers of non-zero elements.
+     * @return an array of length <code>parts+1</code>
+     */
+    static int[] partition(final int rows[], final int numRows) {
+        final int nnz = rows[numRows];
+        int parts = 1;
+        if(nnz >= PARALLEL_THRESHOLD)
+            parts = Math.min(numRows, Math.min(4*ForkJoinPool.getCommonPoolParallelism(), nnz/(PARALLEL_THRESHOLD/2)));
+        parts = Math.max(parts, 1);
+        final int bounds[] = new int[parts+1];
+        for(int p=1; p<parts; p++) {
+            final int target = (int) ((long)p*nnz/parts);
+            // first row starting at or after the target
+            int lo = bounds[p-1], hi = numRows;
+            while(lo < hi) {
+                final int mid = (lo+hi) >>> 1;
+                if(rows[mid] < target)
+                    lo = mid+1;
+                else
+                    hi = mid;
+            }
+            bounds[p] = lo;
+        }
+        bounds[parts] = numRows;
+        return bounds;
+    }
+
+    /**
+     * Returns the compressed row storage of a matrix.
+     * The arrays of a sparse matrix are copied, other matrices are scanned for non-zero elements.
+     */
+    static CSR toCSR(final AbstractDoubleMatrix m) {
+        if(m instanceof DoubleSparseMatrix || m instanceof DoubleSparseSquareMatrix) {
+            final CSR csr = (m instanceof DoubleSparseMatrix) ? ((DoubleSparseMatrix)m).toCSR() : ((DoubleSparseSquareMatrix)m).toCSR();
+            final int nnz = csr.rows[m.rows()];
+            final double elements[] = new double[nnz];
+            final int colPos[] = new int[nnz];
+            final int rows[] = new int[m.rows()+1];
+            System.arraycopy(csr.elements, 0, elements, 0, nnz);
+            System.arraycopy(csr.colPos, 0, colPos, 0, nnz);
+            System.arraycopy(csr.rows, 0, rows, 0, rows.length);
+            return new CSR(elements, colPos, rows);
+        }
+        final int numRows = m.rows();
+        final int numCols = m.columns();
+        final int rows[] = new int[numRows+1];
+        for(int i=0; i<numRows; i++) {
+            int count = 0;
+            for(int j=0; j<numCols; j++) {
+                if(m.getElement(i, j) != 0.0)
+                    count++;
+            }
+            rows[i+1] = rows[i]+count;
+        }
+        final double elements[] = new double[rows[numRows]];
+        final int colPos[] = new int[rows[numRows]];
+        for(int i=0; i<numRows; i++) {
+            int n = rows[i];
+            for(int j=0; j<numCols; j++) {
+                final double x = m.getElement(i, j);
+                if(x != 0.0) {
+                    elements[n] = x;
+                    colPos[n] = j;
+                    n++;
+                }
+            }
+        }
+        return new CSR(elements, colPos, rows);
+    }
+
+    /**
+     * Returns the index of the diagonal element of each row.
+     * @exception IllegalArgumentException If a diagonal element is not stored.
+     */
+    static int[] diagonalIndices(final CSR a, final int numRows) {
+        final int diag[] = new int[numRows];
+        for(int i=0; i<numRows; i++) {
+            diag[i] = -1;
+            for(int n=a.rows[i]; n<a.rows[i+1]; n++) {
+                if(a.colPos[n] == i) {
+                    diag[i] = n;
+                    break;
+                }
+            }
+            if(diag[i] == -1)
+                throw new IllegalArgumentException("Zero diagonal element in row "+i+".");
+        }
+        return diag;
+    }
+
+    /**
+     * Returns the components of a vector as an array.
+     */
+    static double[] toArray(final AbstractDoubleVector v) {
+        final double x[] = new double[v.dimension()];
+        for(int i=0; i<x.length; i++)
+            x[i] = v.getComponent(i);
+        return x;
+    }
+
+    private static void invoke(final RowTask tasks[]) {
+        if(tasks.length == 1)
+            tasks[0].invoke();
+        else
+            ForkJoinTask.invokeAll(tasks);
+    }
+
+    /**
+     * Computes y = A.x.
+     */
+    static void multiply(final double elements[], final int colPos[], final int rows[], final int numRows, final double x[], final double y[]) {
+        final int bounds[] = partition(rows, numRows);
+        final RowTask tasks[] = new RowTask[bounds.length-1];
+        for(int p=0; p<tasks.length; p++) {
+            tasks[p] = new RowTask(bounds[p], bounds[p+1]) {
+                protected void compute() {
+                    for(int i=rowStart; i<rowEnd; i++) {
+                        double tmp = 0.0;
+                        for(int n=rows[i]; n<rows[i+1]; n++)
+                            tmp += elements[n]*x[colPos[n]];
+                        y[i] = tmp;
+                    }
+                }
+            };
+        }
+        invoke(tasks);
+    }
+
+    /**
+     * Computes y = A<sup>T</sup>.x.
+     * Each partition accumulates into its own dense array of length <code>y.length</code>, which are then summed.
+     * If those arrays would hold more elements than the matrix, a single partition is used instead.
+     */
+    static void transposeMultiply(final double elements[], final int colPos[], final int rows[], final int numRows, final double x[], final double y[]) {
+        int bounds[] = partition(rows, numRows);
+        if((bounds.length-2) * (long) y.length > rows[numRows])
+            bounds = new int[] {0, numRows};
+        final int parts = bounds.length-1;
+        final double partials[][] = new double[parts][];
+        partials[0] = y;
+        Arrays.fill(y, 0.0);
+        for(int p=1; p<parts; p++)
+            partials[p] = new double[y.length];
+        final RowTask tasks[] = new RowTask[parts];
+        for(int p=0; p<parts; p++) {
+            final double acc[] = partials[p];
+            tasks[p] = new RowTask(bounds[p], bounds[p+1]) {
+                protected void compute() {
+                    for(int i=rowStart; i<rowEnd; i++) {
+                        final double xi = x[i];
+                        if(xi != 0.0) {
+                            for(int n=rows[i]; n<rows[i+1]; n++)
+                                acc[colPos[n]] += elements[n]*xi;
+                        }
+                    }
+                }
+            };
+        }
+        invoke(tasks);
+        for(int p=1; p<parts; p++) {
+            final double acc[] = partials[p];
+            for(int j=0; j<y.length; j++)
+                y[j] += acc[j];
+        }
+    }
+
+    /**
+     * Computes A.B using Gustavson's algorithm.
+     * A symbolic pass counts the elements of each row of the result,
+     * then a numeric pass accumulates each row in a dense work array.
+     * Elements that are zero within {@link GlobalSettings#ZERO_TOL} are dropped.
+     */
+    static CSR multiply(final CSR a, final int numRows, final CSR b, final int numCols) {
+        final int bounds[] = partition(a.rows, numRows);
+        final int parts = bounds.length-1;
+        final int counts[] = new int[numRows+1];
+        RowTask tasks[] = new RowTask[parts];
+        // symbolic pass
+        for(int p=0; p<parts; p++) {
+            tasks[p] = new RowTask(bounds[p], bounds[p+1]) {
+                protected void compute() {
+                    final int marker[] = new int[numCols];
+                    Arrays.fill(marker, -1);
+                    for(int i=rowStart; i<rowEnd; i++) {
+                        int count = 0;
+                        for(int n=a.rows[i]; n<a.rows[i+1]; n++) {
+                            final int k = a.colPos[n];
+                            for(int m=b.rows[k]; m<b.rows[k+1]; m++) {
+                                final int j = b.colPos[m];
+                                if(marker[j] != i) {
+                                    marker[j] = i;
+                                    count++;
+                                }
+                            }
+                        }
+                        counts[i] = count;
+                    }
+                }
+            };
+        }
+        invoke(tasks);
+        final int offsets[] = new int[numRows+1];
+        for(int i=0; i<numRows; i++)
+            offsets[i+1] = offsets[i]+counts[i];
+        final double elements[] = new double[offsets[numRows]];
+        final int colPos[] = new int[offsets[numRows]];
+        // numeric pass
+        tasks = new RowTask[parts];
+        for(int p=0; p<parts; p++) {
+            tasks[p] = new RowTask(bounds[p], bounds[p+1]) {
+                protected void compute() {
+                    final double acc[] = new double[numCols];
+                    final int marker[] = new int[numCols];
+                    Arrays.fill(marker, -1);
+                    for(int i=rowStart; i<rowEnd; i++) {
+                        final int start = offsets[i];
+                        int end = start;
+                        for(int n=a.rows[i]; n<a.rows[i+1]; n++) {
+                            final int k = a.colPos[n];
+                            final double aik = a.elements[n];
+                            for(int m=b.rows[k]; m<b.rows[k+1]; m++) {
+                                final int j = b.colPos[m];
+                                if(marker[j] != i) {
+                                    marker[j] = i;
+                                    colPos[end++] = j;
+                                    acc[j] = aik*b.elements[m];
+                                } else {
+                                    acc[j] += aik*b.elements[m];
+                                }
+                            }
+                        }
+                        Arrays.sort(colPos, start, end);
+                        int q = start;
+                        for(int n=start; n<end; n++) {
+                            final int j = colPos[n];
+                            if(Math.abs(acc[j]) > GlobalSettings.ZERO_TOL) {
+                                colPos[q] = j;
+                                elements[q] = acc[j];
+                                q++;
+                            }
+                        }
+                        counts[i] = q-start;
+                    }
+                }
+            };
+        }
+        invoke(tasks);
+        // compact
+        final int rows[] = new int[numRows+1];
+        for(int i=0; i<numRows; i++)
+            rows[i+1] = rows[i]+counts[i];
+        if(rows[numRows] == offsets[numRows])
+            return new CSR(elements, colPos, rows);
+        final double ansElements[] = new double[rows[numRows]];
+        final int ansColPos[] = new int[rows[numRows]];
+        for(int i=0; i<numRows; i++) {
+            System.arraycopy(elements, offsets[i], ansElements, rows[i], counts[i]);
+            System.arraycopy(colPos, offsets[i], ansColPos, rows[i], counts[i]);
+        }
+        return new CSR(ansElements, ansColPos, rows);
+    }
+
+    /**
+     * Assembles a matrix from coordinate (COO) triplets.
+     * The triplets are grouped by row with a counting sort (skipped if they are already in row order),
+     * then each row is sorted by column and duplicates summed, in parallel.
+     * Summed elements that are zero within the tolerance are dropped.
+     * @param rowIdx row indices, modified
+     * @param colIdx column indices, modified
+     * @param values element values, modified
+     * @param size number of triplets
+     * @param rowOrdered true if the row indices are non-decreasing
+     */
+    static CSR assemble(final int numRows, int rowIdx[], int colIdx[], double values[], final int size, boolean rowOrdered, final double zeroTol) {
+        final int offsets[] = new int[numRows+1];
+        for(int n=0; n<size; n++)
+            offsets[rowIdx[n]+1]++;
+        for(int i=0; i<numRows; i++)
+            offsets[i+1] += offsets[i];
+        if(!rowOrdered) {
+            final int next[] = new int[numRows];
+            System.arraycopy(offsets, 0, next, 0, numRows);
+            final int sortedCols[] = new int[size];
+            final double sortedValues[] = new double[size];
+            for(int n=0; n<size; n++) {
+                final int q = next[rowIdx[n]]++;
+                sortedCols[q] = colIdx[n];
+                sortedValues[q] = values[n];
+            }
+            colIdx = sortedCols;
+            values = sortedValues;
+        }
+        final int cols[] = colIdx;
+        final double vals[] = values;
+        final int counts[] = new int[numRows];
+        final int bounds[] = partition(offsets, numRows);
+        final RowTask tasks[] = new RowTask[bounds.length-1];
+        for(int p=0; p<tasks.length; p++) {
+            tasks[p] = new RowTask(bounds[p], bounds[p+1]) {
+                protected void compute() {
+                    long keys[] = new long[0];
+                    double tmp[] = new double[0];
+                    for(int i=rowStart; i<rowEnd; i++) {
+                        final int start = offsets[i];
+                        final int end = offsets[i+1];
+                        boolean sorted = true;
+                        for(int n=start+1; n<end && sorted; n++)
+                            sorted = (cols[n-1] <= cols[n]);
+                        if(!sorted) {
+                            // sort by column, keeping the position of each value
+                            final int len = end-start;
+                            if(keys.length < len) {
+                                keys = new long[len];
+                                tmp = new double[len];
+                            }
+                            for(int n=0; n<len; n++)
+                                keys[n] = ((long)cols[start+n] << 32) | n;
+                            Arrays.sort(keys, 0, len);
+                            System.arraycopy(vals, start, tmp, 0, len);
+                            for(int n=0; n<len; n++) {
+                                cols[start+n] = (int) (keys[n] >>> 32);
+                                vals[start+n] = tmp[(int) keys[n]];
+                            }
+                        }
+                        // merge duplicates
+                        int q = start;
+                        int n = start;
+                        while(n < end) {
+                            final int j = cols[n];
+                            double sum = vals[n++];
+                            while(n < end && cols[n] == j)
+                                sum += vals[n++];
+                            if(Math.abs(sum) > zeroTol) {
+                                cols[q] = j;
+                                vals[q] = sum;
+                                q++;
+                            }
+                        }
+                        counts[i] = q-start;
+                    }
+                }
+            };
+        }
+        invoke(tasks);
+        final int rows[] = new int[numRows+1];
+        for(int i=0; i<numRows; i++)
+            rows[i+1] = rows[i]+counts[i];
+        final double elements[] = new double[rows[numRows]];
+        final int colPos[] = new int[rows[numRows]];
+        for(int i=0; i<numRows; i++) {
+            System.arraycopy(vals, offsets[i], elements, rows[i], counts[i]);
+            System.arraycopy(cols, offsets[i], colPos, rows[i], counts[i]);
+        }
+        return new CSR(elements, colPos, rows);
+    }
+
+    /**
+     * Returns the transpose of a matrix, using a counting sort on the columns.
+     */
+    static CSR transpose(final CSR a, final int numRows, final int numCols) {
+        final int nnz = a.rows[numRows];
+        final int rows[] = new int[numCols+1];
+        for(int n=0; n<nnz; n++)
+            rows[a.colPos[n]+1]++;
+        for(int j=0; j<numCols; j++)
+            rows[j+1] += rows[j];
+        final int next[] = new int[numCols];
+        System.arraycopy(rows, 0, next, 0, numCols);
+        final double elements[] = new double[nnz];
+        final int colPos[] = new int[nnz];
+        for(int i=0; i<numRows; i++) {
+            for(int n=a.rows[i]; n<a.rows[i+1]; n++) {
+                final int q = next[a.colPos[n]]++;
+                elements[q] = a.elements[n];
+                colPos[q] = i;
+            }
+        }
+        return new CSR(elements, colPos, rows);
+    }
+
+    /**
+     * Processes the rows [rowStart, rowEnd).
+     */
+    private static abstract class RowTask extends RecursiveAction {
+        protected final int rowStart, rowEnd;
+
+        RowTask(int rowStart, int rowEnd) {
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+        }
+    }
+}
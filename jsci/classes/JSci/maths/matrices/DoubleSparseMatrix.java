@@ -52,6 +52,15 @@ public final class DoubleSparseMatrix extends AbstractDoubleMatrix {
             this.capacityIncrement = capacityIncrement;
         }
         /**
+        * Constructs a matrix from compressed row storage arrays, without copying.
+        */
+        DoubleSparseMatrix(final int rowCount, final int colCount, final DoubleSparseKernel.CSR csr) {
+                super(rowCount, colCount);
+                elements=csr.elements;
+                colPos=csr.colPos;
+                rows=csr.rows;
+        }
+        /**
         * Constructs a matrix from an array.
         * @param array an assigned value
         */
@@ -236,6 +245,12 @@ public final class DoubleSparseMatrix extends AbstractDoubleMatrix {
         public int elementCount() {
             return rows[numRows];
         }
+        /**
+         * Returns the compressed row storage arrays, without copying.
+         */
+        DoubleSparseKernel.CSR toCSR() {
+            return new DoubleSparseKernel.CSR(elements, colPos, rows);
+        }
         /**
         * Returns the l<sup><img border=0 alt="infinity" src="doc-files/infinity.gif"></sup>-norm.
         */
@@ -454,10 +469,32 @@ public final class DoubleSparseMatrix extends AbstractDoubleMatrix {
                     return multiply((DoubleSparseVector)v);
                 if(numCols==v.dimension()) {
                         final double array[]=new double[numRows];
-                        for(int i=0;i<numRows;i++) {
-                                for(int j=rows[i];j<rows[i+1];j++)
-                                        array[i]+=elements[j]*v.getComponent(colPos[j]);
-                        }
+                        DoubleSparseKernel.multiply(elements,colPos,rows,numRows,DoubleSparseKernel.toArray(v),array);
+                        return new DoubleVector(array);
+                } else
+                        throw new DimensionException("Matrix and vector are incompatible.");
+        }
+        /**
+        * Computes y = this.x into a caller-supplied array, without allocating a result vector.
+        * @param x an array of length <code>columns()</code>
+        * @param y an array of length <code>rows()</code>, overwritten with the result
+        * @exception DimensionException If the matrix and arrays are incompatible.
+        */
+        public void multiply(final double x[], final double y[]) {
+                if(numCols==x.length && numRows==y.length)
+                        DoubleSparseKernel.multiply(elements,colPos,rows,numRows,x,y);
+                else
+                        throw new DimensionException("Matrix and arrays are incompatible.");
+        }
+        /**
+        * Returns the multiplication of a vector by the transpose of this matrix.
+        * @param v a double vector
+        * @exception DimensionException If the matrix and vector are incompatible.
+        */
+        public AbstractDoubleVector transposeMultiply(final AbstractDoubleVector v) {
+                if(numRows==v.dimension()) {
+                        final double array[]=new double[numCols];
+                        DoubleSparseKernel.transposeMultiply(elements,colPos,rows,numRows,DoubleSparseKernel.toArray(v),array);
                         return new DoubleVector(array);
                 } else
                         throw new DimensionException("Matrix and vector are incompatible.");
@@ -489,6 +526,8 @@ public final class DoubleSparseMatrix extends AbstractDoubleMatrix {
         public AbstractDoubleMatrix multiply(final AbstractDoubleMatrix m) {
                 if(m instanceof DoubleSparseMatrix)
                         return multiply((DoubleSparseMatrix)m);
+                if(m instanceof DoubleSparseSquareMatrix)
+                        return multiply(((DoubleSparseSquareMatrix)m).toCSR(),m.numRows,m.numCols);
                 if(m instanceof DoubleMatrix)
                         return multiply((DoubleMatrix)m);
 
@@ -529,21 +568,15 @@ public final class DoubleSparseMatrix extends AbstractDoubleMatrix {
         * @exception MatrixDimensionException If the matrices are incompatible.
         */
         public AbstractDoubleMatrix multiply(final DoubleSparseMatrix m) {
-                if(numCols==m.numRows) {
-                        AbstractDoubleMatrix ans;
-                        if(numRows==m.numCols)
-                                ans=new DoubleSparseSquareMatrix(numRows);
+                return multiply(m.toCSR(),m.numRows,m.numCols);
+        }
+        private AbstractDoubleMatrix multiply(final DoubleSparseKernel.CSR m, final int mRows, final int mCols) {
+                if(numCols==mRows) {
+                        final DoubleSparseKernel.CSR ans=DoubleSparseKernel.multiply(toCSR(),numRows,m,mCols);
+                        if(numRows==mCols)
+                                return new DoubleSparseSquareMatrix(numRows,ans);
                         else
-                                ans=new DoubleSparseMatrix(numRows,m.numCols);
-                        for(int j=0;j<ans.numRows;j++) {
-                                for(int k=0;k<ans.numCols;k++) {
-                                        double tmp=0.0;
-                                        for(int n=rows[j];n<rows[j+1];n++)
-                                                tmp+=elements[n]*m.getElement(colPos[n],k);
-                                        ans.setElement(j,k,tmp);
-                                }
-                        }
-                        return ans;
+                                return new DoubleSparseMatrix(numRows,mCols,ans);
                 } else
                         throw new MatrixDimensionException("Incompatible matrices.");
         }
@@ -555,13 +588,7 @@ public final class DoubleSparseMatrix extends AbstractDoubleMatrix {
         * @return a double sparse matrix
         */
         public Matrix transpose() {
-                final DoubleSparseMatrix ans=new DoubleSparseMatrix(numCols,numRows);
-                for(int i=0;i<numRows;i++) {
-                        ans.setElement(0,i,getElement(i,0));
-                        for(int j=1;j<numCols;j++)
-                                ans.setElement(j,i,getElement(i,j));
-                }
-                return ans;
+                return new DoubleSparseMatrix(numCols,numRows,DoubleSparseKernel.transpose(toCSR(),numRows,numCols));
         }
 
 // MAP ELEMENTS
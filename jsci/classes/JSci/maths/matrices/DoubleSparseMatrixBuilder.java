@@ -0,0 +1,165 @@
+package JSci.maths.matrices;
+
+import JSci.GlobalSettings;
+
+/**
+* The DoubleSparseMatrixBuilder class assembles sparse matrices in bulk.
+* Elements are collected as coordinate (COO) triplets, in any order,
+* and duplicates are summed when the matrix is built.
+* Rows can also be appended one at a time, as in finite element assembly,
+* in which case the triplets do not need to be grouped by row.
+* This avoids the cost of inserting elements one at a time with <code>setElement</code>.
+* @version 1.0
+* @author Mark Hale
+*/
+public final class DoubleSparseMatrixBuilder {
+        private final int numRows;
+        private final int numCols;
+        private int rowIdx[];
+        private int colIdx[];
+        private double values[];
+        private int size;
+        /**
+        * Index of the last row added to.
+        */
+        private int lastRow = -1;
+        /**
+        * True if the triplets have non-decreasing row indices.
+        */
+        private boolean rowOrdered = true;
+
+        /**
+        * Constructs a builder.
+        * @param rowCount the number of rows
+        * @param colCount the number of columns
+        */
+        public DoubleSparseMatrixBuilder(final int rowCount, final int colCount) {
+                this(rowCount, colCount, 16);
+        }
+        /**
+        * Constructs a builder.
+        * @param rowCount the number of rows
+        * @param colCount the number of columns
+        * @param capacity the expected number of elements
+        */
+        public DoubleSparseMatrixBuilder(final int rowCount, final int colCount, final int capacity) {
+                numRows = rowCount;
+                numCols = colCount;
+                rowIdx = new int[Math.max(capacity, 1)];
+                colIdx = new int[rowIdx.length];
+                values = new double[rowIdx.length];
+        }
+        /**
+        * Returns the number of rows.
+        */
+        public int rows() {
+                return numRows;
+        }
+        /**
+        * Returns the number of columns.
+        */
+        public int columns() {
+                return numCols;
+        }
+        /**
+        * Returns the number of elements added so far, including duplicates.
+        */
+        public int size() {
+                return size;
+        }
+        private void ensureCapacity(final int capacity) {
+                if(capacity > rowIdx.length) {
+                        final int newLength = Math.max(capacity, 2*rowIdx.length);
+                        final int oldRowIdx[] = rowIdx;
+                        final int oldColIdx[] = colIdx;
+                        final double oldValues[] = values;
+                        rowIdx = new int[newLength];
+                        colIdx = new int[newLength];
+                        values = new double[newLength];
+                        System.arraycopy(oldRowIdx, 0, rowIdx, 0, size);
+                        System.arraycopy(oldColIdx, 0, colIdx, 0, size);
+                        System.arraycopy(oldValues, 0, values, 0, size);
+                }
+        }
+        /**
+        * Adds a value to an element.
+        * @param i row index of the element
+        * @param j column index of the element
+        * @param x a number
+        * @exception MatrixDimensionException If attempting to access an invalid element.
+        */
+        public void addElement(final int i, final int j, final double x) {
+                if(i>=0 && i<numRows && j>=0 && j<numCols) {
+                        ensureCapacity(size+1);
+                        rowIdx[size] = i;
+                        colIdx[size] = j;
+                        values[size] = x;
+                        size++;
+                        if(i < lastRow)
+                                rowOrdered = false;
+                        else
+                                lastRow = i;
+                } else
+                        throw new MatrixDimensionException("Invalid element ("+i+","+j+").");
+        }
+        /**
+        * Appends the next row, the one after the last row added to.
+        * The columns can be in any order, and duplicates are summed.
+        * @param cols column indices of the elements
+        * @param x values of the elements
+        * @param count number of elements
+        * @return the index of the row
+        * @exception MatrixDimensionException If there are no more rows or a column index is invalid.
+        */
+        public int appendRow(final int cols[], final double x[], final int count) {
+                final int i = lastRow+1;
+                if(i >= numRows)
+                        throw new MatrixDimensionException("All "+numRows+" rows have been added.");
+                ensureCapacity(size+count);
+                for(int n=0; n<count; n++) {
+                        final int j = cols[n];
+                        if(j<0 || j>=numCols)
+                                throw new MatrixDimensionException("Invalid element ("+i+","+j+").");
+                        rowIdx[size+n] = i;
+                        colIdx[size+n] = j;
+                        values[size+n] = x[n];
+                }
+                size += count;
+                lastRow = i;
+                return i;
+        }
+        /**
+        * Appends the next row, the one after the last row added to.
+        * @return the index of the row
+        */
+        public int appendRow(final int cols[], final double x[]) {
+                return appendRow(cols, x, cols.length);
+        }
+        /**
+        * Builds the matrix and empties this builder.
+        * Elements that sum to zero (within {@link GlobalSettings#ZERO_TOL}) are not stored.
+        */
+        public DoubleSparseMatrix toMatrix() {
+                return new DoubleSparseMatrix(numRows, numCols, assemble());
+        }
+        /**
+        * Builds a square matrix and empties this builder.
+        * Elements that sum to zero (within {@link GlobalSettings#ZERO_TOL}) are not stored.
+        * @exception MatrixDimensionException If the builder is not square.
+        */
+        public DoubleSparseSquareMatrix toSquareMatrix() {
+                if(numRows != numCols)
+                        throw new MatrixDimensionException("Matrix is not square.");
+                return new DoubleSparseSquareMatrix(numRows, assemble());
+        }
+        private DoubleSparseKernel.CSR assemble() {
+                final DoubleSparseKernel.CSR csr = DoubleSparseKernel.assemble(numRows, rowIdx, colIdx, values, size, rowOrdered, GlobalSettings.ZERO_TOL);
+                rowIdx = new int[1];
+                colIdx = new int[1];
+                values = new double[1];
+                size = 0;
+                lastRow = -1;
+                rowOrdered = true;
+                return csr;
+        }
+}
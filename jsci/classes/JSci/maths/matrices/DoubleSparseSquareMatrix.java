@@ -51,6 +51,15 @@ public final class DoubleSparseSquareMatrix extends AbstractDoubleSquareMatrix {
             this.capacityIncrement = capacityIncrement;
         }
         /**
+        * Constructs a matrix from compressed row storage arrays, without copying.
+        */
+        DoubleSparseSquareMatrix(final int size, final DoubleSparseKernel.CSR csr) {
+                super(size);
+                elements=csr.elements;
+                colPos=csr.colPos;
+                rows=csr.rows;
+        }
+        /**
         * Constructs a matrix from an array.
         * @param array an assigned value
         * @exception MatrixDimensionException If the array is not square.
@@ -236,6 +245,12 @@ public final class DoubleSparseSquareMatrix extends AbstractDoubleSquareMatrix {
         public int elementCount() {
             return rows[numRows];
         }
+        /**
+         * Returns the compressed row storage arrays, without copying.
+         */
+        DoubleSparseKernel.CSR toCSR() {
+            return new DoubleSparseKernel.CSR(elements, colPos, rows);
+        }
         /**
         * Returns the determinant.
         */
@@ -474,10 +489,32 @@ public final class DoubleSparseSquareMatrix extends AbstractDoubleSquareMatrix {
                     return multiply((DoubleSparseVector)v);
                 if(numCols==v.dimension()) {
                         final double array[]=new double[numRows];
-                        for(int i=0;i<numRows;i++) {
-                                for(int j=rows[i];j<rows[i+1];j++)
-                                        array[i]+=elements[j]*v.getComponent(colPos[j]);
-                        }
+                        DoubleSparseKernel.multiply(elements,colPos,rows,numRows,DoubleSparseKernel.toArray(v),array);
+                        return new DoubleVector(array);
+                } else
+                        throw new DimensionException("Matrix and vector are incompatible.");
+        }
+        /**
+        * Computes y = this.x into a caller-supplied array, without allocating a result vector.
+        * @param x an array of length <code>columns()</code>
+        * @param y an array of length <code>rows()</code>, overwritten with the result
+        * @exception DimensionException If the matrix and arrays are incompatible.
+        */
+        public void multiply(final double x[], final double y[]) {
+                if(numCols==x.length && numRows==y.length)
+                        DoubleSparseKernel.multiply(elements,colPos,rows,numRows,x,y);
+                else
+                        throw new DimensionException("Matrix and arrays are incompatible.");
+        }
+        /**
+        * Returns the multiplication of a vector by the transpose of this matrix.
+        * @param v a double vector
+        * @exception DimensionException If the matrix and vector are incompatible.
+        */
+        public AbstractDoubleVector transposeMultiply(final AbstractDoubleVector v) {
+                if(numRows==v.dimension()) {
+                        final double array[]=new double[numCols];
+                        DoubleSparseKernel.transposeMultiply(elements,colPos,rows,numRows,DoubleSparseKernel.toArray(v),array);
                         return new DoubleVector(array);
                 } else
                         throw new DimensionException("Matrix and vector are incompatible.");
@@ -544,16 +581,7 @@ public final class DoubleSparseSquareMatrix extends AbstractDoubleSquareMatrix {
         */
         public DoubleSparseSquareMatrix multiply(final DoubleSparseSquareMatrix m) {
                 if(numCols==m.numRows) {
-                        DoubleSparseSquareMatrix ans=new DoubleSparseSquareMatrix(numRows);
-                        for(int j=0;j<numRows;j++) {
-                                for(int k=0;k<numCols;k++) {
-                                        double tmp=0.0;
-                                        for(int n=rows[j];n<rows[j+1];n++)
-                                                tmp+=elements[n]*m.getElement(colPos[n],k);
-                                        ans.setElement(j,k,tmp);
-                                }
-                        }
-                        return ans;
+                        return new DoubleSparseSquareMatrix(numRows,DoubleSparseKernel.multiply(toCSR(),numRows,m.toCSR(),m.numCols));
                 } else
                         throw new MatrixDimensionException("Incompatible matrices.");
         }
@@ -565,13 +593,7 @@ public final class DoubleSparseSquareMatrix extends AbstractDoubleSquareMatrix {
         * @return a double sparse matrix
         */
         public Matrix transpose() {
-                final DoubleSparseSquareMatrix ans=new DoubleSparseSquareMatrix(numRows);
-                for(int i=0;i<numRows;i++) {
-                        ans.setElement(0,i,getElement(i,0));
-                        for(int j=1;j<numCols;j++)
-                                ans.setElement(j,i,getElement(i,j));
-                }
-                return ans;
+                return new DoubleSparseSquareMatrix(numRows,DoubleSparseKernel.transpose(toCSR(),numRows,numCols));
         }
 
 // LU DECOMPOSITION
@@ -376,6 +376,9 @@ public class DoubleSquareMatrix extends AbstractDoubleSquareMatrix {
                 if(numCols==m.rows()) {
                         final int mColumns = m.columns();
                         final double array[][]=new double[numRows][mColumns];
+                        if(DoubleMultiplyKernel.isBlocked(numRows, numCols, mColumns))
+                                DoubleMultiplyKernel.multiply(matrix, DoubleMultiplyKernel.toArray(m), array);
+                        else
                         for(int j=0; j<numRows; j++) {
                                 for(int k=0; k<mColumns; k++) {
                                         array[j][k] = matrix[j][0]*m.getElement(0,k);
@@ -391,6 +394,9 @@ public class DoubleSquareMatrix extends AbstractDoubleSquareMatrix {
         public DoubleSquareMatrix multiply(final DoubleSquareMatrix m) {
                 if(numCols==m.numRows) {
                         final double array[][]=new double[numRows][m.numCols];
+                        if(DoubleMultiplyKernel.isBlocked(numRows, numCols, m.numCols))
+                                DoubleMultiplyKernel.multiply(matrix, m.matrix, array);
+                        else
                         for(int j=0;j<numRows;j++) {
                                 for(int k=0;k<m.numCols;k++) {
                                         array[j][k]=matrix[j][0]*m.matrix[0][k];
@@ -459,43 +465,19 @@ public class DoubleSquareMatrix extends AbstractDoubleSquareMatrix {
 
         /**
         * Returns the inverse of this matrix.
+        * The inverse is computed by a blocked LU-based algorithm, in place in a single array.
+        * To solve a linear system, {@link JSci.maths.LinearMath#solve(AbstractDoubleSquareMatrix,JSci.maths.vectors.AbstractDoubleVector) LinearMath.solve}
+        * is faster and more accurate than multiplying by the inverse.
         * @return a double square matrix.
         */
         public AbstractDoubleSquareMatrix inverse() {
                 final int N=numRows;
-                final double arrayL[][]=new double[N][N];
-                final double arrayU[][]=new double[N][N];
-                final int[] luPivot = new int[numRows+1];
-                final DoubleSquareMatrix lu[] = (DoubleSquareMatrix[]) this.luDecompose(luPivot);
-                arrayL[0][0]=1.0/lu[0].matrix[0][0];
-                arrayU[0][0]=1.0/lu[1].matrix[0][0];
-                for(int i=1;i<N;i++) {
-                        arrayL[i][i]=1.0/lu[0].matrix[i][i];
-                        arrayU[i][i]=1.0/lu[1].matrix[i][i];
-                }
-                for(int i=0;i<N-1;i++) {
-                        for(int j=i+1;j<N;j++) {
-                                double tmpL=0.0, tmpU=0.0;
-                                for(int k=i;k<j;k++) {
-                                        tmpL-=lu[0].matrix[j][k]*arrayL[k][i];
-                                        tmpU-=arrayU[i][k]*lu[1].matrix[k][j];
-                                }
-                                arrayL[j][i]=tmpL/lu[0].matrix[j][j];
-                                arrayU[i][j]=tmpU/lu[1].matrix[j][j];
-                        }
-                }
-                // matrix multiply arrayU x arrayL
                 final double inv[][]=new double[N][N];
                 for(int i=0;i<N;i++) {
-                        for(int j=0;j<i;j++) {
-                                for(int k=i;k<N;k++)
-                                        inv[i][luPivot[j]]+=arrayU[i][k]*arrayL[k][j];
-                        }
-                        for(int j=i;j<N;j++) {
-                                for(int k=j;k<N;k++)
-                                        inv[i][luPivot[j]]+=arrayU[i][k]*arrayL[k][j];
-                        }
+                        for(int j=0;j<N;j++)
+                                inv[i][j]=matrix[i][j];
                 }
+                DoubleInverseKernel.invert(inv);
                 return new DoubleSquareMatrix(inv);
         }
 
@@ -0,0 +1,89 @@
+package JSci.maths.matrices;
+
+/**
+* The incomplete Cholesky preconditioner with no fill-in, IC(0).
+* The factor L has the same sparsity pattern as the lower triangle of A,
+* which must be symmetric and positive definite.
+* @version 1.0
+* @author Mark Hale
+*/
+public final class IC0Preconditioner implements Preconditioner {
+        private final int n;
+        /**
+        * Lower triangle in compressed row storage, the diagonal is the last element of each row.
+        */
+        private final double elements[];
+        private final int colPos[];
+        private final int rows[];
+
+        /**
+        * Constructs an IC(0) preconditioner.
+        * Only the lower triangle of A is used.
+        * @param A a symmetric positive definite matrix, preferably a DoubleSparseMatrix or DoubleSparseSquareMatrix
+        * @exception IllegalArgumentException If a non-positive pivot is encountered.
+        */
+        public IC0Preconditioner(final AbstractDoubleMatrix A) {
+                if(A.rows() != A.columns())
+                        throw new MatrixDimensionException("Matrix is not square.");
+                n=A.rows();
+                final DoubleSparseKernel.CSR csr=DoubleSparseKernel.toCSR(A);
+                final int diag[]=DoubleSparseKernel.diagonalIndices(csr,n);
+                // extract the lower triangle
+                rows=new int[n+1];
+                for(int i=0;i<n;i++)
+                        rows[i+1]=rows[i]+diag[i]-csr.rows[i]+1;
+                elements=new double[rows[n]];
+                colPos=new int[rows[n]];
+                for(int i=0;i<n;i++) {
+                        final int len=diag[i]-csr.rows[i]+1;
+                        System.arraycopy(csr.elements,csr.rows[i],elements,rows[i],len);
+                        System.arraycopy(csr.colPos,csr.rows[i],colPos,rows[i],len);
+                }
+                factorize();
+        }
+        private void factorize() {
+                for(int i=0;i<n;i++) {
+                        final int d=rows[i+1]-1;
+                        for(int p=rows[i];p<d;p++) {
+                                final int k=colPos[p];
+                                // sparse dot product of rows i and k over columns < k
+                                double sum=elements[p];
+                                int a=rows[i], b=rows[k];
+                                final int bEnd=rows[k+1]-1;
+                                while(a<p && b<bEnd) {
+                                        if(colPos[a]==colPos[b])
+                                                sum-=elements[a++]*elements[b++];
+                                        else if(colPos[a]<colPos[b])
+                                                a++;
+                                        else
+                                                b++;
+                                }
+                                elements[p]=sum/elements[bEnd];
+                        }
+                        double sum=elements[d];
+                        for(int p=rows[i];p<d;p++)
+                                sum-=elements[p]*elements[p];
+                        if(sum<=0.0)
+                                throw new IllegalArgumentException("Non-positive pivot in row "+i+".");
+                        elements[d]=Math.sqrt(sum);
+                }
+        }
+        public void solve(final double r[], final double z[]) {
+                // forward substitution: L y = r
+                for(int i=0;i<n;i++) {
+                        final int d=rows[i+1]-1;
+                        double sum=r[i];
+                        for(int k=rows[i];k<d;k++)
+                                sum-=elements[k]*z[colPos[k]];
+                        z[i]=sum/elements[d];
+                }
+                // back substitution: L^T z = y
+                for(int i=n-1;i>=0;i--) {
+                        final int d=rows[i+1]-1;
+                        final double zi=z[i]/elements[d];
+                        z[i]=zi;
+                        for(int k=rows[i];k<d;k++)
+                                z[colPos[k]]-=elements[k]*zi;
+                }
+        }
+}
@@ -0,0 +1,73 @@
+package JSci.maths.matrices;
+
+/**
+* The incomplete LU preconditioner with no fill-in, ILU(0).
+* The factors L (unit lower) and U have the same sparsity pattern as A
+* and are stored together in compressed row storage.
+* @version 1.0
+* @author Mark Hale
+*/
+public final class ILU0Preconditioner implements Preconditioner {
+        private final int n;
+        private final double elements[];
+        private final int colPos[];
+        private final int rows[];
+        private final int diag[];
+
+        /**
+        * Constructs an ILU(0) preconditioner.
+        * @param A a square matrix, preferably a DoubleSparseMatrix or DoubleSparseSquareMatrix
+        * @exception IllegalArgumentException If a zero pivot is encountered.
+        */
+        public ILU0Preconditioner(final AbstractDoubleMatrix A) {
+                if(A.rows() != A.columns())
+                        throw new MatrixDimensionException("Matrix is not square.");
+                n=A.rows();
+                final DoubleSparseKernel.CSR csr=DoubleSparseKernel.toCSR(A);
+                elements=csr.elements;
+                colPos=csr.colPos;
+                rows=csr.rows;
+                diag=DoubleSparseKernel.diagonalIndices(csr,n);
+                factorize();
+        }
+        private void factorize() {
+                // position of each column in the current row, or -1
+                final int pos[]=new int[n];
+                for(int j=0;j<n;j++)
+                        pos[j]=-1;
+                for(int i=0;i<n;i++) {
+                        for(int p=rows[i];p<rows[i+1];p++)
+                                pos[colPos[p]]=p;
+                        for(int p=rows[i];p<diag[i];p++) {
+                                final int k=colPos[p];
+                                final double l=elements[p]/elements[diag[k]];
+                                elements[p]=l;
+                                for(int q=diag[k]+1;q<rows[k+1];q++) {
+                                        final int jp=pos[colPos[q]];
+                                        if(jp!=-1)
+                                                elements[jp]-=l*elements[q];
+                                }
+                        }
+                        if(elements[diag[i]]==0.0)
+                                throw new IllegalArgumentException("Zero pivot in row "+i+".");
+                        for(int p=rows[i];p<rows[i+1];p++)
+                                pos[colPos[p]]=-1;
+                }
+        }
+        public void solve(final double r[], final double z[]) {
+                // forward substitution: L y = r
+                for(int i=0;i<n;i++) {
+                        double sum=r[i];
+                        for(int k=rows[i];k<diag[i];k++)
+                                sum-=elements[k]*z[colPos[k]];
+                        z[i]=sum;
+                }
+                // back substitution: U z = y
+                for(int i=n-1;i>=0;i--) {
+                        double sum=z[i];
+                        for(int k=diag[i]+1;k<rows[i+1];k++)
+                                sum-=elements[k]*z[colPos[k]];
+                        z[i]=sum/elements[diag[i]];
+                }
+        }
+}
@@ -0,0 +1,31 @@
+package JSci.maths.matrices;
+
+/**
+* The Jacobi (diagonal) preconditioner, M = diag(A).
+* @version 1.0
+* @author Mark Hale
+*/
+public final class JacobiPreconditioner implements Preconditioner {
+        private final double invDiag[];
+
+        /**
+        * Constructs a Jacobi preconditioner.
+        * @param A a square matrix
+        * @exception IllegalArgumentException If a diagonal element is zero.
+        */
+        public JacobiPreconditioner(final AbstractDoubleMatrix A) {
+                if(A.rows() != A.columns())
+                        throw new MatrixDimensionException("Matrix is not square.");
+                invDiag=new double[A.rows()];
+                for(int i=0;i<invDiag.length;i++) {
+                        final double d=A.getElement(i,i);
+                        if(d==0.0)
+                                throw new IllegalArgumentException("Zero diagonal element in row "+i+".");
+                        invDiag[i]=1.0/d;
+                }
+        }
+        public void solve(final double r[], final double z[]) {
+                for(int i=0;i<invDiag.length;i++)
+                        z[i]=r[i]*invDiag[i];
+        }
+}
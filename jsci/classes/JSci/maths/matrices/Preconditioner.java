@@ -0,0 +1,18 @@
+package JSci.maths.matrices;
+
+/**
+* This interface defines a preconditioner M for iterative linear solvers.
+* M approximates a matrix A, and systems Mz=r are cheap to solve.
+* @see JSci.maths.LinearMath#solvePCG
+* @version 1.0
+* @author Mark Hale
+*/
+public interface Preconditioner {
+        /**
+        * Solves Mz=r.
+        * Implementations must not allocate, so they can be called every iteration.
+        * @param r the right-hand side
+        * @param z an array overwritten with the solution (may be the same array as r)
+        */
+        void solve(double r[], double z[]);
+}
@@ -0,0 +1,58 @@
+package JSci.maths.matrices;
+
+/**
+* The symmetric successive over-relaxation (SSOR) preconditioner,
+* M = (D/&omega;+L) (D/&omega;)<sup>-1</sup> (D/&omega;+U) &omega;/(2-&omega;),
+* where D, L and U are the diagonal, strictly lower and strictly upper parts of A.
+* Works directly on compressed row storage.
+* @version 1.0
+* @author Mark Hale
+*/
+public final class SSORPreconditioner implements Preconditioner {
+        private final int n;
+        private final double elements[];
+        private final int colPos[];
+        private final int rows[];
+        private final int diag[];
+        private final double omega;
+
+        /**
+        * Constructs an SSOR preconditioner.
+        * @param A a square matrix, preferably a DoubleSparseMatrix or DoubleSparseSquareMatrix
+        * @param omega the relaxation parameter (0 &lt; omega &lt; 2), 1 gives symmetric Gauss-Seidel
+        * @exception IllegalArgumentException If a diagonal element is zero.
+        */
+        public SSORPreconditioner(final AbstractDoubleMatrix A, final double omega) {
+                if(A.rows() != A.columns())
+                        throw new MatrixDimensionException("Matrix is not square.");
+                if(omega<=0.0 || omega>=2.0)
+                        throw new IllegalArgumentException("Relaxation parameter must be between 0 and 2: "+omega+".");
+                n=A.rows();
+                final DoubleSparseKernel.CSR csr=DoubleSparseKernel.toCSR(A);
+                elements=csr.elements;
+                colPos=csr.colPos;
+                rows=csr.rows;
+                diag=DoubleSparseKernel.diagonalIndices(csr,n);
+                this.omega=omega;
+        }
+        public void solve(final double r[], final double z[]) {
+                // forward sweep: (D/omega+L) y = r
+                for(int i=0;i<n;i++) {
+                        double sum=r[i];
+                        for(int k=rows[i];k<diag[i];k++)
+                                sum-=elements[k]*z[colPos[k]];
+                        z[i]=sum*omega/elements[diag[i]];
+                }
+                // scale: y <- (2-omega)/omega D/omega y
+                final double scale=(2.0-omega)/omega;
+                for(int i=0;i<n;i++)
+                        z[i]*=scale*elements[diag[i]]/omega;
+                // backward sweep: (D/omega+U) z = y
+                for(int i=n-1;i>=0;i--) {
+                        double sum=z[i];
+                        for(int k=diag[i]+1;k<rows[i+1];k++)
+                                sum-=elements[k]*z[colPos[k]];
+                        z[i]=sum*omega/elements[diag[i]];
+                }
+        }
+}
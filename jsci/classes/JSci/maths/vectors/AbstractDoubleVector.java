@@ -155,5 +155,95 @@ public abstract class AbstractDoubleVector extends MathVector implements BanachS
         * @return a double vector.
         */
         public abstract AbstractDoubleVector mapComponents(final Mapping f);
+
+//=====================
+// IN-PLACE OPERATIONS
+//=====================
+
+        /**
+        * Sets this vector to the values of another (this = v).
+        * @param v a double vector.
+        * @return this vector.
+        * @exception VectorDimensionException If the vectors are different sizes.
+        */
+        public AbstractDoubleVector set(final AbstractDoubleVector v) {
+                checkDimension(v);
+                for(int i=0; i<N; i++)
+                        setComponent(i, v.getComponent(i));
+                return this;
+        }
+        /**
+        * Adds a multiple of another vector to this vector (this += a*x).
+        * @param a a double.
+        * @param x a double vector.
+        * @return this vector.
+        * @exception VectorDimensionException If the vectors are different sizes.
+        */
+        public AbstractDoubleVector axpy(final double a, final AbstractDoubleVector x) {
+                checkDimension(x);
+                for(int i=0; i<N; i++)
+                        setComponent(i, getComponent(i) + a*x.getComponent(i));
+                return this;
+        }
+        /**
+        * Sets this vector to a linear combination of another vector and itself (this = a*x + b*this).
+        * @param a a double.
+        * @param x a double vector.
+        * @param b a double.
+        * @return this vector.
+        * @exception VectorDimensionException If the vectors are different sizes.
+        */
+        public AbstractDoubleVector axpby(final double a, final AbstractDoubleVector x, final double b) {
+                checkDimension(x);
+                for(int i=0; i<N; i++)
+                        setComponent(i, a*x.getComponent(i) + b*getComponent(i));
+                return this;
+        }
+        /**
+        * Multiplies this vector by a scalar (this = a*this).
+        * @param a a double.
+        * @return this vector.
+        */
+        public AbstractDoubleVector scale(final double a) {
+                for(int i=0; i<N; i++)
+                        setComponent(i, a*getComponent(i));
+                return this;
+        }
+        /**
+        * Returns the scalar product of this vector and another,
+        * together with the square of the l<sup>2</sup>-norm of this vector, in a single pass.
+        * @param v a double vector.
+        * @param result an array of length at least two,
+        * set to the scalar product and the sum of squares, respectively.
+        * @return the scalar product.
+        * @exception VectorDimensionException If the vectors are different sizes.
+        */
+        public double scalarProduct(final AbstractDoubleVector v, final double result[]) {
+                checkDimension(v);
+                double dot = 0.0;
+                double sumSqr = 0.0;
+                for(int i=0; i<N; i++) {
+                        final double x = getComponent(i);
+                        dot += x*v.getComponent(i);
+                        sumSqr += x*x;
+                }
+                result[0] = dot;
+                result[1] = sumSqr;
+                return dot;
+        }
+        /**
+        * Applies a function on all the vector components, replacing them with the result.
+        * @param f a user-defined function.
+        * @return this vector.
+        */
+        public AbstractDoubleVector mapComponentsInPlace(final Mapping f) {
+                for(int i=0; i<N; i++)
+                        setComponent(i, f.map(getComponent(i)));
+                return this;
+        }
+        private void checkDimension(final AbstractDoubleVector v) {
+                if(N != v.N)
+                        throw new VectorDimensionException("Vectors are different sizes.");
+        }
 }
 
@@ -330,5 +330,113 @@ public class DoubleVector extends AbstractDoubleVector {
                         array[i]=f.map(vector[i]);
                 return new DoubleVector(array);
         }
+
+//=====================
+// IN-PLACE OPERATIONS
+//=====================
+
+        /**
+        * Sets this vector to the values of another (this = v).
+        * @param v a double vector.
+        * @return this vector.
+        * @exception VectorDimensionException If the vectors are different sizes.
+        */
+        public AbstractDoubleVector set(final AbstractDoubleVector v) {
+                if(v instanceof DoubleVector) {
+                        if(N==v.N) {
+                                System.arraycopy(((DoubleVector)v).vector,0,vector,0,N);
+                                return this;
+                        } else
+                                throw new VectorDimensionException("Vectors are different sizes.");
+                } else
+                        return super.set(v);
+        }
+        /**
+        * Adds a multiple of another vector to this vector (this += a*x).
+        * @param a a double.
+        * @param x a double vector.
+        * @return this vector.
+        * @exception VectorDimensionException If the vectors are different sizes.
+        */
+        public AbstractDoubleVector axpy(final double a, final AbstractDoubleVector x) {
+                if(x instanceof DoubleVector) {
+                        if(N==x.N) {
+                                final double xv[]=((DoubleVector)x).vector;
+                                for(int i=0;i<N;i++)
+                                        vector[i]+=a*xv[i];
+                                return this;
+                        } else
+                                throw new VectorDimensionException("Vectors are different sizes.");
+                } else
+                        return super.axpy(a,x);
+        }
+        /**
+        * Sets this vector to a linear combination of another vector and itself (this = a*x + b*this).
+        * @param a a double.
+        * @param x a double vector.
+        * @param b a double.
+        * @return this vector.
+        * @exception VectorDimensionException If the vectors are different sizes.
+        */
+        public AbstractDoubleVector axpby(final double a, final AbstractDoubleVector x, final double b) {
+                if(x instanceof DoubleVector) {
+                        if(N==x.N) {
+                                final double xv[]=((DoubleVector)x).vector;
+                                for(int i=0;i<N;i++)
+                                        vector[i]=a*xv[i]+b*vector[i];
+                                return this;
+                        } else
+                                throw new VectorDimensionException("Vectors are different sizes.");
+                } else
+                        return super.axpby(a,x,b);
+        }
+        /**
+        * Multiplies this vector by a scalar (this = a*this).
+        * @param a a double.
+        * @return this vector.
+        */
+        public AbstractDoubleVector scale(final double a) {
+                for(int i=0;i<N;i++)
+                        vector[i]*=a;
+                return this;
+        }
+        /**
+        * Returns the scalar product of this vector and another,
+        * together with the square of the l<sup>2</sup>-norm of this vector, in a single pass.
+        * @param v a double vector.
+        * @param result an array of length at least two,
+        * set to the scalar product and the sum of squares, respectively.
+        * @return the scalar product.
+        * @exception VectorDimensionException If the vectors are different sizes.
+        */
+        public double scalarProduct(final AbstractDoubleVector v, final double result[]) {
+                if(v instanceof DoubleVector) {
+                        if(N==v.N) {
+                                final double vv[]=((DoubleVector)v).vector;
+                                double dot=0.0;
+                                double sumSqr=0.0;
+                                for(int i=0;i<N;i++) {
+                                        final double x=vector[i];
+                                        dot+=x*vv[i];
+                                        sumSqr+=x*x;
+                                }
+                                result[0]=dot;
+                                result[1]=sumSqr;
+                                return dot;
+                        } else
+                                throw new VectorDimensionException("Vectors are different sizes.");
+                } else
+                        return super.scalarProduct(v,result);
+        }
+        /**
+        * Applies a function on all the vector components, replacing them with the result.
+        * @param f a user-defined function.
+        * @return this vector.
+        */
+        public AbstractDoubleVector mapComponentsInPlace(final Mapping f) {
+                for(int i=0;i<N;i++)
+                        vector[i]=f.map(vector[i]);
+                return this;
+        }
 }
 
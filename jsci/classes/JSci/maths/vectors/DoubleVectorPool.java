@@ -0,0 +1,108 @@
+package JSci.maths.vectors;
+
+import java.util.Arrays;
+
+/**
+* The DoubleVectorPool class is a workspace of reusable vectors.
+* Iterative algorithms can acquire their temporary vectors from a pool
+* and release them when done, so that repeated runs do not allocate.
+* This class is not thread-safe.
+* @version 1.0
+* @author Mark Hale
+*/
+public final class DoubleVectorPool {
+        private final int maxPerDimension;
+        /**
+        * Dimensions that have free lists.
+        */
+        private int dims[] = new int[4];
+        /**
+        * Free vectors, one stack per dimension.
+        */
+        private DoubleVector free[][] = new DoubleVector[4][];
+        private int freeCount[] = new int[4];
+        private int numDims;
+
+        /**
+        * Constructs a pool that keeps up to 8 free vectors of each dimension.
+        */
+        public DoubleVectorPool() {
+                this(8);
+        }
+        /**
+        * Constructs a pool.
+        * @param maxPerDimension the maximum number of free vectors of each dimension to keep.
+        */
+        public DoubleVectorPool(final int maxPerDimension) {
+                if(maxPerDimension < 0)
+                        throw new IllegalArgumentException("Maximum must be positive or zero: "+maxPerDimension+" < 0.");
+                this.maxPerDimension = maxPerDimension;
+        }
+        private int indexOf(final int dim) {
+                for(int k=0; k<numDims; k++) {
+                        if(dims[k] == dim)
+                                return k;
+                }
+                return -1;
+        }
+        /**
+        * Returns a vector from this pool, or a new one if none are free.
+        * The components of a reused vector are not cleared.
+        * @param dim the dimension of the vector.
+        */
+        public DoubleVector acquire(final int dim) {
+                final int k = indexOf(dim);
+                if(k != -1 && freeCount[k] > 0) {
+                        final int n = --freeCount[k];
+                        final DoubleVector v = free[k][n];
+                        free[k][n] = null;
+                        return v;
+                } else
+                        return new DoubleVector(dim);
+        }
+        /**
+        * Returns a vector from this pool with all its components set to zero.
+        * @param dim the dimension of the vector.
+        */
+        public DoubleVector acquireZero(final int dim) {
+                final DoubleVector v = acquire(dim);
+                Arrays.fill(v.vector, 0.0);
+                return v;
+        }
+        /**
+        * Returns a vector to this pool.
+        * The vector must not be used after it has been released.
+        * @param v a vector obtained from this pool.
+        */
+        public void release(final DoubleVector v) {
+                int k = indexOf(v.N);
+                if(k == -1) {
+                        if(numDims == dims.length) {
+                                final int oldDims[] = dims;
+                                final DoubleVector oldFree[][] = free;
+                                final int oldFreeCount[] = freeCount;
+                                dims = new int[2*numDims];
+                                free = new DoubleVector[2*numDims][];
+                                freeCount = new int[2*numDims];
+                                System.arraycopy(oldDims, 0, dims, 0, numDims);
+                                System.arraycopy(oldFree, 0, free, 0, numDims);
+                                System.arraycopy(oldFreeCount, 0, freeCount, 0, numDims);
+                        }
+                        k = numDims++;
+                        dims[k] = v.N;
+                        free[k] = new DoubleVector[maxPerDimension];
+                }
+                if(freeCount[k] < maxPerDimension)
+                        free[k][freeCount[k]++] = v;
+        }
+        /**
+        * Discards all free vectors.
+        */
+        public void clear() {
+                for(int k=0; k<numDims; k++) {
+                        free[k] = null;
+                        freeCount[k] = 0;
+                }
+                numDims = 0;
+        }
+}
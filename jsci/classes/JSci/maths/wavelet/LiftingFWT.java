@@ -0,0 +1,702 @@
+package JSci.maths.wavelet;
+
+/*****************************
+* Fast Wavelet Transform by the lifting scheme.
+* A level splits the signal into its even and
+* odd samples and then alternately adds filtered
+* odd samples to the even ones and filtered even
+* samples to the odd ones, ending with a scaling.
+* Everything is done in place, the only extra memory
+* being one workspace of half the signal length
+* which is kept and reused, so that once it has grown
+* no transform allocates anything.
+* <p>
+* Any length is allowed. Since a lifting step is undone by
+* simply subtracting what it added, the inverse is exact
+* whatever is done at the ends. The symmetric filters (CDF2_4,
+* CDF3_5) take the samples beyond the ends by symmetric extension
+* about the first and last samples. The orthogonal filters (Haar,
+* Daubechies, Symmlet8), which have no symmetric extension
+* that keeps the number of coefficients, only rotate the
+* samples whose partner is inside the signal, which keeps
+* the transform orthogonal for any length.
+* <p>
+* A level of length n leaves (n+1)/2 scaling
+* coefficients followed by n/2 wavelet coefficients, so
+* after several levels the array holds the coarsest
+* scaling coefficients followed by the wavelet coefficients
+* from the coarsest level to the finest.
+* <p>
+* The orthogonal filters are factored into rotations which
+* are each done as three lifting steps, the biorthogonal
+* ones use their own short lifting steps. An instance
+* is not thread-safe because of its workspace, use the
+* copy constructor to get one per thread.
+********************************/
+public final class LiftingFWT extends FWT {
+  final static double SQRT2=Math.sqrt(2.0);
+
+  /* target channel of every step, 0 for even and 1 for odd samples */
+  private final int[] parity;
+  /* distance from the target sample to every sample read, in samples */
+  private final int[][] delta;
+  private final double[][] coef;
+  private final float[][] fcoef;
+  private final int[] lo;
+  private final int[] hi;
+  private final double scaling;
+  private final double wavelet;
+  private final float fscaling;
+  private final float fwavelet;
+  /* whether the steps are rotations done three at a time, see orthogonal() */
+  private final boolean rotations;
+
+  private double[] work=new double[0];
+  private float[] fwork=new float[0];
+  private int[] jump;
+
+  /*****************************
+  * @param target channel changed by every step, 0 for the
+  * even samples and 1 for the odd samples.
+  * @param offset for every step, the positions in the other
+  * channel of the samples that are read, relative to the
+  * position in the target channel.
+  * @param c the weights of these samples.
+  * @param scaling the factor the even channel is multiplied by last.
+  * @param wavelet the factor the odd channel is multiplied by last.
+  * @param rotations whether every three steps make a rotation
+  * of pairs of samples, which leaves out the samples beyond the
+  * ends instead of taking them by symmetric extension.
+  ********************************/
+  private LiftingFWT(int[] target,int[][] offset,double[][] c,double scaling,double wavelet,boolean rotations) {
+    int max=0;
+    parity=target;
+    coef=c;
+    delta=new int[target.length][];
+    fcoef=new float[target.length][];
+    lo=new int[target.length];
+    hi=new int[target.length];
+    for(int s=0;s<target.length;s++) {
+      delta[s]=new int[offset[s].length];
+      fcoef[s]=new float[offset[s].length];
+      lo[s]=Integer.MAX_VALUE;
+      hi[s]=Integer.MIN_VALUE;
+      for(int t=0;t<offset[s].length;t++) {
+        delta[s][t]=2*offset[s][t]+1-2*target[s];
+        fcoef[s][t]=(float)c[s][t];
+        lo[s]=Math.min(lo[s],delta[s][t]);
+        hi[s]=Math.max(hi[s],delta[s][t]);
+      }
+      max=Math.max(max,offset[s].length);
+    }
+    this.scaling=scaling;
+    this.wavelet=wavelet;
+    fscaling=(float)scaling;
+    fwavelet=(float)wavelet;
+    this.rotations=rotations;
+    jump=new int[max];
+  }
+
+  /*****************************
+  * Makes a transform with the same filter as fwt
+  * but a workspace of its own.
+  ********************************/
+  public LiftingFWT(LiftingFWT fwt) {
+    parity=fwt.parity;
+    delta=fwt.delta;
+    coef=fwt.coef;
+    fcoef=fwt.fcoef;
+    lo=fwt.lo;
+    hi=fwt.hi;
+    scaling=fwt.scaling;
+    wavelet=fwt.wavelet;
+    fscaling=fwt.fscaling;
+    fwavelet=fwt.fwavelet;
+    rotations=fwt.rotations;
+    jump=new int[fwt.jump.length];
+  }
+
+  /*****************************
+  * Haar wavelet.
+  ********************************/
+  public static LiftingFWT haar() {
+    return(orthogonal(new double[] {1.0/SQRT2,1.0/SQRT2}));
+  }
+
+  /*****************************
+  * Daubechies wavelets with the filters of the
+  * daubechies2 to daubechies8 packages.
+  * @param n the number of vanishing moments, from 2 to 8.
+  ********************************/
+  public static LiftingFWT daubechies(int n) {
+    switch(n) {
+      case 2 : return(orthogonal(DAUBECHIES2));
+      case 3 : return(orthogonal(DAUBECHIES3));
+      case 4 : return(orthogonal(normalize(DAUBECHIES4)));
+      case 5 : return(orthogonal(normalize(DAUBECHIES5)));
+      case 6 : return(orthogonal(normalize(DAUBECHIES6)));
+      case 7 : return(orthogonal(normalize(DAUBECHIES7)));
+      case 8 : return(orthogonal(normalize(DAUBECHIES8)));
+      default : throw new IllegalArgumentException("There is no Daubechies wavelet with "+n+" vanishing moments, use 2 to 8.");
+    }
+  }
+
+  /*****************************
+  * Symmlet with the filter of FastSymmlet8.
+  ********************************/
+  public static LiftingFWT symmlet8() {
+    return(orthogonal(SYMMLET8));
+  }
+
+  /*****************************
+  * Cohen-Daubechies-Feauveau wavelet with the
+  * filters of CDF2_4, normalized like the
+  * orthogonal wavelets.
+  ********************************/
+  public static LiftingFWT cdf2_4() {
+    return(new LiftingFWT(new int[] {1,0},
+      new int[][] {{0,1},{-2,-1,0,1}},
+      new double[][] {{-0.5,-0.5},{-3/64.0,19/64.0,19/64.0,-3/64.0}},
+      SQRT2,1.0/SQRT2,false));
+  }
+
+  /*****************************
+  * Cohen-Daubechies-Feauveau wavelet with the
+  * filters of CDF3_5, normalized like the
+  * orthogonal wavelets.
+  ********************************/
+  public static LiftingFWT cdf3_5() {
+    return(new LiftingFWT(new int[] {0,1,0},
+      new int[][] {{-1},{0,1},{-2,-1,0,1,2}},
+      new double[][] {{-1/3.0},{-9/8.0,-3/8.0},{-5/288.0,17/144.0,4/9.0,-17/144.0,5/288.0}},
+      3.0/SQRT2,SQRT2/3.0,false));
+  }
+
+  /*****************************
+  * Factors the polyphase matrix of an orthogonal
+  * filter into rotations and delays. Each rotation
+  * [[c,-s],[s,c]] is done by the lifting steps
+  * [[1,p],[0,1]][[1,0],[s,1]][[1,p],[0,1]] with
+  * p=(c-1)/s and each delay only changes the offsets
+  * of the following steps. The three steps only involve
+  * the two samples of a pair, so they are done together
+  * pair by pair, and a sample whose partner is beyond
+  * the ends is left as it is.
+  ********************************/
+  private static LiftingFWT orthogonal(double[] h) {
+    final int m=h.length/2;
+    double[] a=new double[m];
+    double[] b=new double[m];
+    double[] c=new double[m];
+    double[] d=new double[m];
+    double[] cos=new double[m];
+    double[] sin=new double[m];
+    double det=0.0;
+    double sign=1.0;
+    for(int k=0;k<m;k++) {
+      a[k]=h[2*k];
+      b[k]=h[2*k+1];
+      c[k]=-h[h.length-1-2*k];
+      d[k]=h[h.length-2-2*k];
+    }
+    for(int k=0;k<m;k++)
+      det+=a[k]*d[m-1-k]-b[k]*c[m-1-k];
+    if(det<0.0) {
+      for(int k=0;k<m;k++) {
+        c[k]=-c[k];
+        d[k]=-d[k];
+      }
+    }
+    for(int deg=m-1;deg>0;deg--) {
+      double x=a[deg],y=c[deg];
+      if(x*x+y*y<b[deg]*b[deg]+d[deg]*d[deg]) {
+        x=b[deg];
+        y=d[deg];
+      }
+      double norm=Math.sqrt(x*x+y*y);
+      if(y>0.0)
+        norm=-norm;
+      cos[deg]=-y/norm;
+      sin[deg]=x/norm;
+      for(int k=0;k<deg;k++) {
+        double ak=cos[deg]*a[k]+sin[deg]*c[k];
+        double bk=cos[deg]*b[k]+sin[deg]*d[k];
+        a[k]=ak;
+        b[k]=bk;
+        c[k]=cos[deg]*c[k+1]-sin[deg]*a[k+1];
+        d[k]=cos[deg]*d[k+1]-sin[deg]*b[k+1];
+      }
+    }
+    double norm=Math.sqrt((a[0]+d[0])*(a[0]+d[0])+(c[0]-b[0])*(c[0]-b[0]));
+    cos[0]=(a[0]+d[0])/norm;
+    sin[0]=(c[0]-b[0])/norm;
+    if(cos[0]<0.0) {
+      cos[0]=-cos[0];
+      sin[0]=-sin[0];
+      sign=-1.0;
+    }
+    int[] target=new int[3*m];
+    int[][] offset=new int[3*m][];
+    double[][] weight=new double[3*m][];
+    int steps=0;
+    int shift=0;
+    for(int k=0;k<m;k++) {
+      if(k>0)
+        shift++;
+      if(Math.abs(sin[k])<1e-15)
+        continue;
+      double p=(cos[k]-1.0)/sin[k];
+      target[steps]=0;
+      offset[steps]=new int[] {shift};
+      weight[steps++]=new double[] {p};
+      target[steps]=1;
+      offset[steps]=new int[] {-shift};
+      weight[steps++]=new double[] {sin[k]};
+      target[steps]=0;
+      offset[steps]=new int[] {shift};
+      weight[steps++]=new double[] {p};
+    }
+    if(steps<target.length) {
+      int[] t=new int[steps];
+      int[][] o=new int[steps][];
+      double[][] w=new double[steps][];
+      System.arraycopy(target,0,t,0,steps);
+      System.arraycopy(offset,0,o,0,steps);
+      System.arraycopy(weight,0,w,0,steps);
+      target=t;
+      offset=o;
+      weight=w;
+    }
+    return(new LiftingFWT(target,offset,weight,sign,det<0.0 ? -sign : sign,true));
+  }
+
+  private static double[] normalize(double[] vg) {
+    double[] h=new double[vg.length];
+    for(int k=0;k<vg.length;k++)
+      h[k]=vg[k]/SQRT2;
+    return(h);
+  }
+
+  /*****************************
+  * Number of levels after which a signal of
+  * length n is down to one scaling coefficient.
+  ********************************/
+  public static int levels(int n) {
+    int j=0;
+    for(;n>1;n=(n+1)/2)
+      j++;
+    return(j);
+  }
+
+  private static int reflect(int i,int n) {
+    final int period=2*n-2;
+    i%=period;
+    if(i<0)
+      i+=period;
+    if(i>=n)
+      i=period-i;
+    return(i);
+  }
+
+  private double[] workspace(int n) {
+    if(work.length<n)
+      work=new double[n];
+    return(work);
+  }
+
+  private float[] fworkspace(int n) {
+    if(fwork.length<n)
+      fwork=new float[n];
+    return(fwork);
+  }
+
+  private static double edge(double[] v,int offset,int stride,int n,int i,int[] d,double[] c) {
+    double sum=0.0;
+    for(int t=0;t<d.length;t++)
+      sum+=c[t]*v[offset+reflect(i+d[t],n)*stride];
+    return(sum);
+  }
+
+  private static float edge(float[] v,int offset,int stride,int n,int i,int[] d,float[] c) {
+    float sum=0f;
+    for(int t=0;t<d.length;t++)
+      sum+=c[t]*v[offset+reflect(i+d[t],n)*stride];
+    return(sum);
+  }
+
+  private void lift(double[] v,int offset,int stride,int n,int s,double sign) {
+    final int[] d=delta[s];
+    final double[] c=coef[s];
+    int i=parity[s];
+    for(int t=0;t<d.length;t++)
+      jump[t]=d[t]*stride;
+    for(;i<n && i+lo[s]<0;i+=2)
+      v[offset+i*stride]+=sign*edge(v,offset,stride,n,i,d,c);
+    for(;i<n && i+hi[s]<n;i+=2) {
+      final int pos=offset+i*stride;
+      double sum=0.0;
+      for(int t=0;t<d.length;t++)
+        sum+=c[t]*v[pos+jump[t]];
+      v[pos]+=sign*sum;
+    }
+    for(;i<n;i+=2)
+      v[offset+i*stride]+=sign*edge(v,offset,stride,n,i,d,c);
+  }
+
+  /*****************************
+  * Steps s, s+1 and s+2 of an orthogonal filter.
+  ********************************/
+  private void rotate(double[] v,int offset,int stride,int n,int s,double sign) {
+    final int d=delta[s][0];
+    final double p=sign*coef[s][0];
+    final double q=sign*coef[s+1][0];
+    final int jump=d*stride;
+    final int step=2*stride;
+    final int end=Math.min(n,n-d);
+    int i=Math.max(0,-d);
+    if((i&1)==1)
+      i++;
+    for(int pos=offset+i*stride;i<end;i+=2,pos+=step) {
+      double even=v[pos];
+      double odd=v[pos+jump];
+      even+=p*odd;
+      odd+=q*even;
+      v[pos]=even+p*odd;
+      v[pos+jump]=odd;
+    }
+  }
+
+  private void lift(float[] v,int offset,int stride,int n,int s,float sign) {
+    final int[] d=delta[s];
+    final float[] c=fcoef[s];
+    int i=parity[s];
+    for(int t=0;t<d.length;t++)
+      jump[t]=d[t]*stride;
+    for(;i<n && i+lo[s]<0;i+=2)
+      v[offset+i*stride]+=sign*edge(v,offset,stride,n,i,d,c);
+    for(;i<n && i+hi[s]<n;i+=2) {
+      final int pos=offset+i*stride;
+      float sum=0f;
+      for(int t=0;t<d.length;t++)
+        sum+=c[t]*v[pos+jump[t]];
+      v[pos]+=sign*sum;
+    }
+    for(;i<n;i+=2)
+      v[offset+i*stride]+=sign*edge(v,offset,stride,n,i,d,c);
+  }
+
+  /*****************************
+  * Steps s, s+1 and s+2 of an orthogonal filter.
+  ********************************/
+  private void rotate(float[] v,int offset,int stride,int n,int s,float sign) {
+    final int d=delta[s][0];
+    final float p=sign*fcoef[s][0];
+    final float q=sign*fcoef[s+1][0];
+    final int jump=d*stride;
+    final int step=2*stride;
+    final int end=Math.min(n,n-d);
+    int i=Math.max(0,-d);
+    if((i&1)==1)
+      i++;
+    for(int pos=offset+i*stride;i<end;i+=2,pos+=step) {
+      float even=v[pos];
+      float odd=v[pos+jump];
+      even+=p*odd;
+      odd+=q*even;
+      v[pos]=even+p*odd;
+      v[pos+jump]=odd;
+    }
+  }
+
+  /*****************************
+  * One level of the transform of the n samples
+  * v[offset], v[offset+stride], ...
+  * The (n+1)/2 scaling coefficients are put first,
+  * followed by the n/2 wavelet coefficients.
+  * Nothing is done if n is less than 2.
+  ********************************/
+  public void transform(double[] v,int offset,int stride,int n) {
+    if(n<2)
+      return;
+    if(rotations) {
+      for(int s=0;s<parity.length;s+=3)
+        rotate(v,offset,stride,n,s,1.0);
+    } else {
+      for(int s=0;s<parity.length;s++)
+        lift(v,offset,stride,n,s,1.0);
+    }
+    final int half=(n+1)/2;
+    final double[] w=workspace(n/2);
+    for(int k=0;k<n/2;k++)
+      w[k]=wavelet*v[offset+(2*k+1)*stride];
+    for(int k=0;k<half;k++)
+      v[offset+k*stride]=scaling*v[offset+2*k*stride];
+    for(int k=0;k<n/2;k++)
+      v[offset+(half+k)*stride]=w[k];
+  }
+
+  /*****************************
+  * Inverse of one level of the transform of
+  * the n samples v[offset], v[offset+stride], ...
+  ********************************/
+  public void invTransform(double[] v,int offset,int stride,int n) {
+    if(n<2)
+      return;
+    final int half=(n+1)/2;
+    final double[] w=workspace(n/2);
+    for(int k=0;k<n/2;k++)
+      w[k]=v[offset+(half+k)*stride]/wavelet;
+    for(int k=half-1;k>=0;k--)
+      v[offset+2*k*stride]=v[offset+k*stride]/scaling;
+    for(int k=0;k<n/2;k++)
+      v[offset+(2*k+1)*stride]=w[k];
+    if(rotations) {
+      for(int s=parity.length-3;s>=0;s-=3)
+        rotate(v,offset,stride,n,s,-1.0);
+    } else {
+      for(int s=parity.length-1;s>=0;s--)
+        lift(v,offset,stride,n,s,-1.0);
+    }
+  }
+
+  /*****************************
+  * One level of the transform of the n samples
+  * v[offset], v[offset+stride], ...
+  * The (n+1)/2 scaling coefficients are put first,
+  * followed by the n/2 wavelet coefficients.
+  * Nothing is done if n is less than 2.
+  ********************************/
+  public void transform(float[] v,int offset,int stride,int n) {
+    if(n<2)
+      return;
+    if(rotations) {
+      for(int s=0;s<parity.length;s+=3)
+        rotate(v,offset,stride,n,s,1f);
+    } else {
+      for(int s=0;s<parity.length;s++)
+        lift(v,offset,stride,n,s,1f);
+    }
+    final int half=(n+1)/2;
+    final float[] w=fworkspace(n/2);
+    for(int k=0;k<n/2;k++)
+      w[k]=fwavelet*v[offset+(2*k+1)*stride];
+    for(int k=0;k<half;k++)
+      v[offset+k*stride]=fscaling*v[offset+2*k*stride];
+    for(int k=0;k<n/2;k++)
+      v[offset+(half+k)*stride]=w[k];
+  }
+
+  /*****************************
+  * Inverse of one level of the transform of
+  * the n samples v[offset], v[offset+stride], ...
+  ********************************/
+  public void invTransform(float[] v,int offset,int stride,int n) {
+    if(n<2)
+      return;
+    final int half=(n+1)/2;
+    final float[] w=fworkspace(n/2);
+    for(int k=0;k<n/2;k++)
+      w[k]=v[offset+(half+k)*stride]/fwavelet;
+    for(int k=half-1;k>=0;k--)
+      v[offset+2*k*stride]=v[offset+k*stride]/fscaling;
+    for(int k=0;k<n/2;k++)
+      v[offset+(2*k+1)*stride]=w[k];
+    if(rotations) {
+      for(int s=parity.length-3;s>=0;s-=3)
+        rotate(v,offset,stride,n,s,-1f);
+    } else {
+      for(int s=parity.length-1;s>=0;s--)
+        lift(v,offset,stride,n,s,-1f);
+    }
+  }
+
+  /*****************************
+  * Transform down to a single scaling coefficient.
+  ********************************/
+  public void transform(double[] v) {
+    transform(v,levels(v.length));
+  }
+
+  public void invTransform(double[] v) {
+    invTransform(v,levels(v.length));
+  }
+
+  /*****************************
+  * Transform down to a single scaling coefficient.
+  ********************************/
+  public void transform(float[] v) {
+    transform(v,levels(v.length));
+  }
+
+  public void invTransform(float[] v) {
+    invTransform(v,levels(v.length));
+  }
+
+  /*****************************
+  * Transform over the given number of levels.
+  ********************************/
+  public void transform(double[] v,int J) {
+    int n=v.length;
+    for(int j=0;j<J && n>1;j++,n=(n+1)/2)
+      transform(v,0,1,n);
+  }
+
+  /*****************************
+  * Inverse of the transform over the given number of levels.
+  ********************************/
+  public void invTransform(double[] v,int J) {
+    for(int j=Math.min(J,levels(v.length))-1;j>=0;j--)
+      invTransform(v,0,1,length(v.length,j));
+  }
+
+  /*****************************
+  * Transform over the given number of levels.
+  ********************************/
+  public void transform(float[] v,int J) {
+    int n=v.length;
+    for(int j=0;j<J && n>1;j++,n=(n+1)/2)
+      transform(v,0,1,n);
+  }
+
+  /*****************************
+  * Inverse of the transform over the given number of levels.
+  ********************************/
+  public void invTransform(float[] v,int J) {
+    for(int j=Math.min(J,levels(v.length))-1;j>=0;j--)
+      invTransform(v,0,1,length(v.length,j));
+  }
+
+  /*****************************
+  * Length of the scaling coefficients of
+  * a signal of length n after j levels.
+  ********************************/
+  static int length(int n,int j) {
+    return(n==0 ? 0 : ((n-1)>>j)+1);
+  }
+
+  /*****************************
+  * Two-dimensional transform of an image stored
+  * row after row, over the given number of levels.
+  * Every level transforms the rows and then the
+  * columns of the scaling coefficients left by the
+  * previous level, which end up in the top left corner.
+  ********************************/
+  public void transform2D(double[] v,int width,int height,int J) {
+    checkSize(v.length,width,height);
+    for(int j=0;j<J;j++) {
+      final int w=length(width,j),h=length(height,j);
+      if(w<2 && h<2)
+        break;
+      if(w>1) {
+        for(int y=0;y<h;y++)
+          transform(v,y*width,1,w);
+      }
+      if(h>1) {
+        for(int x=0;x<w;x++)
+          transform(v,x,width,h);
+      }
+    }
+  }
+
+  /*****************************
+  * Inverse of the two-dimensional transform.
+  ********************************/
+  public void invTransform2D(double[] v,int width,int height,int J) {
+    checkSize(v.length,width,height);
+    for(int j=Math.min(J,levels(Math.max(width,height)))-1;j>=0;j--) {
+      final int w=length(width,j),h=length(height,j);
+      if(h>1) {
+        for(int x=0;x<w;x++)
+          invTransform(v,x,width,h);
+      }
+      if(w>1) {
+        for(int y=0;y<h;y++)
+          invTransform(v,y*width,1,w);
+      }
+    }
+  }
+
+  /*****************************
+  * Two-dimensional transform of an image stored
+  * row after row, over the given number of levels.
+  * Every level transforms the rows and then the
+  * columns of the scaling coefficients left by the
+  * previous level, which end up in the top left corner.
+  ********************************/
+  public void transform2D(float[] v,int width,int height,int J) {
+    checkSize(v.length,width,height);
+    for(int j=0;j<J;j++) {
+      final int w=length(width,j),h=length(height,j);
+      if(w<2 && h<2)
+        break;
+      if(w>1) {
+        for(int y=0;y<h;y++)
+          transform(v,y*width,1,w);
+      }
+      if(h>1) {
+        for(int x=0;x<w;x++)
+          transform(v,x,width,h);
+      }
+    }
+  }
+
+  /*****************************
+  * Inverse of the two-dimensional transform.
+  ********************************/
+  public void invTransform2D(float[] v,int width,int height,int J) {
+    checkSize(v.length,width,height);
+    for(int j=Math.min(J,levels(Math.max(width,height)))-1;j>=0;j--) {
+      final int w=length(width,j),h=length(height,j);
+      if(h>1) {
+        for(int x=0;x<w;x++)
+          invTransform(v,x,width,h);
+      }
+      if(w>1) {
+        for(int y=0;y<h;y++)
+          invTransform(v,y*width,1,w);
+      }
+    }
+  }
+
+  private static void checkSize(int length,int width,int height) {
+    if(width<1 || height<1 || length!=width*height)
+      throw new IllegalArgumentException("An image of "+width+" by "+height+" needs an array of length "+width*height+" : "+length);
+  }
+
+  static final double[] DAUBECHIES2={
+    0.482962913145,0.836516303738,0.224143868042,-0.129409522551};
+
+  static final double[] DAUBECHIES3={
+    .332670552950,.806891509311,.459877502118,
+    -.135011020010,-.085441273882,.035226291882};
+
+  static final double[] DAUBECHIES4={
+    -0.107148901418,-0.0419109651251,0.703739068656,1.13665824341,
+    0.421234534204,-0.140317624179,-0.0178247014417,0.045570345896};
+
+  static final double[] DAUBECHIES5={
+    0.0386547959548,0.0417468644215,-0.0553441861166,0.281990696854,
+    1.02305296689,0.89658164838,0.0234789231361,-0.247951362613,
+    -0.0298424998687,0.0276321529578};
+
+  static final double[] DAUBECHIES6={
+    0.0217847003266,0.00493661237185,-0.166863215412,-0.0683231215866,
+    0.694457972958,1.11389278393,0.477904371333,-0.102724969862,
+    -0.0297837512985,0.06325056266,0.00249992209279,-0.0110318675094};
+
+  static final double[] DAUBECHIES7={
+    0.0037926585342,-0.0014812259146,-0.0178704316511,0.043155452582,
+    0.0960147679355,-0.070078291222,0.0246656594886,0.758162601964,
+    1.08578270981,0.408183939725,-0.198056706807,-0.152463871896,
+    0.00567134268574,0.014521394762};
+
+  static final double[] DAUBECHIES8={
+    0.00267279339281,-0.000428394300246,-0.0211456865284,0.00538638875377,
+    0.0694904659113,-0.0384935212634,-0.0734625087609,0.515398670374,
+    1.09910663054,0.68074534719,-0.0866536154058,-0.202648655286,
+    0.0107586117505,0.0448236230437,-0.000766690896228,-0.0047834585115};
+
+  static final double[] SYMMLET8={
+    0.0322231006040782,-0.0126039672622638,-0.0992195435769564,0.297857795605605,
+    0.803738751805386,0.497618667632563,-0.0296355276459604,-0.0757657147893567};
+}
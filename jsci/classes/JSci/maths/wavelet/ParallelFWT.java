@@ -0,0 +1,373 @@
+package JSci.maths.wavelet;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*****************************
+* Two and three-dimensional Fast Wavelet Transforms
+* of images and volumes stored in flat arrays, row
+* after row and slice after slice. Every pass along
+* one axis transforms many independent lines, which
+* are split across the common ForkJoin pool.
+* <p>
+* The non-standard decomposition transforms one level
+* along every axis in turn and goes on with the block of
+* scaling coefficients left in the first corner, as
+* LiftingFWT.transform2D does. The standard decomposition
+* transforms all levels along the rows, then all levels
+* along the columns, then along the slices.
+* <p>
+* The coefficients stay in place, toFWTCoef() gathers
+* them level by level into a FWTCoef for thresholding,
+* compression or FWTCoefMath, and fromFWTCoef() puts
+* them back before the inverse transform.
+* Instances may be shared between threads, each thread
+* using a copy of the LiftingFWT for its workspace.
+********************************/
+public final class ParallelFWT {
+  /* minimum number of samples for a pass to be split across threads */
+  private static final int PARALLEL_SIZE=1<<14;
+
+  private final ThreadLocal fwt;
+
+  public ParallelFWT(final LiftingFWT f) {
+    fwt=new ThreadLocal() {
+      protected Object initialValue() {
+        return(new LiftingFWT(f));
+      }
+    };
+  }
+
+  /*****************************
+  * Non-standard transform of an image.
+  ********************************/
+  public void transform(double[] v,int width,int height,int J) {
+    nonStandard(v,v.length,width,height,1,J,false);
+  }
+
+  public void invTransform(double[] v,int width,int height,int J) {
+    nonStandard(v,v.length,width,height,1,J,true);
+  }
+
+  /*****************************
+  * Non-standard transform of a volume.
+  ********************************/
+  public void transform(double[] v,int width,int height,int depth,int J) {
+    nonStandard(v,v.length,width,height,depth,J,false);
+  }
+
+  public void invTransform(double[] v,int width,int height,int depth,int J) {
+    nonStandard(v,v.length,width,height,depth,J,true);
+  }
+
+  /*****************************
+  * Standard transform of an image.
+  ********************************/
+  public void transformStandard(double[] v,int width,int height,int J) {
+    standard(v,v.length,width,height,1,J,false);
+  }
+
+  public void invTransformStandard(double[] v,int width,int height,int J) {
+    standard(v,v.length,width,height,1,J,true);
+  }
+
+  /*****************************
+  * Standard transform of a volume.
+  ********************************/
+  public void transformStandard(double[] v,int width,int height,int depth,int J) {
+    standard(v,v.length,width,height,depth,J,false);
+  }
+
+  public void invTransformStandard(double[] v,int width,int height,int depth,int J) {
+    standard(v,v.length,width,height,depth,J,true);
+  }
+
+  /*****************************
+  * Non-standard transform of an image.
+  ********************************/
+  public void transform(float[] v,int width,int height,int J) {
+    nonStandard(v,v.length,width,height,1,J,false);
+  }
+
+  public void invTransform(float[] v,int width,int height,int J) {
+    nonStandard(v,v.length,width,height,1,J,true);
+  }
+
+  /*****************************
+  * Non-standard transform of a volume.
+  ********************************/
+  public void transform(float[] v,int width,int height,int depth,int J) {
+    nonStandard(v,v.length,width,height,depth,J,false);
+  }
+
+  public void invTransform(float[] v,int width,int height,int depth,int J) {
+    nonStandard(v,v.length,width,height,depth,J,true);
+  }
+
+  /*****************************
+  * Standard transform of an image.
+  ********************************/
+  public void transformStandard(float[] v,int width,int height,int J) {
+    standard(v,v.length,width,height,1,J,false);
+  }
+
+  public void invTransformStandard(float[] v,int width,int height,int J) {
+    standard(v,v.length,width,height,1,J,true);
+  }
+
+  /*****************************
+  * Standard transform of a volume.
+  ********************************/
+  public void transformStandard(float[] v,int width,int height,int depth,int J) {
+    standard(v,v.length,width,height,depth,J,false);
+  }
+
+  public void invTransformStandard(float[] v,int width,int height,int depth,int J) {
+    standard(v,v.length,width,height,depth,J,true);
+  }
+
+  private static void checkSize(int length,int width,int height,int depth,int J) {
+    if(width<1 || height<1 || depth<1 || length!=width*height*depth)
+      throw new IllegalArgumentException("A volume of "+width+" by "+height+" by "+depth+" needs an array of length "+width*height*depth+" : "+length);
+    if(J<0)
+      throw new IllegalArgumentException("Cannot have a negative number of iterations.");
+  }
+
+  private void nonStandard(Object v,int length,int width,int height,int depth,int J,boolean inverse) {
+    checkSize(length,width,height,depth,J);
+    final int area=width*height;
+    final int top=Math.min(J,LiftingFWT.levels(Math.max(width,Math.max(height,depth))));
+    for(int k=0;k<top;k++) {
+      final int j=inverse ? top-1-k : k;
+      final int w=LiftingFWT.length(width,j);
+      final int h=LiftingFWT.length(height,j);
+      final int d=LiftingFWT.length(depth,j);
+      if(inverse) {
+        pass(v,d,area,w,1,h,width,1,true);
+        pass(v,h,width,w,1,d,area,1,true);
+        pass(v,w,1,h,width,d,area,1,true);
+      } else {
+        pass(v,w,1,h,width,d,area,1,false);
+        pass(v,h,width,w,1,d,area,1,false);
+        pass(v,d,area,w,1,h,width,1,false);
+      }
+    }
+  }
+
+  private void standard(Object v,int length,int width,int height,int depth,int J,boolean inverse) {
+    checkSize(length,width,height,depth,J);
+    final int area=width*height;
+    if(inverse) {
+      pass(v,depth,area,width,1,height,width,J,true);
+      pass(v,height,width,width,1,depth,area,J,true);
+      pass(v,width,1,height,width,depth,area,J,true);
+    } else {
+      pass(v,width,1,height,width,depth,area,J,false);
+      pass(v,height,width,width,1,depth,area,J,false);
+      pass(v,depth,area,width,1,height,width,J,false);
+    }
+  }
+
+  /*****************************
+  * Transforms the lines of n samples a distance stride apart
+  * which start at a*strideA+b*strideB, for a less than countA
+  * and b less than countB.
+  ********************************/
+  private void pass(Object v,int n,int stride,int countA,int strideA,int countB,int strideB,int J,boolean inverse) {
+    if(n<2)
+      return;
+    final LineTask task=new LineTask(this,v,n,stride,countA,strideA,strideB,J,inverse,0,countA*countB);
+    if((long)countA*countB*n<PARALLEL_SIZE)
+      task.compute();
+    else
+      ForkJoinPool.commonPool().invoke(task);
+  }
+
+  private static void transform(LiftingFWT f,Object v,int offset,int stride,int n,int J) {
+    for(int j=0;j<J;j++) {
+      final int m=LiftingFWT.length(n,j);
+      if(m<2)
+        break;
+      if(v instanceof float[])
+        f.transform((float[])v,offset,stride,m);
+      else
+        f.transform((double[])v,offset,stride,m);
+    }
+  }
+
+  private static void invTransform(LiftingFWT f,Object v,int offset,int stride,int n,int J) {
+    for(int j=Math.min(J,LiftingFWT.levels(n))-1;j>=0;j--) {
+      final int m=LiftingFWT.length(n,j);
+      if(v instanceof float[])
+        f.invTransform((float[])v,offset,stride,m);
+      else
+        f.invTransform((double[])v,offset,stride,m);
+    }
+  }
+
+  private static final class LineTask extends RecursiveAction {
+    private final ParallelFWT owner;
+    private final Object v;
+    private final int n;
+    private final int stride;
+    private final int countA;
+    private final int strideA;
+    private final int strideB;
+    private final int J;
+    private final boolean inverse;
+    private final int start;
+    private final int end;
+
+    LineTask(ParallelFWT owner,Object v,int n,int stride,int countA,int strideA,int strideB,int J,boolean inverse,int start,int end) {
+      this.owner=owner;
+      this.v=v;
+      this.n=n;
+      this.stride=stride;
+      this.countA=countA;
+      this.strideA=strideA;
+      this.strideB=strideB;
+      this.J=J;
+      this.inverse=inverse;
+      this.start=start;
+      this.end=end;
+    }
+
+    protected void compute() {
+      if(end-start>1 && (long)(end-start)*n>=PARALLEL_SIZE) {
+        final int mid=(start+end)>>>1;
+        invokeAll(new LineTask(owner,v,n,stride,countA,strideA,strideB,J,inverse,start,mid),
+          new LineTask(owner,v,n,stride,countA,strideA,strideB,J,inverse,mid,end));
+        return;
+      }
+      final LiftingFWT f=(LiftingFWT)owner.fwt.get();
+      for(int line=start;line<end;line++) {
+        final int offset=(line%countA)*strideA+(line/countA)*strideB;
+        if(inverse)
+          invTransform(f,v,offset,stride,n,J);
+        else
+          transform(f,v,offset,stride,n,J);
+      }
+    }
+  }
+
+  /*****************************
+  * For every position along an axis of length n, the number
+  * of levels after which it is a wavelet coefficient, or J
+  * if it is still a scaling coefficient after J levels.
+  ********************************/
+  private static int[] levels(int n,int J) {
+    final int[] ans=new int[n];
+    for(int j=1;j<=J;j++) {
+      for(int i=LiftingFWT.length(n,j);i<LiftingFWT.length(n,j-1);i++)
+        ans[i]=j-1;
+    }
+    for(int i=0;i<LiftingFWT.length(n,J);i++)
+      ans[i]=J;
+    return(ans);
+  }
+
+  /*****************************
+  * Gathers or scatters the coefficients of a transform
+  * over J levels, J being at most the number of levels
+  * actually done.
+  ********************************/
+  private static double[][] gather(Object v,int length,int width,int height,int depth,int J,double[][] coefs) {
+    checkSize(length,width,height,depth,J);
+    final int[] x=levels(width,J);
+    final int[] y=levels(height,J);
+    final int[] z=levels(depth,J);
+    final boolean scatter=(coefs!=null);
+    if(!scatter) {
+      final int[] size=new int[J+1];
+      for(int k=0;k<depth;k++) {
+        for(int j=0;j<height;j++) {
+          for(int i=0;i<width;i++)
+            size[band(x[i],y[j],z[k],J)]++;
+        }
+      }
+      coefs=new double[J+1][];
+      for(int j=0;j<=J;j++)
+        coefs[j]=new double[size[j]];
+    }
+    final int[] pos=new int[J+1];
+    int p=0;
+    for(int k=0;k<depth;k++) {
+      for(int j=0;j<height;j++) {
+        for(int i=0;i<width;i++,p++) {
+          final int b=band(x[i],y[j],z[k],J);
+          if(v instanceof float[]) {
+            if(scatter)
+              ((float[])v)[p]=(float)coefs[b][pos[b]++];
+            else
+              coefs[b][pos[b]++]=((float[])v)[p];
+          } else {
+            if(scatter)
+              ((double[])v)[p]=coefs[b][pos[b]++];
+            else
+              coefs[b][pos[b]++]=((double[])v)[p];
+          }
+        }
+      }
+    }
+    return(coefs);
+  }
+
+  /*****************************
+  * Index in FWTCoef of a coefficient : 0 for the scaling
+  * coefficients, 1 for the finest wavelet coefficients
+  * up to J for the coarsest.
+  ********************************/
+  private static int band(int x,int y,int z,int J) {
+    final int j=Math.min(x,Math.min(y,z));
+    return(j==J ? 0 : j+1);
+  }
+
+  private static int effectiveJ(int width,int height,int depth,int J) {
+    return(Math.min(J,LiftingFWT.levels(Math.max(width,Math.max(height,depth)))));
+  }
+
+  /*****************************
+  * The coefficients of a transform over J levels in the
+  * layout of Signal.fwt() : the scaling coefficients first,
+  * then the wavelet coefficients from the finest level to the
+  * coarsest, each level in the order of the array. In the
+  * standard decomposition a coefficient belongs to the finest
+  * level it has along any axis. Use a depth of 1 for images.
+  ********************************/
+  public static FWTCoef toFWTCoef(double[] v,int width,int height,int depth,int J) {
+    return(new FWTCoef(gather(v,v.length,width,height,depth,effectiveJ(width,height,depth,J),null)));
+  }
+
+  /*****************************
+  * The coefficients of a transform over J levels in the
+  * layout of Signal.fwt() : the scaling coefficients first,
+  * then the wavelet coefficients from the finest level to the
+  * coarsest, each level in the order of the array. In the
+  * standard decomposition a coefficient belongs to the finest
+  * level it has along any axis. Use a depth of 1 for images.
+  ********************************/
+  public static FWTCoef toFWTCoef(float[] v,int width,int height,int depth,int J) {
+    return(new FWTCoef(gather(v,v.length,width,height,depth,effectiveJ(width,height,depth,J),null)));
+  }
+
+  /*****************************
+  * Puts back coefficients given by toFWTCoef().
+  ********************************/
+  public static void fromFWTCoef(FWTCoef c,double[] v,int width,int height,int depth,int J) {
+    checkCoefs(c,width,height,depth,J);
+    gather(v,v.length,width,height,depth,effectiveJ(width,height,depth,J),c.coefs);
+  }
+
+  /*****************************
+  * Puts back coefficients given by toFWTCoef().
+  ********************************/
+  public static void fromFWTCoef(FWTCoef c,float[] v,int width,int height,int depth,int J) {
+    checkCoefs(c,width,height,depth,J);
+    gather(v,v.length,width,height,depth,effectiveJ(width,height,depth,J),c.coefs);
+  }
+
+  private static void checkCoefs(FWTCoef c,int width,int height,int depth,int J) {
+    if(c.getJ()!=effectiveJ(width,height,depth,J)+1)
+      throw new IllegalArgumentException("These coefficients do not come from a transform of "+J+" levels : "+c.getJ());
+  }
+}
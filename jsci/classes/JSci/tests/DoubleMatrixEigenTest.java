@@ -2,6 +2,7 @@ package JSci.tests;
 
 import JSci.maths.*;
 import JSci.maths.matrices.*;
+import JSci.maths.vectors.AbstractComplexVector;
 import JSci.maths.vectors.AbstractDoubleVector;
 import JSci.maths.vectors.DoubleVector;
 import JSci.util.MatrixToolkit;
@@ -71,6 +72,65 @@ public class DoubleMatrixEigenTest extends junit.framework.TestCase {
             }
         }
 
+        public void testDiagonaliseMapped() throws Exception {
+                // big enough for the blocked reduction, but file-backed so diagonalized in place
+                final int n=100;
+                sqmat=MatrixToolkit.randomSquareMatrix(n);
+                sqmat=(DoubleSquareMatrix) sqmat.add(sqmat.transpose());
+                double[] expected=ArrayMath.sortMinToMax(LinearMath.eigenvalueSolveSymmetric(sqmat));
+                double array[][]=new double[n][n];
+                for(int i=0;i<n;i++) {
+                        for(int j=0;j<n;j++)
+                                array[i][j]=sqmat.getElement(i,j);
+                }
+                DoubleMappedSquareMatrix mapped=new DoubleMappedSquareMatrix(array);
+                LinearMath.diagonalizeSymmetric(mapped);
+                double[] diag=new double[n];
+                for(int i=0;i<n;i++)
+                        diag[i]=mapped.getElement(i,i);
+                mapped.close();
+                diag=ArrayMath.sortMinToMax(diag);
+                for(int i=0;i<n;i++)
+                        assertEquals(expected[i], diag[i], JSci.GlobalSettings.ZERO_TOL);
+        }
+        public void testBlockedEigenvectors() throws MaximumIterationsExceededException {
+                // big enough for the blocked reduction and divide-and-conquer
+                final int n=100;
+                sqmat=MatrixToolkit.randomSquareMatrix(n);
+                sqmat=(DoubleSquareMatrix) sqmat.add(sqmat.transpose());
+                evec=new AbstractDoubleVector[n];
+                eval=LinearMath.eigenSolveSymmetric(sqmat,evec);
+                double tr=0.0;
+                for(int i=0;i<n;i++) {
+                        assertEquals(sqmat.multiply(evec[i]), evec[i].scalarMultiply(eval[i]));
+                        assertEquals(1.0, evec[i].norm(), JSci.GlobalSettings.ZERO_TOL);
+                        tr+=eval[i];
+                }
+                assertEquals(0.0, evec[0].scalarProduct(evec[n-1]), JSci.GlobalSettings.ZERO_TOL);
+                assertEquals(sqmat.trace(), tr, JSci.GlobalSettings.ZERO_TOL);
+                double[] values = LinearMath.eigenvalueSolveSymmetric(sqmat);
+                for(int i=0;i<n;i++) {
+                        assertEquals(eval[i], values[i], JSci.GlobalSettings.ZERO_TOL);
+                }
+        }
+        public void testLargestEigenvectors() throws MaximumIterationsExceededException {
+                final int n=100;
+                final int k=10;
+                sqmat=MatrixToolkit.randomSquareMatrix(n);
+                sqmat=(DoubleSquareMatrix) sqmat.add(sqmat.transpose());
+                double[] expected = ArrayMath.sortMaxToMin(LinearMath.eigenvalueSolveSymmetric(sqmat));
+                evec=new AbstractDoubleVector[k];
+                eval=LinearMath.eigenSolveSymmetric(sqmat,k,evec);
+                double[] values = LinearMath.eigenvalueSolveSymmetric(sqmat,k);
+                for(int i=0;i<k;i++) {
+                        assertEquals(expected[i], eval[i], JSci.GlobalSettings.ZERO_TOL);
+                        assertEquals(expected[i], values[i], JSci.GlobalSettings.ZERO_TOL);
+                        assertEquals(sqmat.multiply(evec[i]), evec[i].scalarMultiply(eval[i]));
+                        assertEquals(1.0, evec[i].norm(), JSci.GlobalSettings.ZERO_TOL);
+                }
+                assertEquals(0.0, evec[0].scalarProduct(evec[k-1]), JSci.GlobalSettings.ZERO_TOL);
+        }
+
         public void testLanczos() throws MaximumIterationsExceededException {
             AbstractDoubleVector initial = VectorToolkit.randomVector(N).normalize();
             double[] results = LinearMath.eigenvalueSolveSymmetric(sqmat, initial, N);
@@ -80,6 +140,69 @@ public class DoubleMatrixEigenTest extends junit.framework.TestCase {
                 assertEquals(expected[i], results[i], JSci.GlobalSettings.ZERO_TOL);
             }
         }
+        public void testSparseLanczos() throws MaximumIterationsExceededException {
+                final int n=300;
+                final int k=5;
+                DoubleSparseMatrixBuilder builder=new DoubleSparseMatrixBuilder(n,n);
+                for(int i=0;i<n;i++) {
+                        builder.addElement(i,i,i);
+                        if(i>0)
+                                builder.addElement(i,i-1,1.0);
+                        if(i<n-1)
+                                builder.addElement(i,i+1,1.0);
+                }
+                DoubleSparseSquareMatrix A=builder.toSquareMatrix();
+                DoubleSquareMatrix dense=new DoubleSquareMatrix(n);
+                for(int i=0;i<n;i++) {
+                        for(int j=0;j<n;j++)
+                                dense.setElement(i,j,A.getElement(i,j));
+                }
+                double[] expected=ArrayMath.sortMinToMax(LinearMath.eigenvalueSolveSymmetric(dense));
+                for(int pass=0;pass<2;pass++) {
+                        final boolean largest=(pass==0);
+                        evec=new AbstractDoubleVector[k];
+                        eval=LinearMath.eigenSolveLanczos(A,k,largest,evec,1000,1.0e-12);
+                        for(int i=0;i<k;i++) {
+                                assertEquals(expected[largest ? n-1-i : i], eval[i], JSci.GlobalSettings.ZERO_TOL);
+                                assertEquals(A.multiply(evec[i]), evec[i].scalarMultiply(eval[i]));
+                                assertEquals(1.0, evec[i].norm(), JSci.GlobalSettings.ZERO_TOL);
+                        }
+                        assertEquals(0.0, evec[0].scalarProduct(evec[k-1]), JSci.GlobalSettings.ZERO_TOL);
+                }
+        }
+        public void testSparseArnoldi() throws MaximumIterationsExceededException {
+                // block upper triangular, with 2x2 blocks giving the complex eigenvalues a+-5i
+                final int n=200;
+                final int k=5;
+                DoubleSparseMatrixBuilder builder=new DoubleSparseMatrixBuilder(n,n);
+                for(int i=0;i<n;i++) {
+                        if(i<6 && i%2==0) {
+                                final double a=n+10*i;
+                                builder.addElement(i,i,a);
+                                builder.addElement(i,i+1,5.0);
+                                builder.addElement(i+1,i,-5.0);
+                                builder.addElement(i+1,i+1,a);
+                        } else if(i>=6) {
+                                builder.addElement(i,i,i);
+                        }
+                        if(i<n-3)
+                                builder.addElement(i,i+3,0.5);
+                }
+                DoubleSparseSquareMatrix A=builder.toSquareMatrix();
+                AbstractComplexVector x[]=new AbstractComplexVector[k];
+                Complex lambda[]=LinearMath.eigenSolveArnoldi(A,k,x,1000,1.0e-12);
+                final double expected[][]={{n+40,5},{n+40,-5},{n+20,5},{n+20,-5},{n,5}};
+                for(int i=0;i<k;i++) {
+                        assertEquals(expected[i][0], lambda[i].real(), JSci.GlobalSettings.ZERO_TOL);
+                        assertEquals(expected[i][1], lambda[i].imag(), JSci.GlobalSettings.ZERO_TOL);
+                        AbstractDoubleVector re=x[i].real();
+                        AbstractDoubleVector im=x[i].imag();
+                        AbstractDoubleVector rRe=A.multiply(re).subtract(re.scalarMultiply(lambda[i].real())).add(im.scalarMultiply(lambda[i].imag()));
+                        AbstractDoubleVector rIm=A.multiply(im).subtract(im.scalarMultiply(lambda[i].real())).subtract(re.scalarMultiply(lambda[i].imag()));
+                        assertEquals(0.0, rRe.norm()+rIm.norm(), JSci.GlobalSettings.ZERO_TOL);
+                        assertEquals(1.0, x[i].norm(), JSci.GlobalSettings.ZERO_TOL);
+                }
+        }
 
         public void testRosser() throws MaximumIterationsExceededException {
             double[] rosserEigenvalues = {
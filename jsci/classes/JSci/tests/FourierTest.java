@@ -63,6 +63,62 @@ public class FourierTest extends TestCase {
 		Complex[] transform = FourierMath.transform(signal);
 		assertEquals(N*ArrayMath.sumSquares(signal), ArrayMath.sumModSqrs(transform), JSci.GlobalSettings.ZERO_TOL);
         }
+	public void testRealTransform() {
+		Complex[] transform = FourierMath.transform(signal, new double[N]);
+		double[] re = new double[N/2+1];
+		double[] im = new double[N/2+1];
+		FourierMath.realTransform(signal, re, im);
+		for(int i=0; i<=N/2; i++) {
+			assertEquals("Real", transform[i].real(), re[i], JSci.GlobalSettings.ZERO_TOL);
+			assertEquals("Imag", transform[i].imag(), im[i], JSci.GlobalSettings.ZERO_TOL);
+		}
+		double[] result = new double[N];
+		FourierMath.inverseRealTransform(re, im, result);
+		for(int i=0; i<N; i++)
+			assertEquals(signal[i], result[i], JSci.GlobalSettings.ZERO_TOL);
+	}
+	public void testBatchTransform() {
+		final int count = 3;
+		double[][] re = new double[count][];
+		double[][] im = new double[count][N];
+		for(int n=0; n<count; n++)
+			re[n] = (double[]) signal.clone();
+		FourierMath.transform(re, im);
+		Complex[] transform = FourierMath.transform(signal);
+		for(int n=0; n<count; n++) {
+			for(int i=0; i<N; i++) {
+				assertEquals("Real", transform[i].real(), re[n][i], JSci.GlobalSettings.ZERO_TOL);
+				assertEquals("Imag", transform[i].imag(), im[n][i], JSci.GlobalSettings.ZERO_TOL);
+			}
+		}
+	}
+	/** Tests mixed radix and Bluestein lengths against a direct DFT. */
+	public void testPlanLengths() {
+		int[] lengths = new int[] {N-8, N/2+1, 3*5*7};
+		for(int n=0; n<lengths.length; n++) {
+			final int len = lengths[n];
+			double[] re = new double[len];
+			double[] im = new double[len];
+			System.arraycopy(signal, 0, re, 0, len);
+			FourierPlan.getInstance(len).transform(re, im);
+			for(int k=0; k<len; k++) {
+				double sumRe = 0.0;
+				double sumIm = 0.0;
+				for(int j=0; j<len; j++) {
+					double angle = NumericalConstants.TWO_PI*((j*k)%len)/len;
+					sumRe += signal[j]*Math.cos(angle);
+					sumIm += signal[j]*Math.sin(angle);
+				}
+				assertEquals("Real", sumRe, re[k], 1.0e-9);
+				assertEquals("Imag", sumIm, im[k], 1.0e-9);
+			}
+			FourierPlan.getInstance(len).inverseTransform(re, im);
+			for(int i=0; i<len; i++) {
+				assertEquals("Real", signal[i], re[i], JSci.GlobalSettings.ZERO_TOL);
+				assertEquals("Imag", 0.0, im[i], JSci.GlobalSettings.ZERO_TOL);
+			}
+		}
+	}
 
 // A selection of test signals
 
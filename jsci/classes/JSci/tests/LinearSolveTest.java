@@ -35,4 +35,76 @@ public class LinearSolveTest extends junit.framework.TestCase {
 		Double2Vector expected = new Double2Vector(2.0, -2.0);
 		assertEquals(expected, x);
 	}
+
+	/**
+	 * Discretized convection-diffusion operator on a grid,
+	 * symmetric (the Laplacian) if convection is zero.
+	 */
+	private static DoubleSparseSquareMatrix createGridMatrix(int m, double convection) {
+		DoubleSparseMatrixBuilder builder = new DoubleSparseMatrixBuilder(m*m, m*m);
+		for(int i=0; i<m; i++) {
+			for(int j=0; j<m; j++) {
+				int row = i*m+j;
+				builder.addElement(row, row, 4.0);
+				if(i > 0)
+					builder.addElement(row, row-m, -1.0-convection);
+				if(i < m-1)
+					builder.addElement(row, row+m, -1.0+convection);
+				if(j > 0)
+					builder.addElement(row, row-1, -1.0);
+				if(j < m-1)
+					builder.addElement(row, row+1, -1.0);
+			}
+		}
+		return builder.toSquareMatrix();
+	}
+	private static void assertSolution(AbstractDoubleMatrix A, AbstractDoubleVector b, AbstractDoubleVector x, double tol) {
+		assertTrue(b.subtract(A.multiply(x)).norm() <= tol*b.norm());
+	}
+
+	public void testSolvePCG() throws MaximumIterationsExceededException
+	{
+		DoubleSparseSquareMatrix A = createGridMatrix(30, 0.0);
+		AbstractDoubleVector b = VectorToolkit.randomVector(A.rows());
+		AbstractDoubleVector x0 = new DoubleVector(A.rows());
+		Preconditioner[] preconditioners = {null, new JacobiPreconditioner(A), new SSORPreconditioner(A, 1.2), new IC0Preconditioner(A)};
+		for(int i=0; i<preconditioners.length; i++) {
+			AbstractDoubleVector x = LinearMath.solvePCG(A, b, x0, preconditioners[i], 500, GlobalSettings.ZERO_TOL);
+			assertSolution(A, b, x, GlobalSettings.ZERO_TOL);
+		}
+	}
+	public void testSolveBiCGSTAB() throws MaximumIterationsExceededException
+	{
+		DoubleSparseSquareMatrix A = createGridMatrix(30, 0.5);
+		AbstractDoubleVector b = VectorToolkit.randomVector(A.rows());
+		AbstractDoubleVector x0 = new DoubleVector(A.rows());
+		Preconditioner[] preconditioners = {null, new JacobiPreconditioner(A), new ILU0Preconditioner(A)};
+		for(int i=0; i<preconditioners.length; i++) {
+			AbstractDoubleVector x = LinearMath.solveBiCGSTAB(A, b, x0, preconditioners[i], 500, GlobalSettings.ZERO_TOL);
+			assertSolution(A, b, x, 10.0*GlobalSettings.ZERO_TOL);
+		}
+	}
+	public void testSolveRestartedGMRes() throws MaximumIterationsExceededException
+	{
+		DoubleSparseSquareMatrix A = createGridMatrix(30, 0.5);
+		AbstractDoubleVector b = VectorToolkit.randomVector(A.rows());
+		AbstractDoubleVector x0 = new DoubleVector(A.rows());
+		Preconditioner[] preconditioners = {null, new SSORPreconditioner(A, 1.0), new ILU0Preconditioner(A)};
+		for(int i=0; i<preconditioners.length; i++) {
+			AbstractDoubleVector x = LinearMath.solveGMRes(A, b, x0, preconditioners[i], 30, 2000, GlobalSettings.ZERO_TOL);
+			assertSolution(A, b, x, 10.0*GlobalSettings.ZERO_TOL);
+		}
+	}
+	public void testILU0IsExactForTridiagonal()
+	{
+		DoubleSparseSquareMatrix A = new DoubleSparseSquareMatrix(new double[][] {
+			{4.0, -1.0, 0.0}, {-2.0, 4.0, -1.0}, {0.0, -2.0, 4.0}});
+		double b[] = {1.0, 2.0, 3.0};
+		double z[] = new double[3];
+		new ILU0Preconditioner(A).solve(b, z);
+		double Az[] = new double[3];
+		A.multiply(z, Az);
+		for(int i=0; i<3; i++)
+			assertEquals(b[i], Az[i], 1.0e-12);
+	}
 }
@@ -189,4 +189,32 @@ public class MatrixDecompositionTest extends TestCase {
                 AbstractComplexSquareMatrix inv=mat.inverse();
                 assertEquals(mat.multiply(inv), ComplexDiagonalMatrix.identity(N)); // square.equals(subclass)
         }
+        public void testBlockedInverse() {
+                // big enough to span several blocks
+                final int n=75;
+                double array[][]=new double[n][n];
+                for(int i=0;i<n;i++) {
+                        for(int j=0;j<n;j++)
+                                array[i][j]=ExtraMath.random(-1.0, 1.0);
+                }
+                DoubleSquareMatrix mat=new DoubleSquareMatrix(array);
+                AbstractDoubleSquareMatrix inv=mat.inverse();
+                assertTrue(mat.multiply(inv).equals(DoubleDiagonalMatrix.identity(n), 1.0e-8));
+                assertTrue(inv.multiply(mat).equals(DoubleDiagonalMatrix.identity(n), 1.0e-8));
+        }
+        public void testComplexBlockedInverse() {
+                final int n=75;
+                double arrayRe[][]=new double[n][n];
+                double arrayIm[][]=new double[n][n];
+                for(int i=0;i<n;i++) {
+                        for(int j=0;j<n;j++) {
+                                arrayRe[i][j]=ExtraMath.random(-1.0, 1.0);
+                                arrayIm[i][j]=ExtraMath.random(-1.0, 1.0);
+                        }
+                }
+                ComplexSquareMatrix mat=new ComplexSquareMatrix(arrayRe, arrayIm);
+                AbstractComplexSquareMatrix inv=mat.inverse();
+                assertTrue(mat.multiply(inv).equals(ComplexDiagonalMatrix.identity(n), 1.0e-8));
+                assertTrue(inv.multiply(mat).equals(ComplexDiagonalMatrix.identity(n), 1.0e-8));
+        }
 }
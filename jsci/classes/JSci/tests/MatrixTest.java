@@ -29,7 +29,8 @@ public class MatrixTest extends junitx.extensions.EqualsHashCodeTestCase {
                         DoubleMatrix.class, DoubleTridiagonalMatrix.class,
                         DoubleDiagonalMatrix.class, DoubleSparseMatrix.class,
                         DoubleSparseSquareMatrix.class,
-                        DoubleFileSquareMatrix.class
+                        DoubleFileSquareMatrix.class,
+                        DoubleMappedSquareMatrix.class
                 };
                 TestSuite suite = new TestSuite(MatrixTest.class.toString());
                 for(int i=0; i<classes.length; i++) {
@@ -0,0 +1,167 @@
+package JSci.tests;
+
+import JSci.GlobalSettings;
+import JSci.maths.*;
+import JSci.maths.matrices.*;
+import JSci.maths.vectors.*;
+import JSci.util.VectorToolkit;
+
+/**
+ * Testcase for sparse matrix kernels.
+ * The matrices are big enough to be processed in parallel.
+ * @author Mark Hale
+ */
+public class SparseMatrixTest extends junit.framework.TestCase {
+	private final int N = 400;
+	private final int M = 300;
+	private final int NNZ_PER_ROW = 100;
+	private double array[][];
+	private double array2[][];
+
+	public static void main(String arg[]) {
+			junit.textui.TestRunner.run(SparseMatrixTest.class);
+	}
+	public SparseMatrixTest(String name) {
+			super(name);
+	}
+
+	protected void setUp() {
+			GlobalSettings.ZERO_TOL=1.0e-10;
+			array=randomSparseArray(N, M);
+			array2=randomSparseArray(M, N);
+	}
+	private double[][] randomSparseArray(int rows, int cols) {
+		double arr[][]=new double[rows][cols];
+		for(int i=0;i<rows;i++) {
+			for(int n=0;n<NNZ_PER_ROW;n++)
+				arr[i][(int)ExtraMath.random(0.0, cols)]=ExtraMath.random(-1.0, 1.0);
+		}
+		return arr;
+	}
+	private DoubleSparseMatrix createSparseMatrix(double arr[][]) {
+		DoubleSparseMatrix mat=new DoubleSparseMatrix(arr.length, arr[0].length, 1024);
+		for(int i=0;i<arr.length;i++) {
+			for(int j=0;j<arr[i].length;j++)
+				mat.setElement(i,j,arr[i][j]);
+		}
+		return mat;
+	}
+
+	public void testMultiplyVector() {
+		DoubleSparseMatrix mat=createSparseMatrix(array);
+		AbstractDoubleVector v=VectorToolkit.randomVector(M);
+		AbstractDoubleVector ans=mat.multiply(v);
+		assertEquals(N, ans.dimension());
+		for(int i=0;i<N;i++) {
+			double sum=0.0;
+			for(int j=0;j<M;j++)
+				sum+=array[i][j]*v.getComponent(j);
+			assertEquals(sum, ans.getComponent(i), GlobalSettings.ZERO_TOL);
+		}
+	}
+	public void testTransposeMultiply() {
+		DoubleSparseMatrix mat=createSparseMatrix(array);
+		AbstractDoubleVector v=VectorToolkit.randomVector(N);
+		AbstractDoubleVector ans=mat.transposeMultiply(v);
+		assertEquals(M, ans.dimension());
+		for(int j=0;j<M;j++) {
+			double sum=0.0;
+			for(int i=0;i<N;i++)
+				sum+=array[i][j]*v.getComponent(i);
+			assertEquals(sum, ans.getComponent(j), GlobalSettings.ZERO_TOL);
+		}
+	}
+	public void testTransposeMultiplyWide() {
+		// few elements per row relative to the number of columns
+		final int rows=40000, cols=200000;
+		DoubleSparseMatrixBuilder builder=new DoubleSparseMatrixBuilder(rows, cols);
+		int colIndex[]=new int[rows];
+		double x[]=new double[rows];
+		for(int i=0;i<rows;i++) {
+			colIndex[i]=(int)ExtraMath.random(0.0, cols);
+			x[i]=ExtraMath.random(-1.0, 1.0);
+			builder.addElement(i,colIndex[i],x[i]);
+		}
+		DoubleSparseMatrix mat=builder.toMatrix();
+		AbstractDoubleVector v=VectorToolkit.randomVector(rows);
+		double expected[]=new double[cols];
+		for(int i=0;i<rows;i++)
+			expected[colIndex[i]]+=x[i]*v.getComponent(i);
+		AbstractDoubleVector ans=mat.transposeMultiply(v);
+		assertEquals(cols, ans.dimension());
+		for(int j=0;j<cols;j++)
+			assertEquals(expected[j], ans.getComponent(j), GlobalSettings.ZERO_TOL);
+	}
+	public void testTranspose() {
+		DoubleSparseMatrix mat=createSparseMatrix(array);
+		DoubleSparseMatrix ans=(DoubleSparseMatrix)mat.transpose();
+		assertEquals(mat.elementCount(), ans.elementCount());
+		for(int i=0;i<N;i++) {
+			for(int j=0;j<M;j++)
+				assertEquals(array[i][j], ans.getElement(j,i), 0.0);
+		}
+	}
+	public void testMultiplySparse() {
+		DoubleSparseMatrix mat=createSparseMatrix(array);
+		AbstractDoubleMatrix ans=mat.multiply(createSparseMatrix(array2));
+		assertTrue(ans instanceof DoubleSparseSquareMatrix);
+		assertEquals(ans, new DoubleSparseSquareMatrix(multiply(array, array2)));
+		double array3[][]=randomSparseArray(M, N/2);
+		ans=mat.multiply(createSparseMatrix(array3));
+		assertTrue(ans instanceof DoubleSparseMatrix);
+		assertEquals(ans, createSparseMatrix(multiply(array, array3)));
+	}
+	public void testMultiplySparseSquare() {
+		DoubleSparseSquareMatrix mat=new DoubleSparseSquareMatrix(randomSparseArray(N, N));
+		DoubleSparseSquareMatrix ans=mat.multiply((DoubleSparseSquareMatrix)mat.transpose());
+		double arr[][]=new double[N][N];
+		for(int i=0;i<N;i++) {
+			for(int j=0;j<N;j++)
+				arr[i][j]=mat.getElement(i,j);
+		}
+		double arrT[][]=new double[N][N];
+		for(int i=0;i<N;i++) {
+			for(int j=0;j<N;j++)
+				arrT[i][j]=arr[j][i];
+		}
+		assertEquals(ans, new DoubleSparseSquareMatrix(multiply(arr, arrT)));
+	}
+	public void testBuilder() {
+		DoubleSparseMatrixBuilder builder=new DoubleSparseMatrixBuilder(N, M);
+		double arr[][]=new double[N][M];
+		for(int n=0;n<N*NNZ_PER_ROW;n++) {
+			int i=(int)ExtraMath.random(0.0, N);
+			int j=(int)ExtraMath.random(0.0, M);
+			double x=ExtraMath.random(-1.0, 1.0);
+			arr[i][j]+=x;
+			builder.addElement(i,j,x);
+		}
+		assertEquals(createSparseMatrix(arr), builder.toMatrix());
+		assertEquals(0, builder.size());
+	}
+	public void testBuilderAppendRow() {
+		DoubleSparseMatrixBuilder builder=new DoubleSparseMatrixBuilder(N, N);
+		double arr[][]=new double[N][N];
+		int cols[]=new int[NNZ_PER_ROW];
+		double x[]=new double[NNZ_PER_ROW];
+		for(int i=0;i<N;i++) {
+			for(int n=0;n<NNZ_PER_ROW;n++) {
+				cols[n]=(int)ExtraMath.random(0.0, N);
+				x[n]=ExtraMath.random(-1.0, 1.0);
+				arr[i][cols[n]]+=x[n];
+			}
+			assertEquals(i, builder.appendRow(cols, x));
+		}
+		assertEquals(new DoubleSparseSquareMatrix(arr), builder.toSquareMatrix());
+	}
+	private static double[][] multiply(double a[][], double b[][]) {
+		double ans[][]=new double[a.length][b[0].length];
+		for(int i=0;i<a.length;i++) {
+			for(int k=0;k<b.length;k++) {
+				for(int j=0;j<b[0].length;j++)
+					ans[i][j]+=a[i][k]*b[k][j];
+			}
+		}
+		return ans;
+	}
+}
@@ -124,4 +124,83 @@ public class VectorTest extends junitx.extensions.EqualsHashCodeTestCase {
                         assertEquals(msg, map.map(array[i]), ans.getComponent(i), JSci.GlobalSettings.ZERO_TOL);
                 }
 	}
+        public void testAxpy() throws Exception {
+                double expected[] = new double[N];
+                for(int i=0; i<N; i++)
+                        expected[i] = array[i] + 2.0*array2[i];
+                AbstractDoubleVector vec = (AbstractDoubleVector) createInstance();
+                assertSame(vec, vec.axpy(2.0, (AbstractDoubleVector) createNotEqualInstance()));
+                for(int i=0;i<N;i++) {
+			String msg = vec.getClass().toString()+": ("+i+")";
+                        assertEquals(msg, expected[i], vec.getComponent(i), JSci.GlobalSettings.ZERO_TOL);
+                }
+                vec.axpy(-2.0, new DoubleVector((double[]) array2.clone()));
+                for(int i=0;i<N;i++) {
+			String msg = vec.getClass().toString()+": ("+i+")";
+                        assertEquals(msg, expected[i]-2.0*array2[i], vec.getComponent(i), JSci.GlobalSettings.ZERO_TOL);
+                }
+        }
+        public void testAxpby() throws Exception {
+                double expected[] = new double[N];
+                for(int i=0; i<N; i++)
+                        expected[i] = 3.0*array2[i] - 0.5*array[i];
+                AbstractDoubleVector vec = (AbstractDoubleVector) createInstance();
+                assertSame(vec, vec.axpby(3.0, (AbstractDoubleVector) createNotEqualInstance(), -0.5));
+                for(int i=0;i<N;i++) {
+			String msg = vec.getClass().toString()+": ("+i+")";
+                        assertEquals(msg, expected[i], vec.getComponent(i), JSci.GlobalSettings.ZERO_TOL);
+                }
+        }
+        public void testScale() throws Exception {
+                double expected[] = new double[N];
+                for(int i=0; i<N; i++)
+                        expected[i] = -1.5*array[i];
+                AbstractDoubleVector vec = (AbstractDoubleVector) createInstance();
+                assertSame(vec, vec.scale(-1.5));
+                for(int i=0;i<N;i++) {
+			String msg = vec.getClass().toString()+": ("+i+")";
+                        assertEquals(msg, expected[i], vec.getComponent(i), JSci.GlobalSettings.ZERO_TOL);
+                }
+        }
+        public void testSet() throws Exception {
+                AbstractDoubleVector vec = (AbstractDoubleVector) createZeroInstance();
+                assertSame(vec, vec.set((AbstractDoubleVector) createNotEqualInstance()));
+                for(int i=0;i<N;i++) {
+			String msg = vec.getClass().toString()+": ("+i+")";
+                        assertEquals(msg, array2[i], vec.getComponent(i), JSci.GlobalSettings.ZERO_TOL);
+                }
+        }
+        public void testFusedScalarProduct() throws Exception {
+                AbstractDoubleVector vec = (AbstractDoubleVector) createInstance();
+                double result[] = new double[2];
+                double ans = vec.scalarProduct((AbstractDoubleVector) createNotEqualInstance(), result);
+		String msg = vec.getClass().toString();
+                assertEquals(msg, ArrayMath.scalarProduct(array, array2), ans, JSci.GlobalSettings.ZERO_TOL);
+                assertEquals(msg, ans, result[0], 0.0);
+                assertEquals(msg, ArrayMath.scalarProduct(array, array), result[1], JSci.GlobalSettings.ZERO_TOL);
+        }
+	public void testMapComponentsInPlace() throws Exception {
+		RealPolynomial map = new RealPolynomial(new double[] {2.0, 1.0});
+                double expected[] = new double[N];
+                for(int i=0; i<N; i++)
+                        expected[i] = map.map(array[i]);
+                AbstractDoubleVector vec = (AbstractDoubleVector) createInstance();
+		assertSame(vec, vec.mapComponentsInPlace(map));
+                for(int i=0;i<N;i++) {
+			String msg = vec.getClass().toString()+": ("+i+")";
+                        assertEquals(msg, expected[i], vec.getComponent(i), JSci.GlobalSettings.ZERO_TOL);
+                }
+	}
+        public void testPool() {
+                DoubleVectorPool pool = new DoubleVectorPool(1);
+                DoubleVector v = pool.acquire(N);
+                v.setComponent(0, 1.0);
+                pool.release(v);
+                assertSame(v, pool.acquire(N));
+                assertNotSame(v, pool.acquire(N));
+                pool.release(v);
+                assertSame(v, pool.acquireZero(N));
+                assertEquals(0.0, v.getComponent(0), 0.0);
+                assertEquals(2*N, pool.acquire(2*N).dimension());
+        }
 }
@@ -1,6 +1,12 @@
 package JSci.tests;
 
+import java.util.Random;
 import JSci.maths.WaveletMath;
+import JSci.maths.wavelet.FWTCoef;
+import JSci.maths.wavelet.LiftingFWT;
+import JSci.maths.wavelet.ParallelFWT;
+import JSci.maths.wavelet.daubechies2.FastDaubechies2;
+import JSci.maths.wavelet.symmlet8.FastSymmlet8;
 
 /**
 * Testcase for wavelet methods.
@@ -47,5 +53,261 @@ public class WaveletTest extends junit.framework.TestCase {
                 for(int i=0;i<data.length;i++)
                         assertEquals(filter[i], interpol[i], JSci.GlobalSettings.ZERO_TOL);
         }
+
+        private static final int[] LENGTHS={1,2,3,5,7,12,31,100,127,1000};
+
+        private static LiftingFWT[] orthogonalFilters() {
+                return new LiftingFWT[] {
+                        LiftingFWT.haar(),
+                        LiftingFWT.daubechies(2), LiftingFWT.daubechies(3), LiftingFWT.daubechies(4), LiftingFWT.daubechies(5),
+                        LiftingFWT.daubechies(6), LiftingFWT.daubechies(7), LiftingFWT.daubechies(8),
+                        LiftingFWT.symmlet8()
+                };
+        }
+        private static LiftingFWT[] allFilters() {
+                LiftingFWT[] orthogonal=orthogonalFilters();
+                LiftingFWT[] all=new LiftingFWT[orthogonal.length+2];
+                System.arraycopy(orthogonal,0,all,0,orthogonal.length);
+                all[orthogonal.length]=LiftingFWT.cdf2_4();
+                all[orthogonal.length+1]=LiftingFWT.cdf3_5();
+                return all;
+        }
+        private static double[] randomSignal(Random rnd,int n) {
+                double[] v=new double[n];
+                for(int i=0;i<n;i++)
+                        v[i]=rnd.nextDouble()-0.5;
+                return v;
+        }
+        private static float[] toFloat(double[] v) {
+                float[] f=new float[v.length];
+                for(int i=0;i<v.length;i++)
+                        f[i]=(float)v[i];
+                return f;
+        }
+        /**
+        * Perfect reconstruction of the lifting transforms
+        * at odd and non power of two lengths.
+        */
+        public void testLiftingReconstruction() {
+                Random rnd=new Random(1);
+                LiftingFWT[] filters=allFilters();
+                for(int f=0;f<filters.length;f++) {
+                        for(int l=0;l<LENGTHS.length;l++) {
+                                double[] data=randomSignal(rnd,LENGTHS[l]);
+                                double[] v=(double[])data.clone();
+                                filters[f].transform(v);
+                                filters[f].invTransform(v);
+                                for(int i=0;i<data.length;i++)
+                                        assertEquals(data[i], v[i], 1.0e-10);
+                                v=(double[])data.clone();
+                                filters[f].transform(v,2);
+                                filters[f].invTransform(v,2);
+                                for(int i=0;i<data.length;i++)
+                                        assertEquals(data[i], v[i], 1.0e-10);
+                                float[] fdata=toFloat(data);
+                                float[] fv=(float[])fdata.clone();
+                                filters[f].transform(fv);
+                                filters[f].invTransform(fv);
+                                for(int i=0;i<fdata.length;i++)
+                                        assertEquals(fdata[i], fv[i], 1.0e-4);
+                        }
+                }
+        }
+        /**
+        * Perfect reconstruction of the 2D lifting transforms.
+        */
+        public void testLifting2DReconstruction() {
+                Random rnd=new Random(2);
+                final int[][] sizes={{1,1},{13,7},{16,16},{33,20},{5,64}};
+                LiftingFWT[] filters=allFilters();
+                for(int f=0;f<filters.length;f++) {
+                        for(int s=0;s<sizes.length;s++) {
+                                final int width=sizes[s][0], height=sizes[s][1];
+                                final int J=LiftingFWT.levels(Math.max(width,height));
+                                double[] data=randomSignal(rnd,width*height);
+                                double[] v=(double[])data.clone();
+                                filters[f].transform2D(v,width,height,J);
+                                filters[f].invTransform2D(v,width,height,J);
+                                for(int i=0;i<data.length;i++)
+                                        assertEquals(data[i], v[i], 1.0e-10);
+                                float[] fdata=toFloat(data);
+                                float[] fv=(float[])fdata.clone();
+                                filters[f].transform2D(fv,width,height,2);
+                                filters[f].invTransform2D(fv,width,height,2);
+                                for(int i=0;i<fdata.length;i++)
+                                        assertEquals(fdata[i], fv[i], 1.0e-4);
+                        }
+                }
+        }
+        /**
+        * The orthogonal filters preserve energy at any length.
+        */
+        public void testLiftingEnergy() {
+                Random rnd=new Random(3);
+                LiftingFWT[] filters=orthogonalFilters();
+                for(int f=0;f<filters.length;f++) {
+                        for(int l=0;l<LENGTHS.length;l++) {
+                                double[] v=randomSignal(rnd,LENGTHS[l]);
+                                double energy=0.0;
+                                for(int i=0;i<v.length;i++)
+                                        energy+=v[i]*v[i];
+                                filters[f].transform(v);
+                                double coefEnergy=0.0;
+                                for(int i=0;i<v.length;i++)
+                                        coefEnergy+=v[i]*v[i];
+                                assertEquals(energy, coefEnergy, 1.0e-10*Math.max(1.0,energy));
+                        }
+                }
+        }
+        /**
+        * Away from the ends, one level of the lifting transforms gives
+        * the coefficients of FastDaubechies2 and FastSymmlet8,
+        * with the wavelet coefficients delayed by the filter.
+        */
+        public void testLiftingInterior() {
+                final int n=64;
+                float[] data=toFloat(randomSignal(new Random(4),n));
+                float[] expected=(float[])data.clone();
+                FastDaubechies2.transform(expected,n);
+                assertInterior(LiftingFWT.daubechies(2), data, expected, 1);
+                expected=(float[])data.clone();
+                FastSymmlet8.transform(expected,n);
+                assertInterior(LiftingFWT.symmlet8(), data, expected, 3);
+        }
+        private static void assertInterior(LiftingFWT fwt,float[] data,float[] expected,int delay) {
+                final int n=data.length;
+                final int half=n/2;
+                float[] v=(float[])data.clone();
+                fwt.transform(v,0,1,n);
+                for(int k=8;k<half-8;k++) {
+                        assertEquals(expected[k], v[k], 1.0e-5);
+                        assertEquals(expected[half+k-delay], v[half+k], 1.0e-5);
+                }
+        }
+        /* big enough for the passes to be split across threads */
+        private static final int WIDTH=201, HEIGHT=131;
+        private static final int WIDTH3=33, HEIGHT3=30, DEPTH3=21;
+        private static void assertClose(double[] expected,double[] actual,double tol) {
+                assertEquals(expected.length, actual.length);
+                for(int i=0;i<expected.length;i++)
+                        assertEquals(expected[i], actual[i], tol);
+        }
+        private static void assertClose(float[] expected,float[] actual,double tol) {
+                assertEquals(expected.length, actual.length);
+                for(int i=0;i<expected.length;i++)
+                        assertEquals(expected[i], actual[i], tol);
+        }
+        /**
+        * Round trips of the 2D standard and non-standard parallel transforms,
+        * and agreement with LiftingFWT.transform2D.
+        */
+        public void testParallel2D() {
+                Random rnd=new Random(5);
+                LiftingFWT[] filters={LiftingFWT.daubechies(4),LiftingFWT.cdf2_4()};
+                final int J=LiftingFWT.levels(Math.max(WIDTH,HEIGHT));
+                for(int f=0;f<filters.length;f++) {
+                        ParallelFWT pfwt=new ParallelFWT(filters[f]);
+                        double[] data=randomSignal(rnd,WIDTH*HEIGHT);
+                        double[] v=(double[])data.clone();
+                        pfwt.transform(v,WIDTH,HEIGHT,J);
+                        double[] expected=(double[])data.clone();
+                        filters[f].transform2D(expected,WIDTH,HEIGHT,J);
+                        assertClose(expected, v, 1.0e-12);
+                        pfwt.invTransform(v,WIDTH,HEIGHT,J);
+                        assertClose(data, v, 1.0e-10);
+                        v=(double[])data.clone();
+                        pfwt.transformStandard(v,WIDTH,HEIGHT,J);
+                        pfwt.invTransformStandard(v,WIDTH,HEIGHT,J);
+                        assertClose(data, v, 1.0e-10);
+
+                        float[] fdata=toFloat(data);
+                        float[] fv=(float[])fdata.clone();
+                        pfwt.transform(fv,WIDTH,HEIGHT,3);
+                        float[] fexpected=(float[])fdata.clone();
+                        filters[f].transform2D(fexpected,WIDTH,HEIGHT,3);
+                        assertClose(fexpected, fv, 1.0e-6);
+                        pfwt.invTransform(fv,WIDTH,HEIGHT,3);
+                        assertClose(fdata, fv, 1.0e-4);
+                        fv=(float[])fdata.clone();
+                        pfwt.transformStandard(fv,WIDTH,HEIGHT,3);
+                        pfwt.invTransformStandard(fv,WIDTH,HEIGHT,3);
+                        assertClose(fdata, fv, 1.0e-4);
+                }
+        }
+        /**
+        * Round trips of the 3D standard and non-standard parallel transforms.
+        */
+        public void testParallel3D() {
+                Random rnd=new Random(6);
+                ParallelFWT pfwt=new ParallelFWT(LiftingFWT.symmlet8());
+                final int J=LiftingFWT.levels(Math.max(WIDTH3,Math.max(HEIGHT3,DEPTH3)));
+                double[] data=randomSignal(rnd,WIDTH3*HEIGHT3*DEPTH3);
+                double[] v=(double[])data.clone();
+                pfwt.transform(v,WIDTH3,HEIGHT3,DEPTH3,J);
+                pfwt.invTransform(v,WIDTH3,HEIGHT3,DEPTH3,J);
+                assertClose(data, v, 1.0e-10);
+                v=(double[])data.clone();
+                pfwt.transformStandard(v,WIDTH3,HEIGHT3,DEPTH3,J);
+                pfwt.invTransformStandard(v,WIDTH3,HEIGHT3,DEPTH3,J);
+                assertClose(data, v, 1.0e-10);
+
+                float[] fdata=toFloat(data);
+                float[] fv=(float[])fdata.clone();
+                pfwt.transform(fv,WIDTH3,HEIGHT3,DEPTH3,2);
+                pfwt.invTransform(fv,WIDTH3,HEIGHT3,DEPTH3,2);
+                assertClose(fdata, fv, 1.0e-4);
+                fv=(float[])fdata.clone();
+                pfwt.transformStandard(fv,WIDTH3,HEIGHT3,DEPTH3,2);
+                pfwt.invTransformStandard(fv,WIDTH3,HEIGHT3,DEPTH3,2);
+                assertClose(fdata, fv, 1.0e-4);
+        }
+        /**
+        * Number of samples left after j levels of the transform of n samples.
+        */
+        private static int length(int n,int j) {
+                for(;j>0;j--)
+                        n=(n+1)/2;
+                return n;
+        }
+        private static void assertBands(FWTCoef c,int width,int height,int depth,int J) {
+                assertEquals(J+1, c.getJ());
+                assertEquals(length(width,J)*length(height,J)*length(depth,J), c.dimension(0));
+                for(int b=1;b<=J;b++) {
+                        int outer=length(width,b-1)*length(height,b-1)*length(depth,b-1);
+                        int inner=length(width,b)*length(height,b)*length(depth,b);
+                        assertEquals(outer-inner, c.dimension(b));
+                }
+        }
+        /**
+        * Band sizes of toFWTCoef, and round trips through fromFWTCoef.
+        */
+        public void testParallelFWTCoef() {
+                Random rnd=new Random(7);
+                ParallelFWT pfwt=new ParallelFWT(LiftingFWT.daubechies(2));
+                final int J=3;
+                double[] data=randomSignal(rnd,WIDTH*HEIGHT);
+                double[] v=(double[])data.clone();
+                pfwt.transform(v,WIDTH,HEIGHT,J);
+                FWTCoef c=ParallelFWT.toFWTCoef(v,WIDTH,HEIGHT,1,J);
+                assertBands(c,WIDTH,HEIGHT,1,J);
+                double[] w=new double[v.length];
+                ParallelFWT.fromFWTCoef(c,w,WIDTH,HEIGHT,1,J);
+                assertClose(v, w, 0.0);
+                pfwt.invTransform(w,WIDTH,HEIGHT,J);
+                assertClose(data, w, 1.0e-10);
+
+                // more levels than the volume allows are capped
+                final int maxJ=LiftingFWT.levels(Math.max(WIDTH3,Math.max(HEIGHT3,DEPTH3)));
+                float[] fdata=toFloat(randomSignal(rnd,WIDTH3*HEIGHT3*DEPTH3));
+                float[] fv=(float[])fdata.clone();
+                pfwt.transformStandard(fv,WIDTH3,HEIGHT3,DEPTH3,maxJ+2);
+                c=ParallelFWT.toFWTCoef(fv,WIDTH3,HEIGHT3,DEPTH3,maxJ+2);
+                assertBands(c,WIDTH3,HEIGHT3,DEPTH3,maxJ);
+                float[] fw=new float[fv.length];
+                ParallelFWT.fromFWTCoef(c,fw,WIDTH3,HEIGHT3,DEPTH3,maxJ+2);
+                assertClose(fv, fw, 0.0);
+                pfwt.invTransformStandard(fw,WIDTH3,HEIGHT3,DEPTH3,maxJ+2);
+                assertClose(fdata, fw, 1.0e-4);
+        }
 }
 
@@ -0,0 +1,745 @@
+package com.cflex.util.lpSolve;
+
+/**
+* Sparse LU factorization of the simplex basis, used by LpSolver instead of
+* the product form eta file when BASIS_LU is selected.
+*
+* The basis B holds, at each position r, the column of variable bas[r]
+* (including its objective row coefficient), so it is (rows+1) x (rows+1).
+* It is factored as L U by Markowitz pivoting with threshold partial pivoting,
+* so that slack and other singleton columns are pivoted first and cost nothing.
+* L is kept as column etas and U row by row, with the pivot of each row stored
+* separately.
+*
+* A basis change replaces a column of U by the partially transformed entering
+* column (the spike) and restores triangularity by a Forrest-Tomlin update:
+* the pivot is moved to the end of the pivot order and its row is eliminated
+* against the later rows, which adds one row eta. Refactorization is requested
+* once U and the row etas have grown too much since the last factorization.
+*/
+class LpBasisFactor implements LpConstant
+{
+   /* threshold for partial pivoting, relative to the largest entry of the column */
+   static final double PIVOT_TOLERANCE = 0.1;
+   /* smallest acceptable pivot */
+   static final double PIVOT_EPS = 1e-11;
+   /* number of Markowitz candidates examined for each pivot */
+   static final int SEARCH_LIMIT = 4;
+   /* refactor when U and the row etas have grown by this factor */
+   static final double FILL_FACTOR = 2.0;
+   /* refactor after this many updates, whatever the fill */
+   static final int MAX_UPDATES = 500;
+
+   private final int n;
+
+   /* L: column etas, x[lIndex] -= lValue * x[lPivot] */
+   private int lCount;
+   private int[] lPivot;
+   private int[] lStart;
+   private int[] lIndex;
+   private double[] lValue;
+
+   /* Forrest-Tomlin row etas, x[rPivot] -= sum rValue * x[rIndex] */
+   private int rCount;
+   private int[] rPivot;
+   private int[] rStart;
+   private int[] rIndex;
+   private double[] rValue;
+
+   /* U by rows: off-diagonal entries, pivot column and pivot of each row */
+   private int[][] uIndex;
+   private double[][] uValue;
+   private int[] uLen;
+   private int[] pivotCol;
+   private double[] diag;
+   /* rows with an off-diagonal entry in each column */
+   private int[][] uColRows;
+   private int[] uColLen;
+
+   /* pivot order of the rows, -1 for pivots moved to the end */
+   private int[] order;
+   private int orderLen;
+   private int[] rowStep;
+   private int[] colPivotRow;
+
+   /* spike of the last ftran */
+   private int spikeLen;
+   private int[] spikeIndex;
+   private double[] spikeValue;
+
+   private int updates;
+   private int factorNonZeros;
+   private int nonZeros;
+   private boolean stable;
+
+   private final double[] work;
+
+   LpBasisFactor(int n)
+   {
+      this.n = n;
+      lPivot = new int[n];
+      lStart = new int[n + 1];
+      lIndex = new int[n];
+      lValue = new double[n];
+      rPivot = new int[16];
+      rStart = new int[17];
+      rIndex = new int[n];
+      rValue = new double[n];
+      uIndex = new int[n][];
+      uValue = new double[n][];
+      uLen = new int[n];
+      pivotCol = new int[n];
+      diag = new double[n];
+      uColRows = new int[n][];
+      uColLen = new int[n];
+      order = new int[2 * n];
+      rowStep = new int[n];
+      colPivotRow = new int[n];
+      spikeIndex = new int[n];
+      spikeValue = new double[n];
+      work = new double[n];
+   }
+
+   /**
+   * Returns the dimension of the basis.
+   */
+   int size()
+   {
+      return n;
+   }
+
+   /**
+   * Returns the number of nonzeros in L, U and the row etas.
+   */
+   int getNonZeros()
+   {
+      return nonZeros;
+   }
+
+   /**
+   * Returns the number of updates since the last factorization.
+   */
+   int getUpdates()
+   {
+      return updates;
+   }
+
+   /**
+   * Returns TRUE if the basis should be refactored before the next iteration,
+   * because of fill, the number of updates or a small pivot.
+   */
+   int needsRefactor()
+   {
+      if(!stable || updates >= MAX_UPDATES)
+         return TRUE;
+      return (nonZeros > FILL_FACTOR * factorNonZeros + n) ? TRUE : FALSE;
+   }
+
+   /**
+   * Factors the basis given by lp.bas.
+   * The column of each basic variable is built as in LpSolver.setPivotColumn,
+   * so the objective row entry of a structural column is shifted by extrad.
+   */
+   void factor(LpModel lp, double extrad) throws Exception
+   {
+      int i, j, k, c, r, colnr, varnr, len;
+      double sign;
+      /* active submatrix, values by column, pattern by row */
+      int[][] cRows = new int[n][];
+      double[][] cVals = new double[n][];
+      int[] cLen = new int[n];
+      int[][] rCols = new int[n][];
+      int[] rLen = new int[n];
+
+      for(j = 0;j < n;j++)
+      {
+         varnr = lp.bas[j];
+         sign = (lp.lower[varnr] != FALSE) ? 1 : -1;
+         if(varnr > lp.rows)
+         {
+            colnr = varnr - lp.rows;
+            len = lp.colEnd[colnr] - lp.colEnd[colnr - 1];
+            cRows[j] = new int[len + 2];
+            cVals[j] = new double[len + 2];
+            cRows[j][0] = 0;
+            cVals[j][0] = -sign * extrad;
+            cLen[j] = 1;
+            for(k = lp.colEnd[colnr - 1];k < lp.colEnd[colnr];k++)
+            {
+               if(lp.matRowNr[k] == 0)
+                  cVals[j][0] += sign * lp.matValue[k];
+               else
+               {
+                  cRows[j][cLen[j]] = lp.matRowNr[k];
+                  cVals[j][cLen[j]] = sign * lp.matValue[k];
+                  cLen[j]++;
+               }
+            }
+            if(cVals[j][0] == 0)
+            {
+               cLen[j]--;
+               cRows[j][0] = cRows[j][cLen[j]];
+               cVals[j][0] = cVals[j][cLen[j]];
+            }
+         }
+         else
+         {
+            cRows[j] = new int[4];
+            cVals[j] = new double[4];
+            cRows[j][0] = varnr;
+            cVals[j][0] = sign;
+            cLen[j] = 1;
+         }
+         for(k = 0;k < cLen[j];k++)
+            rLen[cRows[j][k]]++;
+      }
+      for(i = 0;i < n;i++)
+         rCols[i] = new int[rLen[i] + 4];
+      for(i = 0;i < n;i++)
+         rLen[i] = 0;
+      for(j = 0;j < n;j++)
+         for(k = 0;k < cLen[j];k++)
+         {
+            i = cRows[j][k];
+            rCols[i][rLen[i]++] = j;
+         }
+
+      /* count buckets */
+      int[] colHead = new int[n + 1];
+      int[] colNext = new int[n];
+      int[] colPrev = new int[n];
+      int[] rowHead = new int[n + 1];
+      int[] rowNext = new int[n];
+      int[] rowPrev = new int[n];
+      for(k = 0;k <= n;k++)
+      {
+         colHead[k] = -1;
+         rowHead[k] = -1;
+      }
+      for(j = 0;j < n;j++)
+         link(j, cLen[j], colHead, colNext, colPrev);
+      for(i = 0;i < n;i++)
+         link(i, rLen[i], rowHead, rowNext, rowPrev);
+
+      lCount = 0;
+      lStart[0] = 0;
+      rCount = 0;
+      rStart[0] = 0;
+      orderLen = 0;
+      nonZeros = 0;
+      int[] position = new int[n];
+      for(i = 0;i < n;i++)
+         position[i] = -1;
+      int[] pivot = new int[2];
+
+      for(int step = 0;step < n;step++)
+      {
+         if(colHead[0] >= 0 || rowHead[0] >= 0 || !findPivot(pivot, cRows, cVals, cLen, rCols, rLen, colHead, colNext, rowHead, rowNext))
+            throw (new Exception("Inverting failed"));
+         r = pivot[0];
+         c = pivot[1];
+         unlink(c, cLen[c], colHead, colNext, colPrev);
+         unlink(r, rLen[r], rowHead, rowNext, rowPrev);
+
+         /* L eta from the pivot column */
+         int[] rows = cRows[c];
+         double[] vals = cVals[c];
+         double piv = 0;
+         for(k = 0;k < cLen[c];k++)
+            if(rows[k] == r)
+               piv = vals[k];
+         int lBegin = lStart[lCount];
+         ensureL(lBegin + cLen[c]);
+         int lEnd = lBegin;
+         for(k = 0;k < cLen[c];k++)
+         {
+            i = rows[k];
+            if(i != r)
+            {
+               lIndex[lEnd] = i;
+               lValue[lEnd] = vals[k] / piv;
+               lEnd++;
+               unlink(i, rLen[i], rowHead, rowNext, rowPrev);
+               rLen[i] = remove(rCols[i], rLen[i], c);
+            }
+         }
+         if(lEnd > lBegin)
+         {
+            lPivot[lCount] = r;
+            lCount++;
+            lStart[lCount] = lEnd;
+         }
+
+         /* U row from the pivot row, updating the other columns */
+         int[] pivotRow = rCols[r];
+         int uCount = 0;
+         uIndex[r] = new int[rLen[r]];
+         uValue[r] = new double[rLen[r]];
+         for(int e = 0;e < rLen[r];e++)
+         {
+            int cc = pivotRow[e];
+            if(cc == c)
+               continue;
+            unlink(cc, cLen[cc], colHead, colNext, colPrev);
+            int[] ccRows = cRows[cc];
+            double[] ccVals = cVals[cc];
+            double u = 0;
+            for(k = 0;k < cLen[cc];k++)
+               if(ccRows[k] == r)
+               {
+                  u = ccVals[k];
+                  cLen[cc]--;
+                  ccRows[k] = ccRows[cLen[cc]];
+                  ccVals[k] = ccVals[cLen[cc]];
+                  break;
+               }
+            uIndex[r][uCount] = cc;
+            uValue[r][uCount] = u;
+            uCount++;
+            if(lEnd > lBegin && u != 0)
+            {
+               for(k = 0;k < cLen[cc];k++)
+                  position[ccRows[k]] = k;
+               for(int l = lBegin;l < lEnd;l++)
+               {
+                  i = lIndex[l];
+                  if(position[i] >= 0)
+                     ccVals[position[i]] -= lValue[l] * u;
+                  else
+                  {
+                     /* fill in */
+                     if(cLen[cc] == ccRows.length)
+                     {
+                        cRows[cc] = ccRows = grow(ccRows, cLen[cc] + 1);
+                        cVals[cc] = ccVals = grow(ccVals, cLen[cc] + 1);
+                     }
+                     ccRows[cLen[cc]] = i;
+                     ccVals[cLen[cc]] = -lValue[l] * u;
+                     position[i] = cLen[cc];
+                     cLen[cc]++;
+                     if(rLen[i] == rCols[i].length)
+                        rCols[i] = grow(rCols[i], rLen[i] + 1);
+                     rCols[i][rLen[i]++] = cc;
+                  }
+               }
+               for(k = 0;k < cLen[cc];k++)
+                  position[ccRows[k]] = -1;
+            }
+            link(cc, cLen[cc], colHead, colNext, colPrev);
+         }
+         uLen[r] = uCount;
+         diag[r] = piv;
+         pivotCol[r] = c;
+         colPivotRow[c] = r;
+         rowStep[r] = orderLen;
+         order[orderLen++] = r;
+         nonZeros += uCount + 1 + lEnd - lBegin;
+         for(int l = lBegin;l < lEnd;l++)
+         {
+            i = lIndex[l];
+            link(i, rLen[i], rowHead, rowNext, rowPrev);
+         }
+         cRows[c] = null;
+         cVals[c] = null;
+         rCols[r] = null;
+      }
+
+      /* column patterns of U, for the updates */
+      for(j = 0;j < n;j++)
+         uColLen[j] = 0;
+      for(i = 0;i < n;i++)
+         for(k = 0;k < uLen[i];k++)
+            uColLen[uIndex[i][k]]++;
+      for(j = 0;j < n;j++)
+      {
+         uColRows[j] = new int[uColLen[j] + 4];
+         uColLen[j] = 0;
+      }
+      for(i = 0;i < n;i++)
+         for(k = 0;k < uLen[i];k++)
+         {
+            j = uIndex[i][k];
+            uColRows[j][uColLen[j]++] = i;
+         }
+      factorNonZeros = nonZeros;
+      updates = 0;
+      spikeLen = -1;
+      stable = true;
+   }
+
+   /**
+   * Markowitz search over the sparsest columns and rows.
+   * Column singletons have no cost and are taken as soon as they are found.
+   */
+   private boolean findPivot(int[] pivot, int[][] cRows, double[][] cVals, int[] cLen, int[][] rCols, int[] rLen, int[] colHead, int[] colNext, int[] rowHead, int[] rowNext)
+   {
+      int k, c, r, e, i, searched = 0;
+      long cost, bestCost = Long.MAX_VALUE;
+      double v, max, bestAbs = 0;
+      pivot[0] = -1;
+      for(k = 1;k <= n;k++)
+      {
+         for(c = colHead[k];c >= 0;c = colNext[c])
+         {
+            max = columnMax(cVals[c], cLen[c]);
+            for(e = 0;e < cLen[c];e++)
+            {
+               v = Math.abs(cVals[c][e]);
+               if(v >= PIVOT_TOLERANCE * max && v > PIVOT_EPS)
+               {
+                  i = cRows[c][e];
+                  cost = (long)(rLen[i] - 1) * (k - 1);
+                  if(cost < bestCost || (cost == bestCost && v > bestAbs))
+                  {
+                     bestCost = cost;
+                     bestAbs = v;
+                     pivot[0] = i;
+                     pivot[1] = c;
+                  }
+               }
+            }
+            if(pivot[0] >= 0 && (++searched >= SEARCH_LIMIT || bestCost <= (long)(k - 1) * (k - 1)))
+               return true;
+         }
+         for(r = rowHead[k];r >= 0;r = rowNext[r])
+         {
+            for(e = 0;e < rLen[r];e++)
+            {
+               c = rCols[r][e];
+               v = 0;
+               for(i = 0;i < cLen[c];i++)
+                  if(cRows[c][i] == r)
+                  {
+                     v = Math.abs(cVals[c][i]);
+                     break;
+                  }
+               if(v > PIVOT_EPS && v >= PIVOT_TOLERANCE * columnMax(cVals[c], cLen[c]))
+               {
+                  cost = (long)(k - 1) * (cLen[c] - 1);
+                  if(cost < bestCost || (cost == bestCost && v > bestAbs))
+                  {
+                     bestCost = cost;
+                     bestAbs = v;
+                     pivot[0] = r;
+                     pivot[1] = c;
+                  }
+               }
+            }
+            if(pivot[0] >= 0 && (++searched >= SEARCH_LIMIT || bestCost <= (long)(k - 1) * k))
+               return true;
+         }
+      }
+      return pivot[0] >= 0;
+   }
+
+   private static double columnMax(double[] vals, int len)
+   {
+      double max = 0;
+      for(int k = 0;k < len;k++)
+         if(Math.abs(vals[k]) > max)
+            max = Math.abs(vals[k]);
+      return max;
+   }
+
+   private static void link(int x, int count, int[] head, int[] next, int[] prev)
+   {
+      next[x] = head[count];
+      prev[x] = -1;
+      if(head[count] >= 0)
+         prev[head[count]] = x;
+      head[count] = x;
+   }
+
+   private static void unlink(int x, int count, int[] head, int[] next, int[] prev)
+   {
+      if(prev[x] >= 0)
+         next[prev[x]] = next[x];
+      else
+         head[count] = next[x];
+      if(next[x] >= 0)
+         prev[next[x]] = prev[x];
+   }
+
+   /**
+   * Removes a value from the first len elements of an array, not keeping their order.
+   * @return the new length
+   */
+   private static int remove(int[] a, int len, int value)
+   {
+      for(int k = 0;k < len;k++)
+         if(a[k] == value)
+         {
+            a[k] = a[len - 1];
+            return len - 1;
+         }
+      return len;
+   }
+
+   /**
+   * Solves B x = a in place. On entry x is indexed by row, on exit by basis position.
+   * The spike of a is kept for a following update.
+   */
+   void ftran(double[] x, double eps)
+   {
+      int k, e, p, r;
+      double v, s;
+      for(k = 0;k < lCount;k++)
+      {
+         p = lPivot[k];
+         v = x[p];
+         if(v != 0)
+            for(e = lStart[k];e < lStart[k + 1];e++)
+               x[lIndex[e]] -= lValue[e] * v;
+      }
+      for(k = 0;k < rCount;k++)
+      {
+         s = 0;
+         for(e = rStart[k];e < rStart[k + 1];e++)
+            s += rValue[e] * x[rIndex[e]];
+         x[rPivot[k]] -= s;
+      }
+      spikeLen = 0;
+      for(r = 0;r < n;r++)
+         if(x[r] != 0)
+         {
+            spikeIndex[spikeLen] = r;
+            spikeValue[spikeLen] = x[r];
+            spikeLen++;
+         }
+      for(k = orderLen - 1;k >= 0;k--)
+      {
+         r = order[k];
+         if(r < 0)
+            continue;
+         s = x[r];
+         int[] index = uIndex[r];
+         double[] value = uValue[r];
+         for(e = 0;e < uLen[r];e++)
+            s -= value[e] * work[index[e]];
+         work[pivotCol[r]] = s / diag[r];
+      }
+      for(r = 0;r < n;r++)
+      {
+         v = work[r];
+         x[r] = (Math.abs(v) < eps) ? 0 : v;
+         work[r] = 0;
+      }
+   }
+
+   /**
+   * Solves B' x = d in place. On entry x is indexed by basis position, on exit by row.
+   */
+   void btran(double[] x, double eps)
+   {
+      int k, e, p, r, c;
+      double v, s;
+      for(k = 0;k < orderLen;k++)
+      {
+         r = order[k];
+         if(r < 0)
+            continue;
+         c = pivotCol[r];
+         v = x[c];
+         if(v != 0)
+         {
+            v /= diag[r];
+            int[] index = uIndex[r];
+            double[] value = uValue[r];
+            for(e = 0;e < uLen[r];e++)
+               x[index[e]] -= value[e] * v;
+            work[r] = v;
+         }
+      }
+      for(r = 0;r < n;r++)
+      {
+         x[r] = work[r];
+         work[r] = 0;
+      }
+      for(k = rCount - 1;k >= 0;k--)
+      {
+         p = rPivot[k];
+         v = x[p];
+         if(v != 0)
+            for(e = rStart[k];e < rStart[k + 1];e++)
+               x[rIndex[e]] -= rValue[e] * v;
+      }
+      for(k = lCount - 1;k >= 0;k--)
+      {
+         s = 0;
+         for(e = lStart[k];e < lStart[k + 1];e++)
+            s += lValue[e] * x[lIndex[e]];
+         x[lPivot[k]] -= s;
+      }
+      for(r = 0;r < n;r++)
+         if(Math.abs(x[r]) < eps)
+            x[r] = 0;
+   }
+
+   /**
+   * Replaces the column at the specified basis position by the column of the last ftran,
+   * multiplied by scale.
+   */
+   void update(int position, double scale) throws Exception
+   {
+      int k, e, i, r, c, s;
+      if(spikeLen < 0)
+         throw (new Exception("No column to enter the basis"));
+      int p = colPivotRow[position];
+      int t = rowStep[p];
+
+      /* remove the old column from U */
+      for(k = 0;k < uColLen[position];k++)
+      {
+         i = uColRows[position][k];
+         for(e = 0;e < uLen[i];e++)
+            if(uIndex[i][e] == position)
+            {
+               uLen[i]--;
+               uIndex[i][e] = uIndex[i][uLen[i]];
+               uValue[i][e] = uValue[i][uLen[i]];
+               nonZeros--;
+               break;
+            }
+      }
+      uColLen[position] = 0;
+
+      /* insert the spike */
+      double newDiag = 0;
+      for(k = 0;k < spikeLen;k++)
+      {
+         i = spikeIndex[k];
+         double v = scale * spikeValue[k];
+         if(i == p)
+            newDiag = v;
+         else
+         {
+            addU(i, position, v);
+            if(uColLen[position] == uColRows[position].length)
+               uColRows[position] = grow(uColRows[position], uColLen[position] + 1);
+            uColRows[position][uColLen[position]++] = i;
+         }
+      }
+      spikeLen = -1;
+
+      /* eliminate the rest of row p against the later rows */
+      for(e = 0;e < uLen[p];e++)
+      {
+         c = uIndex[p][e];
+         work[c] = uValue[p][e];
+         uColLen[c] = remove(uColRows[c], uColLen[c], p);
+      }
+      nonZeros -= uLen[p];
+      uLen[p] = 0;
+      if(rCount + 1 >= rPivot.length)
+      {
+         rPivot = grow(rPivot, rCount + 2);
+         rStart = grow(rStart, rCount + 3);
+      }
+      int rEnd = rStart[rCount];
+      for(s = t + 1;s < orderLen;s++)
+      {
+         r = order[s];
+         if(r < 0)
+            continue;
+         c = pivotCol[r];
+         double w = work[c];
+         if(w == 0)
+            continue;
+         work[c] = 0;
+         double m = w / diag[r];
+         if(rEnd == rIndex.length)
+         {
+            rIndex = grow(rIndex, rEnd + 1);
+            rValue = grow(rValue, rEnd + 1);
+         }
+         rIndex[rEnd] = r;
+         rValue[rEnd] = m;
+         rEnd++;
+         int[] index = uIndex[r];
+         double[] value = uValue[r];
+         for(e = 0;e < uLen[r];e++)
+         {
+            if(index[e] == position)
+               newDiag -= m * value[e];
+            else
+               work[index[e]] -= m * value[e];
+         }
+      }
+      if(rEnd > rStart[rCount])
+      {
+         rPivot[rCount] = p;
+         rCount++;
+         rStart[rCount] = rEnd;
+         nonZeros += rEnd - rStart[rCount - 1];
+      }
+
+      /* move the pivot to the end */
+      order[t] = -1;
+      if(orderLen == order.length)
+         compactOrder();
+      rowStep[p] = orderLen;
+      order[orderLen++] = p;
+      diag[p] = newDiag;
+      updates++;
+      if(Math.abs(newDiag) < PIVOT_EPS)
+      {
+         stable = false;
+         if(newDiag == 0)
+            diag[p] = PIVOT_EPS;
+      }
+   }
+
+   private void addU(int row, int col, double value)
+   {
+      if(uIndex[row] == null)
+      {
+         uIndex[row] = new int[4];
+         uValue[row] = new double[4];
+      }
+      else if(uLen[row] == uIndex[row].length)
+      {
+         uIndex[row] = grow(uIndex[row], uLen[row] + 1);
+         uValue[row] = grow(uValue[row], uLen[row] + 1);
+      }
+      uIndex[row][uLen[row]] = col;
+      uValue[row][uLen[row]] = value;
+      uLen[row]++;
+      nonZeros++;
+   }
+
+   private void compactOrder()
+   {
+      int k, len = 0;
+      for(k = 0;k < orderLen;k++)
+         if(order[k] >= 0)
+         {
+            order[len] = order[k];
+            rowStep[order[len]] = len;
+            len++;
+         }
+      orderLen = len;
+   }
+
+   private void ensureL(int size)
+   {
+      if(size > lIndex.length)
+      {
+         lIndex = grow(lIndex, size);
+         lValue = grow(lValue, size);
+      }
+   }
+
+   private static int[] grow(int[] a, int min)
+   {
+      int[] b = new int[Math.max(min, a.length + (a.length >> 1) + 4)];
+      System.arraycopy(a, 0, b, 0, a.length);
+      return b;
+   }
+
+   private static double[] grow(double[] a, int min)
+   {
+      double[] b = new double[Math.max(min, a.length + (a.length >> 1) + 4)];
+      System.arraycopy(a, 0, b, 0, a.length);
+      return b;
+   }
+}
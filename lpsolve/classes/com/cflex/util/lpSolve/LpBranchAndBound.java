@@ -0,0 +1,426 @@
+package com.cflex.util.lpSolve;
+
+import java.util.*;
+
+/**
+* Branch and bound of an integer problem on several threads, used by LpSolver
+* instead of the recursive milpsolve() when more than one thread is set.
+*
+* Every worker owns a copy of the model and an LpSolver of its own, so the
+* simplex never touches shared state. A worker dives depth first: after a
+* branch it goes on with the floor (or ceiling) child on the basis it has just
+* found, and puts the other child, with a copy of that basis, into a pool
+* shared by all workers. When its dive ends the worker takes the pool node with
+* the best parent LP value, so the search is depth first within a dive and best
+* bound between dives. The best integer solution found so far is shared and
+* cuts off nodes in every worker.
+*/
+class LpBranchAndBound implements LpConstant
+{
+   private final LpSolver solver;
+   private final LpModel lp;
+   private final Worker[] workers;
+
+   /* pool of open nodes, a binary heap on Node.key */
+   private Node[] pool = new Node[64];
+   private int poolSize;
+   /* number of workers holding a node */
+   private int active;
+
+   /* objective value of the best integer solution, lp.bestSolution[0] */
+   private volatile double incumbent;
+   private int found;
+   private volatile int stop;
+   private int rootStatus = RUNNING;
+   private Exception error;
+
+   /**
+   * One node of the search tree. The bound arrays may be shared with the
+   * parent or the sibling and are never changed once the node is created.
+   * A node without a basis starts from the basis left in the worker's model.
+   */
+   static class Node
+   {
+      double[] upperBound;
+      double[] lowerBound;
+      int[] basis;
+      int[] lower;
+      int[] bas;
+      /* objective value of the parent LP, a bound on the node */
+      double bound;
+      /* bound, negated when maximising, so that the smallest key is the best */
+      double key;
+      int level;
+   }
+
+   LpBranchAndBound(LpSolver solver, LpModel lp, int threads) throws Exception
+   {
+      int i;
+      this.solver = solver;
+      this.lp = lp;
+      workers = new Worker[threads];
+      for(i = 0;i < threads;i++)
+         workers[i] = new Worker(i);
+   }
+
+   /**
+   * Searches the tree from the original bounds and the current basis of lp.
+   * Returns the status milpsolve() would have returned for the root.
+   */
+   int solve() throws Exception
+   {
+      int i, interrupted = FALSE;
+      Node root = new Node();
+      root.upperBound = lp.origUpperBound;
+      root.lowerBound = lp.origLowerBound;
+      root.basis = copy(lp.basis, lp.sum + 1);
+      root.lower = copy(lp.lower, lp.sum + 1);
+      root.bas = copy(lp.bas, lp.rows + 1);
+      root.bound = lp.bestSolution[0];
+      root.key = lp.maximise != FALSE ? -root.bound : root.bound;
+      root.level = 1;
+      incumbent = lp.bestSolution[0];
+      push(root);
+      for(i = 0;i < workers.length;i++)
+         workers[i].start();
+      for(i = 0;i < workers.length;i++)
+      {
+         try
+         {
+            workers[i].join();
+         }
+         catch(InterruptedException e)
+         {
+            /* stop the workers, wait for them, then pass the interrupt on */
+            interrupted = TRUE;
+            halt();
+            i--;
+         }
+      }
+      if(interrupted != FALSE)
+         Thread.currentThread().interrupt();
+      for(i = 0;i < workers.length;i++)
+      {
+         lp.totalIter += workers[i].wlp.totalIter;
+         lp.totalNodes += workers[i].wlp.totalNodes;
+         if(workers[i].wlp.maxLevel > lp.maxLevel)
+            lp.maxLevel = workers[i].wlp.maxLevel;
+      }
+      lp.etaValid = FALSE;
+      if(error != null)
+         throw (error);
+      if(rootStatus != OPTIMAL)
+         return (rootStatus);
+      return (found != FALSE ? OPTIMAL : INFEASIBLE);
+   }
+
+   /**
+   * TRUE if an LP value is not better than the best integer solution, which
+   * is the test milpsolve() uses to cut off a branch.
+   */
+   private int isWorse(double value)
+   {
+      if(lp.maximise != FALSE)
+         return (value <= incumbent ? TRUE : FALSE);
+      return (value >= incumbent ? TRUE : FALSE);
+   }
+
+   private synchronized void push(Node node)
+   {
+      int i, parent;
+      if(poolSize == pool.length)
+      {
+         Node[] grown = new Node[2 * pool.length];
+         System.arraycopy(pool, 0, grown, 0, poolSize);
+         pool = grown;
+      }
+      for(i = poolSize++;i > 0;i = parent)
+      {
+         parent = (i - 1) / 2;
+         if(pool[parent].key <= node.key)
+            break;
+         pool[i] = pool[parent];
+      }
+      pool[i] = node;
+      notify();
+   }
+
+   private Node pop()
+   {
+      int i, child;
+      Node top = pool[0];
+      Node last = pool[--poolSize];
+      pool[poolSize] = null;
+      for(i = 0;(child = 2 * i + 1) < poolSize;i = child)
+      {
+         if(child + 1 < poolSize && pool[child + 1].key < pool[child].key)
+            child++;
+         if(last.key <= pool[child].key)
+            break;
+         pool[i] = pool[child];
+      }
+      if(poolSize > 0)
+         pool[i] = last;
+      return (top);
+   }
+
+   /**
+   * Waits for a node that is not cut off by the incumbent. Returns null once
+   * the pool is empty and no other worker can add to it, or when stopped.
+   */
+   private synchronized Node take() throws InterruptedException
+   {
+      Node node;
+      while(stop == FALSE)
+      {
+         while(poolSize > 0)
+         {
+            node = pop();
+            if(isWorse(node.bound) == FALSE || node.level == 1)
+            {
+               active++;
+               return (node);
+            }
+         }
+         if(active == 0)
+            break;
+         wait();
+      }
+      notifyAll();
+      return (null);
+   }
+
+   /**
+   * Called by a worker whose dive has ended.
+   */
+   private synchronized void release()
+   {
+      active--;
+      if(active == 0 && poolSize == 0)
+         notifyAll();
+   }
+
+   /**
+   * Stops the search and wakes the workers waiting for a node.
+   */
+   private synchronized void halt()
+   {
+      stop = TRUE;
+      notifyAll();
+   }
+
+   private synchronized void fail(Exception e)
+   {
+      if(error == null)
+         error = e;
+      stop = TRUE;
+      notifyAll();
+   }
+
+   /**
+   * Makes the solution in wlp the incumbent if it is still better, which it
+   * may no longer be when another worker got there first.
+   */
+   private synchronized void offer(Worker worker)
+   {
+      LpModel wlp = worker.wlp;
+      int is_worse;
+      if(lp.maximise != FALSE)
+         is_worse = (wlp.solution[0] < incumbent) ? TRUE : FALSE;
+      else
+         is_worse = (wlp.solution[0] > incumbent) ? TRUE : FALSE;
+      if(is_worse != FALSE)
+         return;
+      if((lp.debug != FALSE) || ((lp.verbose != FALSE) && !(lp.printSolution != FALSE)))
+         solver.print("*** new best solution: old: " + incumbent + ", new: " + wlp.solution[0] + " ***\n");
+      System.arraycopy(wlp.solution, 0, lp.bestSolution, 0, lp.sum + 1);
+      System.arraycopy(wlp.solution, 0, lp.solution, 0, lp.sum + 1);
+      System.arraycopy(wlp.duals, 0, lp.duals, 0, lp.rows + 1);
+      System.arraycopy(wlp.basis, 0, lp.basis, 0, lp.sum + 1);
+      System.arraycopy(wlp.lower, 0, lp.lower, 0, lp.sum + 1);
+      System.arraycopy(wlp.bas, 0, lp.bas, 0, lp.rows + 1);
+      incumbent = lp.bestSolution[0];
+      found = TRUE;
+      try
+      {
+         if(lp.printSolution != FALSE)
+            lp.printSolution();
+      }
+      catch(Exception e)
+      {
+         fail(e);
+      }
+      if(lp.breakAtInt != FALSE)
+      {
+         if((lp.maximise != FALSE) && (incumbent > lp.breakValue))
+            stop = TRUE;
+         if(!(lp.maximise != FALSE) && (incumbent < lp.breakValue))
+            stop = TRUE;
+         if(stop != FALSE)
+            notifyAll();
+      }
+   }
+
+   private synchronized void setRootStatus(int status)
+   {
+      rootStatus = status;
+   }
+
+   private static int[] copy(int[] a, int len)
+   {
+      int[] b = new int[len];
+      System.arraycopy(a, 0, b, 0, len);
+      return (b);
+   }
+
+   private static double[] copy(double[] a, int len)
+   {
+      double[] b = new double[len];
+      System.arraycopy(a, 0, b, 0, len);
+      return (b);
+   }
+
+   class Worker extends Thread
+   {
+      final LpModel wlp;
+      final LpSolver wsolver;
+      final Random rdm = new Random();
+
+      Worker(int nr) throws Exception
+      {
+         super("LpBranchAndBound-" + nr);
+         setDaemon(true);
+         wlp = new LpModel(lp);
+         wlp.totalIter = 0;
+         wlp.totalNodes = 0;
+         wlp.maxLevel = 0;
+         wsolver = new LpSolver(wlp);
+         wsolver.viewer = solver.viewer;
+         wsolver.setBasisFactorization(solver.basisFactorization);
+      }
+
+      public void run()
+      {
+         Node node;
+         try
+         {
+            while((node = take()) != null)
+            {
+               while(node != null && stop == FALSE)
+                  node = branch(node);
+               release();
+            }
+         }
+         catch(Exception e)
+         {
+            fail(e);
+         }
+      }
+
+      /**
+      * Solves the LP of a node and branches on it. Returns the child to dive
+      * into next, or null if the node was cut off, infeasible or integer.
+      */
+      private Node branch(Node node) throws Exception
+      {
+         int failure, notint;
+         double new_bound;
+         Node floor, ceiling, next, other;
+         wsolver.Level = node.level;
+         wlp.totalNodes++;
+         if(node.level > wlp.maxLevel)
+            wlp.maxLevel = node.level;
+         wlp.debugPrint(node.level, "starting solve");
+         wlp.etaValid = FALSE;
+         if(node.basis != null)
+            failure = wsolver.solveNode(wlp, node.upperBound, node.lowerBound, node.basis, node.lower, node.bas, TRUE);
+         else
+            failure = wsolver.solveNode(wlp, node.upperBound, node.lowerBound, null, null, null, FALSE);
+         if(node.level == 1)
+            setRootStatus(failure);
+         if(failure != OPTIMAL)
+         {
+            wlp.debugPrint(node.level, "this problem has no solution, it is " + ((failure == UNBOUNDED) ? "unbounded" : "infeasible"));
+            if(failure == INFEASIBLE && (lp.verbose != FALSE))
+               wsolver.print("level" + node.level + " INF\n");
+            return (null);
+         }
+         wsolver.constructSolution(wlp);
+         if(isWorse(wlp.solution[0]) != FALSE)
+         {
+            if(lp.verbose != FALSE)
+               wsolver.println("level " + node.level + " OPT NOB value " + wlp.solution[0] + " bound " + incumbent);
+            wlp.debugPrint(node.level, "but it was worse than the best sofar, discarded");
+            if(node.level == 1)
+               setRootStatus(MILP_FAIL);
+            return (null);
+         }
+         notint = wsolver.selectBranchVariable(wlp, node.upperBound, node.lowerBound, rdm);
+         if(lp.verbose != FALSE)
+         {
+            if(notint != FALSE)
+               wsolver.println("level " + node.level + " OPT     value " + wlp.solution[0]);
+            else
+               wsolver.println("level " + node.level + " OPT INT value " + wlp.solution[0]);
+         }
+         if(notint == FALSE)
+         {
+            wlp.debugPrint(node.level, "--> valid solution found");
+            wsolver.calculateDuals(wlp);
+            offer(this);
+            return (null);
+         }
+
+         /* floor child: x <= ceil(x) - 1, ceiling child: x >= ceil(x) */
+         floor = null;
+         ceiling = null;
+         new_bound = Math.ceil(wlp.solution[notint]);
+         if(new_bound - 1 >= node.lowerBound[notint])
+         {
+            floor = child(node);
+            floor.upperBound = copy(node.upperBound, wlp.sum + 1);
+            floor.upperBound[notint] = new_bound - 1;
+            floor.lowerBound = node.lowerBound;
+         }
+         if(new_bound <= node.upperBound[notint])
+         {
+            ceiling = child(node);
+            ceiling.upperBound = node.upperBound;
+            ceiling.lowerBound = copy(node.lowerBound, wlp.sum + 1);
+            ceiling.lowerBound[notint] = new_bound;
+         }
+         if(lp.floorFirst != FALSE)
+         {
+            next = floor;
+            other = ceiling;
+         }
+         else
+         {
+            next = ceiling;
+            other = floor;
+         }
+         if(next == null)
+         {
+            next = other;
+            other = null;
+         }
+         if(other != null)
+         {
+            other.basis = copy(wlp.basis, wlp.sum + 1);
+            other.lower = copy(wlp.lower, wlp.sum + 1);
+            other.bas = copy(wlp.bas, wlp.rows + 1);
+            push(other);
+         }
+         return (next);
+      }
+
+      private Node child(Node node)
+      {
+         Node child = new Node();
+         child.bound = wlp.solution[0];
+         child.key = lp.maximise != FALSE ? -child.bound : child.bound;
+         child.level = node.level + 1;
+         return (child);
+      }
+   }
+}
@@ -26,6 +26,10 @@ public interface LpConstant
    final static int BREAK_BB = 8;
    final static int FIRST_NI = 0;
    final static int RAND_NI = 1;
+
+   /* basis factorization used by LpSolver */
+   final static int BASIS_ETA = 0; /* product form eta file */
+   final static int BASIS_LU = 1; /* sparse LU with Forrest-Tomlin updates */
    final static int LE = 0;
    final static int EQ = 1;
    final static int GE = 2;
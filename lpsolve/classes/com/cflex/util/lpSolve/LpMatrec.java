@@ -1,16 +0,0 @@
-package com.cflex.util.lpSolve;
-
-/**
-* mat_alloc :The sparse matrix
-* @author Rodrigo Almeida Gonalves
-*/
-public class LpMatrec
-{
-   int rowNr;
-   double value;
-   public LpMatrec(int r, double v)
-   {
-      rowNr = r;
-      value = v;
-   }
-}
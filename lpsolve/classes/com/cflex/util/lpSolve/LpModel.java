@@ -68,7 +68,9 @@ public class LpModel implements LpConstant
 
    /** The allocated size for matrix sized structures */
    int matAlloc;
-   LpMatrec[] mat; /* matAlloc :The sparse matrix */
+   /** matAlloc :The sparse matrix, column by column: row number and value of each element */
+   int[] matRowNr;
+   double[] matValue;
 
    /** columnsAlloc+1 :Cend[i] is the index of the first element after column i.
     column[i] is stored in elements
@@ -84,6 +86,12 @@ public class LpModel implements LpConstant
    /* rowsAlloc+1 :rowEnd[i] is the index of the first element in Colno after row i */
    int[] rowEnd;
 
+   /* row-major copy of the matrix, objective row included, valid with rowEndValid:
+    row i is stored in elements rowStart[i] to rowStart[i+1]-1 of rowColumn and rowValue */
+   int[] rowStart;
+   int[] rowColumn;
+   double[] rowValue;
+
    /** rowsAlloc+1 :The RHS after scaling & sign changing, but before `Bound transformation' */
    double[] origRh;
 
@@ -212,9 +220,8 @@ public class LpModel implements LpConstant
       this.epsel = DEF_EPSEL;
       this.nonZeros = 0;
       this.matAlloc = 1;
-      this.mat = new LpMatrec[matAlloc];
-      for(i = 0;i < matAlloc;i++)
-         mat[i] = new LpMatrec(0, 0);
+      matRowNr = new int[matAlloc];
+      matValue = new double[matAlloc];
       colNo = new int[matAlloc];
       Arrays.fill(colNo, 0);
       colEnd = new int[columns + 1];
@@ -295,125 +302,106 @@ public class LpModel implements LpConstant
    */
    public LpModel(LpModel lp)  throws Exception
    {
-      int i, rowsplus, colsplus, sumplus;
-      rowsplus = rowsAlloc + 1;
-      colsplus = columnsAlloc + 1;
-      sumplus = sumAlloc + 1;
+      int i;
 
       /* copy all non pointers (much easier in C...)*/
-      this.sum = sum;
-      this.rows = rows;
-      this.columns = columns;
-      this.lpName = lpName;
-      this.verbose = verbose;
-      this.printDuals = printDuals;
-      this.printSolution = printSolution;
-      this.debug = debug;
-      this.printAtInvert = printAtInvert;
-      this.trace = trace;
-      this.rowsAlloc = rowsAlloc;
-      this.columnsAlloc = columnsAlloc;
-      this.sumAlloc = sumAlloc;
-      this.namesUsed = namesUsed;
-      this.objBound = objBound;
-      this.infinite = infinite;
-      this.epsilon = epsilon;
-      this.epsb = epsb;
-      this.epsd = epsd;
-      this.epsel = epsel;
-      this.nonZeros = nonZeros;
-      this.matAlloc = matAlloc;
-      this.rowEndValid = rowEndValid;
-      this.basisValid = basisValid;
-      this.etaValid = etaValid;
-      this.etaSize = etaSize;
-      this.etaAlloc = etaAlloc;
-      this.maxNumInv = maxNumInv;
-      this.nrLagrange = nrLagrange;
-      this.bbRule = bbRule;
-      this.breakAtInt = breakAtInt;
-      this.breakValue = breakValue;
-      this.iter = iter;
-      this.totalIter = totalIter;
-      this.maximise = maximise;
-      this.floorFirst = floorFirst;
-      this.scalingUsed = scalingUsed;
-      this.columnsScaled = columnsScaled;
-      this.valid = valid;
-      if(namesUsed == TRUE)
+      this.viewer = lp.viewer;
+      this.sum = lp.sum;
+      this.rows = lp.rows;
+      this.columns = lp.columns;
+      this.lpName = lp.lpName;
+      this.verbose = lp.verbose;
+      this.printDuals = lp.printDuals;
+      this.printSolution = lp.printSolution;
+      this.debug = lp.debug;
+      this.printAtInvert = lp.printAtInvert;
+      this.trace = lp.trace;
+      this.antiDegen = lp.antiDegen;
+      this.doPresolve = lp.doPresolve;
+      this.rowsAlloc = lp.rowsAlloc;
+      this.columnsAlloc = lp.columnsAlloc;
+      this.sumAlloc = lp.sumAlloc;
+      this.namesUsed = lp.namesUsed;
+      this.objBound = lp.objBound;
+      this.infinite = lp.infinite;
+      this.epsilon = lp.epsilon;
+      this.epsb = lp.epsb;
+      this.epsd = lp.epsd;
+      this.epsel = lp.epsel;
+      this.nonZeros = lp.nonZeros;
+      this.matAlloc = lp.matAlloc;
+      this.rowEndValid = lp.rowEndValid;
+      this.basisValid = lp.basisValid;
+      this.etaValid = lp.etaValid;
+      this.etaSize = lp.etaSize;
+      this.etaAlloc = lp.etaAlloc;
+      this.numInv = lp.numInv;
+      this.maxNumInv = lp.maxNumInv;
+      this.nrLagrange = lp.nrLagrange;
+      this.bbRule = lp.bbRule;
+      this.breakAtInt = lp.breakAtInt;
+      this.breakValue = lp.breakValue;
+      this.iter = lp.iter;
+      this.totalIter = lp.totalIter;
+      this.maxLevel = lp.maxLevel;
+      this.totalNodes = lp.totalNodes;
+      this.maximise = lp.maximise;
+      this.floorFirst = lp.floorFirst;
+      this.scalingUsed = lp.scalingUsed;
+      this.columnsScaled = lp.columnsScaled;
+      this.lagBound = lp.lagBound;
+      this.valid = lp.valid;
+      if(lp.namesUsed == TRUE)
       {
-         this.colName = new String[colsplus];
-         System.arraycopy(colName, 0, this.colName, 0, colName.length);
-         this.rowName = new String[rowsplus];
-         System.arraycopy(rowName, 0, this.rowName, 0, rowName.length);
-      }
-      this.rowNameHashtable = (HashMap) rowNameHashtable.clone();
-      this.colNameHashtable = (HashMap) colNameHashtable.clone();
-      this.mat = new LpMatrec[this.matAlloc];
-      System.arraycopy(mat, 0, this.mat, 0, mat.length);
-      this.colEnd = new int[colsplus];
-      System.arraycopy(colEnd, 0, this.colEnd, 0, colEnd.length);
-      this.rowEnd = new int[rowsplus];
-      System.arraycopy(rowEnd, 0, this.rowEnd, 0, rowEnd.length);
-      this.origRh = new double[rowsplus];
-      System.arraycopy(origRh, 0, this.origRh, 0, origRh.length);
-      this.rh = new double[rowsplus];
-      System.arraycopy(rh, 0, this.rh, 0, rh.length);
-      this.rhs = new double[rowsplus];
-      System.arraycopy(rhs, 0, this.rhs, 0, rhs.length);
-      this.mustBeInt = new int[sumplus];
-      System.arraycopy(mustBeInt, 0, this.mustBeInt, 0, mustBeInt.length);
-      this.origUpperBound = new double[sumplus];
-      System.arraycopy(origUpperBound, 0, this.origUpperBound, 0, origUpperBound.length);
-      this.origLowerBound = new double[sumplus];
-      System.arraycopy(origLowerBound, 0, this.origLowerBound, 0, origLowerBound.length);
-      this.upperBound = new double[sumplus];
-      System.arraycopy(upperBound, 0, this.upperBound, 0, upperBound.length);
-      this.lowerBound = new double[sumplus];
-      System.arraycopy(lowerBound, 0, this.lowerBound, 0, lowerBound.length);
-      this.bas = new int[rowsplus];
-      System.arraycopy(bas, 0, this.bas, 0, bas.length);
-      this.basis = new int[sumplus];
-      System.arraycopy(basis, 0, this.basis, 0, basis.length);
-      this.lower = new int[sumplus];
-      System.arraycopy(lower, 0, this.lower, 0, lower.length);
-      this.etaValue = new double[etaAlloc];
-      System.arraycopy(etaValue, 0, this.etaValue, 0, etaValue.length);
-      this.etaRowNr = new int[etaAlloc];
-      System.arraycopy(etaRowNr, 0, this.etaRowNr, 0, etaRowNr.length);
-      this.solution = new double[sumplus];
-      System.arraycopy(solution, 0, this.solution, 0, solution.length);
-      this.bestSolution = new double[sumplus];
-      System.arraycopy(bestSolution, 0, this.bestSolution, 0, bestSolution.length);
-      this.duals = new double[rowsplus];
-      System.arraycopy(duals, 0, this.duals, 0, duals.length);
-      this.changedSign = new int[rowsplus];
-      System.arraycopy(changedSign, 0, this.changedSign, 0, changedSign.length);
-      this.colNo = new int[matAlloc + 1];
-      System.arraycopy(colNo, 0, this.colNo, 0, colNo.length);
-      this.etaColEnd = new int[rowsAlloc + maxNumInv + 1];
-      System.arraycopy(etaColEnd, 0, this.etaColEnd, 0, etaColEnd.length);
-      if(this.scalingUsed == TRUE)
+         this.colName = (String[]) lp.colName.clone();
+         this.rowName = (String[]) lp.rowName.clone();
+      }
+      this.rowNameHashtable = (HashMap) lp.rowNameHashtable.clone();
+      this.colNameHashtable = (HashMap) lp.colNameHashtable.clone();
+      this.matRowNr = (int[]) lp.matRowNr.clone();
+      this.matValue = (double[]) lp.matValue.clone();
+      this.colEnd = (int[]) lp.colEnd.clone();
+      this.rowEnd = (int[]) lp.rowEnd.clone();
+      if(lp.rowStart != null)
       {
-         this.scale = new double[sumplus];
-         System.arraycopy(scale, 0, this.scale, 0, scale.length);
+         this.rowStart = (int[]) lp.rowStart.clone();
+         this.rowColumn = (int[]) lp.rowColumn.clone();
+         this.rowValue = (double[]) lp.rowValue.clone();
       }
-      if(this.nrLagrange > 0)
+      this.origRh = (double[]) lp.origRh.clone();
+      this.rh = (double[]) lp.rh.clone();
+      this.rhs = (double[]) lp.rhs.clone();
+      this.mustBeInt = (int[]) lp.mustBeInt.clone();
+      this.origUpperBound = (double[]) lp.origUpperBound.clone();
+      this.origLowerBound = (double[]) lp.origLowerBound.clone();
+      this.upperBound = (double[]) lp.upperBound.clone();
+      this.lowerBound = (double[]) lp.lowerBound.clone();
+      this.bas = (int[]) lp.bas.clone();
+      this.basis = (int[]) lp.basis.clone();
+      this.lower = (int[]) lp.lower.clone();
+      this.etaValue = (double[]) lp.etaValue.clone();
+      this.etaRowNr = (int[]) lp.etaRowNr.clone();
+      this.solution = (double[]) lp.solution.clone();
+      this.bestSolution = (double[]) lp.bestSolution.clone();
+      this.duals = (double[]) lp.duals.clone();
+      this.changedSign = (int[]) lp.changedSign.clone();
+      this.colNo = (int[]) lp.colNo.clone();
+      this.etaColEnd = (int[]) lp.etaColEnd.clone();
+      if(lp.scalingUsed == TRUE)
+         this.scale = (double[]) lp.scale.clone();
+      if(lp.nrLagrange > 0)
       {
-         this.lagRhs = new double[this.nrLagrange];
-         System.arraycopy(lagRhs, 0, this.lagRhs, 0, lagRhs.length);
-         this.lambda = new double[this.nrLagrange];
-         System.arraycopy(lambda, 0, this.lambda, 0, lambda.length);
-         this.lagConType = new int[this.nrLagrange];
-         System.arraycopy(lagConType, 0, this.lagConType, 0, lagConType.length);
-         this.lagRow = new double[this.nrLagrange][colsplus];
-         for(i = 0;i < this.nrLagrange;i++)
-            System.arraycopy(lagRow[i], 0, this.lagRow[i], 0, lagRow[i].length);
+         this.lagRhs = (double[]) lp.lagRhs.clone();
+         this.lambda = (double[]) lp.lambda.clone();
+         this.lagConType = (int[]) lp.lagConType.clone();
+         this.lagRow = new double[lp.lagRow.length][];
+         for(i = 0;i < lp.lagRow.length;i++)
+            this.lagRow[i] = (double[]) lp.lagRow[i].clone();
       }
    }
 
    /**
-   * Test if realloc necessary. If yes, realloc arrays "mat" and "colNo".
+   * Test if realloc necessary. If yes, realloc arrays "matRowNr", "matValue" and "colNo".
    */
    public void incrementMatrixSpace(int maxextra) throws Exception
    {
@@ -429,13 +417,12 @@ public class LpModel implements LpConstant
             matAlloc *= 1.5;
 
          //REALLOC(lp->mat, lp->matAlloc);
-         int i;
-         LpMatrec[] old_mat = mat;
-         mat = new LpMatrec[matAlloc];
-         /**@todo RODRIGO */
-         //for(i = old_mat.length;i < mat.length;i++)
-         //   mat[i] = new LpMatrec(0, 0); /**@todo is it really needed?? */
-         System.arraycopy(old_mat, 0, mat, 0, old_mat.length);
+         int[] old_rowNr = matRowNr;
+         matRowNr = new int[matAlloc];
+         System.arraycopy(old_rowNr, 0, matRowNr, 0, old_rowNr.length);
+         double[] old_value = matValue;
+         matValue = new double[matAlloc];
+         System.arraycopy(old_value, 0, matValue, 0, old_value.length);
 
          //REALLOC(lp->colNo, lp->matAlloc + 1);
          int[] old_colNo = colNo;
@@ -677,12 +664,13 @@ public class LpModel implements LpConstant
       if(basis[Column] == TRUE && Row > 0)
          basisValid = FALSE;
       etaValid = FALSE;
+      rowEndValid = FALSE;
 
       /* find out if we already have such an entry */
       elmnr = colEnd[Column - 1];
-      while((elmnr < colEnd[Column]) && (mat[elmnr].rowNr != Row))
+      while((elmnr < colEnd[Column]) && (matRowNr[elmnr] != Row))
          elmnr++;
-      if((elmnr != colEnd[Column]) && (mat[elmnr].rowNr == Row))
+      if((elmnr != colEnd[Column]) && (matRowNr[elmnr] == Row))
       {
 
          /* there is an existing entry */
@@ -693,18 +681,18 @@ public class LpModel implements LpConstant
             if(scalingUsed != FALSE)
             {
                if(changedSign[Row]!=FALSE)
-                  mat[elmnr].value = -Value * scale[Row] * scale[Column];
+                  matValue[elmnr] = -Value * scale[Row] * scale[Column];
                else
-                  mat[elmnr].value = Value * scale[Row] * scale[Column];
+                  matValue[elmnr] = Value * scale[Row] * scale[Column];
             }
             else
             {
 
                /* no scaling */
                if(changedSign[Row] != FALSE)
-                  mat[elmnr].value = -Value;
+                  matValue[elmnr] = -Value;
                else
-                  mat[elmnr].value = Value;
+                  matValue[elmnr] = Value;
             }
          }
          else
@@ -717,8 +705,8 @@ public class LpModel implements LpConstant
 
             /* Shift the matrix */
             lastelm = nonZeros;
-            for(i = elmnr;i < lastelm;i++)
-               mat[i] = mat[i + 1];
+            System.arraycopy(matRowNr, elmnr + 1, matRowNr, elmnr, lastelm - elmnr - 1);
+            System.arraycopy(matValue, elmnr + 1, matValue, elmnr, lastelm - elmnr - 1);
             for(i = Column;i <= columns;i++)
                colEnd[i]--;
             nonZeros--;
@@ -735,34 +723,96 @@ public class LpModel implements LpConstant
 
             /* Shift the matrix */
             lastelm = nonZeros;
-            for(i = lastelm;i > elmnr;i--)
-               mat[i] = mat[i - 1];
+            System.arraycopy(matRowNr, elmnr, matRowNr, elmnr + 1, lastelm - elmnr);
+            System.arraycopy(matValue, elmnr, matValue, elmnr + 1, lastelm - elmnr);
             for(i = Column;i <= columns;i++)
                colEnd[i]++;
 
             /* Set new element */
-            if (mat[elmnr]==null)
-               mat[elmnr] = new LpMatrec(0, (double)0); //by R.
-            mat[elmnr].rowNr = Row;
+            matRowNr[elmnr] = Row;
             if(scalingUsed != FALSE)
             {
                if(changedSign[Row] != FALSE)
-                  mat[elmnr].value = -Value * scale[Row] * scale[Column];
+                  matValue[elmnr] = -Value * scale[Row] * scale[Column];
                else
-                  mat[elmnr].value = Value * scale[Row] * scale[Column];
+                  matValue[elmnr] = Value * scale[Row] * scale[Column];
             }
             else /* no scaling */
             {
                if(changedSign[Row] != FALSE)
-                  mat[elmnr].value = -Value;
+                  matValue[elmnr] = -Value;
                else
-                  mat[elmnr].value = Value;
+                  matValue[elmnr] = Value;
             }
             rowEndValid = FALSE;
             nonZeros++;
          }
    }
 
+   /**
+   * Replaces the whole matrix, objective row included, by one given column by
+   * column, without the element shifting of setMatrixElement().
+   * The elements of column j (1..columns) are rowNr[k], value[k] for k from
+   * colStart[j - 1] to colStart[j] - 1, and a row may appear only once in a
+   * column. Values are scaled by the current row and column scales and change
+   * sign in rows with changedSign set; values not larger than epsilon are left out.
+   * The arguments are checked before anything is changed, so the model is left
+   * as it was if an exception is thrown.
+   */
+   public void loadMatrix(int[] colStart, int[] rowNr, double[] value) throws Exception
+   {
+      int j, k, row, elmnr;
+      int[] seen;
+      double v;
+      if(colStart.length < columns + 1)
+         throw (new Exception("Not enough columns in colStart"));
+      if(colStart[0] < 0 || colStart[columns] > rowNr.length || colStart[columns] > value.length)
+         throw (new Exception("colStart out of range"));
+      /* check everything first, so that a bad matrix leaves the model unchanged */
+      seen = new int[rows + 1];
+      for(j = 1;j <= columns;j++)
+      {
+         if(colStart[j] < colStart[j - 1])
+            throw (new Exception("colStart decreases at column " + j));
+         for(k = colStart[j - 1];k < colStart[j];k++)
+         {
+            row = rowNr[k];
+            if(row > rows || row < 0)
+               throw (new Exception("Row out of range"));
+            if(seen[row] == j)
+               throw (new Exception("Row " + row + " appears twice in column " + j));
+            seen[row] = j;
+         }
+      }
+      nonZeros = 0;
+      incrementMatrixSpace(colStart[columns] - colStart[0]);
+      elmnr = 0;
+      for(j = 1;j <= columns;j++)
+      {
+         for(k = colStart[j - 1];k < colStart[j];k++)
+         {
+            row = rowNr[k];
+            v = value[k];
+            if(Math.abs(v) > epsilon)
+            {
+               if(scalingUsed != FALSE)
+                  v *= scale[row] * scale[rows + j];
+               if(changedSign[row] != FALSE)
+                  v = -v;
+               matRowNr[elmnr] = row;
+               matValue[elmnr] = v;
+               elmnr++;
+            }
+         }
+         colEnd[j] = elmnr;
+         if(basis[rows + j] == TRUE)
+            basisValid = FALSE;
+      }
+      nonZeros = elmnr;
+      rowEndValid = FALSE;
+      etaValid = FALSE;
+   }
+
    /**
    * call in one loop for dense row the function set_mat().
    * No test is done, if we want to include Elements with value "0".
@@ -837,7 +887,8 @@ public class LpModel implements LpConstant
    */
    public void addConstraint(double[] row, int constr_type, double rh) throws Exception
    {
-      LpMatrec[] newmat;
+      int[] newRowNr;
+      double[] newValue;
       int i, j;
       int elmnr;
       int stcol;
@@ -853,9 +904,8 @@ public class LpModel implements LpConstant
             addtoo[i] = FALSE;
 
       //MALLOC(newmat, lp->nonZeros);
-      newmat = new LpMatrec[nonZeros];
-      for(i = 0;i < newmat.length;i++)
-         newmat[i] = new LpMatrec(0, (double)0);
+      newRowNr = new int[nonZeros];
+      newValue = new double[nonZeros];
       incrementMatrixSpace(0);
       rows++;
       sum++;
@@ -883,17 +933,17 @@ public class LpModel implements LpConstant
       {
          for(j = stcol;j < colEnd[i];j++)
          {
-            newmat[elmnr].rowNr = mat[j].rowNr;
-            newmat[elmnr].value = mat[j].value;
+            newRowNr[elmnr] = matRowNr[j];
+            newValue[elmnr] = matValue[j];
             elmnr++;
          }
          if(addtoo[i] != FALSE)
          {
             if(changedSign[rows] != FALSE)
-               newmat[elmnr].value = -row[i];
+               newValue[elmnr] = -row[i];
             else
-               newmat[elmnr].value = row[i];
-            newmat[elmnr].rowNr = rows;
+               newValue[elmnr] = row[i];
+            newRowNr[elmnr] = rows;
             elmnr++;
          }
          stcol = colEnd[i];
@@ -901,7 +951,8 @@ public class LpModel implements LpConstant
       }
 
       //memcpy(lp->mat, newmat, lp->nonZeros * sizeof(matrec));
-      System.arraycopy(newmat,0,mat,0,newmat.length);
+      System.arraycopy(newRowNr, 0, matRowNr, 0, nonZeros);
+      System.arraycopy(newValue, 0, matValue, 0, nonZeros);
 
       for(i = sum;i > rows;i--)
       {
@@ -984,11 +1035,12 @@ public class LpModel implements LpConstant
       {
          for(j = startcol;j < colEnd[i];j++)
          {
-            if(mat[j].rowNr != del_row)
+            if(matRowNr[j] != del_row)
             {
-               mat[elmnr] = mat[j];
-               if(mat[elmnr].rowNr > del_row)
-                  mat[elmnr].rowNr--;
+               matRowNr[elmnr] = matRowNr[j];
+               matValue[elmnr] = matValue[j];
+               if(matRowNr[elmnr] > del_row)
+                  matRowNr[elmnr]--;
                elmnr++;
             }
             else
@@ -1134,11 +1186,11 @@ public class LpModel implements LpConstant
       for(i = 0;i <= rows;i++)
          if(column[i] != 0)
          {
-            mat[elmnr].rowNr = i;
+            matRowNr[elmnr] = i;
             if(changedSign[i] != FALSE)
-               mat[elmnr].value = -column[i];
+               matValue[elmnr] = -column[i];
             else
-               mat[elmnr].value = column[i];
+               matValue[elmnr] = column[i];
             nonZeros++;
             elmnr++;
          }
@@ -1230,7 +1282,8 @@ public class LpModel implements LpConstant
       elm_in_col = from_elm - to_elm;
       for(i = from_elm;i < nonZeros;i++)
       {
-         mat[to_elm] = mat[i];
+         matRowNr[to_elm] = matRowNr[i];
+         matValue[to_elm] = matValue[i];
          to_elm++;
       }
       for(i = column;i < columns;i++)
@@ -1382,9 +1435,10 @@ public class LpModel implements LpConstant
       if(maximise == FALSE)
       {
          for(i = 0;i < nonZeros;i++)
-            if(mat[i].rowNr == 0)
-               mat[i].value *= -1;
+            if(matRowNr[i] == 0)
+               matValue[i] *= -1;
          etaValid = FALSE;
+         rowEndValid = FALSE;
          origRh[0] *= -1;
       }
       maximise = TRUE;
@@ -1404,9 +1458,10 @@ public class LpModel implements LpConstant
       if(maximise == TRUE)
       {
          for(i = 0;i < nonZeros;i++)
-            if(mat[i].rowNr == 0)
-               mat[i].value = -mat[i].value;
+            if(matRowNr[i] == 0)
+               matValue[i] = -matValue[i];
          etaValid = FALSE;
+         rowEndValid = FALSE;
          origRh[0] *= -1;
       }
       maximise = FALSE;
@@ -1454,9 +1509,10 @@ public class LpModel implements LpConstant
          if(changedSign[row] != FALSE)
          {
             for(i = 0;i < nonZeros;i++)
-               if(mat[i].rowNr == row)
-                  mat[i].value *= -1;
+               if(matRowNr[i] == row)
+                  matValue[i] *= -1;
             etaValid = FALSE;
+            rowEndValid = FALSE;
             changedSign[row] = FALSE;
             if(origRh[row] != 0)
                origRh[row] *= -1;
@@ -1470,9 +1526,10 @@ public class LpModel implements LpConstant
             if(changedSign[row] != FALSE)
             {
                for(i = 0;i < nonZeros;i++)
-                  if(mat[i].rowNr == row)
-                     mat[i].value *= -1;
+                  if(matRowNr[i] == row)
+                     matValue[i] *= -1;
                etaValid = FALSE;
+               rowEndValid = FALSE;
                changedSign[row] = FALSE;
                if(origRh[row] != 0)
                   origRh[row] *= -1;
@@ -1486,9 +1543,10 @@ public class LpModel implements LpConstant
                if(!(changedSign[row] != FALSE))
                {
                   for(i = 0;i < nonZeros;i++)
-                     if(mat[i].rowNr == row)
-                        mat[i].value *= -1;
+                     if(matRowNr[i] == row)
+                        matValue[i] *= -1;
                   etaValid = FALSE;
+                  rowEndValid = FALSE;
                   changedSign[row] = TRUE;
                   if(origRh[row] != 0)
                      origRh[row] *= -1;
@@ -1517,11 +1575,11 @@ public class LpModel implements LpConstant
          throw (new Exception("Column out of range in mat_elm"));
       value = 0;
       elmnr = colEnd[column - 1];
-      while(mat[elmnr].rowNr != row && elmnr < colEnd[column])
+      while(matRowNr[elmnr] != row && elmnr < colEnd[column])
          elmnr++;
       if(elmnr != colEnd[column])
       {
-         value = mat[elmnr].value;
+         value = matValue[elmnr];
          if(changedSign[row] != FALSE)
             value = -value;
          if(scalingUsed != FALSE)
@@ -1550,8 +1608,8 @@ public class LpModel implements LpConstant
       {
          row[i] = 0;
          for(j = colEnd[i - 1];j < colEnd[i];j++)
-            if(mat[j].rowNr == rowNr)
-               row[i] = mat[j].value;
+            if(matRowNr[j] == rowNr)
+               row[i] = matValue[j];
          if(scalingUsed != FALSE)
             row[i] /= scale[rows + i] * scale[rowNr];
       }
@@ -1576,7 +1634,7 @@ public class LpModel implements LpConstant
       for(i = 0;i <= rows;i++)
          column[i] = 0;
       for(i = colEnd[col_nr - 1];i < colEnd[col_nr];i++)
-         column[mat[i].rowNr] = mat[i].value;
+         column[matRowNr[i]] = matValue[i];
       for(i = 0;i <= rows;i++)
          if(column[i] != 0)
          {
@@ -1624,13 +1682,13 @@ public class LpModel implements LpConstant
       {
          for(i = 1;i <= columns;i++)
             for(elmnr = colEnd[i - 1];elmnr < colEnd[i];elmnr++)
-               this_rhs[mat[elmnr].rowNr] += mat[elmnr].value * values[i] / scale[rows + i];
+               this_rhs[matRowNr[elmnr]] += matValue[elmnr] * values[i] / scale[rows + i];
       }
       else
       {
          for(i = 1;i <= columns;i++)
             for(elmnr = colEnd[i - 1];elmnr < colEnd[i];elmnr++)
-               this_rhs[mat[elmnr].rowNr] += mat[elmnr].value * values[i];
+               this_rhs[matRowNr[elmnr]] += matValue[elmnr] * values[i];
       }
       for(i = 1;i <= rows;i++)
       {
@@ -1665,12 +1723,12 @@ public class LpModel implements LpConstant
             ident = nz;
             for(j = colEnd[i - 1];j < colEnd[i];j++)
             {
-               value = mat[j].value;
-               if(changedSign[mat[j].rowNr]!=FALSE)
+               value = matValue[j];
+               if(changedSign[matRowNr[j]]!=FALSE)
                   value = -value;
                value /= scale[rows + i];
-               value /= scale[mat[j].rowNr];
-               value -= testcolumn[mat[j].rowNr];
+               value /= scale[matRowNr[j]];
+               value -= testcolumn[matRowNr[j]];
                if(Math.abs(value) > epsel)
                   break;
                ident--;
@@ -1684,10 +1742,10 @@ public class LpModel implements LpConstant
             ident = nz;
             for(j = colEnd[i - 1];j < colEnd[i];j++)
             {
-               value = mat[j].value;
-               if(changedSign[mat[j].rowNr]!=FALSE)
+               value = matValue[j];
+               if(changedSign[matRowNr[j]]!=FALSE)
                   value = -value;
-               value -= testcolumn[mat[j].rowNr];
+               value -= testcolumn[matRowNr[j]];
                if(Math.abs(value) > epsel)
                   break;
                ident--;
@@ -1715,7 +1773,7 @@ public class LpModel implements LpConstant
          fatmat[i] = 0;
       for(i = 1;i <= columns;i++)
          for(j = colEnd[i - 1];j < colEnd[i];j++)
-            fatmat[(i - 1) * (rows + 1) + mat[j].rowNr] = mat[j].value;
+            fatmat[(i - 1) * (rows + 1) + matRowNr[j]] = matValue[j];
       straux.append("problem name: " + lpName + "\n");
       straux.append("          ");
       for(j = 1;j <= columns;j++)
@@ -1869,7 +1927,7 @@ public class LpModel implements LpConstant
       /* unscale mat */
       for(j = 1;j <= columns;j++)
          for(i = colEnd[j - 1];i < colEnd[j];i++)
-            mat[i].value /= scale[rows + j];
+            matValue[i] /= scale[rows + j];
 
       /* unscale bounds as well */
       for(i = rows + 1;i < sum;i++)
@@ -1883,6 +1941,7 @@ public class LpModel implements LpConstant
          scale[i] = 1;
       columnsScaled = FALSE;
       etaValid = FALSE;
+      rowEndValid = FALSE;
    }
 
    /**
@@ -1910,7 +1969,7 @@ public class LpModel implements LpConstant
          /* unscale mat */
          for(j = 1;j <= columns;j++)
             for(i = colEnd[j - 1];i < colEnd[j];i++)
-               mat[i].value /= scale[rows + j];
+               matValue[i] /= scale[rows + j];
 
          /* unscale bounds */
          for(i = rows + 1;i <= sum;i++)
@@ -1924,7 +1983,7 @@ public class LpModel implements LpConstant
          /* unscale the matrix */
          for(j = 1;j <= columns;j++)
             for(i = colEnd[j - 1];i < colEnd[j];i++)
-               mat[i].value /= scale[mat[i].rowNr];
+               matValue[i] /= scale[matRowNr[i]];
 
          /* unscale the rhs! */
          for(i = 0;i <= rows;i++)
@@ -1940,6 +1999,7 @@ public class LpModel implements LpConstant
          }
          scalingUsed = FALSE;
          etaValid = FALSE;
+         rowEndValid = FALSE;
       }
    }
 
@@ -1981,8 +2041,8 @@ public class LpModel implements LpConstant
       for(j = 1;j <= columns;j++)
          for(i = colEnd[j - 1];i < colEnd[j];i++)
          {
-            rowNr = mat[i].rowNr;
-            absval = Math.abs(mat[i].value);
+            rowNr = matRowNr[i];
+            absval = Math.abs(matValue[i]);
             if(absval != 0)
             {
                row_max[rowNr] = Math.max(row_max[rowNr], absval);
@@ -2000,7 +2060,7 @@ public class LpModel implements LpConstant
       /* now actually scale the matrix */
       for(j = 1;j <= columns;j++)
          for(i = colEnd[j - 1];i < colEnd[j];i++)
-            mat[i].value *= scalechange[mat[i].rowNr];
+            matValue[i] *= scalechange[matRowNr[i]];
 
       /* and scale the rhs and the row bounds (RANGES in MPS!!) */
       for(i = 0;i <= rows;i++)
@@ -2027,10 +2087,10 @@ public class LpModel implements LpConstant
             col_min = infinite;
             for(i = colEnd[j - 1];i < colEnd[j];i++)
             {
-               if(mat[i].value != 0)
+               if(matValue[i] != 0)
                {
-                  col_max = Math.max(col_max, Math.abs(mat[i].value));
-                  col_min = Math.min(col_min, Math.abs(mat[i].value));
+                  col_max = Math.max(col_max, Math.abs(matValue[i]));
+                  col_min = Math.min(col_min, Math.abs(matValue[i]));
                }
             }
             scalechange[rows + j] = minMaxToScale(col_min, col_max);
@@ -2041,7 +2101,7 @@ public class LpModel implements LpConstant
       /* scale mat */
       for(j = 1;j <= columns;j++)
          for(i = colEnd[j - 1];i < colEnd[j];i++)
-            mat[i].value *= scalechange[rows + j];
+            matValue[i] *= scalechange[rows + j];
 
       /* scale bounds as well */
       for(i = rows + 1;i <= sum;i++)
@@ -2057,6 +2117,7 @@ public class LpModel implements LpConstant
       scalechange = null; //Thanks God I am using Java! R.
       scalingUsed = TRUE;
       etaValid = FALSE;
+      rowEndValid = FALSE;
    }
 
    /** basisValid=FALSE */
@@ -2603,14 +2664,14 @@ public class LpModel implements LpConstant
             rownum[i] = 0;
          }
          for(i = 0;i < nonZeros;i++)
-            rownum[mat[i].rowNr]++;
+            rownum[matRowNr[i]]++;
          rowEnd[0] = 0;
          for(i = 1;i <= rows;i++)
             rowEnd[i] = rowEnd[i - 1] + rownum[i];
          for(i = 1;i <= columns;i++)
             for(j = colEnd[i - 1];j < colEnd[i];j++)
             {
-               rowNr = mat[j].rowNr;
+               rowNr = matRowNr[j];
                if(rowNr != 0)
                {
                   num[rowNr]++;
@@ -2618,6 +2679,31 @@ public class LpModel implements LpConstant
                }
             }
 
+         /* row-major copy with values, for pricing by rows */
+         if(rowStart == null || rowStart.length < rows + 2)
+            rowStart = new int[rowsAlloc + 2];
+         if(rowColumn == null || rowColumn.length < nonZeros)
+         {
+            rowColumn = new int[matAlloc];
+            rowValue = new double[matAlloc];
+         }
+         for(i = 0;i <= rows + 1;i++)
+            rowStart[i] = 0;
+         for(i = 0;i < nonZeros;i++)
+            rowStart[matRowNr[i] + 1]++;
+         for(i = 1;i <= rows + 1;i++)
+            rowStart[i] += rowStart[i - 1];
+         for(i = 0;i <= rows;i++)
+            num[i] = rowStart[i];
+         for(i = 1;i <= columns;i++)
+            for(j = colEnd[i - 1];j < colEnd[i];j++)
+            {
+               rowNr = matRowNr[j];
+               rowColumn[num[rowNr]] = i;
+               rowValue[num[rowNr]] = matValue[j];
+               num[rowNr]++;
+            }
+
          //free(num);
 
          //free(rownum);
@@ -2635,7 +2721,7 @@ public class LpModel implements LpConstant
          for(j = colEnd[i - 1];j < colEnd[i];j++)
          {
             colnum[i]++;
-            rownum[mat[j].rowNr]++;
+            rownum[matRowNr[j]]++;
          }
       for(i = 1;i <= columns;i++)
          if(colnum[i] == 0)
@@ -31,14 +31,103 @@ public class LpSolver extends Solver implements LpConstant
    int Break_bb;
    double Extrad;
    double Trej;
+   /* Trej of the eta file, restored when switching back from BASIS_LU */
+   double etaTrej;
 
    int Level;
 
+   int basisFactorization = BASIS_ETA;
+   LpBasisFactor factor;
+   /* number of branch and bound worker threads */
+   int threads = 1;
+
+   /* columnDual() computes prow by rows when at most this fraction of it is nonzero */
+   static final double ROW_PRICING_DENSITY = 0.1;
+   /* column of the current pivot, when not kept in the eta file */
+   double[] enteringColumn;
+
    public LpSolver(LpModel model)
    {
       super(model);
    }
 
+   /**
+   * Selects how the basis is represented: BASIS_ETA for the product form eta file,
+   * refactored every maxNumInv pivots, or BASIS_LU for a sparse LU factorization
+   * with Forrest-Tomlin updates, refactored when the updates have caused too much fill.
+   * BASIS_LU also rejects pivots smaller than PREJ; switching back to BASIS_ETA
+   * restores the previous pivot rejection limit.
+   */
+   public void setBasisFactorization(int type)
+   {
+      if(type != BASIS_ETA && type != BASIS_LU)
+         throw (new IllegalArgumentException("Unknown basis factorization: " + type));
+      if(type == BASIS_LU && basisFactorization != BASIS_LU)
+      {
+         etaTrej = Trej;
+         Trej = PREJ;
+      }
+      else if(type == BASIS_ETA && basisFactorization == BASIS_LU)
+         Trej = etaTrej;
+      basisFactorization = type;
+      factor = null;
+      model.etaValid = FALSE;
+   }
+
+   public int getBasisFactorization()
+   {
+      return basisFactorization;
+   }
+
+   /**
+   * Sets the number of threads used by the branch and bound of an integer
+   * problem. With more than one thread each worker solves its nodes on its own
+   * copy of the model, see LpBranchAndBound; with one thread the nodes are
+   * searched depth first by milpsolve().
+   */
+   public void setThreads(int threads)
+   {
+      if(threads < 1)
+         throw (new IllegalArgumentException("Number of threads must be positive: " + threads));
+      this.threads = threads;
+   }
+
+   public int getThreads()
+   {
+      return threads;
+   }
+
+   private void ftran(LpModel lp, double[] pcol) throws Exception
+   {
+      if(basisFactorization == BASIS_LU)
+         factor.ftran(pcol, lp.epsel);
+      else
+         lp.ftran(pcol);
+   }
+
+   private void btran(LpModel lp, double[] row) throws Exception
+   {
+      if(basisFactorization == BASIS_LU)
+         factor.btran(row, lp.epsel);
+      else
+         lp.btran(row);
+   }
+
+   /**
+   * Keeps a copy of the pivot column for the next iteration.
+   */
+   private void condenseColumn(LpModel lp, int rowNr, double[] pcol) throws Exception
+   {
+      if(basisFactorization == BASIS_LU)
+      {
+         if(enteringColumn == null || enteringColumn.length != pcol.length)
+            enteringColumn = new double[pcol.length];
+         System.arraycopy(pcol, 0, enteringColumn, 0, pcol.length);
+      }
+      else
+         lp.condenseColumn(rowNr, pcol);
+   }
+
    final double myRound(double val, double eps) throws Exception
    {
       return (Math.abs(val) < eps) ? 0 : val;
@@ -92,7 +181,7 @@ public class LpSolver extends Solver implements LpConstant
          {
             colnr = varin - lp.rows;
             for(i = lp.colEnd[colnr - 1];i < lp.colEnd[colnr];i++)
-               pcol[lp.mat[i].rowNr] = lp.mat[i].value;
+               pcol[lp.matRowNr[i]] = lp.matValue[i];
             pcol[0] -= Extrad;
          }
          else
@@ -104,13 +193,13 @@ public class LpSolver extends Solver implements LpConstant
          {
             colnr = varin - lp.rows;
             for(i = lp.colEnd[colnr - 1];i < lp.colEnd[colnr];i++)
-               pcol[lp.mat[i].rowNr] = -lp.mat[i].value;
+               pcol[lp.matRowNr[i]] = -lp.matValue[i];
             pcol[0] += Extrad;
          }
          else
             pcol[varin] = -1;
       }
-      lp.ftran(pcol);
+      ftran(lp, pcol);
    } /* setpivcol */
 
    /**
@@ -172,20 +261,20 @@ public class LpSolver extends Solver implements LpConstant
       }
       for(j = lp.colEnd[colnr - 1];j < lp.colEnd[colnr];j++)
       {
-         k = lp.mat[j].rowNr;
+         k = lp.matRowNr[j];
          if(k == 0 && Extrad != 0)
-            lp.etaValue[lp.etaColEnd[lp.etaSize - 1]] += lp.mat[j].value;
+            lp.etaValue[lp.etaColEnd[lp.etaSize - 1]] += lp.matValue[j];
          else
             if(k != rowNr)
             {
                lp.etaRowNr[elnr] = k;
-               lp.etaValue[elnr] = lp.mat[j].value;
+               lp.etaValue[elnr] = lp.matValue[j];
                elnr++;
                if(elnr >= lp.etaAlloc)
                   lp.resizeEta(elnr);
             }
             else
-               piv = lp.mat[j].value;
+               piv = lp.matValue[j];
       }
       lp.etaRowNr[elnr] = rowNr;
       lp.etaValue[elnr] = 1 / piv;
@@ -259,7 +348,7 @@ public class LpSolver extends Solver implements LpConstant
       for(i = 1;i <= lp.sum;i++)
          rc[i] = 0;
       rc[0] = 1;
-      lp.btran(rc);
+      btran(lp, rc);
       for(i = 1;i <= lp.columns;i++)
       {
          varnr = lp.rows + i;
@@ -268,7 +357,7 @@ public class LpSolver extends Solver implements LpConstant
             {
                f = 0;
                for(j = lp.colEnd[i - 1];j < lp.colEnd[i];j++)
-                  f += rc[lp.mat[j].rowNr] * lp.mat[j].value;
+                  f += rc[lp.matRowNr[j]] * lp.matValue[j];
                rc[varnr] = f;
             }
       }
@@ -406,6 +495,11 @@ public class LpSolver extends Solver implements LpConstant
       int[] fcol;
       int rownum[], col[], row[];
       int[] colnum;
+      if(basisFactorization == BASIS_LU)
+      {
+         invertLu(lp);
+         return;
+      }
       if(lp.printAtInvert!=FALSE)
          print("Start Invert iter " + lp.iter + " etaSize " + lp.etaSize + " rhs[0] " + ((double)-lp.rhs[0]) + " \n");
 
@@ -467,7 +561,7 @@ public class LpSolver extends Solver implements LpConstant
          {
             theta = lp.upperBound[varnr];
             for(j = lp.colEnd[i - 1];j < lp.colEnd[i];j++)
-               lp.rhs[lp.mat[j].rowNr] -= theta * lp.mat[j].value;
+               lp.rhs[lp.matRowNr[j]] -= theta * lp.matValue[j];
          }
       }
       for(i = 1;i <= lp.rows;i++)
@@ -495,8 +589,8 @@ public class LpSolver extends Solver implements LpConstant
                fcol[colnr - 1] = FALSE;
                colnum[colnr] = 0;
                for(j = lp.colEnd[colnr - 1];j < lp.colEnd[colnr];j++)
-                  if(frow[lp.mat[j].rowNr] != FALSE)
-                     rownum[lp.mat[j].rowNr - 1]--;
+                  if(frow[lp.matRowNr[j]] != FALSE)
+                     rownum[lp.matRowNr[j] - 1]--;
                frow[rowNr] = FALSE;
                minorIteration(lp, colnr, rowNr);
             }
@@ -514,9 +608,9 @@ public class LpSolver extends Solver implements LpConstant
             {
                v = 0;
                j = lp.colEnd[colnr - 1] + 1;
-               while(!(frow[lp.mat[j - 1].rowNr]!=FALSE))
+               while(!(frow[lp.matRowNr[j - 1]]!=FALSE))
                   j++;
-               rowNr = lp.mat[j - 1].rowNr;
+               rowNr = lp.matRowNr[j - 1];
                frow[rowNr] = FALSE;
                rownum[rowNr - 1] = 0;
                for(j = lp.rowEnd[rowNr - 1] + 1;j <= lp.rowEnd[rowNr];j++)
@@ -554,7 +648,7 @@ public class LpSolver extends Solver implements LpConstant
          for(j = 0;j <= lp.rows;j++)
             pcol[j] = 0;
          for(j = lp.colEnd[colnr - 1];j < lp.colEnd[colnr];j++)
-            pcol[lp.mat[j].rowNr] = lp.mat[j].value;
+            pcol[lp.matRowNr[j]] = lp.matValue[j];
          pcol[0] -= Extrad;
          lp.condenseColumn(rowNr, pcol);
          theta = lp.rhs[rowNr] / (double)pcol[rowNr];
@@ -569,6 +663,45 @@ public class LpSolver extends Solver implements LpConstant
       DoInvert = FALSE;
    } /* invert */
 
+   /**
+   * Refactors the current basis as L U, keeping each basic variable at its position,
+   * and recalculates rhs with the same bound corrections as invert().
+   */
+   private void invertLu(LpModel lp) throws Exception
+   {
+      int i, j, varnr;
+      double theta;
+      if(lp.printAtInvert!=FALSE)
+         print("Start Invert iter " + lp.iter + " nonzeros " + (factor != null ? factor.getNonZeros() : 0) + " rhs[0] " + ((double)-lp.rhs[0]) + " \n");
+      for(i = 0;i <= lp.rows;i++)
+         lp.rhs[i] = lp.rh[i];
+      for(i = 1;i <= lp.columns;i++)
+      {
+         varnr = lp.rows + i;
+         if(!(lp.lower[varnr]!=FALSE))
+         {
+            theta = lp.upperBound[varnr];
+            for(j = lp.colEnd[i - 1];j < lp.colEnd[i];j++)
+               lp.rhs[lp.matRowNr[j]] -= theta * lp.matValue[j];
+         }
+      }
+      for(i = 1;i <= lp.rows;i++)
+         if(!(lp.lower[i] != FALSE))
+            lp.rhs[i] -= lp.upperBound[i];
+      if(factor == null || factor.size() != lp.rows + 1)
+         factor = new LpBasisFactor(lp.rows + 1);
+      factor.factor(lp, Extrad);
+      factor.ftran(lp.rhs, lp.epsel);
+      for(i = 1;i <= lp.rows;i++)
+         lp.rhs[i] = myRound(lp.rhs[i], lp.epsb);
+      lp.etaSize = 0;
+      lp.numInv = 0;
+      if(lp.printAtInvert!=FALSE)
+         print("End Invert                nonzeros " + factor.getNonZeros() + " rhs[0] " + ((double)-lp.rhs[0]) + "\n");
+      JustInverted = TRUE;
+      DoInvert = FALSE;
+   } /* invertLu */
+
    /** Each, colprimal - rowprimal and rowdual - coldual form a couple
    * btran( 1,0,0,0,0,0,...)
    * update result depending on variables at upper bound
@@ -611,7 +744,7 @@ public class LpSolver extends Solver implements LpConstant
          for(i = 1;i <= lp.sum;i++)
             drow[i] = 0;
          drow[0] = 1;
-         lp.btran(drow);
+         btran(lp, drow);
          for(i = 1;i <= lp.columns;i++)
          {
             varnr = lp.rows + i;
@@ -620,7 +753,7 @@ public class LpSolver extends Solver implements LpConstant
                {
                   f = 0;
                   for(j = lp.colEnd[i - 1];j < lp.colEnd[i];j++)
-                     f += drow[lp.mat[j].rowNr] * lp.mat[j].value;
+                     f += drow[lp.matRowNr[j]] * lp.matValue[j];
                   drow[varnr] = f;
                }
          }
@@ -854,7 +987,7 @@ public class LpSolver extends Solver implements LpConstant
    */
    private int columnDual(LpModel lp, int rowNr, DoubleReference colnr, int minit, double[] prow, double[] drow) throws Exception
    {
-      int i, j, k, r, varnr, rowp[], row;
+      int i, j, k, r, varnr, rowp[], row, nz;
       double theta, quot, pivot, d, f, g, valuep[], value;
       DoIter = FALSE;
       if(!(minit!=FALSE))
@@ -866,42 +999,77 @@ public class LpSolver extends Solver implements LpConstant
          }
          drow[0] = 1;
          prow[rowNr] = 1;
-         for(i = lp.etaSize;i >= 1;i--)
+         if(basisFactorization == BASIS_LU)
          {
-            d = 0;
-            f = 0;
-            r = lp.etaRowNr[lp.etaColEnd[i] - 1];
-            for(j = lp.etaColEnd[i - 1];j < lp.etaColEnd[i];j++)
+            factor.btran(prow, lp.epsel);
+            factor.btran(drow, lp.epsel);
+         }
+         else
+            for(i = lp.etaSize;i >= 1;i--)
             {
+               d = 0;
+               f = 0;
+               r = lp.etaRowNr[lp.etaColEnd[i] - 1];
+               for(j = lp.etaColEnd[i - 1];j < lp.etaColEnd[i];j++)
+               {
 
-               /* this is one of the loops where the program consumes a lot of CPU
-               time */
-               f += prow[lp.etaRowNr[j]] * lp.etaValue[j];
-               d += drow[lp.etaRowNr[j]] * lp.etaValue[j];
+                  /* this is one of the loops where the program consumes a lot of CPU
+                  time */
+                  f += prow[lp.etaRowNr[j]] * lp.etaValue[j];
+                  d += drow[lp.etaRowNr[j]] * lp.etaValue[j];
+               }
+               f = myRound(f, lp.epsel);
+               prow[r] = f;
+               d = myRound(d, lp.epsel);
+               drow[r] = d;
             }
-            f = myRound(f, lp.epsel);
-            prow[r] = f;
-            d = myRound(d, lp.epsel);
-            drow[r] = d;
-         }
-         for(i = 1;i <= lp.columns;i++)
+         nz = 0;
+         for(i = 0;i <= lp.rows;i++)
+            if(prow[i] != 0)
+               nz++;
+         if(lp.rowEndValid != FALSE && nz <= ROW_PRICING_DENSITY * (lp.rows + 1))
          {
-            varnr = lp.rows + i;
-            if(!(lp.basis[varnr] != FALSE))
+
+            /* few rows in prow: scatter them through the row-major copy */
+            for(i = lp.rows + 1;i <= lp.sum;i++)
+               prow[i] = 0;
+            for(i = 0;i <= lp.rows;i++)
+               if((f = prow[i]) != 0)
+                  for(j = lp.rowStart[i];j < lp.rowStart[i + 1];j++)
+                     prow[lp.rows + lp.rowColumn[j]] += f * lp.rowValue[j];
+            for(i = 1;i <= lp.columns;i++)
             {
-               d = -Extrad * drow[0];
-               f = 0;
-               for(j = lp.colEnd[i - 1];j < lp.colEnd[i];j++)
+               varnr = lp.rows + i;
+               if(!(lp.basis[varnr] != FALSE))
                {
-                  d = d + drow[lp.mat[j].rowNr] * lp.mat[j].value;
-                  f = f + prow[lp.mat[j].rowNr] * lp.mat[j].value;
+                  d = -Extrad * drow[0];
+                  for(j = lp.colEnd[i - 1];j < lp.colEnd[i];j++)
+                     d = d + drow[lp.matRowNr[j]] * lp.matValue[j];
+                  prow[varnr] = myRound(prow[varnr], lp.epsel);
+                  d = myRound(d, lp.epsd);
+                  drow[varnr] = d;
                }
-               f = myRound(f, lp.epsel);
-               prow[varnr] = f;
-               d = myRound(d, lp.epsd);
-               drow[varnr] = d;
             }
          }
+         else
+            for(i = 1;i <= lp.columns;i++)
+            {
+               varnr = lp.rows + i;
+               if(!(lp.basis[varnr] != FALSE))
+               {
+                  d = -Extrad * drow[0];
+                  f = 0;
+                  for(j = lp.colEnd[i - 1];j < lp.colEnd[i];j++)
+                  {
+                     d = d + drow[lp.matRowNr[j]] * lp.matValue[j];
+                     f = f + prow[lp.matRowNr[j]] * lp.matValue[j];
+                  }
+                  f = myRound(f, lp.epsel);
+                  prow[varnr] = f;
+                  d = myRound(d, lp.epsd);
+                  drow[varnr] = d;
+               }
+            }
       }
       if(lp.rhs[rowNr] > lp.upperBound[lp.bas[rowNr]])
          g = -1;
@@ -974,15 +1142,30 @@ public class LpSolver extends Solver implements LpConstant
          low.value = low.value == 0 ? 1 : 0;
       }
       k = lp.etaColEnd[lp.etaSize + 1];
-      pivot = lp.etaValue[k - 1];
-      for(i = lp.etaColEnd[lp.etaSize];i < k;i++)
+      if(basisFactorization == BASIS_LU)
       {
-         f = lp.rhs[lp.etaRowNr[i]] - theta.value * lp.etaValue[i];
-         f = myRound(f, lp.epsb);
-         lp.rhs[lp.etaRowNr[i]] = f;
+         pivot = enteringColumn[rowNr];
+         for(i = 0;i <= lp.rows;i++)
+            if(enteringColumn[i] != 0)
+            {
+               f = lp.rhs[i] - theta.value * enteringColumn[i];
+               f = myRound(f, lp.epsb);
+               lp.rhs[i] = f;
+            }
+      }
+      else
+      {
+         pivot = lp.etaValue[k - 1];
+         for(i = lp.etaColEnd[lp.etaSize];i < k;i++)
+         {
+            f = lp.rhs[lp.etaRowNr[i]] - theta.value * lp.etaValue[i];
+            f = myRound(f, lp.epsb);
+            lp.rhs[lp.etaRowNr[i]] = f;
+         }
       }
       if(!(minit.value != FALSE))
       {
+         double scale = 1;
          lp.rhs[rowNr] = theta.value;
          varout = lp.bas[rowNr];
          lp.bas[rowNr] = varin;
@@ -994,10 +1177,19 @@ public class LpSolver extends Solver implements LpConstant
          {
             low.value = TRUE;
             lp.rhs[rowNr] = up - lp.rhs[rowNr];
-            for(i = lp.etaColEnd[lp.etaSize];i < k;i++)
-               lp.etaValue[i] = -lp.etaValue[i];
+            if(basisFactorization == BASIS_LU)
+               scale = -1;
+            else
+               for(i = lp.etaColEnd[lp.etaSize];i < k;i++)
+                  lp.etaValue[i] = -lp.etaValue[i];
          }
-         addEtaColumn(lp);
+         if(basisFactorization == BASIS_LU)
+         {
+            factor.update(rowNr, scale);
+            JustInverted = FALSE;
+         }
+         else
+            addEtaColumn(lp);
          lp.numInv++;
       }
       if(lp.trace != FALSE)
@@ -1091,15 +1283,15 @@ public class LpSolver extends Solver implements LpConstant
             drow[i] = 0;
 
          /* fix according to Joerg Herbers */
-         lp.btran(drow);
+         btran(lp, drow);
          Extrad = 0;
          for(i = 1;i <= lp.columns;i++)
          {
             varnr = lp.rows + i;
             drow[varnr] = 0;
             for(j = lp.colEnd[i - 1];j < lp.colEnd[i];j++)
-               if(drow[lp.mat[j].rowNr] != 0)
-                  drow[varnr] += drow[lp.mat[j].rowNr] * lp.mat[j].value;
+               if(drow[lp.matRowNr[j]] != 0)
+                  drow[varnr] += drow[lp.matRowNr[j]] * lp.matValue[j];
             if(drow[varnr] < Extrad)
                Extrad = drow[varnr];
          }
@@ -1131,7 +1323,7 @@ public class LpSolver extends Solver implements LpConstant
                rowNr = (int) ref1.value;
                theta = ref2.value;
                if(flag != FALSE)
-                  lp.condenseColumn(rowNr, Pcol);
+                  condenseColumn(lp, rowNr, Pcol);
             }
          }
          else /* not primal */
@@ -1172,7 +1364,7 @@ public class LpSolver extends Solver implements LpConstant
                   }
                   else
                   {
-                     lp.condenseColumn(rowNr, Pcol);
+                     condenseColumn(lp, rowNr, Pcol);
                      f = lp.rhs[rowNr] - lp.upperBound[lp.bas[rowNr]];
                      if(f > 0)
                      {
@@ -1206,7 +1398,12 @@ public class LpSolver extends Solver implements LpConstant
             minit = (int) ref2.value;
             lp.lower[colnr] = (int) ref3.value;
          }
-         if(lp.numInv >= lp.maxNumInv)
+         if(basisFactorization == BASIS_LU)
+         {
+            if(factor.needsRefactor() != FALSE)
+               DoInvert = TRUE;
+         }
+         else if(lp.numInv >= lp.maxNumInv)
             DoInvert = TRUE;
          if(DoInvert!=FALSE)
          {
@@ -1256,7 +1453,7 @@ public class LpSolver extends Solver implements LpConstant
    * their lower bound to their upper bound.
    * Calculate values of the slack variables of a row.
    */
-   private void constructSolution(LpModel lp) throws Exception
+   void constructSolution(LpModel lp) throws Exception
    {
       int i, j, basi;
       double f;
@@ -1283,7 +1480,7 @@ public class LpSolver extends Solver implements LpConstant
             f = lp.solution[lp.rows + j];
             if(f != 0)
                for(i = lp.colEnd[j - 1];i < lp.colEnd[j];i++)
-                  lp.solution[lp.mat[i].rowNr] += (f / lp.scale[lp.rows + j]) * (lp.mat[i].value / lp.scale[lp.mat[i].rowNr]);
+                  lp.solution[lp.matRowNr[i]] += (f / lp.scale[lp.rows + j]) * (lp.matValue[i] / lp.scale[lp.matRowNr[i]]);
          }
          for(i = 0;i <= lp.rows;i++)
          {
@@ -1312,7 +1509,7 @@ public class LpSolver extends Solver implements LpConstant
             f = lp.solution[lp.rows + j];
             if(f != 0)
                for(i = lp.colEnd[j - 1];i < lp.colEnd[j];i++)
-                  lp.solution[lp.mat[i].rowNr] += f * lp.mat[i].value;
+                  lp.solution[lp.matRowNr[i]] += f * lp.matValue[i];
          }
          for(i = 0;i <= lp.rows;i++)
          {
@@ -1329,7 +1526,7 @@ public class LpSolver extends Solver implements LpConstant
    * In fact calculate the reduced costs of the slack variables
    * and correct values.
    */
-   private void calculateDuals(LpModel lp) throws Exception
+   void calculateDuals(LpModel lp) throws Exception
    {
       int i;
 
@@ -1337,7 +1534,7 @@ public class LpSolver extends Solver implements LpConstant
       lp.duals[0] = 1;
       for(i = 1;i <= lp.rows;i++)
          lp.duals[i] = 0;
-      lp.btran(lp.duals);
+      btran(lp, lp.duals);
       if(lp.scalingUsed != FALSE)
          for(i = 1;i <= lp.rows;i++)
             lp.duals[i] *= lp.scale[i] / lp.scale[0];
@@ -1410,69 +1607,15 @@ public class LpSolver extends Solver implements LpConstant
    } /* check_solution */
 
    /**
-   * First of all: copy the arrays upperBound and lowerBound
-   * to the pointers of Upbo and Lowbo. (Memory
-   * is allocated for these arrays. Pointers point
-   * to lp.upperBound and lp.lowerBound)
-   * (size of memory is updated, if new columns are
-   * added.)
-   * These arrays came from solve() as ORIGINAL
-   * bounds. Therefore no shifting of transformed bounds
-   * necessary in lpkit.c if solve() is called.
-   *
-   * if (lp.antiDegen)
-   * disturb lower and upper bound a little bit.
-   * if (!lp.etaValid)
-   * shift lower bounds to zero. This means:
-   * Orig_lowerBound   ... unchanged
-   * Orig_upperBound    ... unchanged
-   * lowerBound        ... unchanged (implicit in code = 0)
-   * upperBound         ... mainly upperBound_old - lowerBound.
-   *
-   * solveLp()
-   *
-   * if (lp.antiDegen)
-   * restore upperBound, lowerBound, Orig_rh and solve again.
-   *
-   * if (OPTIMAL solution of LP)
-   * check, if we can cutoff branch with LP value.
-   * look for noninteger variable (look for first
-   * or look random)
-   * if (noninteger variables)
-   * setup two new problems.
-   * Malloc new memory
-   * memcpy the data
-   * solve problems recursively (Floor_first/ceiling_irst)
-   * set return values
-   * else
-   * (all required values are int)
-   * check, if better solution found.
-   * (Yes)
-   * memcpy data
-   * perhaps break B+B
-   *
-   *
-   * Recursive Function. Pure depth first search.
-   * No easily accessible nodelist, because of depth
-   * first search. (Also less active nodes)
-   * Branching on first noninteger variablen or
-   * on a randomly selected variable.
-   * Avoid inverting if possible.
+   * Solves the LP relaxation of one branch and bound node: loads the bounds
+   * and (if recursive) the starting basis into lp, shifts the lower bounds to
+   * zero and runs the simplex, twice if lp.antiDegen is set.
    */
-   private int milpsolve(LpModel lp, double[] upperBound, double[] lowerBound, int[] sbasis, int[] slower, int[] sbas, int recursive) throws Exception
+   int solveNode(LpModel lp, double[] upperBound, double[] lowerBound, int[] sbasis, int[] slower, int[] sbas, int recursive) throws Exception
    {
-      int i, j, failure, is_worse;
-      int notint = Integer.MIN_VALUE;
+      int i, j, failure;
       double theta, tmpreal;
       Random rdm = new Random();
-      if(Break_bb != FALSE)
-         return (BREAK_BB);
-      Level++;
-      lp.totalNodes++;
-      if(Level > lp.maxLevel)
-         lp.maxLevel = Level;
-      lp.debugPrint(Level,"starting solve");
-
       /* make fresh copies of upperBound, lowerBound, rh as solving changes them */
 
       //memcpy(lp.upperBound,  upperBound,    (lp.sum + 1)  * sizeof(REAL));
@@ -1522,7 +1665,7 @@ public class LpSolver extends Solver implements LpConstant
                if(lp.upperBound[lp.rows + i] < lp.infinite)
                   lp.upperBound[lp.rows + i] -= theta;
                for(j = lp.colEnd[i - 1];j < lp.colEnd[i];j++)
-                  lp.rh[lp.mat[j].rowNr] -= theta * lp.mat[j].value;
+                  lp.rh[lp.matRowNr[j]] -= theta * lp.matValue[j];
             }
          invert(lp);
          lp.etaValid = TRUE;
@@ -1552,12 +1695,130 @@ public class LpSolver extends Solver implements LpConstant
                if(lp.upperBound[lp.rows + i] < lp.infinite)
                   lp.upperBound[lp.rows + i] -= theta;
                for(j = lp.colEnd[i - 1];j < lp.colEnd[i];j++)
-                  lp.rh[lp.mat[j].rowNr] -= theta * lp.mat[j].value;
+                  lp.rh[lp.matRowNr[j]] -= theta * lp.matValue[j];
             }
          invert(lp);
          lp.etaValid = TRUE;
          failure = solveLp(lp); /* and solve again */
       }
+      return (failure);
+   } /* solveNode */
+
+   /**
+   * Returns the variable to branch on in the current solution of lp, following
+   * lp.bbRule, or 0 if all integer variables already have integer values.
+   */
+   int selectBranchVariable(LpModel lp, double[] upperBound, double[] lowerBound, Random rdm) throws Exception
+   {
+      int i;
+      int notint = Integer.MIN_VALUE;
+      if(lp.bbRule == FIRST_NI)
+      {
+         for(notint = 0,i = lp.rows + 1;i <= lp.sum && notint == 0;i++)
+         {
+            if((lp.mustBeInt[i] != FALSE) && !(isInt(lp, i) != FALSE))
+            {
+               if(lowerBound[i] == upperBound[i])
+               { /* this var is already fixed */
+                  System.err.println("Warning: integer var " + (i - lp.rows) + " is already fixed at " + lowerBound[i] + ", but has non-integer value " + lp.solution[i]);
+                  System.err.println("Perhaps the -e option should be used");
+               }
+               else
+                  notint = i;
+            }
+         }
+      }
+      if(lp.bbRule == RAND_NI)
+      {
+         int nr_not_int, select_not_int;
+         nr_not_int = 0;
+         for(i = lp.rows + 1;i <= lp.sum;i++)
+            if((lp.mustBeInt[i] != FALSE) && !(isInt(lp, i) != FALSE))
+               nr_not_int++;
+         if(nr_not_int == 0)
+            notint = 0;
+         else
+         {
+            select_not_int = (rdm.nextInt() % nr_not_int) + 1;
+            i = lp.rows + 1;
+            while(select_not_int > 0)
+            {
+               if((lp.mustBeInt[i] != FALSE) && !(isInt(lp, i) != FALSE))
+                  select_not_int--;
+               i++;
+            }
+            notint = i - 1;
+         }
+      }
+      if (notint == Integer.MIN_VALUE)
+         throw(new Exception("notint is not being initialized!"));
+      return (notint);
+   } /* selectBranchVariable */
+
+   /**
+   * First of all: copy the arrays upperBound and lowerBound
+   * to the pointers of Upbo and Lowbo. (Memory
+   * is allocated for these arrays. Pointers point
+   * to lp.upperBound and lp.lowerBound)
+   * (size of memory is updated, if new columns are
+   * added.)
+   * These arrays came from solve() as ORIGINAL
+   * bounds. Therefore no shifting of transformed bounds
+   * necessary in lpkit.c if solve() is called.
+   *
+   * if (lp.antiDegen)
+   * disturb lower and upper bound a little bit.
+   * if (!lp.etaValid)
+   * shift lower bounds to zero. This means:
+   * Orig_lowerBound   ... unchanged
+   * Orig_upperBound    ... unchanged
+   * lowerBound        ... unchanged (implicit in code = 0)
+   * upperBound         ... mainly upperBound_old - lowerBound.
+   *
+   * solveLp()
+   *
+   * if (lp.antiDegen)
+   * restore upperBound, lowerBound, Orig_rh and solve again.
+   *
+   * if (OPTIMAL solution of LP)
+   * check, if we can cutoff branch with LP value.
+   * look for noninteger variable (look for first
+   * or look random)
+   * if (noninteger variables)
+   * setup two new problems.
+   * Malloc new memory
+   * memcpy the data
+   * solve problems recursively (Floor_first/ceiling_irst)
+   * set return values
+   * else
+   * (all required values are int)
+   * check, if better solution found.
+   * (Yes)
+   * memcpy data
+   * perhaps break B+B
+   *
+   *
+   * Recursive Function. Pure depth first search.
+   * No easily accessible nodelist, because of depth
+   * first search. (Also less active nodes)
+   * Branching on first noninteger variablen or
+   * on a randomly selected variable.
+   * Avoid inverting if possible.
+   */
+   private int milpsolve(LpModel lp, double[] upperBound, double[] lowerBound, int[] sbasis, int[] slower, int[] sbas, int recursive) throws Exception
+   {
+      int failure, is_worse;
+      int notint = Integer.MIN_VALUE;
+      Random rdm = new Random();
+      if(Break_bb != FALSE)
+         return (BREAK_BB);
+      Level++;
+      lp.totalNodes++;
+      if(Level > lp.maxLevel)
+         lp.maxLevel = Level;
+      lp.debugPrint(Level,"starting solve");
+
+      failure = solveNode(lp, upperBound, lowerBound, sbasis, slower, sbas, recursive);
       if(failure != OPTIMAL)
          lp.debugPrint(Level, "this problem has no solution, it is "+((failure == UNBOUNDED) ? "unbounded" : "infeasible"));
       if(failure == INFEASIBLE && (lp.verbose != FALSE))
@@ -1590,46 +1851,7 @@ public class LpSolver extends Solver implements LpConstant
          }
 
          /* check if solution contains enough ints */
-         if(lp.bbRule == FIRST_NI)
-         {
-            for(notint = 0,i = lp.rows + 1;i <= lp.sum && notint == 0;i++)
-            {
-               if((lp.mustBeInt[i] != FALSE) && !(isInt(lp, i) != FALSE))
-               {
-                  if(lowerBound[i] == upperBound[i])
-                  { /* this var is already fixed */
-                     System.err.println("Warning: integer var " + (i - lp.rows) + " is already fixed at " + lowerBound[i] + ", but has non-integer value " + lp.solution[i]);
-                     System.err.println("Perhaps the -e option should be used");
-                  }
-                  else
-                     notint = i;
-               }
-            }
-         }
-         if(lp.bbRule == RAND_NI)
-         {
-            int nr_not_int, select_not_int;
-            nr_not_int = 0;
-            for(i = lp.rows + 1;i <= lp.sum;i++)
-               if((lp.mustBeInt[i] != FALSE) && !(isInt(lp, i) != FALSE))
-                  nr_not_int++;
-            if(nr_not_int == 0)
-               notint = 0;
-            else
-            {
-               select_not_int = (rdm.nextInt() % nr_not_int) + 1;
-               i = lp.rows + 1;
-               while(select_not_int > 0)
-               {
-                  if((lp.mustBeInt[i] != FALSE) && !(isInt(lp, i) != FALSE))
-                     select_not_int--;
-                  i++;
-               }
-               notint = i - 1;
-            }
-         }
-         if (notint == Integer.MIN_VALUE)
-            throw(new Exception("notint is not being initialized!"));
+         notint = selectBranchVariable(lp, upperBound, lowerBound, rdm);
          if(lp.verbose != FALSE)
          {
             if(notint != FALSE)
@@ -1834,7 +2056,10 @@ public class LpSolver extends Solver implements LpConstant
          }
          lp.etaValid = FALSE;
          Break_bb = FALSE;
-         result = milpsolve(lp, lp.origUpperBound, lp.origLowerBound, lp.basis, lp.lower, lp.bas, FALSE);
+         if(threads > 1)
+            result = new LpBranchAndBound(this, lp, threads).solve();
+         else
+            result = milpsolve(lp, lp.origUpperBound, lp.origLowerBound, lp.basis, lp.lower, lp.bas, FALSE);
          return (result);
       }
 
@@ -0,0 +1,135 @@
+import java.util.*;
+
+import com.cflex.util.lpSolve.*;
+
+/**
+ * Regression test for the basis factorizations: solves the same random LP and
+ * MILP models with BASIS_ETA and with BASIS_LU, and checks that both find the
+ * same status and optimum. A solver switched to BASIS_LU and back to BASIS_ETA
+ * must behave exactly like one that was never switched.
+ * Exits with status 1 if any model differs.
+ */
+public class TestBasisFactorization
+{
+   static final int MODELS = 300;
+   static final double TOLERANCE = 1e-6;
+
+   static class QuietListener implements SolverListener
+   {
+      public void message(String msg) {}
+      public void messageln(String msg) {}
+      public void errorMessage(String msg) {}
+      public void stepUpdate(long step) {}
+      public void stateChanged() {}
+      public void error(Exception ex) {}
+      public void finished(int status) {}
+   }
+
+   /**
+   * A random model with up to 30 rows and columns, every column used by at
+   * least one constraint. A third of the models have integer variables.
+   */
+   static LpModel createModel(long seed) throws Exception
+   {
+      Random random = new Random(seed);
+      int rows = 2 + random.nextInt(30);
+      int columns = 2 + random.nextInt(30);
+      double density = 0.1 + 0.6 * random.nextDouble();
+      boolean integers = random.nextInt(3) == 0;
+      LpModel lp = new LpModel(0, columns);
+      double[] v = new double[columns + 1];
+      for(int j = 1; j <= columns; j++)
+         v[j] = random.nextInt(21) - 5;
+      lp.setObjFn(v);
+      if(random.nextBoolean())
+         lp.setMaximum();
+      boolean[] used = new boolean[columns + 1];
+      for(int i = 0; i < rows; i++)
+      {
+         Arrays.fill(v, 0);
+         for(int j = 1; j <= columns; j++)
+            if(random.nextDouble() < density || (i == rows - 1 && !used[j]))
+            {
+               v[j] = random.nextInt(19) - 6;
+               if(v[j] == 0)
+                  v[j] = 1;
+               used[j] = true;
+            }
+         int type = random.nextInt(10);
+         if(type < 7)
+            lp.addConstraint(v, LpConstant.LE, random.nextInt(50) + 5);
+         else if(type < 9)
+            lp.addConstraint(v, LpConstant.GE, random.nextInt(10));
+         else
+            lp.addConstraint(v, LpConstant.EQ, random.nextInt(20));
+      }
+      for(int j = 1; j <= columns; j++)
+      {
+         if(random.nextInt(3) > 0)
+            lp.setUpperBound(j, random.nextInt(18) + 3);
+         if(random.nextInt(5) == 0)
+            lp.setLowerBound(j, random.nextInt(3));
+         if(integers && random.nextInt(3) == 0)
+            lp.setInt(j, LpConstant.TRUE);
+      }
+      return lp;
+   }
+
+   /**
+   * Solves a model, selecting each of the given factorizations in turn, and
+   * returns the status followed by the best solution.
+   */
+   static double[] solve(long seed, int[] factorizations) throws Exception
+   {
+      LpModel lp = createModel(seed);
+      LpSolver solver = new LpSolver(lp);
+      solver.viewer = new QuietListener();
+      for(int i = 0; i < factorizations.length; i++)
+         solver.setBasisFactorization(factorizations[i]);
+      int status = solver.solve();
+      double[] result = new double[lp.getRows() + lp.getColumns() + 2];
+      result[0] = status;
+      for(int i = 1; i < result.length; i++)
+         result[i] = lp.getBestSolution(i - 1);
+      return result;
+   }
+
+   public static void main(String args[])
+   {
+      int failures = 0, optimal = 0;
+      try
+      {
+         for(int seed = 0; seed < MODELS; seed++)
+         {
+            double[] eta = solve(seed, new int[] {LpConstant.BASIS_ETA});
+            double[] lu = solve(seed, new int[] {LpConstant.BASIS_LU});
+            double[] switched = solve(seed, new int[] {LpConstant.BASIS_LU, LpConstant.BASIS_ETA});
+            boolean same = eta[0] == lu[0];
+            if(same && eta[0] == LpConstant.OPTIMAL)
+            {
+               optimal++;
+               same = Math.abs(eta[1] - lu[1]) <= TOLERANCE * Math.max(1, Math.abs(eta[1]));
+            }
+            if(!same)
+            {
+               failures++;
+               System.out.println("Model " + seed + ": BASIS_ETA status " + (int)eta[0] + " objective " + eta[1]
+                  + ", BASIS_LU status " + (int)lu[0] + " objective " + lu[1]);
+            }
+            if(!Arrays.equals(eta, switched))
+            {
+               failures++;
+               System.out.println("Model " + seed + ": switching back to BASIS_ETA changed the solution");
+            }
+         }
+      }
+      catch (Exception ex)
+      {
+         ex.printStackTrace();
+         System.exit(1);
+      }
+      System.out.println(MODELS + " models, " + optimal + " optimal, " + failures + " failures");
+      if(failures > 0)
+         System.exit(1);
+   } // end of main
+} // end of class TestBasisFactorization
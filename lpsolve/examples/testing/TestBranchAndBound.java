@@ -0,0 +1,160 @@
+import java.util.*;
+
+import com.cflex.util.lpSolve.*;
+
+/**
+ * Regression test for the multi-threaded branch and bound: solves random
+ * 0-1 knapsack models with 1, 4 and 8 threads and checks that they find the
+ * same optimum with an integer solution. Also checks that the LpModel copy
+ * constructor copies its argument, which every worker thread relies on, and
+ * that an interrupt of the solving thread is passed on.
+ * Exits with status 1 if any check fails.
+ */
+public class TestBranchAndBound
+{
+   static final int MODELS = 20;
+   static final int[] THREADS = {1, 4, 8};
+   static final double TOLERANCE = 1e-6;
+
+   static int failures = 0;
+
+   static class QuietListener implements SolverListener
+   {
+      public void message(String msg) {}
+      public void messageln(String msg) {}
+      public void errorMessage(String msg) {}
+      public void stepUpdate(long step) {}
+      public void stateChanged() {}
+      public void error(Exception ex) {}
+      public void finished(int status) {}
+   }
+
+   /**
+   * A maximisation over binary variables with a few knapsack constraints,
+   * each of which admits about half of the items.
+   */
+   static LpModel createModel(long seed) throws Exception
+   {
+      Random random = new Random(seed);
+      int columns = 15 + random.nextInt(10);
+      int rows = 2 + random.nextInt(3);
+      LpModel lp = new LpModel(0, columns);
+      double[] v = new double[columns + 1];
+      for(int j = 1; j <= columns; j++)
+         v[j] = 10 + random.nextInt(90);
+      lp.setObjFn(v);
+      lp.setMaximum();
+      for(int i = 0; i < rows; i++)
+      {
+         double sum = 0;
+         for(int j = 1; j <= columns; j++)
+         {
+            v[j] = 5 + random.nextInt(60);
+            sum += v[j];
+         }
+         lp.addConstraint(v, LpConstant.LE, Math.floor(sum / 2));
+      }
+      for(int j = 1; j <= columns; j++)
+      {
+         lp.setUpperBound(j, 1);
+         lp.setInt(j, LpConstant.TRUE);
+      }
+      return lp;
+   }
+
+   static void check(boolean condition, String message)
+   {
+      if(!condition)
+      {
+         failures++;
+         System.out.println(message);
+      }
+   }
+
+   static LpSolver createSolver(LpModel lp, int threads)
+   {
+      LpSolver solver = new LpSolver(lp);
+      solver.viewer = new QuietListener();
+      solver.setThreads(threads);
+      return solver;
+   }
+
+   static void testThreads() throws Exception
+   {
+      for(int seed = 0; seed < MODELS; seed++)
+      {
+         double expected = 0;
+         for(int t = 0; t < THREADS.length; t++)
+         {
+            LpModel lp = createModel(seed);
+            int status = createSolver(lp, THREADS[t]).solve();
+            check(status == LpConstant.OPTIMAL, "Model " + seed + ", " + THREADS[t] + " threads: status " + status);
+            double objective = lp.getBestSolution(0);
+            if(t == 0)
+               expected = objective;
+            else
+               check(Math.abs(objective - expected) <= TOLERANCE * Math.max(1, Math.abs(expected)),
+                  "Model " + seed + ", " + THREADS[t] + " threads: objective " + objective + ", expected " + expected);
+            for(int j = 1; j <= lp.getColumns(); j++)
+            {
+               double x = lp.getBestSolution(lp.getRows() + j);
+               check(Math.abs(x - Math.rint(x)) <= TOLERANCE, "Model " + seed + ", " + THREADS[t] + " threads: variable " + j + " = " + x);
+            }
+         }
+      }
+   }
+
+   static void testCopy() throws Exception
+   {
+      LpModel lp = createModel(MODELS);
+      LpModel copy = new LpModel(lp);
+      check(copy.getRows() == lp.getRows() && copy.getColumns() == lp.getColumns(), "Copy has different dimensions");
+      double[] row = new double[lp.getColumns() + 1];
+      double[] copyRow = new double[lp.getColumns() + 1];
+      for(int i = 0; i <= lp.getRows(); i++)
+      {
+         lp.getRow(i, row);
+         copy.getRow(i, copyRow);
+         check(Arrays.equals(row, copyRow), "Copy differs in row " + i);
+      }
+      // changing the copy must leave the original alone
+      double element = lp.matrixElement(1, 1);
+      copy.setMatrixElement(1, 1, element + 1);
+      copy.addConstraint(row, LpConstant.LE, 1);
+      check(lp.matrixElement(1, 1) == element, "Changing the copy changed the original matrix");
+      check(lp.getRows() == copy.getRows() - 1, "Changing the copy changed the original rows");
+
+      lp = createModel(MODELS);
+      copy = new LpModel(lp);
+      createSolver(lp, 1).solve();
+      createSolver(copy, 1).solve();
+      check(lp.getBestSolution(0) == copy.getBestSolution(0), "Copy has a different optimum");
+   }
+
+   static void testInterrupt() throws Exception
+   {
+      LpModel lp = createModel(0);
+      LpSolver solver = createSolver(lp, 4);
+      Thread.currentThread().interrupt();
+      solver.solve();
+      check(Thread.interrupted(), "Interrupt was not passed on");
+   }
+
+   public static void main(String args[])
+   {
+      try
+      {
+         testThreads();
+         testCopy();
+         testInterrupt();
+      }
+      catch (Exception ex)
+      {
+         ex.printStackTrace();
+         System.exit(1);
+      }
+      System.out.println(failures + " failures");
+      if(failures > 0)
+         System.exit(1);
+   } // end of main
+} // end of class TestBranchAndBound
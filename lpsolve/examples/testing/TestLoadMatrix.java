@@ -0,0 +1,173 @@
+import java.util.*;
+
+import com.cflex.util.lpSolve.*;
+
+/**
+ * Regression test for LpModel.loadMatrix(): a matrix loaded column by column
+ * must give the same model and optimum as the same rows added with
+ * addConstraint(), and a load that fails must leave the model unchanged.
+ * Exits with status 1 if any check fails.
+ */
+public class TestLoadMatrix
+{
+   static final int MODELS = 50;
+   static final double TOLERANCE = 1e-6;
+
+   static int failures = 0;
+
+   static class QuietListener implements SolverListener
+   {
+      public void message(String msg) {}
+      public void messageln(String msg) {}
+      public void errorMessage(String msg) {}
+      public void stepUpdate(long step) {}
+      public void stateChanged() {}
+      public void error(Exception ex) {}
+      public void finished(int status) {}
+   }
+
+   /**
+   * A model built from a dense matrix, objective in row 0. With rows false
+   * the constraints are added as zero rows, so that loadMatrix() can fill them.
+   */
+   static LpModel createModel(double[][] a, int[] type, double[] rh, boolean rows) throws Exception
+   {
+      int i, j;
+      int columns = a[0].length - 1;
+      LpModel lp = new LpModel(0, columns);
+      lp.setObjFn(rows ? a[0] : new double[columns + 1]);
+      for(i = 1; i < a.length; i++)
+         lp.addConstraint(rows ? a[i] : new double[columns + 1], type[i], rh[i]);
+      for(j = 1; j <= columns; j++)
+         lp.setUpperBound(j, 10);
+      lp.setMaximum();
+      return lp;
+   }
+
+   static void check(boolean condition, String message)
+   {
+      if(!condition)
+      {
+         failures++;
+         System.out.println(message);
+      }
+   }
+
+   static double[][] getMatrix(LpModel lp) throws Exception
+   {
+      double[][] a = new double[lp.getRows() + 1][lp.getColumns() + 1];
+      for(int i = 0; i <= lp.getRows(); i++)
+         lp.getRow(i, a[i]);
+      return a;
+   }
+
+   static boolean equals(double[][] a, double[][] b)
+   {
+      if(a.length != b.length)
+         return false;
+      for(int i = 0; i < a.length; i++)
+         if(!Arrays.equals(a[i], b[i]))
+            return false;
+      return true;
+   }
+
+   static double solve(LpModel lp) throws Exception
+   {
+      LpSolver solver = new LpSolver(lp);
+      solver.viewer = new QuietListener();
+      int status = solver.solve();
+      return status == LpConstant.OPTIMAL ? lp.getBestSolution(0) : Double.NaN;
+   }
+
+   static void expectFailure(LpModel lp, int[] colStart, int[] rowNr, double[] value, String what) throws Exception
+   {
+      double[][] before = getMatrix(lp);
+      double optimum = solve(new LpModel(lp));
+      try
+      {
+         lp.loadMatrix(colStart, rowNr, value);
+         check(false, what + " was loaded");
+      }
+      catch (Exception ex)
+      {
+         // expected
+      }
+      check(equals(before, getMatrix(lp)), what + " changed the matrix");
+      check(Double.compare(solve(lp), optimum) == 0, what + " changed the optimum");
+   }
+
+   public static void main(String args[])
+   {
+      try
+      {
+         for(int seed = 0; seed < MODELS; seed++)
+         {
+            Random random = new Random(seed);
+            int rows = 5 + random.nextInt(20);
+            int columns = 5 + random.nextInt(20);
+            double[][] a = new double[rows + 1][columns + 1];
+            int[] type = new int[rows + 1];
+            double[] rh = new double[rows + 1];
+            for(int j = 1; j <= columns; j++)
+               a[0][j] = random.nextInt(20) - 5;
+            for(int i = 1; i <= rows; i++)
+            {
+               for(int j = 1; j <= columns; j++)
+                  if(random.nextInt(3) == 0)
+                     a[i][j] = 1 + random.nextInt(9);
+               a[i][1 + random.nextInt(columns)] = 1 + random.nextInt(9);
+               type[i] = random.nextInt(4) == 0 ? LpConstant.GE : LpConstant.LE;
+               rh[i] = type[i] == LpConstant.GE ? 1 + random.nextInt(9) : 10 + random.nextInt(50);
+            }
+
+            // the same matrix in compressed columns
+            int[] colStart = new int[columns + 1];
+            int[] rowNr = new int[(rows + 1) * columns];
+            double[] value = new double[(rows + 1) * columns];
+            int k = 0;
+            for(int j = 1; j <= columns; j++)
+            {
+               for(int i = 0; i <= rows; i++)
+                  if(a[i][j] != 0)
+                  {
+                     rowNr[k] = i;
+                     value[k] = a[i][j];
+                     k++;
+                  }
+               colStart[j] = k;
+            }
+
+            LpModel added = createModel(a, type, rh, true);
+            LpModel loaded = createModel(a, type, rh, false);
+            loaded.loadMatrix(colStart, rowNr, value);
+            check(equals(getMatrix(added), getMatrix(loaded)), "Model " + seed + ": loaded matrix differs");
+            double expected = solve(added);
+            double optimum = solve(loaded);
+            check(Double.compare(expected, optimum) == 0 || Math.abs(expected - optimum) <= TOLERANCE * Math.max(1, Math.abs(expected)),
+               "Model " + seed + ": loaded optimum " + optimum + ", expected " + expected);
+
+            // bad matrices, broken only in the last column
+            int[] badRowNr = (int[])rowNr.clone();
+            badRowNr[k - 1] = rows + 1;
+            expectFailure(loaded, colStart, badRowNr, value, "Model " + seed + ": row out of range");
+            if(colStart[columns] - colStart[columns - 1] > 1)
+            {
+               badRowNr = (int[])rowNr.clone();
+               badRowNr[k - 1] = badRowNr[k - 2];
+               expectFailure(loaded, colStart, badRowNr, value, "Model " + seed + ": duplicate row");
+            }
+            int[] badColStart = (int[])colStart.clone();
+            badColStart[columns] = badColStart[columns - 1] - 1;
+            expectFailure(loaded, badColStart, rowNr, value, "Model " + seed + ": decreasing colStart");
+         }
+      }
+      catch (Exception ex)
+      {
+         ex.printStackTrace();
+         System.exit(1);
+      }
+      System.out.println(MODELS + " models, " + failures + " failures");
+      if(failures > 0)
+         System.exit(1);
+   } // end of main
+} // end of class TestLoadMatrix